@@ -1,6 +1,7 @@
 package AST;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 
 public class ClassNode implements Node {
@@ -10,6 +11,10 @@ public class ClassNode implements Node {
     public List<ConstructorNode> constructors = new ArrayList<>();
     public List<MethodDeclarationNode> methods = new ArrayList<>();
     public List<MemberNode> members = new ArrayList<>();
+    //set by Tran.Linker: the methods by name (in declaration order), and for each interface this class implements
+    //(indexed by InterfaceNode.id) its method for each of the interface's headers, or null when the values decide
+    public HashMap<String, MethodDeclarationNode[]> dispatch;
+    public MethodDeclarationNode[][] itables;
 
     @Override
     public String toString() {
@@ -0,0 +1,532 @@
+package AST;
+
+import Tran.SymbolTable;
+import Tran.SyntaxErrorException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * An immutable copy of a TranNode kept in a few flat arrays instead of one object per node, for large programs that
+ * are read many times. Nodes are ints: every node has a kind, two ints of data and a run of children, all in arrays of
+ * exactly the right size. Names are interned in a SymbolTable and kept as ids. Nothing is Optional: a missing name is
+ * NONE (null from the String accessors) and a missing child is simply not there.
+ *      CompactTree tree = CompactTree.of(tran);
+ *      for (int i = 0; i < tree.childCount(tree.root()); i++) ...
+ * Nodes are numbered in postfix order, so a node's children always have smaller numbers than the node itself and
+ * root() is the last node. Building the tree and turning it back into nodes (toTranNode()) both use their own stack,
+ * not the Java stack, so expressions of any depth can be converted.
+ * The children of each kind:
+ *      TRAN            LIST of INTERFACE, LIST of CLASS
+ *      INTERFACE       METHOD_HEADER...
+ *      METHOD_HEADER   LIST of parameter DECLARATION, LIST of return DECLARATION
+ *      CLASS           LIST of NAME (interfaces), LIST of member DECLARATION, LIST of CONSTRUCTOR, LIST of METHOD
+ *      CONSTRUCTOR     LIST of parameters, LIST of locals, LIST of statements
+ *      METHOD          LIST of parameters, LIST of returns, LIST of locals, LIST of statements
+ *      DECLARATION     the initializer, if there is one
+ *      ASSIGNMENT      the expression
+ *      METHOD_CALL     LIST of VARIABLE (the return values), then the arguments
+ *      IF              the condition, LIST of statements, then LIST of else statements if there is an else
+ *      LOOP            the expression, LIST of statements
+ *      MATH, COMPARE, BOOLEAN_OP   left, right
+ *      NOT             the operand
+ *      NEW, CALL       the arguments
+ */
+public final class CompactTree {
+    public static final int NONE = -1;
+    public static final int SHARED = 1, PRIVATE = 2;     //the flags of a METHOD
+
+    public enum Kind {
+        TRAN, INTERFACE, METHOD_HEADER, CLASS, CONSTRUCTOR, METHOD, DECLARATION, LIST, NAME,
+        ASSIGNMENT, METHOD_CALL, IF, LOOP,
+        NUMBER, STRING, CHARACTER, BOOLEAN, VARIABLE, MATH, COMPARE, BOOLEAN_OP, NOT, NEW, CALL
+    }
+    private static final Kind[] KINDS = Kind.values();
+
+    private final byte[] kinds;
+    //what data holds depends on the kind: a name's id (the method's for calls), an operator's ordinal, a float's bits,
+    //a char, or 0/1 for a boolean
+    private final int[] data;
+    //the second name's id, or NONE: a declaration's type, a call's object, a loop's variable. A method's flags
+    private final int[] extra;
+    private final int[] firstChild;    //where each node's children start in children, plus one entry for the end
+    private final int[] children;
+    private final String[] names;
+
+    private CompactTree(byte[] kinds, int[] data, int[] extra, int[] firstChild, int[] children, String[] names) {
+        this.kinds = kinds;
+        this.data = data;
+        this.extra = extra;
+        this.firstChild = firstChild;
+        this.children = children;
+        this.names = names;
+    }
+
+    public int size() {
+        return kinds.length;
+    }
+
+    public int root() {
+        return kinds.length - 1;
+    }
+
+    public Kind kind(int node) {
+        return KINDS[kinds[node]];
+    }
+
+    public int childCount(int node) {
+        return firstChild[node + 1] - firstChild[node];
+    }
+
+    public int child(int node, int index) {
+        return children[firstChild[node] + index];
+    }
+
+    /**
+     * @return the name of a CLASS, INTERFACE, METHOD_HEADER, METHOD, DECLARATION, NAME, VARIABLE, NEW (its class),
+     * ASSIGNMENT (its target), METHOD_CALL or CALL, or the value of a STRING
+     */
+    public String name(int node) {
+        return names[data[node]];
+    }
+
+    /**
+     * @return the id of name(node), the same for every node with the same name
+     */
+    public int nameId(int node) {
+        return data[node];
+    }
+
+    /**
+     * @return the type of a DECLARATION
+     */
+    public String type(int node) {
+        return names[extra[node]];
+    }
+
+    /**
+     * @return the object a METHOD_CALL or CALL is made on, or null when there is none
+     */
+    public String objectName(int node) {
+        return extra[node] == NONE ? null : names[extra[node]];
+    }
+
+    /**
+     * @return the variable a LOOP assigns, or null when there is none
+     */
+    public String loopVariable(int node) {
+        return objectName(node);
+    }
+
+    public boolean isShared(int node) {
+        return (extra[node] & SHARED) != 0;
+    }
+
+    public boolean isPrivate(int node) {
+        return (extra[node] & PRIVATE) != 0;
+    }
+
+    public float number(int node) {
+        return Float.intBitsToFloat(data[node]);
+    }
+
+    public char character(int node) {
+        return (char) data[node];
+    }
+
+    public boolean bool(int node) {
+        return data[node] != 0;
+    }
+
+    /**
+     * @return the ordinal of a MATH, COMPARE or BOOLEAN_OP node's operation
+     */
+    public int operator(int node) {
+        return data[node];
+    }
+
+    /**
+     * Copies tran into a CompactTree. Method bodies that have not been parsed yet are parsed first.
+     * @throws SyntaxErrorException - when the body of a lazily parsed method does not parse
+     * @throws IllegalArgumentException - when tran has built-in methods, such as one an Interpreter has run
+     */
+    public static CompactTree of(TranNode tran) throws SyntaxErrorException {
+        return new Builder().build(tran);
+    }
+
+    /**
+     * @return a new TranNode equal to the one this tree was made from, with every method body parsed
+     */
+    @SuppressWarnings("unchecked")
+    public TranNode toTranNode() {
+        Object[] built = new Object[kinds.length];
+        for (int node = 0; node < kinds.length; node++) {
+            int first = firstChild[node];
+            Object made;
+            switch (kind(node)) {
+                case TRAN -> {
+                    TranNode tranNode = new TranNode();
+                    tranNode.Interfaces.addAll((List<InterfaceNode>) built[children[first]]);
+                    tranNode.Classes.addAll((List<ClassNode>) built[children[first + 1]]);
+                    made = tranNode;
+                }
+                case INTERFACE -> {
+                    InterfaceNode interfaceNode = new InterfaceNode();
+                    interfaceNode.name = name(node);
+                    for (int i = first; i < firstChild[node + 1]; i++) interfaceNode.methods.add((MethodHeaderNode) built[children[i]]);
+                    made = interfaceNode;
+                }
+                case METHOD_HEADER -> {
+                    MethodHeaderNode header = new MethodHeaderNode();
+                    header.name = name(node);
+                    header.parameters = (List<VariableDeclarationNode>) built[children[first]];
+                    header.returns = (List<VariableDeclarationNode>) built[children[first + 1]];
+                    made = header;
+                }
+                case CLASS -> {
+                    ClassNode classNode = new ClassNode();
+                    classNode.name = name(node);
+                    classNode.interfaces = (List<String>) built[children[first]];
+                    for (VariableDeclarationNode declaration : (List<VariableDeclarationNode>) built[children[first + 1]]) {
+                        MemberNode memberNode = new MemberNode();
+                        memberNode.declaration = declaration;
+                        classNode.members.add(memberNode);
+                    }
+                    classNode.constructors = (List<ConstructorNode>) built[children[first + 2]];
+                    classNode.methods = (List<MethodDeclarationNode>) built[children[first + 3]];
+                    made = classNode;
+                }
+                case CONSTRUCTOR -> {
+                    ConstructorNode constructorNode = new ConstructorNode();
+                    constructorNode.parameters = (List<VariableDeclarationNode>) built[children[first]];
+                    constructorNode.locals = (List<VariableDeclarationNode>) built[children[first + 1]];
+                    constructorNode.statements = (List<StatementNode>) built[children[first + 2]];
+                    made = constructorNode;
+                }
+                case METHOD -> {
+                    MethodDeclarationNode method = new MethodDeclarationNode();
+                    method.name = name(node);
+                    method.isShared = isShared(node);
+                    method.isPrivate = isPrivate(node);
+                    method.parameters = (List<VariableDeclarationNode>) built[children[first]];
+                    method.returns = (List<VariableDeclarationNode>) built[children[first + 1]];
+                    method.locals = (List<VariableDeclarationNode>) built[children[first + 2]];
+                    method.statements = (List<StatementNode>) built[children[first + 3]];
+                    made = method;
+                }
+                case DECLARATION -> {
+                    VariableDeclarationNode declaration = new VariableDeclarationNode();
+                    declaration.name = name(node);
+                    declaration.type = type(node);
+                    if (childCount(node) > 0) declaration.initializer = Optional.of((ExpressionNode) built[children[first]]);
+                    made = declaration;
+                }
+                case LIST -> {
+                    ArrayList<Object> list = new ArrayList<>(childCount(node));
+                    for (int i = first; i < firstChild[node + 1]; i++) list.add(built[children[i]]);
+                    made = list;
+                }
+                case NAME -> made = name(node);
+                case ASSIGNMENT -> {
+                    AssignmentNode assignmentNode = new AssignmentNode();
+                    assignmentNode.target = variable(name(node));
+                    assignmentNode.expression = (ExpressionNode) built[children[first]];
+                    made = assignmentNode;
+                }
+                case METHOD_CALL -> {
+                    MethodCallStatementNode methodCall = new MethodCallStatementNode();
+                    methodCall.returnValues = (List<VariableReferenceNode>) built[children[first]];
+                    methodCall.objectName = Optional.ofNullable(objectName(node));
+                    methodCall.methodName = name(node);
+                    for (int i = first + 1; i < firstChild[node + 1]; i++) methodCall.parameters.add((ExpressionNode) built[children[i]]);
+                    made = methodCall;
+                }
+                case IF -> {
+                    IfNode ifNode = new IfNode();
+                    ifNode.condition = (ExpressionNode) built[children[first]];
+                    ifNode.statements = (List<StatementNode>) built[children[first + 1]];
+                    ifNode.elseStatement = Optional.empty();
+                    if (childCount(node) > 2) {
+                        ElseNode elseNode = new ElseNode();
+                        elseNode.statements = (List<StatementNode>) built[children[first + 2]];
+                        ifNode.elseStatement = Optional.of(elseNode);
+                    }
+                    made = ifNode;
+                }
+                case LOOP -> {
+                    LoopNode loopNode = new LoopNode();
+                    loopNode.assignment = Optional.ofNullable(loopVariable(node)).map(CompactTree::variable);
+                    loopNode.expression = (ExpressionNode) built[children[first]];
+                    loopNode.statements = (List<StatementNode>) built[children[first + 1]];
+                    made = loopNode;
+                }
+                case NUMBER -> {
+                    NumericLiteralNode numericLiteralNode = new NumericLiteralNode();
+                    numericLiteralNode.value = number(node);
+                    made = numericLiteralNode;
+                }
+                case STRING -> {
+                    StringLiteralNode stringLiteralNode = new StringLiteralNode();
+                    stringLiteralNode.value = name(node);
+                    made = stringLiteralNode;
+                }
+                case CHARACTER -> {
+                    CharLiteralNode charLiteralNode = new CharLiteralNode();
+                    charLiteralNode.value = character(node);
+                    made = charLiteralNode;
+                }
+                case BOOLEAN -> made = new BooleanLiteralNode(bool(node));
+                case VARIABLE -> made = variable(name(node));
+                case MATH -> {
+                    MathOpNode mathOpNode = new MathOpNode();
+                    mathOpNode.op = MathOpNode.MathOperations.values()[operator(node)];
+                    mathOpNode.left = (ExpressionNode) built[children[first]];
+                    mathOpNode.right = (ExpressionNode) built[children[first + 1]];
+                    made = mathOpNode;
+                }
+                case COMPARE -> {
+                    CompareNode compareNode = new CompareNode();
+                    compareNode.op = CompareNode.CompareOperations.values()[operator(node)];
+                    compareNode.left = (ExpressionNode) built[children[first]];
+                    compareNode.right = (ExpressionNode) built[children[first + 1]];
+                    made = compareNode;
+                }
+                case BOOLEAN_OP -> {
+                    BooleanOpNode booleanOpNode = new BooleanOpNode();
+                    booleanOpNode.op = BooleanOpNode.BooleanOperations.values()[operator(node)];
+                    booleanOpNode.left = (ExpressionNode) built[children[first]];
+                    booleanOpNode.right = (ExpressionNode) built[children[first + 1]];
+                    made = booleanOpNode;
+                }
+                case NOT -> {
+                    NotOpNode notOpNode = new NotOpNode();
+                    notOpNode.left = (ExpressionNode) built[children[first]];
+                    made = notOpNode;
+                }
+                case NEW -> {
+                    NewNode newNode = new NewNode();
+                    newNode.className = name(node);
+                    for (int i = first; i < firstChild[node + 1]; i++) newNode.parameters.add((ExpressionNode) built[children[i]]);
+                    made = newNode;
+                }
+                case CALL -> {
+                    MethodCallExpressionNode call = new MethodCallExpressionNode();
+                    call.objectName = Optional.ofNullable(objectName(node));
+                    call.methodName = name(node);
+                    for (int i = first; i < firstChild[node + 1]; i++) call.parameters.add((ExpressionNode) built[children[i]]);
+                    made = call;
+                }
+                default -> throw new IllegalStateException(kind(node).toString());
+            }
+            built[node] = made;
+            for (int i = first; i < firstChild[node + 1]; i++) built[children[i]] = null;    //each node has one parent
+        }
+        return (TranNode) built[root()];
+    }
+
+    private static VariableReferenceNode variable(String name) {
+        VariableReferenceNode variableReferenceNode = new VariableReferenceNode();
+        variableReferenceNode.name = name;
+        return variableReferenceNode;
+    }
+
+    /**
+     * Walks a TranNode in postfix order with its own stack, adding each node once all of its children have been added
+     */
+    private static class Builder {
+        private final SymbolTable symbols = new SymbolTable();
+        private byte[] kinds = new byte[1024];
+        private int[] data = new int[1024];
+        private int[] extra = new int[1024];
+        private int[] firstChild = new int[1025];
+        private int size;
+        private int[] children = new int[1024];
+        private int childrenSize;
+
+        //the nodes being walked, what is left of their children and how many of them have been added. The children
+        //are walked with iterators, the parser's statement lists are LinkedLists
+        private Object[] pending = new Object[64];
+        private Iterator<?>[] pendingChildren = new Iterator<?>[64];
+        private int[] added = new int[64];
+        //the numbers of the nodes added but not yet given to their parent
+        private int[] done = new int[64];
+        private int doneSize;
+
+        CompactTree build(TranNode tran) throws SyntaxErrorException {
+            int depth = 0;
+            pending[0] = tran;
+            pendingChildren[0] = childrenOf(tran).iterator();
+            added[0] = 0;
+            while (depth >= 0) {
+                Iterator<?> nodeChildren = pendingChildren[depth];
+                if (nodeChildren.hasNext()) {
+                    Object child = nodeChildren.next();
+                    added[depth]++;
+                    if (child instanceof MemberNode memberNode) child = memberNode.declaration;
+                    if (++depth == pending.length) {
+                        pending = Arrays.copyOf(pending, depth * 2);
+                        pendingChildren = Arrays.copyOf(pendingChildren, depth * 2);
+                        added = Arrays.copyOf(added, depth * 2);
+                    }
+                    pending[depth] = child;
+                    pendingChildren[depth] = childrenOf(child).iterator();
+                    added[depth] = 0;
+                } else {
+                    add(pending[depth], added[depth]);
+                    pending[depth] = null;
+                    pendingChildren[depth--] = null;
+                }
+            }
+            String[] names = new String[symbols.size()];
+            for (int id = 0; id < names.length; id++) names[id] = symbols.name(id);
+            firstChild[size] = childrenSize;
+            return new CompactTree(Arrays.copyOf(kinds, size), Arrays.copyOf(data, size), Arrays.copyOf(extra, size),
+                    Arrays.copyOf(firstChild, size + 1), Arrays.copyOf(children, childrenSize), names);
+        }
+
+        private static List<?> childrenOf(Object node) throws SyntaxErrorException {
+            if (node instanceof List<?> list) return list;
+            if (node instanceof TranNode tran) return List.of(tran.Interfaces, tran.Classes);
+            if (node instanceof InterfaceNode interfaceNode) return interfaceNode.methods;
+            if (node instanceof MethodHeaderNode header) return List.of(header.parameters, header.returns);
+            if (node instanceof ClassNode classNode) {
+                return List.of(classNode.interfaces, classNode.members, classNode.constructors, classNode.methods);
+            }
+            if (node instanceof ConstructorNode constructor) {
+                return List.of(constructor.parameters, constructor.locals, constructor.statements);
+            }
+            if (node instanceof BuiltInMethodDeclarationNode method) {
+                throw new IllegalArgumentException("Built-in method " + method.name + " cannot be made compact");
+            }
+            if (node instanceof MethodDeclarationNode method) {
+                method.parseBody();
+                return List.of(method.parameters, method.returns, method.locals, method.statements);
+            }
+            if (node instanceof VariableDeclarationNode declaration) return declaration.initializer.map(List::of).orElse(List.of());
+            if (node instanceof AssignmentNode assignmentNode) return List.of(assignmentNode.expression);
+            if (node instanceof MethodCallStatementNode methodCall) {
+                List<Object> all = new ArrayList<>(1 + methodCall.parameters.size());
+                all.add(methodCall.returnValues);
+                all.addAll(methodCall.parameters);
+                return all;
+            }
+            if (node instanceof IfNode ifNode) {
+                if (ifNode.elseStatement.isEmpty()) return List.of(ifNode.condition, ifNode.statements);
+                return List.of(ifNode.condition, ifNode.statements, ifNode.elseStatement.get().statements);
+            }
+            if (node instanceof LoopNode loopNode) return List.of(loopNode.expression, loopNode.statements);
+            if (node instanceof MathOpNode mathOpNode) return List.of(mathOpNode.left, mathOpNode.right);
+            if (node instanceof CompareNode compareNode) return List.of(compareNode.left, compareNode.right);
+            if (node instanceof BooleanOpNode booleanOpNode) return List.of(booleanOpNode.left, booleanOpNode.right);
+            if (node instanceof NotOpNode notOpNode) return List.of(notOpNode.left);
+            if (node instanceof NewNode newNode) return newNode.parameters;
+            if (node instanceof MethodCallExpressionNode call) return call.parameters;
+            return List.of();
+        }
+
+        /**
+         * Adds node, whose childCount children are the last nodes added
+         */
+        private void add(Object node, int childCount) {
+            if (size == kinds.length) {
+                kinds = Arrays.copyOf(kinds, size * 2);
+                data = Arrays.copyOf(data, size * 2);
+                extra = Arrays.copyOf(extra, size * 2);
+                firstChild = Arrays.copyOf(firstChild, size * 2 + 1);
+            }
+            if (childrenSize + childCount > children.length) {
+                children = Arrays.copyOf(children, Math.max(children.length * 2, childrenSize + childCount));
+            }
+            firstChild[size] = childrenSize;
+            System.arraycopy(done, doneSize - childCount, children, childrenSize, childCount);
+            childrenSize += childCount;
+            doneSize -= childCount;
+
+            int value = 0, second = NONE;
+            Kind kind;
+            if (node instanceof List<?>) {
+                kind = Kind.LIST;
+            } else if (node instanceof String name) {
+                kind = Kind.NAME;
+                value = symbols.intern(name);
+            } else if (node instanceof TranNode) {
+                kind = Kind.TRAN;
+            } else if (node instanceof InterfaceNode interfaceNode) {
+                kind = Kind.INTERFACE;
+                value = symbols.intern(interfaceNode.name);
+            } else if (node instanceof MethodHeaderNode header) {
+                kind = Kind.METHOD_HEADER;
+                value = symbols.intern(header.name);
+            } else if (node instanceof ClassNode classNode) {
+                kind = Kind.CLASS;
+                value = symbols.intern(classNode.name);
+            } else if (node instanceof ConstructorNode) {
+                kind = Kind.CONSTRUCTOR;
+            } else if (node instanceof MethodDeclarationNode method) {
+                kind = Kind.METHOD;
+                value = symbols.intern(method.name);
+                second = (method.isShared ? SHARED : 0) | (method.isPrivate ? PRIVATE : 0);
+            } else if (node instanceof VariableDeclarationNode declaration) {
+                kind = Kind.DECLARATION;
+                value = symbols.intern(declaration.name);
+                second = symbols.intern(declaration.type);
+            } else if (node instanceof AssignmentNode assignmentNode) {
+                kind = Kind.ASSIGNMENT;
+                value = symbols.intern(assignmentNode.target.name);
+            } else if (node instanceof MethodCallStatementNode methodCall) {
+                kind = Kind.METHOD_CALL;
+                value = symbols.intern(methodCall.methodName);
+                second = methodCall.objectName.map(symbols::intern).orElse(NONE);
+            } else if (node instanceof IfNode) {
+                kind = Kind.IF;
+            } else if (node instanceof LoopNode loopNode) {
+                kind = Kind.LOOP;
+                second = loopNode.assignment.map(v -> symbols.intern(v.name)).orElse(NONE);
+            } else if (node instanceof NumericLiteralNode numericLiteralNode) {
+                kind = Kind.NUMBER;
+                value = Float.floatToIntBits(numericLiteralNode.value);
+            } else if (node instanceof StringLiteralNode stringLiteralNode) {
+                kind = Kind.STRING;
+                value = symbols.intern(stringLiteralNode.value);
+            } else if (node instanceof CharLiteralNode charLiteralNode) {
+                kind = Kind.CHARACTER;
+                value = charLiteralNode.value;
+            } else if (node instanceof BooleanLiteralNode booleanLiteralNode) {
+                kind = Kind.BOOLEAN;
+                value = booleanLiteralNode.value ? 1 : 0;
+            } else if (node instanceof VariableReferenceNode variableReferenceNode) {
+                kind = Kind.VARIABLE;
+                value = symbols.intern(variableReferenceNode.name);
+            } else if (node instanceof MathOpNode mathOpNode) {
+                kind = Kind.MATH;
+                value = mathOpNode.op.ordinal();
+            } else if (node instanceof CompareNode compareNode) {
+                kind = Kind.COMPARE;
+                value = compareNode.op.ordinal();
+            } else if (node instanceof BooleanOpNode booleanOpNode) {
+                kind = Kind.BOOLEAN_OP;
+                value = booleanOpNode.op.ordinal();
+            } else if (node instanceof NotOpNode) {
+                kind = Kind.NOT;
+            } else if (node instanceof NewNode newNode) {
+                kind = Kind.NEW;
+                value = symbols.intern(newNode.className);
+            } else if (node instanceof MethodCallExpressionNode call) {
+                kind = Kind.CALL;
+                value = symbols.intern(call.methodName);
+                second = call.objectName.map(symbols::intern).orElse(NONE);
+            } else {
+                throw new IllegalArgumentException("Unknown node " + node.getClass());
+            }
+            kinds[size] = (byte) kind.ordinal();
+            data[size] = value;
+            extra[size] = second;
+
+            if (doneSize == done.length) done = Arrays.copyOf(done, doneSize * 2);
+            done[doneSize++] = size++;
+        }
+    }
+}
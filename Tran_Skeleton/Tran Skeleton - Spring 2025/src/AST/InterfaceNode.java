@@ -6,6 +6,7 @@ import java.util.List;
 public class InterfaceNode implements Node {
     public String name;
     public List<MethodHeaderNode> methods = new ArrayList<>();
+    public int id;  //its index in TranNode.Interfaces, set by Tran.Linker
 
     @Override
     public String toString() {
@@ -5,6 +5,7 @@ public class MathOpNode implements ExpressionNode {
     public ExpressionNode right;
     public enum MathOperations { add, subtract, multiply, divide, modulo }
     public MathOperations op;
+    public String type;     //number, or string when adding to a string; set by Tran.TypeChecker
 
     private String opToString() {
         switch (op) {
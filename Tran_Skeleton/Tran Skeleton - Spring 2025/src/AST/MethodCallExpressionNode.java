@@ -10,6 +10,16 @@ public class MethodCallExpressionNode implements ExpressionNode {
     public Optional<String> objectName;
     public String methodName;
     public List<ExpressionNode> parameters = new ArrayList<>();
+    //set by Tran.Resolver: the method this call runs when it is made on an objectClass (or, when objectClass is null,
+    //without an object from a shared method), and the variable it is made on. Null when not known before running
+    public MethodDeclarationNode target;
+    public ClassNode objectClass;
+    public VariableReferenceNode object;
+    //set by Tran.Resolver when object is declared as an interface: the interface, and the index of the only header in
+    //it that the call can match (see Tran.Linker.interfaceMethod())
+    public InterfaceNode objectInterface;
+    public int interfaceMethod;
+    public String type;     //the type of the method's first return, set by Tran.TypeChecker
     @Override
     public String toString() {
         return (objectName.map(s -> s + ".").orElse("")) +
@@ -17,12 +17,26 @@ public class MethodCallStatementNode implements StatementNode {
         objectName = mce.objectName;
         methodName = mce.methodName;
         parameters = mce.parameters;
+        target = mce.target;
+        objectClass = mce.objectClass;
+        object = mce.object;
+        objectInterface = mce.objectInterface;
+        interfaceMethod = mce.interfaceMethod;
     }
 
     public Optional<String> objectName;
     public String methodName;
     public List<VariableReferenceNode> returnValues = new ArrayList<>();
     public List<ExpressionNode> parameters = new ArrayList<>();
+    //set by Tran.Resolver: the method this call runs when it is made on an objectClass (or, when objectClass is null,
+    //without an object from a shared method), and the variable it is made on. Null when not known before running
+    public MethodDeclarationNode target;
+    public ClassNode objectClass;
+    public VariableReferenceNode object;
+    //set by Tran.Resolver when object is declared as an interface: the interface, and the index of the only header in
+    //it that the call can match (see Tran.Linker.interfaceMethod())
+    public InterfaceNode objectInterface;
+    public int interfaceMethod;
     public String toString() {
         return
                 Node.variableReferenceListToString(returnValues) + (returnValues.isEmpty() ? "" : " = ") +
@@ -1,7 +1,10 @@
 package AST;
 
+import Tran.SyntaxErrorException;
+
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class MethodDeclarationNode implements Node {
@@ -12,6 +15,51 @@ public class MethodDeclarationNode implements Node {
     public List<VariableDeclarationNode> returns = new ArrayList<>();
     public List<VariableDeclarationNode> locals = new ArrayList<>();
     public List<StatementNode> statements = new ArrayList<>();
+    //set when this method's body has not been read yet (Parser.TranLazily(), AstArchive), null once it has been
+    public volatile UnparsedBody unparsedBody;
+    //run on the body once it is parsed, before unparsedBody is set to null (guarded by this)
+    private Consumer<MethodDeclarationNode> afterParse;
+
+    /**
+     * A method body that has not been read yet: its tokens, or its bytes in an AstArchive
+     */
+    public interface UnparsedBody {
+        /**
+         * Parses the body, filling in the method's locals and statements
+         */
+        void parseInto(MethodDeclarationNode method) throws SyntaxErrorException;
+    }
+
+    /**
+     * Parses the body of a lazily parsed method, unless that has already happened. Only one thread parses it, any
+     * other thread asking at the same time waits for it. When the body has a syntax error it stays unparsed and
+     * every call throws the error.
+     * @throws SyntaxErrorException - the error in the body
+     */
+    public void parseBody() throws SyntaxErrorException {
+        if (unparsedBody == null) return;
+        synchronized (this) {
+            UnparsedBody body = unparsedBody;
+            if (body == null) return;
+            body.parseInto(this);
+            if (afterParse != null) afterParse.accept(this);
+            unparsedBody = null;    //locals and statements are visible to any thread that reads null here
+        }
+    }
+
+    /**
+     * Sets what is done with the body once it is parsed (Tran.Resolver resolves it), in place of what was set before,
+     * or does it now when the body has already been parsed.
+     */
+    public void afterParse(Consumer<MethodDeclarationNode> action) {
+        synchronized (this) {
+            if (unparsedBody != null) {
+                afterParse = action;
+                return;
+            }
+        }
+        action.accept(this);
+    }
 
     @Override
     public String toString() {
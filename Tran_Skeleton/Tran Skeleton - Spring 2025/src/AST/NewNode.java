@@ -6,6 +6,10 @@ import java.util.List;
 public class NewNode implements Node, ExpressionNode{
     public String className;
     public List<ExpressionNode> parameters = new ArrayList<>();
+    //set by Tran.Resolver: the class, and the constructor when it is the only one that takes this many parameters
+    public ClassNode classNode;
+    public ConstructorNode constructor;
+    public String type;     //set by Tran.TypeChecker, which also picks the constructor by the types of the values
 
     @Override
     public String toString() {
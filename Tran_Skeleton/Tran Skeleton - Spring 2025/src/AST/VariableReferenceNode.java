@@ -4,6 +4,15 @@ import java.util.Optional;
 
 public class VariableReferenceNode implements Node,ExpressionNode {
     public String name;
+    //where the variable lives, set by Tran.Resolver. A null scope means it was not resolved and is found by name
+    public Scope scope;
+    public int slot;
+    public String type;     //the declared type, set by Tran.TypeChecker
+
+    public enum Scope {
+        PARAMETER, RETURN, LOCAL,   //a slot in the method's frame: parameters, then returns, then locals
+        MEMBER                      //a slot in the object, in ClassNode.members order
+    }
 
     @Override
     public String toString() {
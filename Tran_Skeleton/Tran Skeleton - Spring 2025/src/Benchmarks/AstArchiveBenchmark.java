@@ -0,0 +1,66 @@
+package Benchmarks;
+
+import AST.ClassNode;
+import AST.MethodDeclarationNode;
+import AST.StatementNode;
+import AST.TranNode;
+import Tran.AstArchive;
+import Tran.Lexer;
+import Tran.Parser;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Time to first statement: how long it takes from the program's text (or its archive on disk) until the first
+ * statement of start() is ready to run, on generated programs of growing size.
+ *      source  - lex and parse everything (Parser.Tran())
+ *      lazy    - lex, and parse only the method headers (Parser.TranLazily())
+ *      archive - open the program's AstArchive and read the class headers, then start()'s body. No lexing or parsing
+ * Run with: java Benchmarks.AstArchiveBenchmark [largest number of classes]
+ */
+public class AstArchiveBenchmark {
+    public static void main(String[] args) throws Exception {
+        int largest = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        Path directory = Files.createTempDirectory("tranc");
+        for (int classes = 100; classes <= largest; classes *= 10) {
+            String source = BenchmarkSupport.generateProgram(classes);
+            Path file = directory.resolve(classes + ".tranc");
+            TranNode parsed = new TranNode();
+            new Parser(parsed, new Lexer(source).LexToBuffer()).Tran();
+            AstArchive.write(parsed, AstArchive.hash(source), file);
+
+            long fromSource = BenchmarkSupport.time(10, () -> {
+                TranNode tran = new TranNode();
+                new Parser(tran, new Lexer(source).LexToBuffer()).Tran();
+                return firstStatement(tran);
+            });
+            long fromLazy = BenchmarkSupport.time(10, () -> {
+                TranNode tran = new TranNode();
+                new Parser(tran, new Lexer(source).LexToBuffer()).TranLazily();
+                return firstStatement(tran);
+            });
+            long fromArchive = BenchmarkSupport.time(10, () -> firstStatement(AstArchive.open(file).tranNode()));
+            System.out.printf("%6d classes: first statement after %8.2f ms from source, %8.2f ms lazily, %8.2f ms from the archive | %7d KB source, %7d KB archive%n",
+                    classes, fromSource / 1e6, fromLazy / 1e6, fromArchive / 1e6,
+                    source.length() / 1024, Files.size(file) / 1024);
+            Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * Finds start() the way the Interpreter does, and makes its body ready to run
+     */
+    private static StatementNode firstStatement(TranNode tran) throws Exception {
+        for (ClassNode c : tran.Classes) {
+            for (MethodDeclarationNode m : c.methods) {
+                if (m.isShared && m.name.equals("start")) {
+                    m.parseBody();
+                    return m.statements.getFirst();
+                }
+            }
+        }
+        throw new IllegalStateException("No start()");
+    }
+}
@@ -0,0 +1,150 @@
+package Benchmarks;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Shared helpers for the benchmark drivers in this package. The project has no build tool, so the benchmarks are
+ * plain main() programs instead of JMH harnesses:
+ *      generateProgram(classes) //builds a large, syntactically valid Tran program
+ *      generateDeclarations(classes) //builds a large program of member and method header declarations only
+ *      retainedBytes(supplier) //measures how much heap the result of supplier keeps alive
+ *      allocatedBytes() //bytes allocated by the current thread so far
+ *      time(runs, work) //runs work a number of times after a warm up and returns the best time
+ */
+public class BenchmarkSupport {
+
+    /**
+     * A unit of work that is timed or measured by the helpers below
+     */
+    public interface Work {
+        Object run() throws Exception;
+    }
+
+    /**
+     * Builds a generated Tran program with the number of classes passed in. Each class has members, a constructor,
+     * a few methods with loops, ifs, method calls, string literals and comments, and the last class has a start method.
+     * @param classes - the number of classes to generate
+     * @return the program text
+     */
+    public static String generateProgram(int classes) {
+        StringBuilder sb = new StringBuilder();
+        for (int c = 0; c < classes; c++) {
+            sb.append("{ generated class number ").append(c).append(" }\n");
+            sb.append("class Generated").append(c).append("\n");
+            sb.append("    number total\n");
+            sb.append("    number count\n");
+            sb.append("    string label\n");
+            sb.append("    construct(number start)\n");
+            sb.append("        total = start\n");
+            sb.append("        count = 0\n");
+            sb.append("        label = \"generated class ").append(c).append(" with a reasonably long label\"\n");
+            sb.append("    add(number amount) : number result\n");
+            sb.append("        total = total + amount * 2 - 1\n");
+            sb.append("        count = count + 1\n");
+            sb.append("        result = total / count\n");
+            sb.append("    describe()\n");
+            sb.append("        number i\n");
+            sb.append("        i = 0\n");
+            sb.append("        loop i < count\n");
+            sb.append("            if i % 2 == 0\n");
+            sb.append("                console.write(label, \" even \", i)\n");
+            sb.append("            else\n");
+            sb.append("                console.write(label, \" odd \", i)\n");
+            sb.append("            i = i + 1\n");
+            sb.append("    compare(number other) : number larger\n");
+            sb.append("        if total >= other\n");
+            sb.append("            larger = total\n");
+            sb.append("        else\n");
+            sb.append("            larger = other\n");
+            if (c == classes - 1) {
+                sb.append("    shared start()\n");
+                sb.append("        Generated").append(c).append(" g\n");
+                sb.append("        number r\n");
+                sb.append("        g = new Generated").append(c).append("(3.5)\n");
+                sb.append("        r = g.add(4)\n");
+                sb.append("        g.describe()\n");
+            }
+            sb.append("\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Builds a generated Tran program made only of declarations: classes with members and interfaces with method
+     * headers. Useful for timing the front end on input that does not need statement or expression parsing.
+     * @param classes - the number of classes (and interfaces) to generate
+     * @return the program text
+     */
+    public static String generateDeclarations(int classes) {
+        StringBuilder sb = new StringBuilder();
+        for (int c = 0; c < classes; c++) {
+            sb.append("{ generated declarations number ").append(c).append(" }\n");
+            sb.append("interface Shape").append(c).append("\n");
+            sb.append("    area() : number result\n");
+            sb.append("    scale(number factor, number offset) : number width, number height\n");
+            sb.append("    describe(string prefix)\n");
+            sb.append("class Generated").append(c).append(" implements Shape").append(c).append("\n");
+            sb.append("    number total\n");
+            sb.append("    number count\n");
+            sb.append("    string label\n");
+            sb.append("    boolean visible\n");
+            sb.append("    character initial\n\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Measures the heap kept alive by the object that work returns. The heap is collected before and after, and the
+     * result is held on to until the second measurement is taken.
+     * @return the approximate number of bytes retained by the result of work
+     */
+    public static long retainedBytes(Work work) throws Exception {
+        long before = usedHeap();
+        Object result = work.run();
+        long after = usedHeap();
+        if (result == null) throw new IllegalStateException("work must return what it built");
+        return after - before;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * @return the number of bytes allocated by the current thread so far
+     */
+    public static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Runs work a few times to warm up, then runs it the number of times passed in.
+     * @return the fastest run in nanoseconds
+     */
+    public static long time(int runs, Work work) throws Exception {
+        for (int i = 0; i < Math.max(3, runs / 2); i++) work.run();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            work.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    /**
+     * @return megabytes (of chars) processed per second
+     */
+    public static double megabytesPerSecond(long chars, long nanos) {
+        return (chars / (1024.0 * 1024.0)) / (nanos / 1e9);
+    }
+}
@@ -0,0 +1,49 @@
+package Benchmarks;
+
+import AST.CompactTree;
+import AST.TranNode;
+import Tran.Lexer;
+import Tran.Parser;
+
+/**
+ * Memory footprint of a parsed program as TranNode objects and as a CompactTree, for a generated program with about
+ * 100k statements. Bytes per node are the retained heap divided by the number of nodes in the CompactTree (the lists
+ * of a class, a method or an if count as a node in both). Also times the conversion both ways.
+ * Run with: java -Xmx2g Benchmarks.CompactTreeBenchmark [number of statements]
+ */
+public class CompactTreeBenchmark {
+    public static void main(String[] args) throws Exception {
+        int statements = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int perClass = statements(CompactTree.of(parse(BenchmarkSupport.generateProgram(2))))
+                - statements(CompactTree.of(parse(BenchmarkSupport.generateProgram(1))));
+        String source = BenchmarkSupport.generateProgram(Math.max(1, statements / perClass));
+        TranNode tran = parse(source);
+        CompactTree tree = CompactTree.of(tran);
+
+        long nodeBytes = BenchmarkSupport.retainedBytes(() -> parse(source));
+        long compactBytes = BenchmarkSupport.retainedBytes(() -> CompactTree.of(parse(source)));
+        long toCompact = BenchmarkSupport.time(10, () -> CompactTree.of(tran));
+        long toNodes = BenchmarkSupport.time(10, tree::toTranNode);
+        System.out.printf("%d statements, %d nodes%n", statements(tree), tree.size());
+        System.out.printf("TranNode    %8.2f MB, %6.1f bytes per node%n", nodeBytes / 1048576.0, (double) nodeBytes / tree.size());
+        System.out.printf("CompactTree %8.2f MB, %6.1f bytes per node%n", compactBytes / 1048576.0, (double) compactBytes / tree.size());
+        System.out.printf("convert %7.2f ms to a CompactTree, %7.2f ms back%n", toCompact / 1e6, toNodes / 1e6);
+    }
+
+    private static TranNode parse(String source) throws Exception {
+        TranNode tran = new TranNode();
+        new Parser(tran, new Lexer(source).LexToBuffer()).Tran();
+        return tran;
+    }
+
+    private static int statements(CompactTree tree) {
+        int statements = 0;
+        for (int node = 0; node < tree.size(); node++) {
+            switch (tree.kind(node)) {
+                case ASSIGNMENT, METHOD_CALL, IF, LOOP -> statements++;
+                default -> { }
+            }
+        }
+        return statements;
+    }
+}
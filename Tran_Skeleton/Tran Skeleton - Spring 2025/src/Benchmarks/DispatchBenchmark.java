@@ -0,0 +1,67 @@
+package Benchmarks;
+
+import Interpreter.Interpreter;
+
+/**
+ * Time per call for calls the Resolver cannot bind ahead of time, in programs with more and more classes. Each class
+ * implements an interface and has a few methods, and each loop in start() makes three calls:
+ *      through an interface        - s.area(), found in the object's itable
+ *      to an overloaded method     - o.grow(i), picked from the methods named grow by the type of i
+ *      to an overloaded shared one - scale(i) from a shared method, picked from every class's shared methods named scale
+ * With the Linker's tables the time per loop should be the same for 10 classes as for thousands. Only start() is
+ * timed, the program is parsed and the Interpreter created once.
+ * Run with: java Benchmarks.DispatchBenchmark [loop count]
+ */
+public class DispatchBenchmark {
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        for (int classes : new int[] {10, 100, 1000, 5000}) {
+            Interpreter interpreter = new Interpreter(InterpreterBenchmark.parse(program(classes, count)));
+            long nanos = BenchmarkSupport.time(10, () -> {
+                interpreter.start();
+                return interpreter;
+            });
+            System.out.printf("%5d classes %8.1f ns per loop%n", classes, (double) nanos / count);
+        }
+    }
+
+    private static String program(int classes, int count) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("interface Shape\n");
+        sb.append("    area() : number a\n");
+        for (int c = 0; c < classes; c++) {
+            sb.append("class Shape").append(c).append(" implements Shape\n");
+            sb.append("    number side\n");
+            for (int m = 0; m < 8; m++) {
+                sb.append("    method").append(m).append("(number x) : number y\n");
+                sb.append("        y = x + side\n");
+            }
+            sb.append("    area() : number a\n");
+            sb.append("        a = side * side\n");
+            sb.append("    grow(string by)\n");
+            sb.append("        side = 0\n");
+            sb.append("    grow(number by)\n");
+            sb.append("        side = side + by\n");
+            sb.append("    shared other").append(c).append("(number x) : number y\n");
+            sb.append("        y = x\n");
+        }
+        sb.append("class Main\n");
+        sb.append("    shared scale(string x) : number y\n");
+        sb.append("        y = 0\n");
+        sb.append("    shared scale(number x) : number y\n");
+        sb.append("        y = x * 2\n");
+        sb.append("    shared start()\n");
+        sb.append("        Shape").append(classes - 1).append(" o = new Shape").append(classes - 1).append("()\n");
+        sb.append("        Shape s\n");
+        sb.append("        number i\n");
+        sb.append("        number t\n");
+        sb.append("        s = o\n");
+        sb.append("        i = 0\n");
+        sb.append("        loop i < ").append(count).append("\n");
+        sb.append("            t = s.area()\n");
+        sb.append("            o.grow(i)\n");
+        sb.append("            t = scale(i)\n");
+        sb.append("            i = i + 1\n");
+        return sb.toString();
+    }
+}
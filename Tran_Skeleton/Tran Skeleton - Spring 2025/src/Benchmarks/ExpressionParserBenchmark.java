@@ -0,0 +1,55 @@
+package Benchmarks;
+
+import AST.TranNode;
+import Tran.Lexer;
+import Tran.Parser;
+import Tran.TokenBuffer;
+
+/**
+ * Parses machine-generated expressions of growing size to show that the cost per term stays flat:
+ *      wide - one long line mixing every binary operator, "and"/"or" and comparisons
+ *      deep - parentheses and method call arguments nested inside each other
+ * Each is lexed once, only the Parser is timed. The deepest expressions nest far past the point where a parser with a
+ * method per precedence level would run out of Java stack.
+ * Run with: java Benchmarks.ExpressionParserBenchmark [largest number of terms]
+ */
+public class ExpressionParserBenchmark {
+    private static final String[] OPERATORS = {" + ", " * ", " - ", " / ", " % ", " < ", " and ", " == ", " or ", " >= "};
+
+    public static void main(String[] args) throws Exception {
+        int largest = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        for (int terms = 1000; terms <= largest; terms *= 10) {
+            report("wide", terms, wide(terms));
+            report("deep", terms, deep(terms));
+        }
+    }
+
+    private static String wide(int terms) {
+        StringBuilder sb = new StringBuilder("x0");
+        for (int i = 1; i < terms; i++) {
+            sb.append(OPERATORS[i % OPERATORS.length]);
+            if (i % 7 == 0) sb.append("not ");
+            sb.append(i % 5 == 0 ? "o.get(" + i + ")" : "x" + i);
+        }
+        return sb.toString();
+    }
+
+    private static String deep(int terms) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < terms; i++) sb.append(i % 2 == 0 ? "(x" + i + " + " : "f" + i + "(x" + i + ", ");
+        sb.append("1");
+        for (int i = 0; i < terms; i++) sb.append(')');
+        return sb.toString();
+    }
+
+    private static void report(String shape, int terms, String expression) throws Exception {
+        String program = "class Generated\n    shared start()\n        result = " + expression + "\n";
+        TokenBuffer tokens = new Lexer(program).LexToBuffer();
+        long nanos = BenchmarkSupport.time(20, () -> {
+            TranNode tran = new TranNode();
+            new Parser(tran, tokens).Tran();
+            return tran;
+        });
+        System.out.printf("%s %7d terms: %8.3f ms, %6.1f ns per term%n", shape, terms, nanos / 1e6, (double) nanos / terms);
+    }
+}
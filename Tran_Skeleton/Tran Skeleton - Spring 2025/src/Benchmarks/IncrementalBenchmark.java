@@ -0,0 +1,39 @@
+package Benchmarks;
+
+import AST.TranNode;
+import Tran.IncrementalFrontEnd;
+import Tran.Lexer;
+import Tran.Parser;
+
+/**
+ * Measures edit-to-AST latency for a one line change in a ~20k line program, comparing IncrementalFrontEnd with
+ * lexing and parsing the whole program again. Each edit renames a member in the middle of the file and back again.
+ * Run with: java Benchmarks.IncrementalBenchmark [classes]
+ */
+public class IncrementalBenchmark {
+    public static void main(String[] args) throws Exception {
+        int classes = args.length > 0 ? Integer.parseInt(args[0]) : 1700;
+        String program = BenchmarkSupport.generateDeclarations(classes);
+        System.out.printf("program: %,d lines%n", program.lines().count());
+
+        long full = BenchmarkSupport.time(10, () -> {
+            TranNode tran = new TranNode();
+            new Parser(tran, new Lexer(program).LexToBuffer()).Tran();
+            return tran;
+        });
+
+        IncrementalFrontEnd frontEnd = new IncrementalFrontEnd(program);
+        int offset = program.indexOf("number count", program.length() / 2);
+        int edits = 2000;
+        long incremental = BenchmarkSupport.time(5, () -> {
+            TranNode tran = null;
+            for (int i = 0; i < edits; i++) {
+                frontEnd.edit(offset, 5, i % 2 == 0 ? "strin" : "numbe");
+                tran = frontEnd.tranNode();
+            }
+            return tran;
+        });
+        System.out.printf("full lex + parse          : %8.3f ms%n", full / 1e6);
+        System.out.printf("incremental edit + AST    : %8.3f ms%n", incremental / 1e6 / edits);
+    }
+}
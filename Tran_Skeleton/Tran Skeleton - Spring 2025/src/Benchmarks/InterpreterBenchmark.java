@@ -0,0 +1,106 @@
+package Benchmarks;
+
+import AST.TranNode;
+import Interpreter.Interpreter;
+import Tran.Lexer;
+import Tran.Parser;
+
+/**
+ * Runs small Tran programs that stress different parts of the Interpreter, and reports the time per run
+ * and the bytes allocated per loop or call (the garbage each one leaves):
+ *      arithmetic - a loop doing math on local variables
+ *      members    - a loop calling a method on an object that updates its members
+ *      recursion  - a recursive shared method (fib), so mostly calls and returns
+ * The programs are a few lines long, so the time to parse them and create the Interpreter is lost in the time to run.
+ * Each is run unchecked and checked (Interpreter(tran, true): type checked first, so calls skip matching the values).
+ * Run with: java Benchmarks.InterpreterBenchmark [loop count]
+ */
+public class InterpreterBenchmark {
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        for (boolean checked : new boolean[] {false, true}) {
+            System.out.println(checked ? "checked" : "unchecked");
+            report("arithmetic", count, arithmetic(count), checked);
+            report("members", count, members(count), checked);
+            report("recursion", count, recursion(count), checked);
+        }
+    }
+
+    static String arithmetic(int count) {
+        return String.join("\n",
+                "class Arithmetic",
+                "    shared start()",
+                "        number i",
+                "        number total",
+                "        i = 0",
+                "        total = 0",
+                "        loop i < " + count,
+                "            total = total + i * 2 - total / 3 + i % 7",
+                "            i = i + 1",
+                "");
+    }
+
+    static String members(int count) {
+        return String.join("\n",
+                "class Counter",
+                "    number total",
+                "    number calls",
+                "    construct()",
+                "        total = 0",
+                "    add(number amount) : number result",
+                "        total = total + amount",
+                "        calls = calls + 1",
+                "        result = total",
+                "    shared start()",
+                "        Counter c = new Counter()",
+                "        number i",
+                "        number r",
+                "        i = 0",
+                "        loop i < " + count,
+                "            r = c.add(i)",
+                "            i = i + 1",
+                "");
+    }
+
+    /**
+     * fib(n) makes about 1.6^n calls, n is picked so there are about count of them
+     */
+    static String recursion(int count) {
+        int n = (int) Math.round(Math.log(count) / Math.log(1.618));
+        return String.join("\n",
+                "class Fib",
+                "    shared fib(number n) : number r",
+                "        number a",
+                "        number b",
+                "        if n < 2",
+                "            r = n",
+                "        else",
+                "            a = fib(n - 1)",
+                "            b = fib(n - 2)",
+                "            r = a + b",
+                "    shared start()",
+                "        number r",
+                "        r = fib(" + n + ")",
+                "");
+    }
+
+    static TranNode parse(String program) throws Exception {
+        TranNode tran = new TranNode();
+        new Parser(tran, new Lexer(program).LexToBuffer()).Tran();
+        return tran;
+    }
+
+    private static void report(String name, int count, String program, boolean checked) throws Exception {
+        long nanos = BenchmarkSupport.time(20, () -> {
+            TranNode tran = parse(program);
+            new Interpreter(tran, checked).start();
+            return tran;
+        });
+        var interpreter = new Interpreter(parse(program), checked);
+        long before = BenchmarkSupport.allocatedBytes();
+        interpreter.start();
+        long allocated = BenchmarkSupport.allocatedBytes() - before;
+        System.out.printf("%-10s %8.2f ms per run, %7.1f ns and %6.1f bytes per loop or call%n",
+                name, nanos / 1e6, (double) nanos / count, (double) allocated / count);
+    }
+}
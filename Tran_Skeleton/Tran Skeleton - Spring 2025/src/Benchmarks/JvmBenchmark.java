@@ -0,0 +1,36 @@
+package Benchmarks;
+
+import AST.TranNode;
+import VM.JvmMachine;
+import VM.Machine;
+import VM.RegisterMachine;
+
+import java.util.function.Function;
+
+/**
+ * Runs RegisterMachineBenchmark's programs with the RegisterMachine and the JvmMachine and reports the time per loop
+ * or call. Only start() is timed, on a machine that has run the program once, so the JvmMachine has compiled it and
+ * BenchmarkSupport.time()'s warm up gives the JVM time to compile the hidden classes.
+ * Run with: java Benchmarks.JvmBenchmark [loop count]
+ */
+public class JvmBenchmark {
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        report("arithmetic", count, InterpreterBenchmark.arithmetic(count));
+        report("members", count, InterpreterBenchmark.members(count));
+        report("recursion", count, InterpreterBenchmark.recursion(count));
+        report("average", count, RegisterMachineBenchmark.average(count));
+    }
+
+    private static void report(String name, int count, String program) throws Exception {
+        System.out.printf("%-10s register %s%n", name, measure(count, program, RegisterMachine::new));
+        System.out.printf("%-10s jvm      %s%n", name, measure(count, program, JvmMachine::new));
+    }
+
+    private static String measure(int count, String program, Function<TranNode, Machine> machines) throws Exception {
+        var machine = machines.apply(InterpreterBenchmark.parse(program));
+        machine.start();
+        long nanos = BenchmarkSupport.time(20, () -> { machine.start(); return machine; });
+        return String.format("%7.1f ns per loop or call", (double) nanos / count);
+    }
+}
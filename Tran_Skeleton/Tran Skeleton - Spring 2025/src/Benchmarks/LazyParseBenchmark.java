@@ -0,0 +1,67 @@
+package Benchmarks;
+
+import AST.ClassNode;
+import AST.MethodDeclarationNode;
+import AST.TranNode;
+import Interpreter.Interpreter;
+import Tran.Lexer;
+import Tran.Parser;
+import Tran.TokenBuffer;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Compares parsing every method body up front (Parser.Tran()) with parsing only the headers and leaving each body
+ * until it is first run (Parser.TranLazily()), on generated programs where start() only calls into the last class.
+ * Times the parse alone and the parse plus running start(). The tokens are lexed once beforehand, so only the Parser
+ * and the Interpreter are timed.
+ * Run with: java Benchmarks.LazyParseBenchmark [largest number of classes]
+ */
+public class LazyParseBenchmark {
+    public static void main(String[] args) throws Exception {
+        int largest = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        PrintStream out = System.out;
+        for (int classes = 100; classes <= largest; classes *= 10) {
+            TokenBuffer tokens = new Lexer(BenchmarkSupport.generateProgram(classes)).LexToBuffer();
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));  //start() writes to the console
+            long eagerParse = BenchmarkSupport.time(10, () -> parse(tokens, false));
+            long lazyParse = BenchmarkSupport.time(10, () -> parse(tokens, true));
+            long eagerRun = BenchmarkSupport.time(10, () -> run(tokens, false));
+            long lazyRun = BenchmarkSupport.time(10, () -> run(tokens, true));
+            TranNode ran = run(tokens, true);
+            System.setOut(out);
+            System.out.printf("%6d classes: parse %8.2f ms eager, %8.2f ms lazy | parse and run %8.2f ms eager, %8.2f ms lazy (%d of %d bodies parsed)%n",
+                    classes, eagerParse / 1e6, lazyParse / 1e6, eagerRun / 1e6, lazyRun / 1e6,
+                    count(ran, true), count(ran, false));
+        }
+    }
+
+    private static TranNode parse(TokenBuffer tokens, boolean lazily) throws Exception {
+        TranNode tran = new TranNode();
+        Parser parser = new Parser(tran, tokens);
+        if (lazily) parser.TranLazily();
+        else parser.Tran();
+        return tran;
+    }
+
+    private static TranNode run(TokenBuffer tokens, boolean lazily) throws Exception {
+        TranNode tran = parse(tokens, lazily);
+        new Interpreter(tran).start();
+        return tran;
+    }
+
+    /**
+     * @param parsedOnly - whether to only count the methods whose bodies have been parsed
+     * @return the number of methods in the program, built-ins left out
+     */
+    private static int count(TranNode tran, boolean parsedOnly) {
+        int methods = 0;
+        for (ClassNode c : tran.Classes) {
+            for (MethodDeclarationNode m : c.methods) {
+                if (!c.name.equals("console") && (!parsedOnly || m.unparsedBody == null)) methods++;
+            }
+        }
+        return methods;
+    }
+}
@@ -0,0 +1,48 @@
+package Benchmarks;
+
+import Tran.Lexer;
+
+/**
+ * Measures how much the Lexer allocates while scanning long identifiers and long string literals. The input is lexed
+ * into a TokenBuffer so the numbers only show what scanning allocates, not the cost of Token objects.
+ * Prints bytes allocated per source char and the throughput for each input.
+ * Run with: java Benchmarks.LexerAllocationBenchmark [tokenLength]
+ */
+public class LexerAllocationBenchmark {
+    public static void main(String[] args) throws Exception {
+        int tokenLength = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        report("long identifiers", longIdentifiers(tokenLength, 500));
+        report("long literals   ", longLiterals(tokenLength, 500));
+        report("generated code  ", BenchmarkSupport.generateProgram(500));
+    }
+
+    private static void report(String name, String input) throws Exception {
+        for (int i = 0; i < 5; i++) new Lexer(input).LexToBuffer(); //warm up
+        long before = BenchmarkSupport.allocatedBytes();
+        new Lexer(input).LexToBuffer();
+        long allocated = BenchmarkSupport.allocatedBytes() - before;
+        long nanos = BenchmarkSupport.time(10, () -> new Lexer(input).LexToBuffer());
+        System.out.printf("%s: %10.2f bytes allocated/char, %8.2f MB/s%n", name,
+                (double) allocated / input.length(), BenchmarkSupport.megabytesPerSecond(input.length(), nanos));
+    }
+
+    private static String longIdentifiers(int length, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append((char) ('a' + i % 26));
+            for (int j = 1; j < length; j++) sb.append((char) ('a' + (i + j) % 26));
+            sb.append(i % 10 == 9 ? "\n" : " ");
+        }
+        return sb.toString();
+    }
+
+    private static String longLiterals(int length, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append('"');
+            for (int j = 0; j < length; j++) sb.append((char) ('a' + (i + j) % 26));
+            sb.append("\"\n");
+        }
+        return sb.toString();
+    }
+}
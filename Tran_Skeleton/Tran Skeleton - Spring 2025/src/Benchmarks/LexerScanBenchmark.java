@@ -0,0 +1,63 @@
+package Benchmarks;
+
+import Tran.Lexer;
+import Tran.MappedTextManager;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Measures lexing throughput on input where most of the text is skipped rather than turned into tokens: long comments
+ * (some spread over many lines), long string literals and wide runs of spaces. These are the inputs the Lexer scans in
+ * bulk with TextManager.indexOf() and skipSpaces(). Each input is lexed from a String and from UTF-8 bytes through a
+ * MappedTextManager, and generated code is included to show the ordinary case.
+ * Run with: java Benchmarks.LexerScanBenchmark [lines]
+ */
+public class LexerScanBenchmark {
+    public static void main(String[] args) throws Exception {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        report("comment heavy ", commentHeavy(lines));
+        report("string heavy  ", stringHeavy(lines));
+        report("space heavy   ", spaceHeavy(lines));
+        report("generated code", BenchmarkSupport.generateProgram(lines / 30));
+    }
+
+    private static void report(String name, String input) throws Exception {
+        ByteBuffer utf8 = StandardCharsets.UTF_8.encode(input);
+        long fromString = BenchmarkSupport.time(20, () -> new Lexer(input).LexToBuffer());
+        long fromBytes = BenchmarkSupport.time(20, () -> new Lexer(new MappedTextManager(utf8)).LexToBuffer());
+        System.out.printf("%s: String %8.2f MB/s, UTF-8 bytes %8.2f MB/s%n", name,
+                BenchmarkSupport.megabytesPerSecond(input.length(), fromString),
+                BenchmarkSupport.megabytesPerSecond(input.length(), fromBytes));
+    }
+
+    private static String commentHeavy(int lines) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            if (i % 10 == 0) {
+                sb.append("{ this block comment describes what the next few lines of the class are for,\n");
+                sb.append("  and it goes on for a second line so that newlines inside comments are counted }\n");
+            } else {
+                sb.append("{ a single line comment explaining line ").append(i).append(" in some detail }\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String stringHeavy(int lines) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            sb.append("console.write(\"a long message that is printed by line ").append(i)
+                    .append(" of the program\", \"and a second argument\")\n");
+        }
+        return sb.toString();
+    }
+
+    private static String spaceHeavy(int lines) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            sb.append("x                                        = y                              + ").append(i).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,45 @@
+package Benchmarks;
+
+import AST.TranNode;
+import Tran.Lexer;
+import Tran.ParallelFrontEnd;
+import Tran.Parser;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Times lexing the generated program and parsing a generated declarations-only program, sequentially and with
+ * ParallelFrontEnd on pools of 1, 2, 4 and 8 threads.
+ * Run with: java Benchmarks.ParallelFrontEndBenchmark [classes]
+ */
+public class ParallelFrontEndBenchmark {
+    public static void main(String[] args) throws Exception {
+        int classes = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        String program = BenchmarkSupport.generateProgram(classes);
+        String declarations = BenchmarkSupport.generateDeclarations(classes * 2);
+        System.out.printf("program: %,d lines, declarations: %,d lines, %d cores%n", program.lines().count(),
+                declarations.lines().count(), Runtime.getRuntime().availableProcessors());
+        if (!new Lexer(program).Lex().toString().equals(new ParallelFrontEnd(program).lex().asList().toString())) {
+            throw new IllegalStateException("parallel tokens differ from the sequential Lexer");
+        }
+
+        long lex = BenchmarkSupport.time(10, () -> new Lexer(program).LexToBuffer());
+        long parse = BenchmarkSupport.time(10, () -> {
+            TranNode tran = new TranNode();
+            new Parser(tran, new Lexer(declarations).LexToBuffer()).Tran();
+            return tran;
+        });
+        System.out.printf("sequential   : lex %8.2f ms, lex+parse %8.2f ms%n", lex / 1e6, parse / 1e6);
+        for (int threads : new int[]{1, 2, 4, 8}) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            long parallelLex = BenchmarkSupport.time(10, () -> new ParallelFrontEnd(program, pool).lex());
+            long parallelParse = BenchmarkSupport.time(10, () -> {
+                TranNode tran = new TranNode();
+                new ParallelFrontEnd(declarations, pool).parse(tran);
+                return tran;
+            });
+            System.out.printf("%d thread(s) : lex %8.2f ms, lex+parse %8.2f ms%n", threads, parallelLex / 1e6, parallelParse / 1e6);
+            pool.shutdown();
+        }
+    }
+}
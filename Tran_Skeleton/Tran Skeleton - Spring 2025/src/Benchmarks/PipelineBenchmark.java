@@ -0,0 +1,40 @@
+package Benchmarks;
+
+import AST.TranNode;
+import Tran.Lexer;
+import Tran.Parser;
+import Tran.TokenPipeline;
+
+/**
+ * Times the whole front end (lexing and parsing) on a large program three ways: Lex() followed by parsing the list,
+ * parsing straight from LexStream() on one thread, and parsing from a TokenPipeline that lexes on a second thread.
+ * Run with: java Benchmarks.PipelineBenchmark [classes]
+ */
+public class PipelineBenchmark {
+    public static void main(String[] args) throws Exception {
+        int classes = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        String program = BenchmarkSupport.generateDeclarations(classes);
+        System.out.printf("program: %,d chars, %d cores%n", program.length(), Runtime.getRuntime().availableProcessors());
+
+        long sequential = BenchmarkSupport.time(10, () -> {
+            TranNode tran = new TranNode();
+            new Parser(tran, new Lexer(program).Lex()).Tran();
+            return tran;
+        });
+        long streamed = BenchmarkSupport.time(10, () -> {
+            TranNode tran = new TranNode();
+            new Parser(tran, new Lexer(program).LexStream()).Tran();
+            return tran;
+        });
+        long pipelined = BenchmarkSupport.time(10, () -> {
+            TranNode tran = new TranNode();
+            try (TokenPipeline tokens = new TokenPipeline(new Lexer(program))) {
+                new Parser(tran, tokens).Tran();
+            }
+            return tran;
+        });
+        System.out.printf("Lex() then parse : %8.2f ms%n", sequential / 1e6);
+        System.out.printf("LexStream()      : %8.2f ms%n", streamed / 1e6);
+        System.out.printf("TokenPipeline    : %8.2f ms%n", pipelined / 1e6);
+    }
+}
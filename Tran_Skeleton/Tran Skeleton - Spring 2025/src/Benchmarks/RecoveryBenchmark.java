@@ -0,0 +1,69 @@
+package Benchmarks;
+
+import AST.TranNode;
+import Tran.Lexer;
+import Tran.Parser;
+import Tran.SyntaxErrorException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares finding every syntax error in a large program with one recovering pass (Lexer.LexToBuffer(errors) and
+ * Parser.Tran(errors)) against the edit/compile/fix loop the front end used to force: run it, fix the one error it
+ * throws, run it again, until the program is clean. Half the broken lines fail in the Lexer, half in the Parser.
+ * Run with: java Benchmarks.RecoveryBenchmark [classes]
+ */
+public class RecoveryBenchmark {
+    public static void main(String[] args) throws Exception {
+        int classes = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        for (int broken : new int[]{10, 100}) {
+            String[] lines = BenchmarkSupport.generateDeclarations(classes).split("\n", -1);
+            Map<Integer, String> fixes = new HashMap<>();   //line number to the line before it was broken
+            int step = lines.length / broken;
+            for (int k = 0; k < broken; k++) {
+                int index = k * step;
+                while (!lines[index].startsWith("    number total")) index++;
+                fixes.put(index + 1, lines[index]);
+                lines[index] = k % 2 == 0 ? "    number tot$al" : "    number";
+            }
+            String program = String.join("\n", lines);
+
+            int[] found = new int[1];
+            long recovering = BenchmarkSupport.time(20, () -> {
+                List<SyntaxErrorException> errors = new ArrayList<>();
+                new Parser(new TranNode(), new Lexer(program).LexToBuffer(errors)).Tran(errors);
+                found[0] = errors.size();
+                return errors;
+            });
+            int[] runs = new int[1];
+            long fixLoop = BenchmarkSupport.time(3, () -> {
+                runs[0] = fixOneAtATime(lines.clone(), fixes);
+                return runs;
+            });
+            System.out.printf("%3d broken lines: one recovering pass %8.2f ms (%d errors), fix loop %9.2f ms (%d runs)%n",
+                    broken, recovering / 1e6, found[0], fixLoop / 1e6, runs[0]);
+        }
+    }
+
+    /**
+     * Runs the throwing front end and fixes the line it reports until it runs clean
+     * @return the number of runs it took
+     */
+    private static int fixOneAtATime(String[] lines, Map<Integer, String> fixes) throws Exception {
+        int runs = 0;
+        while (true) {
+            runs++;
+            try {
+                new Parser(new TranNode(), new Lexer(String.join("\n", lines)).LexToBuffer()).Tran();
+                return runs;
+            } catch (SyntaxErrorException e) {
+                String fixed = fixes.get(e.getLineNumber());
+                if (fixed == null) throw new IllegalStateException("no fix for " + e);
+                lines[e.getLineNumber() - 1] = fixed;
+            }
+        }
+    }
+}
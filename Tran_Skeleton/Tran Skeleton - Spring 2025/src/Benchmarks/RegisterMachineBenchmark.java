@@ -0,0 +1,61 @@
+package Benchmarks;
+
+import AST.TranNode;
+import VM.Machine;
+import VM.RegisterMachine;
+import VM.StackMachine;
+
+import java.util.function.Function;
+
+/**
+ * Runs programs with the StackMachine and the RegisterMachine and reports, for each, the instructions dispatched and
+ * the time per loop or call. The programs are InterpreterBenchmark's and a loop over the student example's
+ * getAverage(), whose avg = (gradea + gradeb + gradec)/3 is the kind of expression the register form is for.
+ * Only start() is timed, on a machine made (and so compiled) before the timer starts.
+ * Run with: java Benchmarks.RegisterMachineBenchmark [loop count]
+ */
+public class RegisterMachineBenchmark {
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        report("arithmetic", count, InterpreterBenchmark.arithmetic(count));
+        report("members", count, InterpreterBenchmark.members(count));
+        report("recursion", count, InterpreterBenchmark.recursion(count));
+        report("average", count, average(count));
+    }
+
+    static String average(int count) {
+        return String.join("\n",
+                "class student",
+                "    number gradea",
+                "    number gradeb",
+                "    number gradec",
+                "    construct(number ga, number gb, number gc)",
+                "        gradea = ga",
+                "        gradeb = gb",
+                "        gradec = gc",
+                "    getAverage() : number avg",
+                "        avg = (gradea + gradeb + gradec)/3",
+                "    shared start()",
+                "        student s = new student(100, 99, 98)",
+                "        number i",
+                "        number total",
+                "        loop i < " + count,
+                "            total = total + s.getAverage()",
+                "            i = i + 1",
+                "");
+    }
+
+    private static void report(String name, int count, String program) throws Exception {
+        System.out.printf("%-10s stack    %s%n", name, measure(count, program, StackMachine::new));
+        System.out.printf("%-10s register %s%n", name, measure(count, program, RegisterMachine::new));
+    }
+
+    private static String measure(int count, String program, Function<TranNode, Machine> machines) throws Exception {
+        var machine = machines.apply(InterpreterBenchmark.parse(program));
+        long before = machine.dispatches;
+        machine.start();
+        long dispatches = machine.dispatches - before;
+        long nanos = BenchmarkSupport.time(20, () -> { machine.start(); return machine; });
+        return String.format("%6.1f dispatches %7.1f ns per loop or call", (double) dispatches / count, (double) nanos / count);
+    }
+}
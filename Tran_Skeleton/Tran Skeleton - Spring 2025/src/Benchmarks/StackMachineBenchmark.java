@@ -0,0 +1,36 @@
+package Benchmarks;
+
+import Interpreter.Interpreter;
+import VM.StackMachine;
+
+/**
+ * Runs InterpreterBenchmark's programs with the Interpreter and with the StackMachine, and reports the time per loop
+ * or call and the bytes allocated per loop or call for each. The program is parsed and the Interpreter or StackMachine
+ * is created before the timer starts, only start() is timed, and the StackMachine compiles each chunk once per
+ * StackMachine (in the first run).
+ * Run with: java Benchmarks.StackMachineBenchmark [loop count]
+ */
+public class StackMachineBenchmark {
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        report("arithmetic", count, InterpreterBenchmark.arithmetic(count));
+        report("members", count, InterpreterBenchmark.members(count));
+        report("recursion", count, InterpreterBenchmark.recursion(count));
+    }
+
+    private static void report(String name, int count, String program) throws Exception {
+        var interpreter = new Interpreter(InterpreterBenchmark.parse(program));
+        var machine = new StackMachine(InterpreterBenchmark.parse(program));
+        long interpreted = BenchmarkSupport.time(20, () -> { interpreter.start(); return interpreter; });
+        long compiled = BenchmarkSupport.time(20, () -> { machine.start(); return machine; });
+        System.out.printf("%-10s interpreter %7.1f ns %6.1f bytes, stack machine %7.1f ns %6.1f bytes per loop or call (%.1fx)%n",
+                name, (double) interpreted / count, allocated(interpreter::start, count),
+                (double) compiled / count, allocated(machine::start, count), (double) interpreted / compiled);
+    }
+
+    private static double allocated(Runnable start, int count) {
+        long before = BenchmarkSupport.allocatedBytes();
+        start.run();
+        return (double) (BenchmarkSupport.allocatedBytes() - before) / count;
+    }
+}
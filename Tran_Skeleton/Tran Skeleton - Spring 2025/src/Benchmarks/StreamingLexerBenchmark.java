@@ -0,0 +1,31 @@
+package Benchmarks;
+
+import Tran.Lexer;
+import Tran.Token;
+import Tran.TokenManager;
+
+/**
+ * Compares the heap held by a TokenManager halfway through a program when its tokens come from Lexer.Lex() (every
+ * token created up front) and from Lexer.LexStream() (tokens pulled as they are needed). The source text is built
+ * before measuring, so only token memory is counted. The streamed numbers should stay flat as the program grows.
+ * Run with: java Benchmarks.StreamingLexerBenchmark
+ */
+public class StreamingLexerBenchmark {
+    public static void main(String[] args) throws Exception {
+        for (int classes : new int[]{250, 1000, 4000}) {
+            String program = BenchmarkSupport.generateProgram(classes);
+            int tokenCount = new Lexer(program).LexToBuffer().size();
+            long listed = BenchmarkSupport.retainedBytes(() -> halfConsumed(new TokenManager(new Lexer(program).Lex()), tokenCount));
+            long streamed = BenchmarkSupport.retainedBytes(() -> halfConsumed(new TokenManager(new Lexer(program).LexStream()), tokenCount));
+            System.out.printf("%,9d tokens: Lex() %,12d bytes, LexStream() %,9d bytes%n", tokenCount, listed, streamed);
+        }
+    }
+
+    private static TokenManager halfConsumed(TokenManager manager, int tokenCount) {
+        for (int i = 0; i < tokenCount / 2; i++) {
+            Token.TokenTypes type = manager.peekType();
+            manager.match(type);
+        }
+        return manager;
+    }
+}
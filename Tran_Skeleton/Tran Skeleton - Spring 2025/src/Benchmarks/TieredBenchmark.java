@@ -0,0 +1,47 @@
+package Benchmarks;
+
+import AST.TranNode;
+import Interpreter.Interpreter;
+import VM.JvmMachine;
+import VM.TieredExecution;
+
+import java.util.function.Function;
+
+/**
+ * Runs RegisterMachineBenchmark's programs with the Interpreter, the JvmMachine (everything compiled when it first
+ * runs) and the Interpreter with a TieredExecution, and reports for each the time of the first run, with the
+ * preparing and compiling it does, and the time per loop or call once it has warmed up.
+ * Run with: java Benchmarks.TieredBenchmark [loop count] [threshold]
+ */
+public class TieredBenchmark {
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int threshold = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        report("arithmetic", count, threshold, InterpreterBenchmark.arithmetic(count));
+        report("members", count, threshold, InterpreterBenchmark.members(count));
+        report("recursion", count, threshold, InterpreterBenchmark.recursion(count));
+        report("average", count, threshold, RegisterMachineBenchmark.average(count));
+    }
+
+    private interface Engine {
+        void start();
+    }
+
+    private static void report(String name, int count, int threshold, String program) throws Exception {
+        System.out.printf("%-10s interpreter %s%n", name, measure(count, program, tran -> new Interpreter(tran)::start));
+        System.out.printf("%-10s jvm         %s%n", name, measure(count, program, tran -> new JvmMachine(tran)::start));
+        var tiers = new TieredExecution(threshold);
+        System.out.printf("%-10s tiered      %s%n", name, measure(count, program, tran -> new Interpreter(tran, tiers)::start));
+        for (var promotion : tiers.promotions()) System.out.println("           " + promotion);
+    }
+
+    private static String measure(int count, String program, Function<TranNode, Engine> engines) throws Exception {
+        var tran = InterpreterBenchmark.parse(program);
+        long start = System.nanoTime();
+        var engine = engines.apply(tran);
+        engine.start();
+        long first = System.nanoTime() - start;
+        long nanos = BenchmarkSupport.time(10, () -> { engine.start(); return engine; });
+        return String.format("first run %7.2f ms, then %7.1f ns per loop or call", first / 1e6, (double) nanos / count);
+    }
+}
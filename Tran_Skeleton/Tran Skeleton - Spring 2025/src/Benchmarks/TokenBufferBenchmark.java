@@ -0,0 +1,36 @@
+package Benchmarks;
+
+import Tran.Lexer;
+import Tran.TokenBuffer;
+
+import java.util.List;
+
+/**
+ * Compares Lexer.Lex() (one Token object per token in a LinkedList) with Lexer.LexToBuffer() (parallel arrays with
+ * value slices into the source). Prints the heap kept per token and the lexing throughput of both.
+ * Run with: java Benchmarks.TokenBufferBenchmark [classes]
+ */
+public class TokenBufferBenchmark {
+    public static void main(String[] args) throws Exception {
+        int classes = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        String program = BenchmarkSupport.generateProgram(classes);
+        int tokenCount = new Lexer(program).LexToBuffer().size();
+        System.out.printf("program: %,d chars, %,d tokens%n", program.length(), tokenCount);
+
+        long listBytes = BenchmarkSupport.retainedBytes(() -> new Lexer(program).Lex());
+        long bufferBytes = BenchmarkSupport.retainedBytes(() -> new Lexer(program).LexToBuffer());
+        System.out.printf("Lex()         : %6.1f bytes/token%n", (double) listBytes / tokenCount);
+        System.out.printf("LexToBuffer() : %6.1f bytes/token%n", (double) bufferBytes / tokenCount);
+
+        long listNanos = BenchmarkSupport.time(10, () -> {
+            List<?> tokens = new Lexer(program).Lex();
+            return tokens;
+        });
+        long bufferNanos = BenchmarkSupport.time(10, () -> {
+            TokenBuffer tokens = new Lexer(program).LexToBuffer();
+            return tokens;
+        });
+        System.out.printf("Lex()         : %8.2f MB/s%n", BenchmarkSupport.megabytesPerSecond(program.length(), listNanos));
+        System.out.printf("LexToBuffer() : %8.2f MB/s%n", BenchmarkSupport.megabytesPerSecond(program.length(), bufferNanos));
+    }
+}
@@ -0,0 +1,42 @@
+package Benchmarks;
+
+import Tran.Lexer;
+import Tran.MappedTextManager;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Compares going from a source file to tokens by decoding it into a String first (Files.readString) with lexing its
+ * UTF-8 bytes directly, either read into a byte[] or memory mapped. The generated program has non-ASCII text in its
+ * comments and strings, which makes the decoded String UTF-16 (2 bytes per char) instead of 1 byte per char.
+ * Prints the best time and the bytes allocated per source byte for each way, token storage included.
+ * Run with: java Benchmarks.Utf8LexerBenchmark [classes]
+ */
+public class Utf8LexerBenchmark {
+    public static void main(String[] args) throws Exception {
+        int classes = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        String program = BenchmarkSupport.generateProgram(classes)
+                .replace("generated class number", "généré classe numéro")
+                .replace("reasonably long label", "raisonnablement long libellé ✓");
+        Path file = Files.createTempFile("utf8", ".tran");
+        try {
+            Files.writeString(file, program, StandardCharsets.UTF_8);
+            long size = Files.size(file);
+            report("decoded String", size, () -> new Lexer(Files.readString(file)).LexToBuffer());
+            report("byte[]        ", size, () -> new Lexer(new MappedTextManager(Files.readAllBytes(file))).LexToBuffer());
+            report("mapped file   ", size, () -> new Lexer(new MappedTextManager(file)).LexToBuffer());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void report(String name, long size, BenchmarkSupport.Work work) throws Exception {
+        long nanos = BenchmarkSupport.time(20, work);
+        long before = BenchmarkSupport.allocatedBytes();
+        work.run();
+        long allocated = BenchmarkSupport.allocatedBytes() - before;
+        System.out.printf("%s: %8.2f ms, %6.2f bytes allocated per source byte%n", name, nanos / 1e6, (double) allocated / size);
+    }
+}
@@ -1,21 +1,81 @@
 package Interpreter;
 
 import AST.*;
+import Tran.Linker;
+import Tran.Resolver;
+import Tran.SyntaxErrorException;
+import Tran.TypeChecker;
 
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
-public class Interpreter {
+public final class Interpreter {
+    private final TranNode top;
+    private final boolean checked;  //the program passed Tran.TypeChecker, so the methods it picked need no checking
+    private final Linker linker;
+    private final Tier tier;        //runs the methods that are hot in a faster way, or null
+    private static final InterpreterDataType[] NO_LOCALS = new InterpreterDataType[0];
 
     /** Constructor - get the interpreter ready to run. Set members from parameters and "prepare" the class.
      *
      * Store the tran node.
      * Add any built-in methods to the AST
+     * Link the program (see Tran.Linker), so classes and methods are found through tables instead of by searching
+     * Resolve the names in the program (see Tran.Resolver), so running it can use slots instead of searching by name
      * @param top - the head of the AST
      */
     public Interpreter(TranNode top) {
+        this(top, false);
+    }
+
+    /**
+     * @param top - the head of the AST
+     * @param checked - type check the whole program first (see Tran.TypeChecker), and throw if it has errors. Running
+     *                it then skips matching the types of the values to the methods and constructors the checker picked,
+     *                and checking the number of values passed to and returned from them
+     */
+    public Interpreter(TranNode top, boolean checked) {
+        this(top, checked, null);
+    }
+
+    /**
+     * @param top - the head of the AST
+     * @param tier - what the methods that run most are handed to, to run faster (see Tier)
+     */
+    public Interpreter(TranNode top, Tier tier) {
+        this(top, false, tier);
+    }
+
+    private Interpreter(TranNode top, boolean checked, Tier tier) {
+        this.top = top;
+        this.checked = checked;
+        this.tier = tier;
+        addBuiltIns(top);
+        linker = Linker.link(top);
+        if (!checked) {
+            Resolver.resolve(top);
+        } else {
+            var errors = TypeChecker.check(top);
+            if (!errors.isEmpty()) throw new RuntimeException("Type errors:\n" + String.join("\n", errors));
+        }
+        if (tier != null) tier.attach(this, top, linker);
+    }
+
+    /**
+     * Adds the built-in classes (console, with its write method) to a program. Anything else that runs Tran programs
+     * (see VM.StackMachine) adds them the same way.
+     */
+    public static void addBuiltIns(TranNode top) {
+        var console = new ClassNode();
+        console.name = "console";
+        var write = new ConsoleWrite();
+        write.name = "write";
+        write.isShared = true;
+        write.isVariadic = true;
+        console.methods.add(write);
+        top.Classes.add(console);
     }
 
     /**
@@ -28,7 +88,14 @@ public class Interpreter {
      */
     public void start() {
         // Find the "start" method
-	
+        for (var c : top.Classes) {
+            for (var m : c.methods) {
+                if (m.isShared && !m.isPrivate && m.name.equals("start") && m.parameters.isEmpty()) {
+                    interpretMethodCall(Optional.empty(), m, List.of());
+                    return;
+                }
+            }
+        }
         throw new RuntimeException("No 'start' method found");
     }
 
@@ -52,9 +119,49 @@ public class Interpreter {
      * @param mc - the method call
      * @return - the return values
      */
-    private List<InterpreterDataType> findMethodForMethodCallAndRunIt(Optional<ObjectIDT> object, HashMap<String, InterpreterDataType> locals, MethodCallStatementNode mc) {
-        List<InterpreterDataType> result = null;
-        return result;
+    private List<InterpreterDataType> findMethodForMethodCallAndRunIt(Optional<ObjectIDT> object, InterpreterDataType[] locals, MethodCallStatementNode mc) {
+        var parameters = getParameters(object, locals, mc);
+        // the Resolver's target is used when the call is made the way it expected, and still matches the values
+        boolean resolved = mc.target != null && (checked || doesMatch(mc.target, mc, parameters));
+        if (mc.objectName.isEmpty()) {
+            if (object.isPresent()) {
+                if (resolved && object.get().astNode == mc.objectClass) return interpretMethodCall(object, mc.target, parameters);
+                return interpretMethodCall(object, getMethodFromObject(object.get(), mc, parameters), parameters);
+            }
+            if (resolved && mc.objectClass == null) return interpretMethodCall(object, mc.target, parameters);
+            // inside a shared method there is no object, only other shared methods can be called
+            for (var m : linker.sharedMethods(mc.methodName)) {
+                if (doesMatch(m, mc, parameters)) return interpretMethodCall(object, m, parameters);
+            }
+            throw new RuntimeException("Unable to resolve method call " + mc);
+        }
+        String name = mc.objectName.get();
+        if (mc.object == null && mc.objectClass != null) {  // the Resolver found that name is a class
+            return interpretMethodCall(Optional.empty(), resolved ? mc.target : getSharedMethod(mc.objectClass, mc, parameters), parameters);
+        }
+        if (mc.object != null || (object.isPresent() && object.get().members.containsKey(name))) {
+            var target = mc.object != null ? findVariable(mc.object, locals, object) : findVariable(name, object);
+            if (target instanceof ReferenceIDT reference) {
+                if (reference.refersTo.isEmpty()) throw new RuntimeException("Calling " + mc + " on a null reference");
+                target = reference.refersTo.get();
+            }
+            if (!(target instanceof ObjectIDT targetObject)) throw new RuntimeException("Calling " + mc + " on a " + target.getClass());
+            if (resolved && targetObject.astNode == mc.objectClass) return interpretMethodCall(Optional.of(targetObject), mc.target, parameters);
+            if (mc.objectInterface != null) {   // a call through an interface, the object's itable has the method
+                var m = Linker.interfaceMethod(targetObject.astNode, mc.objectInterface, mc.interfaceMethod);
+                if (m != null && (checked || doesMatch(m, mc, parameters))) return interpretMethodCall(Optional.of(targetObject), m, parameters);
+            }
+            return interpretMethodCall(Optional.of(targetObject), getMethodFromObject(targetObject, mc, parameters), parameters);
+        }
+        var c = getClassByName(name).orElseThrow(() -> new RuntimeException("Unable to find variable or class " + name));
+        return interpretMethodCall(Optional.empty(), getSharedMethod(c, mc, parameters), parameters);
+    }
+
+    private MethodDeclarationNode getSharedMethod(ClassNode c, MethodCallStatementNode mc, List<InterpreterDataType> parameters) {
+        for (var m : Linker.methods(c, mc.methodName)) {
+            if (m.isShared && doesMatch(m, mc, parameters)) return m;
+        }
+        throw new RuntimeException("Unable to resolve method call " + mc);
     }
 
     /**
@@ -63,19 +170,64 @@ public class Interpreter {
      * in start() and dealing with loops with iterator objects, for example.
      *
      * Check to see if "m" is a built-in. If so, call Execute() on it and return
-     * Make local variables, per "m"
+     * If there is a Tier, it runs m if m is hot
+     * Make the frame of local variables, per "m": its parameters, then its returns, then its locals, in the slots the
+     * Resolver gave them
      * If the number of passed in values doesn't match m's "expectations", throw
-     * Add the parameters by name to locals.
+     * Copy the values into the parameters' slots.
      * Call InterpretStatementBlock
-     * Build the return list - find the names from "m", then get the values for those names and add them to the list.
+     * Build the return list from the returns' slots.
      * @param object - The object this method is being called on (might be empty for shared)
      * @param m - Which method is being called
      * @param values - The values to be passed in
      * @return the returned values from the method
      */
     private List<InterpreterDataType> interpretMethodCall(Optional<ObjectIDT> object, MethodDeclarationNode m, List<InterpreterDataType> values) {
-        var retVal = new LinkedList<InterpreterDataType>();
-        return retVal;
+        if (m instanceof BuiltInMethodDeclarationNode builtIn) {
+            return builtIn.Execute(values);
+        }
+        try {
+            m.parseBody();  // a lazily parsed method is parsed the first time it runs
+        } catch (SyntaxErrorException e) {
+            throw new RuntimeException(e);
+        }
+        if (tier != null) {
+            var results = tier.invoke(object, m, values);
+            if (results != null) return results;
+        }
+        return runMethod(object, m, values);
+    }
+
+    /**
+     * Runs a method in this Interpreter, without asking the Tier: for a Tier that calls a method it does not run itself
+     * @param object - The object this method is being called on (null for shared)
+     */
+    public List<InterpreterDataType> interpret(ObjectIDT object, MethodDeclarationNode m, List<InterpreterDataType> values) {
+        if (m instanceof BuiltInMethodDeclarationNode builtIn) {
+            return builtIn.Execute(values);
+        }
+        try {
+            m.parseBody();
+        } catch (SyntaxErrorException e) {
+            throw new RuntimeException(e);
+        }
+        return runMethod(Optional.ofNullable(object), m, values);
+    }
+
+    private List<InterpreterDataType> runMethod(Optional<ObjectIDT> object, MethodDeclarationNode m, List<InterpreterDataType> values) {
+        if (!checked && values.size() != m.parameters.size()) {
+            throw new RuntimeException("Method " + m.name + " takes " + m.parameters.size() + " parameters, not " + values.size());
+        }
+        int parameters = m.parameters.size(), returns = m.returns.size();
+        var locals = new InterpreterDataType[parameters + returns + m.locals.size()];
+        for (int i = 0; i < parameters; i++) {
+            locals[i] = instantiate(m.parameters.get(i).type);
+            locals[i].Assign(values.get(i));
+        }
+        for (int i = 0; i < returns; i++) locals[parameters + i] = instantiate(m.returns.get(i).type);
+        addLocals(m.locals, locals, parameters + returns, object);
+        interpretStatementBlock(object, m.statements, locals);
+        return Arrays.asList(Arrays.copyOfRange(locals, parameters, parameters + returns));
     }
 
     //              Running Constructors
@@ -84,16 +236,32 @@ public class Interpreter {
      * This is a special case of the code for methods. Just different enough to make it worthwhile to split it out.
      *
      * Call GetParameters() to populate a list of IDT's
-     * Call GetClassByName() to find the class for the constructor
-     * If we didn't find the class, throw an exception
-     * Find a constructor that is a good match - use DoesConstructorMatch()
+     * Use the constructor the Resolver found, if it matches
+     * Otherwise find a constructor of the new object's class that is a good match - use DoesConstructorMatch()
      * Call InterpretConstructorCall() on the good match
      * @param callerObj - the object that we are inside when we called the constructor
      * @param locals - the current local variables (used to fill parameters)
      * @param mc  - the method call for this construction
      * @param newOne - the object that we just created that we are calling the constructor for
+     * @param resolved - the constructor the Resolver found, or null
      */
-    private void findConstructorAndRunIt(Optional<ObjectIDT> callerObj, HashMap<String, InterpreterDataType> locals, MethodCallStatementNode mc, ObjectIDT newOne) {
+    private void findConstructorAndRunIt(Optional<ObjectIDT> callerObj, InterpreterDataType[] locals, MethodCallStatementNode mc, ObjectIDT newOne, ConstructorNode resolved) {
+        var parameters = getParameters(callerObj, locals, mc);
+        if (resolved != null && (checked || doesConstructorMatch(resolved, mc, parameters))) {
+            interpretConstructorCall(newOne, resolved, parameters);
+            return;
+        }
+        var c = newOne.astNode;
+        for (var constructor : c.constructors) {
+            if (doesConstructorMatch(constructor, mc, parameters)) {
+                interpretConstructorCall(newOne, constructor, parameters);
+                return;
+            }
+        }
+        // a class without constructors can still be created with no parameters
+        if (!c.constructors.isEmpty() || !parameters.isEmpty()) {
+            throw new RuntimeException("Unable to resolve constructor call " + mc);
+        }
     }
 
     /**
@@ -101,13 +269,36 @@ public class Interpreter {
      *
      * Creates local variables (as defined by the ConstructorNode), calls Instantiate() to do the creation
      * Checks to ensure that the right number of parameters were passed in, if not throw.
-     * Adds the parameters (with the names from the ConstructorNode) to the locals.
+     * Copies the values into the parameters' slots, the first in the frame of locals.
      * Calls InterpretStatementBlock
      * @param object - the object that we allocated
      * @param c - which constructor is being called
      * @param values - the parameter values being passed to the constructor
      */
     private void interpretConstructorCall(ObjectIDT object, ConstructorNode c, List<InterpreterDataType> values) {
+        if (!checked && values.size() != c.parameters.size()) {
+            throw new RuntimeException("Constructor takes " + c.parameters.size() + " parameters, not " + values.size());
+        }
+        int parameters = c.parameters.size();
+        var locals = new InterpreterDataType[parameters + c.locals.size()];
+        for (int i = 0; i < parameters; i++) {
+            locals[i] = instantiate(c.parameters.get(i).type);
+            locals[i].Assign(values.get(i));
+        }
+        addLocals(c.locals, locals, parameters, Optional.of(object));
+        interpretStatementBlock(Optional.of(object), c.statements, locals);
+    }
+
+    /**
+     * Creates the local variables declared in a method or constructor in their slots, from first, running their initializers
+     */
+    private void addLocals(List<VariableDeclarationNode> declarations, InterpreterDataType[] locals, int first, Optional<ObjectIDT> object) {
+        int slot = first;
+        for (var declaration : declarations) {
+            var local = instantiate(declaration.type);
+            if (declaration.initializer.isPresent()) local.Assign(evaluate(locals, object, declaration.initializer.get()));
+            locals[slot++] = local;
+        }
     }
 
     //              Running Instructions
@@ -135,7 +326,62 @@ public class Interpreter {
      * @param statements - the statements to run
      * @param locals - the local variables
      */
-    private void interpretStatementBlock(Optional<ObjectIDT> object, List<StatementNode> statements, HashMap<String, InterpreterDataType> locals) {
+    private void interpretStatementBlock(Optional<ObjectIDT> object, List<StatementNode> statements, InterpreterDataType[] locals) {
+        for (var statement : statements) {
+            if (statement instanceof AssignmentNode assignment) {
+                var target = findVariable(assignment.target, locals, object);
+                target.Assign(evaluate(locals, object, assignment.expression));
+            } else if (statement instanceof MethodCallStatementNode mc) {
+                var results = findMethodForMethodCallAndRunIt(object, locals, mc);
+                if (!checked && results.size() < mc.returnValues.size()) {
+                    throw new RuntimeException(mc + " returns " + results.size() + " values");
+                }
+                for (int i = 0; i < mc.returnValues.size(); i++) {
+                    findVariable(mc.returnValues.get(i), locals, object).Assign(results.get(i));
+                }
+            } else if (statement instanceof LoopNode loop) {
+                interpretLoop(object, loop, locals);
+            } else if (statement instanceof IfNode ifNode) {
+                if (evaluateCondition(locals, object, ifNode.condition)) {
+                    interpretStatementBlock(object, ifNode.statements, locals);
+                } else if (ifNode.elseStatement.isPresent()) {
+                    interpretStatementBlock(object, ifNode.elseStatement.get().statements, locals);
+                }
+            } else {
+                throw new RuntimeException("Unknown statement " + statement);
+            }
+        }
+    }
+
+    /**
+     * A loop over a number's times() counts from 0 up to the number, otherwise the loop runs while its condition is
+     * true. The loop variable, if there is one, holds the count or the value of the condition. The tier, if there is
+     * one, may run the rest of a loop from the end of any time round it.
+     */
+    private void interpretLoop(Optional<ObjectIDT> object, LoopNode loop, InterpreterDataType[] locals) {
+        var variable = loop.assignment.map(v -> findVariable(v, locals, object));
+        if (loop.expression instanceof MethodCallExpressionNode mce && mce.methodName.equals("times")
+                && mce.parameters.isEmpty() && mce.objectName.isPresent()
+                && (mce.object != null ? findVariable(mce.object, locals, object) : findVariable(mce.objectName.get(), object)) instanceof NumberIDT times) {
+            for (int i = 0; i < times.Value; i++) {
+                if (variable.isPresent()) variable.get().Assign(new NumberIDT(i));
+                interpretStatementBlock(object, loop.statements, locals);
+                if (tier != null && tier.backEdge(loop, object, locals, i + 1)) return;
+            }
+            return;
+        }
+        while (true) {
+            boolean keepGoing = evaluateCondition(locals, object, loop.expression);
+            if (variable.isPresent()) variable.get().Assign(new BooleanIDT(keepGoing));
+            if (!keepGoing) return;
+            interpretStatementBlock(object, loop.statements, locals);
+            if (tier != null && tier.backEdge(loop, object, locals, -1)) return;
+        }
+    }
+
+    private boolean evaluateCondition(InterpreterDataType[] locals, Optional<ObjectIDT> object, ExpressionNode condition) {
+        if (evaluate(locals, object, condition) instanceof BooleanIDT value) return value.Value;
+        throw new RuntimeException("Condition " + condition + " is not a boolean");
     }
 
     /**
@@ -156,8 +402,85 @@ public class Interpreter {
      * @param expression - some expression to evaluate
      * @return a value
      */
-    private InterpreterDataType evaluate(HashMap<String, InterpreterDataType> locals, Optional<ObjectIDT> object, ExpressionNode expression) {
-          throw new IllegalArgumentException();
+    private InterpreterDataType evaluate(InterpreterDataType[] locals, Optional<ObjectIDT> object, ExpressionNode expression) {
+        if (expression instanceof NumericLiteralNode n) return new NumberIDT(n.value);
+        if (expression instanceof StringLiteralNode s) return new StringIDT(s.value);
+        if (expression instanceof CharLiteralNode c) return new CharIDT(c.value);
+        if (expression instanceof BooleanLiteralNode b) return new BooleanIDT(b.value);
+        if (expression instanceof VariableReferenceNode v) return findVariable(v, locals, object);
+        if (expression instanceof NotOpNode not) return new BooleanIDT(!evaluateCondition(locals, object, not.left));
+        if (expression instanceof BooleanOpNode op) {
+            boolean left = evaluateCondition(locals, object, op.left);
+            if (op.op == BooleanOpNode.BooleanOperations.and) return new BooleanIDT(left && evaluateCondition(locals, object, op.right));
+            return new BooleanIDT(left || evaluateCondition(locals, object, op.right));
+        }
+        if (expression instanceof CompareNode compare) {
+            return new BooleanIDT(compare(compare.op, evaluate(locals, object, compare.left), evaluate(locals, object, compare.right)));
+        }
+        if (expression instanceof MathOpNode math) {
+            return math(math.op, evaluate(locals, object, math.left), evaluate(locals, object, math.right));
+        }
+        if (expression instanceof MethodCallExpressionNode mce) {
+            var results = findMethodForMethodCallAndRunIt(object, locals, new MethodCallStatementNode(mce));
+            if (results.isEmpty()) throw new RuntimeException(mce + " does not return a value");
+            return results.getFirst();
+        }
+        if (expression instanceof NewNode newNode) {
+            var c = newNode.classNode != null ? newNode.classNode
+                    : getClassByName(newNode.className).orElseThrow(() -> new RuntimeException("Unable to find class " + newNode.className));
+            var newOne = new ObjectIDT(c);
+            for (int i = 0; i < c.members.size(); i++) {
+                var member = c.members.get(i);
+                var value = instantiate(member.declaration.type);
+                if (member.declaration.initializer.isPresent()) {
+                    value.Assign(evaluate(NO_LOCALS, Optional.of(newOne), member.declaration.initializer.get()));
+                }
+                newOne.members.put(member.declaration.name, value);
+                newOne.fields[i] = value;
+            }
+            var mc = new MethodCallStatementNode();
+            mc.objectName = Optional.empty();
+            mc.methodName = newNode.className;
+            mc.parameters = newNode.parameters;
+            findConstructorAndRunIt(object, locals, mc, newOne, newNode.constructor);
+            return newOne;
+        }
+        throw new IllegalArgumentException("Unable to evaluate " + expression);
+    }
+
+    public static boolean compare(CompareNode.CompareOperations op, InterpreterDataType left, InterpreterDataType right) {
+        int order;
+        if (left instanceof NumberIDT l && right instanceof NumberIDT r) order = Float.compare(l.Value, r.Value);
+        else if (left instanceof StringIDT l && right instanceof StringIDT r) order = l.Value.compareTo(r.Value);
+        else if (left instanceof CharIDT l && right instanceof CharIDT r) order = Character.compare(l.Value, r.Value);
+        else if (left instanceof BooleanIDT l && right instanceof BooleanIDT r
+                && (op == CompareNode.CompareOperations.eq || op == CompareNode.CompareOperations.ne)) order = l.Value == r.Value ? 0 : 1;
+        else throw new RuntimeException("Unable to compare a " + left.getClass() + " with a " + right.getClass());
+        switch (op) {
+            case lt -> {return order < 0;}
+            case le -> {return order <= 0;}
+            case gt -> {return order > 0;}
+            case ge -> {return order >= 0;}
+            case eq -> {return order == 0;}
+            case ne -> {return order != 0;}
+        }
+        throw new AssertionError("Unreachable");
+    }
+
+    public static InterpreterDataType math(MathOpNode.MathOperations op, InterpreterDataType left, InterpreterDataType right) {
+        if (left instanceof NumberIDT l && right instanceof NumberIDT r) {
+            switch (op) {
+                case add -> {return new NumberIDT(l.Value + r.Value);}
+                case subtract -> {return new NumberIDT(l.Value - r.Value);}
+                case multiply -> {return new NumberIDT(l.Value * r.Value);}
+                case divide -> {return new NumberIDT(l.Value / r.Value);}
+                case modulo -> {return new NumberIDT(l.Value % r.Value);}
+            }
+        }
+        if (op == MathOpNode.MathOperations.add && (left instanceof StringIDT || right instanceof StringIDT)) {
+            return new StringIDT(left.toString() + right.toString());
+        }
+        throw new RuntimeException("Unable to " + op + " a " + left.getClass() + " and a " + right.getClass());
     }
 
     //              Utility Methods
@@ -175,7 +498,14 @@ public class Interpreter {
      * @param parameters - the parameter values for this method call
      * @return does this method match the method call?
      */
-    private boolean doesMatch(MethodDeclarationNode m, MethodCallStatementNode mc, List<InterpreterDataType> parameters) {
+    public static boolean doesMatch(MethodDeclarationNode m, MethodCallStatementNode mc, List<InterpreterDataType> parameters) {
+        if (!m.name.equals(mc.methodName)) return false;
+        if (m instanceof BuiltInMethodDeclarationNode builtIn && builtIn.isVariadic) return true;
+        if (m.parameters.size() != mc.parameters.size() || m.parameters.size() != parameters.size()) return false;
+        if (mc.returnValues.size() > m.returns.size()) return false;
+        for (int i = 0; i < parameters.size(); i++) {
+            if (!typeMatchToIDT(m.parameters.get(i).type, parameters.get(i))) return false;
+        }
         return true;
     }
 
@@ -186,7 +516,11 @@ public class Interpreter {
      * @param parameters - the parameter values
      * @return does this constructor match the method call?
      */
-    private boolean doesConstructorMatch(ConstructorNode c, MethodCallStatementNode mc, List<InterpreterDataType> parameters) {
+    public static boolean doesConstructorMatch(ConstructorNode c, MethodCallStatementNode mc, List<InterpreterDataType> parameters) {
+        if (c.parameters.size() != mc.parameters.size() || c.parameters.size() != parameters.size()) return false;
+        for (int i = 0; i < parameters.size(); i++) {
+            if (!typeMatchToIDT(c.parameters.get(i).type, parameters.get(i))) return false;
+        }
         return true;
     }
 
@@ -199,8 +533,10 @@ public class Interpreter {
      * @param mc - a method call
      * @return the list of method values
      */
-    private List<InterpreterDataType> getParameters(Optional<ObjectIDT> object, HashMap<String,InterpreterDataType> locals, MethodCallStatementNode mc) {
-        return null;
+    private List<InterpreterDataType> getParameters(Optional<ObjectIDT> object, InterpreterDataType[] locals, MethodCallStatementNode mc) {
+        var values = new ArrayList<InterpreterDataType>(mc.parameters.size());
+        for (var parameter : mc.parameters) values.add(evaluate(locals, object, parameter));
+        return values;
     }
 
     /**
@@ -214,53 +550,90 @@ public class Interpreter {
      * @param idt the IDT someone is trying to pass to this method
      * @return is this OK?
      */
-    private boolean typeMatchToIDT(String type, InterpreterDataType idt) {
-        throw new RuntimeException("Unable to resolve type " + type);
+    public static boolean typeMatchToIDT(String type, InterpreterDataType idt) {
+        switch (type) {
+            case "number" -> {return idt instanceof NumberIDT;}
+            case "string" -> {return idt instanceof StringIDT;}
+            case "boolean" -> {return idt instanceof BooleanIDT;}
+            case "character" -> {return idt instanceof CharIDT;}
+        }
+        if (idt instanceof ReferenceIDT reference) {
+            return reference.refersTo.isEmpty() || typeMatchToIDT(type, reference.refersTo.get());
+        }
+        if (idt instanceof ObjectIDT object) {
+            return object.astNode.name.equals(type) || object.astNode.interfaces.contains(type);
+        }
+        return false;
     }
 
     /**
      * Find a method in an object that is the right match for a method call (same name, parameters match, etc. Uses doesMatch() to do most of the work)
      *
-     * Given a method call, we want to loop over the methods for that class, looking for a method that matches (use DoesMatch) or throw
+     * Given a method call, we want to loop over the methods for that class with its name (from the class's dispatch
+     * table, see Tran.Linker), looking for a method that matches (use DoesMatch) or throw
      * @param object - an object that we want to find a method on
      * @param mc - the method call
      * @param parameters - the parameter value list
      * @return a method or throws an exception
      */
     private MethodDeclarationNode getMethodFromObject(ObjectIDT object, MethodCallStatementNode mc, List<InterpreterDataType> parameters) {
+        for (var m : Linker.methods(object.astNode, mc.methodName)) {
+            if (doesMatch(m, mc, parameters)) return m;
+        }
         throw new RuntimeException("Unable to resolve method call " + mc);
     }
 
     /**
-     * Find a class, given the name. Just loops over the TranNode's classes member, matching by name.
+     * Find a class, given the name. Looks it up in the Linker's index of the TranNode's classes.
      *
-     * Loop over each class in the top node, comparing names to find a match.
      * @param name Name of the class to find
      * @return either a class node or empty if that class doesn't exist
      */
     private Optional<ClassNode> getClassByName(String name) {
-        return Optional.empty();
+        return Optional.ofNullable(linker.getClassByName(name));
     }
 
     /**
-     * Given an execution environment (the current object, the current local variables), find a variable by name.
+     * Given an execution environment (the current object), find a variable by name. Locals are always bound to a slot by
+     * the Resolver, so only the object's members are looked up by name (in a shared method run on an object, for example).
      *
      * @param name  - the variable that we are looking for
-     * @param locals - the current method's local variables
      * @param object - the current object (so we can find members)
      * @return the IDT that we are looking for or throw an exception
      */
-    private InterpreterDataType findVariable(String name, HashMap<String,InterpreterDataType> locals, Optional<ObjectIDT> object) {
+    private InterpreterDataType findVariable(String name, Optional<ObjectIDT> object) {
+        if (object.isPresent()) {
+            var member = object.get().members.get(name);
+            if (member != null) return member;
+        }
         throw new RuntimeException("Unable to find variable " + name);
     }
 
+    /**
+     * findVariable() for a variable the Resolver has bound: a parameter, return or local is read from its slot in the
+     * frame, a member from its slot in the object. One it could not bind is looked up by name
+     */
+    private InterpreterDataType findVariable(VariableReferenceNode variable, InterpreterDataType[] locals, Optional<ObjectIDT> object) {
+        if (variable.scope == null) return findVariable(variable.name, object);
+        if (variable.scope == VariableReferenceNode.Scope.MEMBER) return object.get().fields[variable.slot];
+        return locals[variable.slot];
+    }
+
     /**
      * Given a string (the type name), make an IDT for it.
      *
      * @param type The name of the type (string, number, boolean, character). Defaults to ReferenceIDT if not one of those.
      * @return an IDT with default values (0 for number, "" for string, false for boolean, ' ' for character)
      */
-    private InterpreterDataType instantiate(String type) {
-	    return null;
+    public static InterpreterDataType instantiate(String type) {
+        switch (type) {
+            case "number" -> {return new NumberIDT(0);}
+            case "string" -> {return new StringIDT("");}
+            case "boolean" -> {return new BooleanIDT(false);}
+            case "character" -> {return new CharIDT(' ');}
+        }
+        var reference = new ReferenceIDT();
+        reference.refersTo = Optional.empty();
+        return reference;
     }
 }
@@ -7,9 +7,12 @@ import java.util.HashMap;
 public class ObjectIDT implements InterpreterDataType {
     public final HashMap<String,InterpreterDataType> members = new HashMap<>();
     public final ClassNode astNode;
+    //the same values as members, in ClassNode.members order, for variables the Resolver bound to a member slot
+    public final InterpreterDataType[] fields;
 
     public ObjectIDT(ClassNode astNode) {
         this.astNode = astNode;
+        fields = new InterpreterDataType[astNode.members.size()];
     }
 
     @Override
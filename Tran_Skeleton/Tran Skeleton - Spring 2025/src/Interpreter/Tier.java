@@ -0,0 +1,34 @@
+package Interpreter;
+
+import AST.LoopNode;
+import AST.MethodDeclarationNode;
+import AST.TranNode;
+import Tran.Linker;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A faster way to run a program's methods, that the Interpreter hands its hot methods to (see VM.TieredExecution).
+ * The Interpreter asks it before running each method, and each time a loop goes round.
+ *      new Interpreter(tran, new TieredExecution(1000)).start();
+ */
+public interface Tier {
+    /**
+     * Called once by the Interpreter's constructor, with the program after it is linked and resolved
+     * @param interpreter - for the methods this tier does not run, see Interpreter.interpret()
+     */
+    void attach(Interpreter interpreter, TranNode top, Linker linker);
+
+    /**
+     * @return the values m returns, if this tier ran it, or null for the Interpreter to run it
+     */
+    List<InterpreterDataType> invoke(Optional<ObjectIDT> object, MethodDeclarationNode m, List<InterpreterDataType> values);
+
+    /**
+     * Called at the end of each time round a loop, with the frame of the method or constructor it is in
+     * @param count - the number of times a loop over times() has gone round, or -1 for a loop on its condition
+     * @return true if this tier ran the rest of the loop, in which case the Interpreter goes on after it
+     */
+    boolean backEdge(LoopNode loop, Optional<ObjectIDT> object, InterpreterDataType[] locals, int count);
+}
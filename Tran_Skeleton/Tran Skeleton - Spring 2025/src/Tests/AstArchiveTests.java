@@ -0,0 +1,192 @@
+package Tests;
+
+import AST.*;
+import Interpreter.Interpreter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import Tran.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class AstArchiveTests {
+    private static final String program = String.join("\n",
+            "interface Shape",
+            "    area(number scale) : number a",
+            "class Counter implements Shape",
+            "    number count = 1",
+            "    string label",
+            "    construct(string name)",
+            "        number unused",
+            "        label = name",
+            "    add(number amount) : number total, number before",
+            "        number doubled = amount * -2 + 1",
+            "        before = count",
+            "        if doubled > 10 and not (count == 0)",
+            "            count = count + 10",
+            "        else",
+            "            loop doubled > 0",
+            "                count = count + 1",
+            "                doubled = doubled - 1",
+            "        total = count",
+            "    area(number scale) : number a",
+            "        a = scale * 3.5",
+            "    private describe() : string s",
+            "        s = \"count \" + 'x'",
+            "        loop i = count",
+            "            s = s + label",
+            "    shared start()",
+            "        Counter c = new Counter(\"c\")",
+            "        number n",
+            "        number m",
+            "        n, m = c.add(3)",
+            "        console.write(n, m)",
+            "");
+
+    @TempDir
+    Path directory;
+
+    private AstArchive archive(TranNode tran, String source) throws Exception {
+        Path file = directory.resolve("program.tranc");
+        AstArchive.write(tran, AstArchive.hash(source), file);
+        return AstArchive.open(file);
+    }
+
+    private static MethodDeclarationNode method(ClassNode classNode, String name) {
+        for (var m : classNode.methods) {
+            if (m.name.equals(name)) return m;
+        }
+        throw new AssertionError(name);
+    }
+
+    @Test
+    public void readsBackTheProgramThatWasWritten() throws Exception {
+        TranNode parsed = TestSupport.parse(program);
+        AstArchive archive = archive(parsed, program);
+        Assertions.assertTrue(archive.isFor(AstArchive.hash(program)));
+        Assertions.assertFalse(archive.isFor(AstArchive.hash(program + "\n")));
+
+        TranNode read = archive.tranNode();
+        for (var c : read.Classes) {
+            for (var m : c.methods) m.parseBody();
+        }
+        Assertions.assertEquals(parsed.Classes.toString(), read.Classes.toString());
+        var counter = read.Classes.getFirst();
+        Assertions.assertEquals("[Shape]", counter.interfaces.toString());
+        Assertions.assertEquals("[number unused]", counter.constructors.getFirst().locals.toString());
+        Assertions.assertTrue(method(counter, "describe").isPrivate);
+        Assertions.assertTrue(method(counter, "start").isShared);
+
+        var shape = read.Interfaces.getFirst();
+        Assertions.assertEquals("Shape", shape.name);
+        Assertions.assertEquals(1, shape.methods.size());
+        Assertions.assertEquals("area", shape.methods.getFirst().name);
+        Assertions.assertEquals("[number scale]", shape.methods.getFirst().parameters.toString());
+        Assertions.assertEquals("[number a]", shape.methods.getFirst().returns.toString());
+    }
+
+    @Test
+    public void classesAreFoundByNameAndBodiesWaitUntilRun() throws Exception {
+        AstArchive archive = archive(TestSupport.parse(program + "class Other\n    shared go()\n        x = 1\n"), program);
+        Assertions.assertEquals(2, archive.classCount());
+        ClassNode other = archive.loadClass("Other");
+        Assertions.assertEquals("Other", other.name);
+        Assertions.assertSame(other, archive.loadClass("Other"));
+        Assertions.assertNull(archive.loadClass("Missing"));
+        Assertions.assertNotNull(other.methods.getFirst().unparsedBody);
+
+        TranNode tran = archive.tranNode();
+        Assertions.assertSame(other, tran.Classes.get(1));
+        new Interpreter(tran).start();
+        var counter = archive.loadClass("Counter");
+        Assertions.assertNull(method(counter, "start").unparsedBody);
+        Assertions.assertNull(method(counter, "add").unparsedBody);
+        Assertions.assertNotNull(method(counter, "describe").unparsedBody);
+        Assertions.assertNotNull(other.methods.getFirst().unparsedBody);
+    }
+
+    @Test
+    public void theCacheParsesOnlyWhenTheSourceChanges() throws Exception {
+        TranNode first = AstArchive.load(program, directory);
+        Assertions.assertNull(method(first.Classes.getFirst(), "add").unparsedBody);   //parsed
+        TranNode second = AstArchive.load(program, directory);
+        Assertions.assertNotNull(method(second.Classes.getFirst(), "add").unparsedBody);   //read from the archive
+        try (var files = Files.list(directory)) {
+            Assertions.assertEquals(1, files.count());
+        }
+
+        String changed = program.replace("scale * 3.5", "scale * 4");
+        TranNode third = AstArchive.load(changed, directory);
+        Assertions.assertNull(method(third.Classes.getFirst(), "area").unparsedBody);
+        try (var files = Files.list(directory)) {
+            Assertions.assertEquals(2, files.count());
+        }
+
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.write(file, new byte[]{1, 2, 3});
+                Assertions.assertThrows(IOException.class, () -> AstArchive.open(file));
+            }
+        }
+        Assertions.assertNull(method(AstArchive.load(program, directory).Classes.getFirst(), "add").unparsedBody);
+        Assertions.assertNotNull(method(AstArchive.load(program, directory).Classes.getFirst(), "add").unparsedBody);
+    }
+
+    @Test
+    public void damagedArchivesAreParsedAndWrittenAgain() throws Exception {
+        AstArchive.load(program, directory);
+        Path file;
+        try (var files = Files.list(directory)) {
+            file = files.findFirst().orElseThrow();
+        }
+        byte[] whole = Files.readAllBytes(file);
+
+        //cut short: the header points past the end of the file
+        Files.write(file, Arrays.copyOf(whole, whole.length / 2));
+        Assertions.assertThrows(IOException.class, () -> AstArchive.open(file));
+        Assertions.assertNull(method(AstArchive.load(program, directory).Classes.getFirst(), "add").unparsedBody);
+        Assertions.assertNotNull(method(AstArchive.load(program, directory).Classes.getFirst(), "add").unparsedBody);
+
+        //a good header over a garbled section, which only fails once it is decoded
+        byte[] garbled = whole.clone();
+        ByteBuffer.wrap(garbled).putInt(ByteBuffer.wrap(garbled).getInt(48), Integer.MAX_VALUE);  //the interface count
+        Files.write(file, garbled);
+        Assertions.assertThrows(RuntimeException.class, () -> AstArchive.open(file).tranNode());
+        Assertions.assertNull(method(AstArchive.load(program, directory).Classes.getFirst(), "add").unparsedBody);
+        Assertions.assertArrayEquals(whole, Files.readAllBytes(file));
+        try (var files = Files.list(directory)) {
+            Assertions.assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void longAndDeepExpressionsDoNotUseTheJavaStack() throws Exception {
+        int terms = 50_000;
+        StringBuilder wide = new StringBuilder("t0");
+        for (int i = 1; i < terms; i++) wide.append(i % 3 == 0 ? " * t" : " + t").append(i);
+        int nesting = 20_000;
+        String deep = "(".repeat(nesting) + "f(".repeat(nesting) + "1" + ")".repeat(2 * nesting);
+        String source = "class Big\n    go()\n        a = " + wide + "\n        b = " + deep + "\n";
+        var go = archive(TestSupport.parse(source), source).tranNode().Classes.getFirst().methods.getFirst();
+        go.parseBody();
+
+        ExpressionNode node = ((AssignmentNode) go.statements.get(0)).expression;
+        int depth = 0;
+        while (node instanceof MathOpNode math) {
+            node = math.left;
+            depth++;
+        }
+        Assertions.assertEquals("t0", node.toString());
+        Assertions.assertTrue(depth > terms / 2, "depth " + depth);
+
+        node = ((MethodCallStatementNode) go.statements.get(1)).parameters.getFirst();
+        for (int i = 1; i < nesting; i++) {
+            node = ((MethodCallExpressionNode) node).parameters.getFirst();
+        }
+        Assertions.assertEquals(1, ((NumericLiteralNode) node).value);
+    }
+}
@@ -0,0 +1,127 @@
+package Tests;
+
+import AST.*;
+import Interpreter.Interpreter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CompactTreeTests {
+    private static final String program = String.join("\n",
+            "interface Shape",
+            "    area(number scale) : number a",
+            "class Counter implements Shape",
+            "    number count = 1",
+            "    string label",
+            "    construct(string name)",
+            "        number unused",
+            "        label = name",
+            "    add(number amount) : number total, number before",
+            "        number doubled = amount * -2 + 1",
+            "        before = count",
+            "        if doubled > 10 and not (count == 0)",
+            "            count = count + 10",
+            "        else",
+            "            loop doubled > 0",
+            "                count = count + 1",
+            "                doubled = doubled - 1",
+            "        total = count",
+            "    area(number scale) : number a",
+            "        a = scale * 3.5",
+            "    private describe() : string s",
+            "        s = \"count \" + 'x'",
+            "        loop i = count",
+            "            s = s + label",
+            "    shared start()",
+            "        Counter c = new Counter(\"c\")",
+            "        number n",
+            "        number m",
+            "        n, m = c.add(3)",
+            "        console.write(n, m)",
+            "");
+
+    @Test
+    public void convertsBackToTheSameProgram() throws Exception {
+        TranNode parsed = TestSupport.parse(program);
+        CompactTree tree = CompactTree.of(TestSupport.parseLazily(program));
+        TranNode back = tree.toTranNode();
+        Assertions.assertEquals(parsed.Classes.toString(), back.Classes.toString());
+        Assertions.assertEquals(1, back.Interfaces.size());
+        Assertions.assertEquals("[number scale]", back.Interfaces.getFirst().methods.getFirst().parameters.toString());
+        Assertions.assertEquals("[Shape]", back.Classes.getFirst().interfaces.toString());
+        Assertions.assertEquals("[number unused]", back.Classes.getFirst().constructors.getFirst().locals.toString());
+    }
+
+    @Test
+    public void nodesAreReadByNumber() throws Exception {
+        CompactTree tree = CompactTree.of(TestSupport.parse(program));
+        int root = tree.root();
+        Assertions.assertEquals(CompactTree.Kind.TRAN, tree.kind(root));
+        int counter = tree.child(tree.child(root, 1), 0);
+        Assertions.assertEquals(CompactTree.Kind.CLASS, tree.kind(counter));
+        Assertions.assertEquals("Counter", tree.name(counter));
+
+        int members = tree.child(counter, 1);
+        Assertions.assertEquals(2, tree.childCount(members));
+        int count = tree.child(members, 0);
+        Assertions.assertEquals("number", tree.type(count));
+        Assertions.assertEquals(1, tree.number(tree.child(count, 0)));
+        Assertions.assertEquals(0, tree.childCount(tree.child(members, 1)));    //no initializer
+
+        int methods = tree.child(counter, 3);
+        int add = tree.child(methods, 0);
+        Assertions.assertFalse(tree.isShared(add));
+        Assertions.assertTrue(tree.isPrivate(tree.child(methods, 2)));
+        Assertions.assertTrue(tree.isShared(tree.child(methods, 3)));
+        int addStatements = tree.child(add, 3);
+        int ifNode = tree.child(addStatements, 1);
+        Assertions.assertEquals(CompactTree.Kind.IF, tree.kind(ifNode));
+        Assertions.assertEquals(3, tree.childCount(ifNode));   //with an else
+        int loop = tree.child(tree.child(ifNode, 2), 0);
+        Assertions.assertNull(tree.loopVariable(loop));
+
+        int startStatements = tree.child(tree.child(methods, 3), 3);
+        int call = tree.child(startStatements, 0);
+        Assertions.assertEquals(CompactTree.Kind.METHOD_CALL, tree.kind(call));
+        Assertions.assertEquals("c", tree.objectName(call));
+        Assertions.assertEquals(2, tree.childCount(tree.child(call, 0)));
+        Assertions.assertEquals(3, tree.number(tree.child(call, 1)));
+        Assertions.assertEquals(tree.nameId(tree.child(tree.child(call, 0), 0)), tree.nameId(tree.child(tree.child(startStatements, 1), 1)));   //n, in console.write(n, m)
+
+        for (int node = 0; node < tree.size(); node++) {
+            for (int i = 0; i < tree.childCount(node); i++) Assertions.assertTrue(tree.child(node, i) < node);
+        }
+    }
+
+    @Test
+    public void builtInMethodsCannotBeConverted() throws Exception {
+        TranNode tran = TestSupport.parse(program);
+        new Interpreter(tran);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> CompactTree.of(tran));
+    }
+
+    @Test
+    public void longAndDeepExpressionsDoNotUseTheJavaStack() throws Exception {
+        int terms = 50_000;
+        StringBuilder wide = new StringBuilder("t0");
+        for (int i = 1; i < terms; i++) wide.append(i % 3 == 0 ? " * t" : " + t").append(i);
+        int nesting = 20_000;
+        String deep = "(".repeat(nesting) + "f(".repeat(nesting) + "1" + ")".repeat(2 * nesting);
+        String source = "class Big\n    go()\n        a = " + wide + "\n        b = " + deep + "\n";
+        var go = CompactTree.of(TestSupport.parse(source)).toTranNode().Classes.getFirst().methods.getFirst();
+
+        ExpressionNode node = ((AssignmentNode) go.statements.get(0)).expression;
+        int depth = 0;
+        while (node instanceof MathOpNode math) {
+            node = math.left;
+            depth++;
+        }
+        Assertions.assertEquals("t0", node.toString());
+        Assertions.assertTrue(depth > terms / 2, "depth " + depth);
+
+        node = ((MethodCallStatementNode) go.statements.get(1)).parameters.getFirst();
+        for (int i = 1; i < nesting; i++) {
+            node = ((MethodCallExpressionNode) node).parameters.getFirst();
+        }
+        Assertions.assertEquals(1, ((NumericLiteralNode) node).value);
+    }
+}
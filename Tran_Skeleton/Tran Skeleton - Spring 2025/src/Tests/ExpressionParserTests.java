@@ -0,0 +1,112 @@
+package Tests;
+
+import AST.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import Tran.*;
+
+public class ExpressionParserTests {
+
+    private static MethodDeclarationNode parseMethod(String body) throws Exception {
+        TranNode tran = new TranNode();
+        new Parser(tran, new Lexer("class Tran\n    helloWorld()\n" + body).LexToBuffer()).Tran();
+        return tran.Classes.getFirst().methods.getFirst();
+    }
+
+    private static ExpressionNode parseExpression(String expression) throws Exception {
+        return ((IfNode) parseMethod("        if " + expression + "\n            x = 1\n").statements.getFirst()).condition;
+    }
+
+    @Test
+    public void precedenceAndAssociativity() throws Exception {
+        var sum = (MathOpNode) parseExpression("a - b + c * d % 2");
+        Assertions.assertEquals(MathOpNode.MathOperations.add, sum.op);
+        Assertions.assertEquals("a - b", sum.left.toString());
+        var modulo = (MathOpNode) sum.right;
+        Assertions.assertEquals(MathOpNode.MathOperations.modulo, modulo.op);
+        Assertions.assertEquals("c * d", modulo.left.toString());
+
+        var grouped = (MathOpNode) parseExpression("(a - (b + c)) * -d");
+        Assertions.assertEquals(MathOpNode.MathOperations.multiply, grouped.op);
+        Assertions.assertEquals("b + c", ((MathOpNode) grouped.left).right.toString());
+        Assertions.assertEquals("0.0  - d", grouped.right.toString());
+        Assertions.assertEquals(-2.5f, ((NumericLiteralNode) parseExpression("-2.5")).value);
+    }
+
+    @Test
+    public void booleanOperatorsAreContextualWords() throws Exception {
+        var or = (BooleanOpNode) parseExpression("not a < b + 1 and c or d != 'q'");
+        Assertions.assertEquals(BooleanOpNode.BooleanOperations.or, or.op);
+        var and = (BooleanOpNode) or.left;
+        Assertions.assertEquals(BooleanOpNode.BooleanOperations.and, and.op);
+        var not = (NotOpNode) and.left;
+        Assertions.assertEquals(CompareNode.CompareOperations.lt, ((CompareNode) not.left).op);
+        Assertions.assertInstanceOf(MathOpNode.class, ((CompareNode) not.left).right);
+        Assertions.assertEquals("d != 'q'", or.right.toString());
+
+        Assertions.assertEquals("true and false", parseExpression("true and false").toString());
+        Assertions.assertEquals("android", ((VariableReferenceNode) parseExpression("android")).name);
+    }
+
+    @Test
+    public void callsAndNewNestInsideArguments() throws Exception {
+        var call = (MethodCallExpressionNode) parseExpression("shapes.scale(a + 1, size(new Box(2, \"wide\")), \"\")");
+        Assertions.assertEquals("shapes", call.objectName.orElseThrow());
+        Assertions.assertEquals("scale", call.methodName);
+        Assertions.assertEquals(3, call.parameters.size());
+        var size = (MethodCallExpressionNode) call.parameters.get(1);
+        Assertions.assertTrue(size.objectName.isEmpty());
+        var box = (NewNode) size.parameters.getFirst();
+        Assertions.assertEquals("Box", box.className);
+        Assertions.assertEquals(2, box.parameters.size());
+        Assertions.assertEquals("", ((StringLiteralNode) call.parameters.get(2)).value);
+        Assertions.assertEquals(0, ((NewNode) parseExpression("new Box()")).parameters.size());
+    }
+
+    @Test
+    public void methodCallStatementsTakeTheirReturnValues() throws Exception {
+        var method = parseMethod("        a, b = pair(1)\n        c = p.get()\n        console.write(c + 1)\n");
+        Assertions.assertEquals(3, method.statements.size());
+        var pair = (MethodCallStatementNode) method.statements.get(0);
+        Assertions.assertEquals(2, pair.returnValues.size());
+        Assertions.assertEquals("c", ((MethodCallStatementNode) method.statements.get(1)).returnValues.getFirst().name);
+        var write = (MethodCallStatementNode) method.statements.get(2);
+        Assertions.assertEquals(0, write.returnValues.size());
+        Assertions.assertInstanceOf(MathOpNode.class, write.parameters.getFirst());
+    }
+
+    @Test
+    public void longAndDeepExpressionsDoNotUseTheJavaStack() throws Exception {
+        int terms = 50_000;
+        StringBuilder wide = new StringBuilder("t0");
+        for (int i = 1; i < terms; i++) wide.append(i % 3 == 0 ? " * t" : " + t").append(i);
+        ExpressionNode node = parseExpression(wide.toString());
+        int depth = 0;
+        while (node instanceof MathOpNode math) {
+            node = math.left;
+            depth++;
+        }
+        Assertions.assertEquals("t0", node.toString());
+        Assertions.assertTrue(depth > terms / 2, "depth " + depth);
+
+        int nesting = 20_000;
+        node = parseExpression("(".repeat(nesting) + "f(" .repeat(nesting) + "1" + ")".repeat(2 * nesting));
+        for (int i = 0; i < nesting; i++) {
+            node = ((MethodCallExpressionNode) node).parameters.getFirst();
+        }
+        Assertions.assertEquals(1, ((NumericLiteralNode) node).value);
+    }
+
+    @Test
+    public void malformedExpressionsReportWhereTheyBreak() {
+        var unclosed = Assertions.assertThrows(SyntaxErrorException.class, () -> parseExpression("a + f(b c)"));
+        Assertions.assertTrue(unclosed.getMessage().contains("RPAREN"), unclosed.getMessage());
+        Assertions.assertEquals(3, unclosed.getLineNumber());
+        Assertions.assertEquals(13, unclosed.getCharacterPosition());
+        var missing = Assertions.assertThrows(SyntaxErrorException.class, () -> parseExpression("a * * b"));
+        Assertions.assertEquals(9, missing.getCharacterPosition());
+        var notCall = Assertions.assertThrows(SyntaxErrorException.class, () -> parseMethod("        p.get() + 1\n"));
+        Assertions.assertEquals(3, notCall.getLineNumber());
+        Assertions.assertEquals(2, notCall.getCharacterPosition());   //where the statement starts
+    }
+}
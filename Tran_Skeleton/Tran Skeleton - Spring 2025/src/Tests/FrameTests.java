@@ -0,0 +1,100 @@
+package Tests;
+
+import AST.*;
+import Interpreter.Interpreter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import Tran.*;
+
+public class FrameTests {
+    private static final String program = String.join("\n",
+            "class Box",
+            "    number size = 10",
+            "    shrink(number size) : number left",
+            "        number size = size - 1",          //hides the parameter, which hides the member
+            "        left = size",
+            "    fill(number by)",
+            "        size = size + by",
+            "    shared peek() : number p",
+            "        p = size",                        //a shared method has no members of its own
+            "    show()",
+            "        number p",
+            "        number left",
+            "        left = shrink(4)",
+            "        p = peek()",
+            "        console.write(left, \" \", p)",
+            "    shared start()",
+            "        Box b = new Box()",
+            "        number i",
+            "        number total",
+            "        boolean n = true",
+            "        number four = 4",
+            "        loop i = four.times()",
+            "            b.fill(i)",
+            "        loop n = total < 3",
+            "            total = total + 1",
+            "        b.show()",
+            "        console.write(i, \" \", total)",
+            "");
+
+    private static MethodDeclarationNode method(TranNode tran, String name) {
+        for (var m : tran.Classes.getFirst().methods) {
+            if (m.name.equals(name)) return m;
+        }
+        throw new AssertionError(name);
+    }
+
+    private static VariableReferenceNode target(MethodDeclarationNode m, int statement) {
+        return ((AssignmentNode) m.statements.get(statement)).target;
+    }
+
+    @Test
+    public void laterDeclarationsHideEarlierOnesInTheirOwnSlots() throws Exception {
+        TranNode tran = TestSupport.parse(program);
+        Resolver.resolve(tran);
+        var shrink = method(tran, "shrink");
+        var left = target(shrink, 0);
+        Assertions.assertEquals(VariableReferenceNode.Scope.RETURN, left.scope);
+        Assertions.assertEquals(1, left.slot);
+        var size = (VariableReferenceNode) ((AssignmentNode) shrink.statements.getFirst()).expression;
+        Assertions.assertEquals(VariableReferenceNode.Scope.LOCAL, size.scope);
+        Assertions.assertEquals(2, size.slot);
+        var member = target(method(tran, "fill"), 0);
+        Assertions.assertEquals(VariableReferenceNode.Scope.MEMBER, member.scope);
+        Assertions.assertEquals(0, member.slot);
+
+        //the local starts at 4 - 1 and the member is left alone, so peek() sees 10 + 0 + 1 + 2 + 3
+        Assertions.assertEquals("3.0 16.0\n3.0 3.0\n", TestSupport.output(() -> new Interpreter(tran).start()));
+    }
+
+    @Test
+    public void loopVariablesAreSlotsInTheFrame() throws Exception {
+        TranNode tran = TestSupport.parse(program);
+        Resolver.resolve(tran);
+        var start = method(tran, "start");
+        var counted = ((LoopNode) start.statements.getFirst()).assignment.orElseThrow();
+        Assertions.assertEquals(VariableReferenceNode.Scope.LOCAL, counted.scope);
+        Assertions.assertEquals(1, counted.slot);
+        var condition = ((LoopNode) start.statements.get(1)).assignment.orElseThrow();
+        Assertions.assertEquals(VariableReferenceNode.Scope.LOCAL, condition.scope);
+        Assertions.assertEquals(3, condition.slot);
+
+        //i is left at the last count, and n at false, without disturbing the slots next to them
+        String program = FrameTests.program.replace("i, \" \", total)", "i, \" \", total, \" \", n)");
+        Assertions.assertEquals("3.0 16.0\n3.0 3.0 false\n", TestSupport.output(() -> new Interpreter(TestSupport.parse(program)).start()));
+    }
+
+    @Test
+    public void unboundNamesAreFoundByName() throws Exception {
+        TranNode tran = TestSupport.parse(program);
+        var interpreter = new Interpreter(tran);    //resolves the program
+        var p = (VariableReferenceNode) ((AssignmentNode) method(tran, "peek").statements.getFirst()).expression;
+        Assertions.assertNull(p.scope);
+        //peek() runs on the Box show() was called on, so size is found by name among that object's members
+        Assertions.assertEquals("3.0 16.0\n3.0 3.0\n", TestSupport.output(interpreter::start));
+
+        TranNode missing = TestSupport.parse(program.replace("p = size", "p = nothing"));
+        var e = Assertions.assertThrows(RuntimeException.class, () -> new Interpreter(missing).start());
+        Assertions.assertEquals("Unable to find variable nothing", e.getMessage());
+    }
+}
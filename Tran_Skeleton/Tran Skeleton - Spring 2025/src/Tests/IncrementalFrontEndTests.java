@@ -0,0 +1,99 @@
+package Tests;
+
+import AST.TranNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import Tran.*;
+
+public class IncrementalFrontEndTests {
+    private static final String program = """
+            { shapes }
+            interface Shape
+                area() : number a
+            class Square implements Shape
+                number side
+                area() : number a
+                    number unused
+                grow(number by)
+                    number tmp
+            class Circle implements Shape
+                number radius
+                area() : number a
+                    number unused
+            """;
+
+    //InterfaceNode.toString() adds to the node, so interfaces are only compared by name and method count
+    private static String describe(TranNode tran) {
+        StringBuilder sb = new StringBuilder();
+        for (var i : tran.Interfaces) sb.append(i.name).append(i.methods.size()).append('\n');
+        for (var c : tran.Classes) sb.append(c);
+        return sb.toString();
+    }
+
+    private static void assertMatchesFullRebuild(IncrementalFrontEnd frontEnd) throws Exception {
+        String text = frontEnd.text();
+        Assertions.assertEquals(new Lexer(text).Lex().toString(), frontEnd.tokens().asList().toString());
+        TranNode full = new TranNode();
+        new Parser(full, new Lexer(text).Lex()).Tran();
+        Assertions.assertEquals(describe(full), describe(frontEnd.tranNode()));
+    }
+
+    @Test
+    public void editsMatchAFullRebuild() throws Exception {
+        IncrementalFrontEnd frontEnd = new IncrementalFrontEnd(program);
+        assertMatchesFullRebuild(frontEnd);
+        frontEnd.edit(program.indexOf("side"), 4, "length");               //rename a member
+        assertMatchesFullRebuild(frontEnd);
+        frontEnd.edit(frontEnd.text().indexOf("class Circle"), 0, "class Empty\n    number e\n"); //new class
+        assertMatchesFullRebuild(frontEnd);
+        frontEnd.edit(frontEnd.text().indexOf("    number radius"), 0, "    number diameter\n");
+        assertMatchesFullRebuild(frontEnd);
+        Assertions.assertEquals(program.replace("side", "length").replace("class Circle", "class Empty\n    number e\nclass Circle")
+                .replace("    number radius", "    number diameter\n    number radius"), frontEnd.text());
+    }
+
+    @Test
+    public void editsThatMoveBoundariesMatchAFullRebuild() throws Exception {
+        IncrementalFrontEnd frontEnd = new IncrementalFrontEnd(program);
+        int square = program.indexOf("class Square");
+        Assertions.assertThrows(SyntaxErrorException.class, () -> frontEnd.edit(square, 0, "{ ")); //comment opened over the rest of the file
+        Assertions.assertThrows(SyntaxErrorException.class, frontEnd::tranNode);
+        frontEnd.edit(program.length() + 2, 0, "}\n");                       //and closed at the end
+        assertMatchesFullRebuild(frontEnd);
+        Assertions.assertEquals(1, frontEnd.tranNode().Interfaces.size());
+        Assertions.assertEquals(0, frontEnd.tranNode().Classes.size());
+        Assertions.assertThrows(SyntaxErrorException.class, () -> frontEnd.edit(square, 2, "")); //the "}" is now code
+        frontEnd.edit(frontEnd.text().length() - 2, 2, "");
+        assertMatchesFullRebuild(frontEnd);
+        Assertions.assertEquals(2, frontEnd.tranNode().Classes.size());
+        frontEnd.edit(0, frontEnd.text().length(), "");                       //everything removed
+        assertMatchesFullRebuild(frontEnd);
+    }
+
+    @Test
+    public void untouchedNodesAreReused() throws Exception {
+        IncrementalFrontEnd frontEnd = new IncrementalFrontEnd(program);
+        TranNode before = frontEnd.tranNode();
+        frontEnd.edit(program.indexOf("number tmp"), "number tmp".length(), "string tmp");
+        TranNode after = frontEnd.tranNode();
+        Assertions.assertSame(before.Interfaces.getFirst(), after.Interfaces.getFirst());
+        Assertions.assertSame(before.Classes.get(1), after.Classes.get(1));             //Circle is untouched
+        Assertions.assertNotSame(before.Classes.get(0), after.Classes.get(0));          //Square was parsed again
+        Assertions.assertSame(before.Classes.get(0).methods.get(0), after.Classes.get(0).methods.get(0)); //area()
+        Assertions.assertNotSame(before.Classes.get(0).methods.get(1), after.Classes.get(0).methods.get(1));
+        Assertions.assertEquals("string", after.Classes.get(0).methods.get(1).locals.getFirst().type);
+    }
+
+    @Test
+    public void errorsAreReportedAndCanBeFixed() throws Exception {
+        IncrementalFrontEnd frontEnd = new IncrementalFrontEnd(program);
+        int radius = program.indexOf("number radius");
+        var error = Assertions.assertThrows(SyntaxErrorException.class, () -> frontEnd.edit(radius, 0, "$"));
+        var expected = Assertions.assertThrows(SyntaxErrorException.class, () -> new Lexer(frontEnd.text()).Lex());
+        Assertions.assertEquals(expected.toString(), error.toString());
+        var moved = Assertions.assertThrows(SyntaxErrorException.class, () -> frontEnd.edit(0, 0, "\n\n")); //the error moves down two lines
+        Assertions.assertEquals(Assertions.assertThrows(SyntaxErrorException.class, () -> new Lexer(frontEnd.text()).Lex()).toString(), moved.toString());
+        frontEnd.edit(radius + 2, 1, "");
+        assertMatchesFullRebuild(frontEnd);
+    }
+}
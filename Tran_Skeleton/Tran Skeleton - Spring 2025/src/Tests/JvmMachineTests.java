@@ -0,0 +1,117 @@
+package Tests;
+
+import Interpreter.Interpreter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import VM.*;
+
+public class JvmMachineTests {
+    /**
+     * @return what the program writes to the console, run by the Interpreter
+     */
+    private static String interpret(String program) throws Exception {
+        return TestSupport.output(() -> new Interpreter(TestSupport.parse(program)).start());
+    }
+
+    /**
+     * @return what the program writes to the console, run by a new JvmMachine
+     */
+    private static String run(String program) throws Exception {
+        return TestSupport.output(() -> new JvmMachine(TestSupport.parse(program)).start());
+    }
+
+    @Test
+    public void numbersAndBooleansAreCompiled() throws Exception {
+        String program = String.join("\n",
+                "class Sums",
+                "    shared sum(number n) : number total, boolean big",
+                "        number k",
+                "        loop k = n.times()",
+                "            total = total + k * 2",
+                "        big = total > 10 and not (total == 12)",
+                "    shared start()",
+                "        number t",
+                "        boolean b",
+                "        t, b = sum(5)",
+                "        console.write(t, b)",
+                "        t, b = sum(3.5)",
+                "        console.write(t, b)",
+                "");
+        var machine = new JvmMachine(TestSupport.parse(program));
+        Assertions.assertEquals(interpret(program), TestSupport.output(machine::start));
+        Assertions.assertEquals("20.0true\n12.0false", TestSupport.output(machine::start).strip().replace("\r", ""));
+        Assertions.assertEquals(2, machine.compiled);
+        Assertions.assertEquals(0, machine.notCompiled);
+    }
+
+    @Test
+    public void membersAreReadWhenTheyAreUsed() throws Exception {
+        //x is read after bump() changed it, by every machine
+        String program = String.join("\n",
+                "class Counter",
+                "    number x",
+                "    bump() : number r",
+                "        x = x + 10",
+                "        r = 1",
+                "    sum() : number total",
+                "        total = x + bump()",
+                "    shared start()",
+                "        Counter c = new Counter()",
+                "        number t",
+                "        t = c.sum()",
+                "        console.write(t)",
+                "");
+        Assertions.assertEquals("11.0", run(program).strip());
+        Assertions.assertEquals(interpret(program), run(program));
+    }
+
+    @Test
+    public void callsOnDifferentClassesFindTheirMethods() throws Exception {
+        //the call site caches one class's method at a time, and the other class's call misses
+        String program = String.join("\n",
+                "interface shape",
+                "    area() : number a",
+                "class square implements shape",
+                "    number side",
+                "    construct(number s)",
+                "        side = s",
+                "    area() : number a",
+                "        a = side * side",
+                "class circle implements shape",
+                "    number r",
+                "    construct(number s)",
+                "        r = s",
+                "    area() : number a",
+                "        a = 3 * r * r",
+                "    shared start()",
+                "        shape s",
+                "        number i",
+                "        number total",
+                "        loop i < 6",
+                "            if i % 2 == 0",
+                "                s = new square(i)",
+                "            else",
+                "                s = new circle(i)",
+                "            total = total + s.area()",
+                "            i = i + 1",
+                "        console.write(total)",
+                "");
+        Assertions.assertEquals(interpret(program), run(program));
+    }
+
+    @Test
+    public void deepExpressionsRunAsRegisterCode() throws Exception {
+        var sum = new StringBuilder("1");
+        for (int i = 0; i < 300; i++) sum.append(" + 1");
+        String program = String.join("\n",
+                "class Deep",
+                "    shared start()",
+                "        number x = " + sum,
+                "        console.write(x)",
+                "");
+        var machine = new JvmMachine(TestSupport.parse(program));
+        Assertions.assertEquals("301.0", TestSupport.output(machine::start).strip());
+        Assertions.assertEquals(0, machine.compiled);
+        Assertions.assertEquals(1, machine.notCompiled);
+    }
+}
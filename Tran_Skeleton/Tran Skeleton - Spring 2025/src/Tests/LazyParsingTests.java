@@ -0,0 +1,116 @@
+package Tests;
+
+import AST.*;
+import Interpreter.Interpreter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import Tran.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LazyParsingTests {
+    private static final String program = String.join("\n",
+            "class Counter",
+            "    number count",
+            "    construct()",
+            "        count = 1",
+            "    add(number amount) : number total",
+            "        number doubled",
+            "        doubled = amount * 2",
+            "        if doubled > 10",
+            "            count = count + 10",
+            "        else",
+            "            loop doubled > 0",
+            "                count = count + 1",
+            "                doubled = doubled - 1",
+            "        total = count",
+            "    unused(string s)",
+            "        console.write(\"never \", s)",
+            "    shared start()",
+            "        Counter c",
+            "        number n",
+            "        c = new Counter()",
+            "        n = c.add(3)",
+            "");
+
+    private static MethodDeclarationNode method(TranNode tran, String name) {
+        for (var m : tran.Classes.getFirst().methods) {
+            if (m.name.equals(name)) return m;
+        }
+        throw new AssertionError(name);
+    }
+
+    @Test
+    public void headersAreParsedAndBodiesWaitUntilAsked() throws Exception {
+        TranNode eager = TestSupport.parse(program);
+        TranNode lazy = TestSupport.parseLazily(program);
+        var add = method(lazy, "add");
+        Assertions.assertNotNull(add.unparsedBody);
+        Assertions.assertEquals(0, add.statements.size());
+        Assertions.assertEquals("[number amount]", add.parameters.toString());
+        Assertions.assertEquals("[number total]", add.returns.toString());
+        Assertions.assertEquals(1, lazy.Classes.getFirst().constructors.getFirst().statements.size());
+
+        for (var m : lazy.Classes.getFirst().methods) m.parseBody();
+        Assertions.assertNull(add.unparsedBody);
+        Assertions.assertEquals(eager.toString(), lazy.toString());
+        Assertions.assertEquals("[number doubled]", add.locals.toString());
+    }
+
+    @Test
+    public void runningParsesOnlyTheMethodsThatRun() throws Exception {
+        TranNode lazy = TestSupport.parseLazily(program);
+        new Interpreter(lazy).start();
+        Assertions.assertNull(method(lazy, "start").unparsedBody);
+        Assertions.assertNull(method(lazy, "add").unparsedBody);
+        Assertions.assertNotNull(method(lazy, "unused").unparsedBody);
+    }
+
+    @Test
+    public void racingThreadsParseABodyOnce() throws Exception {
+        var add = method(TestSupport.parseLazily(program), "add");
+        var body = add.unparsedBody;
+        var parses = new AtomicInteger();
+        add.unparsedBody = method -> {
+            parses.incrementAndGet();
+            body.parseInto(method);
+        };
+        var ready = new CountDownLatch(1);
+        var threads = new ArrayList<Thread>();
+        var statements = new ArrayList<Object>();
+        for (int i = 0; i < 8; i++) {
+            var thread = new Thread(() -> {
+                try {
+                    ready.await();
+                    add.parseBody();
+                    synchronized (statements) {
+                        statements.add(add.statements);
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        ready.countDown();
+        for (var thread : threads) thread.join();
+        Assertions.assertEquals(1, parses.get());
+        Assertions.assertEquals(8, statements.size());
+        for (var seen : statements) Assertions.assertSame(add.statements, seen);
+        Assertions.assertEquals(3, add.statements.size());
+    }
+
+    @Test
+    public void errorsInABodyAreFoundWhenItIsParsed() throws Exception {
+        String broken = program.replace("doubled = amount * 2", "doubled = amount * * 2");
+        var add = method(TestSupport.parseLazily(broken), "add");
+        var e = Assertions.assertThrows(SyntaxErrorException.class, add::parseBody);
+        Assertions.assertEquals(7, e.getLineNumber());
+        Assertions.assertNotNull(add.unparsedBody);
+        Assertions.assertThrows(SyntaxErrorException.class, add::parseBody);
+        Assertions.assertThrows(SyntaxErrorException.class, () -> TestSupport.parse(broken));
+    }
+}
@@ -0,0 +1,80 @@
+package Tests;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import Tran.*;
+
+import java.nio.charset.StandardCharsets;
+
+public class LexerScanTests {
+
+    private static MappedTextManager utf8(String text) {
+        return new MappedTextManager(StandardCharsets.UTF_8.encode(text));
+    }
+
+    @Test
+    public void indexOfAndSkipToMatchOnStringsAndBytes() {
+        String text = "abcdefghijklmnopé😀qrstuvwxyz}   after";
+        TextManager string = new TextManager(text);
+        TextManager bytes = utf8(text);
+        Assertions.assertEquals(text.indexOf('}'), string.indexOf('}'));
+        Assertions.assertEquals(text.getBytes(StandardCharsets.UTF_8).length - 9, bytes.indexOf('}'));
+        Assertions.assertEquals(-1, string.indexOf('}', 10));
+        Assertions.assertEquals(-1, bytes.indexOf('#'));
+        Assertions.assertEquals(16, string.indexOf('é'));
+        Assertions.assertEquals(16, bytes.indexOf('é'));
+        Assertions.assertEquals(0, bytes.getPosition());
+
+        Assertions.assertEquals(29, string.skipTo(string.indexOf('}')));
+        Assertions.assertEquals(29, bytes.skipTo(bytes.indexOf('}')));  //é is 1 char, 😀 is 2, like in a String
+        Assertions.assertEquals('}', bytes.getCharacter());
+        Assertions.assertEquals('}', string.getCharacter());
+        Assertions.assertEquals(3, string.skipSpaces());
+        Assertions.assertEquals(3, bytes.skipSpaces());
+        Assertions.assertEquals('a', bytes.peekCharacter());
+    }
+
+    @Test
+    public void commentsKeepLinesAndColumns() throws Exception {
+        String program = "{ first line\n  second line é😀\n  third }   \nclass A\n    number x { trailing }\n";
+        TokenBuffer tokens = new Lexer(program).LexToBuffer();
+        Assertions.assertEquals(Token.TokenTypes.NEWLINE, tokens.type(0));
+        Assertions.assertEquals(4, tokens.line(0));
+        Assertions.assertEquals(Token.TokenTypes.CLASS, tokens.type(1));
+        Assertions.assertEquals(4, tokens.line(1));
+        Assertions.assertEquals(1, tokens.column(1));
+        Assertions.assertEquals("x", tokens.value(6));
+        Assertions.assertEquals(8, tokens.column(6));
+        Assertions.assertEquals(Token.TokenTypes.NEWLINE, tokens.type(7));
+        Assertions.assertEquals(6, tokens.line(7));
+
+        TokenBuffer mapped = new Lexer(utf8(program)).LexToBuffer();
+        Assertions.assertEquals(tokens.size(), mapped.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            Assertions.assertEquals(tokens.get(i).toString(), mapped.get(i).toString());
+        }
+    }
+
+    @Test
+    public void longStringsAndSpacesLexTheSameFromBytes() throws Exception {
+        String program = "class Wide\n    start()\n        console.write(\"" + "é😀 long text ".repeat(20)
+                + "\",       \"\",\t\t\"x\")\n";
+        TokenBuffer tokens = new Lexer(program).LexToBuffer();
+        TokenBuffer mapped = new Lexer(utf8(program)).LexToBuffer();
+        Assertions.assertEquals(tokens.size(), mapped.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            Assertions.assertEquals(tokens.get(i).toString(), mapped.get(i).toString());
+        }
+        Assertions.assertEquals("é😀 long text ".repeat(20), tokens.value(13));
+        Assertions.assertEquals("", tokens.value(15));
+        Assertions.assertEquals(306, tokens.column(15));
+    }
+
+    @Test
+    public void unclosedCommentReportsTheEndOfTheFile() {
+        var e = Assertions.assertThrows(SyntaxErrorException.class, () -> new Lexer("class A\n{ never\n closed").LexToBuffer());
+        var mapped = Assertions.assertThrows(SyntaxErrorException.class, () -> new Lexer(utf8("class A\n{ never\n closed")).LexToBuffer());
+        Assertions.assertEquals(e.toString(), mapped.toString());
+        Assertions.assertTrue(e.toString().contains("line 3 at character 8"), e.toString());
+    }
+}
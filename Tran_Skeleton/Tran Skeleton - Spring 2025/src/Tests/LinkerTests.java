@@ -0,0 +1,79 @@
+package Tests;
+
+import AST.*;
+import Interpreter.Interpreter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import Tran.*;
+
+public class LinkerTests {
+    private static final String program = String.join("\n",
+            "interface Shape",
+            "    area() : number a",
+            "    grow(number by)",
+            "interface Named",
+            "    name() : string n",
+            "class Square implements Shape",
+            "    number side",
+            "    area() : number a",
+            "        a = side * side",
+            "    grow(number by)",
+            "        side = side + by",
+            "    grow(string by)",
+            "        console.write(by)",
+            "    shared start()",
+            "        Shape shape",
+            "        number a",
+            "        shape = new Square()",
+            "        shape.grow(3)",
+            "        a = shape.area()",
+            "        console.write(a)",
+            "class Circle implements Named",
+            "    name() : string n",
+            "        n = \"circle\"",
+            "class Square",
+            "    area() : number a",
+            "        a = 0",
+            "");
+
+    @Test
+    public void classesAndMethodsAreIndexed() throws Exception {
+        TranNode tran = TestSupport.parse(program);
+        Linker linker = Linker.link(tran);
+        var square = tran.Classes.getFirst();
+        Assertions.assertSame(square, linker.getClassByName("Square"));     //the first class with the name
+        Assertions.assertSame(tran.Classes.get(1), linker.getClassByName("Circle"));
+        Assertions.assertNull(linker.getClassByName("Shape"));
+        Assertions.assertArrayEquals(new Object[] {square.methods.get(1), square.methods.get(2)}, Linker.methods(square, "grow"));
+        Assertions.assertEquals(0, Linker.methods(square, "missing").length);
+        Assertions.assertArrayEquals(new Object[] {square.methods.get(3)}, linker.sharedMethods("start"));
+    }
+
+    @Test
+    public void itablesHoldTheMethodForEachHeader() throws Exception {
+        TranNode tran = TestSupport.parse(program);
+        Linker.link(tran);
+        var shape = tran.Interfaces.getFirst();
+        var named = tran.Interfaces.get(1);
+        var square = tran.Classes.getFirst();
+        var circle = tran.Classes.get(1);
+        Assertions.assertEquals(1, named.id);
+        Assertions.assertSame(square.methods.getFirst(), Linker.interfaceMethod(square, shape, 0));
+        Assertions.assertNull(Linker.interfaceMethod(square, shape, 1));    //two grow()s, the value passed picks one
+        Assertions.assertNull(Linker.interfaceMethod(square, named, 0));
+        Assertions.assertSame(circle.methods.getFirst(), Linker.interfaceMethod(circle, named, 0));
+        Assertions.assertNull(Linker.interfaceMethod(circle, shape, 0));
+    }
+
+    @Test
+    public void interfaceCallsUseTheItable() throws Exception {
+        TranNode tran = TestSupport.parse(program);
+        Assertions.assertEquals("9.0", TestSupport.output(() -> new Interpreter(tran).start()).strip());
+        var start = tran.Classes.getFirst().methods.get(3);
+        var area = (MethodCallStatementNode) start.statements.get(2);
+        Assertions.assertSame(tran.Interfaces.getFirst(), area.objectInterface);
+        Assertions.assertEquals(0, area.interfaceMethod);
+        var grow = (MethodCallStatementNode) start.statements.get(1);
+        Assertions.assertEquals(1, grow.interfaceMethod);
+    }
+}
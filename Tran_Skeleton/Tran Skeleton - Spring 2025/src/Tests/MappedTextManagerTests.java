@@ -0,0 +1,95 @@
+package Tests;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import Tran.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class MappedTextManagerTests {
+    private static final String program = """
+            { comment with ünïcödé and 😀 in it }
+            class Café
+                string greeting
+                character c
+                construct()
+                    greeting = "héllo 😀 wörld"
+                    c = 'é'
+            """;
+
+    private static TokenBuffer lexFile(String text) throws Exception {
+        Path file = Files.createTempFile("mapped", ".tran");
+        try {
+            Files.writeString(file, text, StandardCharsets.UTF_8);
+            return new Lexer(new MappedTextManager(file)).LexToBuffer();
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void mappedFileLexesLikeAString() throws Exception {
+        TokenBuffer expected = new Lexer(program).LexToBuffer();
+        TokenBuffer mapped = lexFile(program);
+        Assertions.assertEquals(expected.size(), mapped.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assertions.assertEquals(expected.get(i).toString(), mapped.get(i).toString());
+        }
+    }
+
+    @Test
+    public void peeksWalkOverMultiByteCharacters() {
+        var text = new MappedTextManager(StandardCharsets.UTF_8.encode("aé😀b"));
+        Assertions.assertEquals('a', text.getCharacter());
+        Assertions.assertEquals('é', text.peekCharacter());
+        Assertions.assertEquals('\uD83D', text.peekCharacter(1));
+        Assertions.assertEquals('\uDE00', text.peekCharacter(2));
+        Assertions.assertEquals('b', text.peekCharacter(3));
+        Assertions.assertTrue(text.isAtEnd(4));
+        Assertions.assertEquals('é', text.getCharacter());
+        Assertions.assertEquals('\uD83D', text.getCharacter());
+        Assertions.assertEquals('\uDE00', text.getCharacter());
+        Assertions.assertEquals('\uDE00', text.peekCharacter(-1));
+        Assertions.assertEquals('é', text.peekCharacter(-3));
+        Assertions.assertEquals('b', text.getCharacter());
+        Assertions.assertTrue(text.isAtEnd());
+        Assertions.assertEquals("é😀", text.substring(1, 7));
+    }
+
+    @Test
+    public void errorsReportTheSameLineAndColumn() {
+        String bad = "class A\n    number ü\n    x = 5 $\n";
+        var fromString = Assertions.assertThrows(SyntaxErrorException.class, () -> new Lexer(bad).LexToBuffer());
+        var fromFile = Assertions.assertThrows(SyntaxErrorException.class, () -> lexFile(bad));
+        Assertions.assertEquals(fromString.toString(), fromFile.toString());
+    }
+
+    @Test
+    public void byteArrayLexesLikeAString() throws Exception {
+        byte[] utf8 = program.getBytes(StandardCharsets.UTF_8);
+        TokenBuffer expected = new Lexer(program).LexToBuffer();
+        TokenBuffer fromBytes = new Lexer(new MappedTextManager(utf8)).LexToBuffer();
+        Assertions.assertEquals(expected.size(), fromBytes.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assertions.assertEquals(expected.line(i), fromBytes.line(i));
+            Assertions.assertEquals(expected.column(i), fromBytes.column(i));
+            Assertions.assertEquals(expected.value(i), fromBytes.value(i));
+        }
+    }
+
+    @Test
+    public void asciiPeeksStopAtMultiByteCharacters() {
+        var text = new MappedTextManager("ab😀é".getBytes(StandardCharsets.UTF_8));
+        Assertions.assertEquals('\uD83D', text.peekCharacter(2));
+        Assertions.assertFalse(text.isAtEnd(4));
+        Assertions.assertTrue(text.isAtEnd(5));
+        Assertions.assertEquals('a', text.getCharacter());
+        Assertions.assertEquals('b', text.getCharacter());
+        Assertions.assertEquals('b', text.peekCharacter(-1));
+        Assertions.assertEquals('\uD83D', text.getCharacter());
+        Assertions.assertEquals('\uDE00', text.peekCharacter());
+        Assertions.assertEquals('é', text.peekCharacter(1));
+    }
+}
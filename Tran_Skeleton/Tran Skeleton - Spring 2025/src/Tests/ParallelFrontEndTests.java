@@ -0,0 +1,77 @@
+package Tests;
+
+import AST.TranNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import Tran.*;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+public class ParallelFrontEndTests {
+
+    private static String declarations(int count) {
+        StringBuilder sb = new StringBuilder("{ leading comment\nclass NotABoundary }\n\n");
+        for (int i = 0; i < count; i++) {
+            sb.append("class C").append(i).append(" implements I").append(i).append("\n");
+            sb.append("    number x\n");
+            sb.append("    string s\n\n");
+            sb.append("interface I").append(i).append("\n");
+            sb.append("    f(number a) : number b\n");
+            sb.append("    { a comment\ninterface Inside }\n");
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void boundariesSkipCommentsAndLongerWords() {
+        String text = "{ class A }\nclass B\n    string s\nclassy\ninterface C\n";
+        int[] boundaries = ParallelFrontEnd.findBoundaries(text);
+        Assertions.assertArrayEquals(new int[]{text.indexOf("class B"), text.indexOf("interface C")}, boundaries);
+    }
+
+    @Test
+    public void stitchedTokensMatchTheSequentialLexer() throws Exception {
+        String text = "class A\n    f()\n        number x\n\nclass B\n    number y\n    g()\n        y = 'c'\ninterface C\n";
+        List<Token> expected = new Lexer(text).Lex();
+        TokenBuffer tokens = new ParallelFrontEnd(text, new ForkJoinPool(4)).lex();
+        Assertions.assertEquals(expected.toString(), tokens.asList().toString());
+    }
+
+    @Test
+    public void largeFileMatchesTheSequentialFrontEnd() throws Exception {
+        String text = declarations(500);
+        Assertions.assertEquals(new Lexer(text).Lex().toString(),
+                new ParallelFrontEnd(text, new ForkJoinPool(8)).lex().asList().toString());
+        var sequential = new TranNode();
+        new Parser(sequential, new Lexer(text).Lex()).Tran();
+        var parallel = new TranNode();
+        new ParallelFrontEnd(text, new ForkJoinPool(8)).parse(parallel);
+        Assertions.assertEquals(500, parallel.Classes.size());
+        Assertions.assertEquals(sequential.toString(), parallel.toString());
+    }
+
+    @Test
+    public void aCommentLeftOpenIsNotSplit() throws Exception {
+        //the Lexer reads the rest of the file as the comment, class lines and all
+        String text = declarations(50) + "class D\n    { never closed\n" + declarations(50);
+        Assertions.assertEquals(new Lexer(text).Lex().toString(),
+                new ParallelFrontEnd(text, new ForkJoinPool(4)).lex().asList().toString());
+    }
+
+    @Test
+    public void errorsAreTheOnesTheSequentialFrontEndThrows() {
+        String badLex = declarations(50) + "class D\n    number (x\n" + declarations(50);
+        var lexError = Assertions.assertThrows(SyntaxErrorException.class, () -> new Lexer(badLex).Lex());
+        var parallelLexError = Assertions.assertThrows(SyntaxErrorException.class,
+                () -> new ParallelFrontEnd(badLex, new ForkJoinPool(4)).lex());
+        Assertions.assertEquals(lexError.toString(), parallelLexError.toString());
+
+        String badParse = declarations(50) + "class D\n    number\n" + declarations(50);
+        var parseError = Assertions.assertThrows(SyntaxErrorException.class,
+                () -> new Parser(new TranNode(), new Lexer(badParse).Lex()).Tran());
+        var parallelParseError = Assertions.assertThrows(SyntaxErrorException.class,
+                () -> new ParallelFrontEnd(badParse, new ForkJoinPool(4)).parse(new TranNode()));
+        Assertions.assertEquals(parseError.toString(), parallelParseError.toString());
+    }
+}
@@ -0,0 +1,90 @@
+package Tests;
+
+import AST.TranNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import Tran.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class RecoveryTests {
+    private static final String program = String.join("\n",
+            "interface Shape",
+            "    area() : number a",
+            "    bad bad bad",
+            "    size() : number s",
+            "class A implements Shape",
+            "    number x",
+            "    number y$",
+            "    number",
+            "    string s",
+            "class B",
+            "    foo(number n",
+            "        number k",
+            "    boolean ok",
+            "clas C",
+            "class D",
+            "    character c",
+            "");
+
+    private static List<Integer> lines(List<SyntaxErrorException> errors) {
+        List<Integer> lines = new ArrayList<>();
+        for (SyntaxErrorException e : errors) lines.add(e.getLineNumber());
+        return lines;
+    }
+
+    @Test
+    public void lexerReportsEveryBadLine() {
+        List<SyntaxErrorException> errors = new ArrayList<>();
+        TokenBuffer tokens = new Lexer("class A\n    number $x\n    number y\n    string @\n    number z\n").LexToBuffer(errors);
+        Assertions.assertEquals(List.of(2, 4), lines(errors));
+        Assertions.assertEquals(List.of(8, 9), List.of(errors.get(0).getCharacterPosition(), errors.get(1).getCharacterPosition()));
+        int words = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.type(i) == Token.TokenTypes.WORD) words++;
+        }
+        Assertions.assertEquals(7, words);  //A, number, number y, string, number z
+        Assertions.assertEquals(5, tokens.line(tokens.size() - 3));
+    }
+
+    @Test
+    public void oneRecoveringPassReportsLexerAndParserErrors() throws Exception {
+        List<SyntaxErrorException> errors = new ArrayList<>();
+        TokenBuffer tokens = new Lexer(program).LexToBuffer(errors);
+        TranNode tran = new TranNode();
+        new Parser(tran, tokens).Tran(errors);
+
+        //the Lexer finds y$ and, at the end of the text, the parenthesis foo( never closed
+        Assertions.assertEquals(List.of(7, 17, 3, 8, 12, 14), lines(errors));
+        Assertions.assertEquals(3, tran.Classes.size());
+        Assertions.assertEquals("A", tran.Classes.get(0).name);
+        Assertions.assertEquals(3, tran.Classes.get(0).members.size());
+        Assertions.assertEquals("B", tran.Classes.get(1).name);
+        Assertions.assertEquals(1, tran.Classes.get(1).members.size());
+        Assertions.assertEquals("D", tran.Classes.get(2).name);
+        Assertions.assertEquals(2, tran.Interfaces.get(0).methods.size());
+    }
+
+    @Test
+    public void recoveredErrorsHaveNoStackTrace() throws Exception {
+        List<SyntaxErrorException> errors = new ArrayList<>();
+        new Parser(new TranNode(), new Lexer(program).LexToBuffer(errors)).Tran(errors);
+        for (SyntaxErrorException e : errors) {
+            Assertions.assertEquals(0, e.getStackTrace().length);
+        }
+    }
+
+    @Test
+    public void withoutRecoveryTheFirstErrorIsThrown() {
+        var lexing = Assertions.assertThrows(SyntaxErrorException.class, () -> new Lexer(program).LexToBuffer());
+        Assertions.assertEquals(7, lexing.getLineNumber());
+        Assertions.assertTrue(lexing.getStackTrace().length > 0);
+
+        String lexes = program.replace("y$", "y").replace("foo(number n", "foo(number n)");
+        var parsing = Assertions.assertThrows(SyntaxErrorException.class,
+                () -> new Parser(new TranNode(), new Lexer(lexes).LexToBuffer()).Tran());
+        Assertions.assertEquals(3, parsing.getLineNumber());
+        Assertions.assertTrue(parsing.getStackTrace().length > 0);
+    }
+}
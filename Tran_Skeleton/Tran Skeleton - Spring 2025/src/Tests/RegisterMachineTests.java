@@ -0,0 +1,82 @@
+package Tests;
+
+import AST.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import VM.*;
+
+public class RegisterMachineTests {
+    private static MethodDeclarationNode method(TranNode tran, String name) {
+        for (var c : tran.Classes) {
+            for (var m : c.methods) {
+                if (m.name.equals(name)) return m;
+            }
+        }
+        throw new AssertionError("No method " + name);
+    }
+
+    @Test
+    public void expressionsTakeFewerInstructions() throws Exception {
+        String program = String.join("\n",
+                "class student",
+                "    number gradea",
+                "    number gradeb",
+                "    number gradec",
+                "    getAverage() : number avg",
+                "        avg = (gradea + gradeb + gradec)/3",
+                "");
+        TranNode tran = TestSupport.parse(program);
+        var registers = new RegisterMachine(tran).chunk(method(tran, "getAverage"));
+        TranNode other = TestSupport.parse(program);
+        var stack = new StackMachine(other).chunk(method(other, "getAverage"));
+        Assertions.assertEquals(7, registers.instructions());      //3 member loads, 3 math, return
+        Assertions.assertEquals(9, stack.instructions());          //and a constant and a store
+        Assertions.assertEquals(2, registers.registers - registers.variables);
+        Assertions.assertEquals("DIVIDE         r0 r1 r3", registers.disassemble().lines()
+                .filter(line -> line.contains("DIVIDE")).findFirst().orElseThrow().substring(5));
+    }
+
+    @Test
+    public void literalsAndTemporariesHaveRegisters() throws Exception {
+        TranNode tran = TestSupport.parse(String.join("\n",
+                "class Math",
+                "    shared twice(number x) : number y",
+                "        number two = 2",
+                "        y = x * two + 2",
+                ""));
+        var chunk = new RegisterMachine(tran).chunk(tran.Classes.getFirst().methods.getFirst());
+        Assertions.assertEquals(3, chunk.variables);
+        Assertions.assertEquals(4, chunk.registers);
+        Assertions.assertEquals(1, chunk.literals.length);
+        Assertions.assertArrayEquals(new int[] {
+                RegisterOp.LOCAL_INIT, 2, 4, 0,
+                RegisterOp.MULTIPLY, 3, 0, 2,
+                RegisterOp.ADD, 1, 3, 4,
+                RegisterOp.RETURN, -1}, chunk.code);
+    }
+
+    @Test
+    public void temporariesLiveAcrossLoopsKeepTheirRegisters() throws Exception {
+        TranNode tran = TestSupport.parse(String.join("\n",
+                "class Loops",
+                "    number total",
+                "    add(number n)",
+                "        number i",
+                "        number j",
+                "        loop i = n.times()",
+                "            loop j = n.times()",
+                "                total = total + i * j + 1",
+                "    shared start()",
+                "        Loops l = new Loops()",
+                "        l.add(4)",
+                "        l.print()",
+                "    print()",
+                "        console.write(total)",
+                ""));
+        var machine = new RegisterMachine(tran);
+        Assertions.assertEquals("52.0", TestSupport.output(machine::start).strip());
+        var chunk = machine.chunk(method(tran, "add"));
+        //two counters and two limits, and the temporaries of the sum reuse registers
+        Assertions.assertEquals(6, chunk.registers - chunk.variables);
+    }
+}
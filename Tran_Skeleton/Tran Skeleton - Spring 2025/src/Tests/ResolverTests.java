@@ -0,0 +1,174 @@
+package Tests;
+
+import AST.*;
+import Interpreter.Interpreter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import Tran.*;
+
+public class ResolverTests {
+    private static final String program = String.join("\n",
+            "interface Shape",
+            "    area() : number a",
+            "class Square implements Shape",
+            "    number side",
+            "    number twice = side * 2",
+            "    construct(number s)",
+            "        side = s",
+            "    construct(number s, number t)",
+            "        side = s + t",
+            "    area() : number a",
+            "        number side = 3",
+            "        a = side * side + twice",
+            "    grow(number by)",
+            "        side = side + by",
+            "    grow(string by)",
+            "        console.write(by)",
+            "    shared describe(Shape shape) : string s",
+            "        number a",
+            "        a = shape.area()",
+            "        s = \"area \" + a",
+            "    shared start()",
+            "        Square sq = new Square(2)",
+            "        Shape shape",
+            "        string text",
+            "        shape = sq",
+            "        sq.grow(1)",
+            "        text = Square.describe(shape)",
+            "        console.write(text, \" \", missing)",
+            "");
+
+    private static TranNode resolved(boolean lazily) throws Exception {
+        TranNode tran = lazily ? TestSupport.parseLazily(program) : TestSupport.parse(program);
+        Resolver.resolve(tran);
+        return tran;
+    }
+
+    private static ClassNode square(TranNode tran) {
+        return tran.Classes.getFirst();
+    }
+
+    private static MethodDeclarationNode method(TranNode tran, String name) {
+        for (var m : square(tran).methods) {
+            if (m.name.equals(name)) return m;
+        }
+        throw new AssertionError(name);
+    }
+
+    @Test
+    public void variablesAreBoundToSlots() throws Exception {
+        TranNode tran = resolved(false);
+        var area = method(tran, "area");
+        var assignment = (AssignmentNode) area.statements.getFirst();
+        Assertions.assertEquals(VariableReferenceNode.Scope.RETURN, assignment.target.scope);
+        Assertions.assertEquals(0, assignment.target.slot);
+        var sum = (MathOpNode) assignment.expression;
+        var side = (VariableReferenceNode) ((MathOpNode) sum.left).left;
+        Assertions.assertEquals(VariableReferenceNode.Scope.LOCAL, side.scope);   //the local hides the member
+        Assertions.assertEquals(1, side.slot);
+        var twice = (VariableReferenceNode) sum.right;
+        Assertions.assertEquals(VariableReferenceNode.Scope.MEMBER, twice.scope);
+        Assertions.assertEquals(1, twice.slot);
+
+        var grow = (AssignmentNode) square(tran).methods.get(1).statements.getFirst();
+        Assertions.assertEquals(VariableReferenceNode.Scope.MEMBER, grow.target.scope);
+        Assertions.assertEquals(0, grow.target.slot);
+        var by = (VariableReferenceNode) ((MathOpNode) grow.expression).right;
+        Assertions.assertEquals(VariableReferenceNode.Scope.PARAMETER, by.scope);
+
+        var initializer = (MathOpNode) square(tran).members.get(1).declaration.initializer.orElseThrow();
+        Assertions.assertEquals(VariableReferenceNode.Scope.MEMBER, ((VariableReferenceNode) initializer.left).scope);
+
+        var write = (MethodCallStatementNode) method(tran, "start").statements.getLast();
+        var missing = (VariableReferenceNode) write.parameters.get(2);
+        Assertions.assertNull(missing.scope);
+    }
+
+    @Test
+    public void callsAndNewAreBoundWhenOnlyOneCanMatch() throws Exception {
+        TranNode tran = resolved(false);
+        var start = method(tran, "start");
+        var newSquare = (NewNode) start.locals.getFirst().initializer.orElseThrow();
+        Assertions.assertSame(square(tran), newSquare.classNode);
+        Assertions.assertSame(square(tran).constructors.getFirst(), newSquare.constructor);
+
+        var grow = (MethodCallStatementNode) start.statements.get(1);
+        Assertions.assertEquals(VariableReferenceNode.Scope.LOCAL, grow.object.scope);
+        Assertions.assertSame(square(tran), grow.objectClass);
+        Assertions.assertNull(grow.target);     //two grow()s take one parameter
+
+        var describe = (MethodCallStatementNode) start.statements.get(2);
+        Assertions.assertNull(describe.object);
+        Assertions.assertSame(method(tran, "describe"), describe.target);
+
+        var area = (MethodCallStatementNode) method(tran, "describe").statements.getFirst();
+        Assertions.assertEquals(VariableReferenceNode.Scope.PARAMETER, area.object.scope);
+        Assertions.assertNull(area.objectClass);    //an interface: the object's class decides
+        Assertions.assertNull(area.target);
+
+        var write = (MethodCallStatementNode) start.statements.getLast();
+        Assertions.assertNull(write.target);    //console is only added by the Interpreter
+        new Interpreter(tran);
+        Assertions.assertInstanceOf(BuiltInMethodDeclarationNode.class, write.target);
+    }
+
+    @Test
+    public void lazyBodiesAreResolvedWhenTheyAreParsed() throws Exception {
+        TranNode tran = resolved(true);
+        var area = method(tran, "area");
+        Assertions.assertNotNull(area.unparsedBody);
+        area.parseBody();
+        var assignment = (AssignmentNode) area.statements.getFirst();
+        Assertions.assertEquals(VariableReferenceNode.Scope.RETURN, assignment.target.scope);
+    }
+
+    @Test
+    public void resolvingAgainKeepsTheLazyBody() throws Exception {
+        TranNode tran = resolved(true);
+        var area = method(tran, "area");
+        var body = area.unparsedBody;
+        Resolver.resolve(tran);
+        Assertions.assertSame(body, area.unparsedBody);    //the parser itself, not wrapped by each resolve
+        area.parseBody();
+        Assertions.assertNull(area.unparsedBody);
+        var assignment = (AssignmentNode) area.statements.getFirst();
+        Assertions.assertEquals(VariableReferenceNode.Scope.RETURN, assignment.target.scope);
+        Resolver.resolve(tran);     //already parsed, so resolved straight away
+        Assertions.assertEquals(VariableReferenceNode.Scope.RETURN, assignment.target.scope);
+    }
+
+    @Test
+    public void resolvedProgramsRunTheSame() throws Exception {
+        String runnable = program.replace(", \" \", missing)", ")");
+        TranNode tran = TestSupport.parse(runnable);
+        Assertions.assertEquals("area 9.0", TestSupport.output(() -> new Interpreter(tran).start()).strip());
+    }
+
+    @Test
+    public void eachCallHasItsOwnFrame() throws Exception {
+        String fib = String.join("\n",
+                "class Fib",
+                "    shared fib(number n) : number r",
+                "        number a",
+                "        number n = 2",      //a later declaration hides the parameter, in its own slot
+                "        if n < 2",
+                "            r = n",
+                "        else",
+                "            a = fib(n - 1)",
+                "            r = a + fib(n - 2)",
+                "    shared start()",
+                "        number r",
+                "        r = fib(10)",
+                "        console.write(r)",
+                "");
+        TranNode unhidden = TestSupport.parse(fib.replace("        number n = 2\n", ""));
+        Assertions.assertEquals("55.0", TestSupport.output(() -> new Interpreter(unhidden).start()).strip());
+
+        TranNode tran = TestSupport.parse(fib);
+        Resolver.resolve(tran);
+        var ifNode = (IfNode) tran.Classes.getFirst().methods.getFirst().statements.getFirst();
+        var n = (VariableReferenceNode) ((CompareNode) ifNode.condition).left;
+        Assertions.assertEquals(VariableReferenceNode.Scope.LOCAL, n.scope);
+        Assertions.assertEquals(3, n.slot);
+    }
+}
@@ -0,0 +1,175 @@
+package Tests;
+
+import AST.*;
+import Interpreter.Interpreter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import VM.*;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public class StackMachineTests {
+    //the Interpreter first, the others are checked against it
+    private static final List<Consumer<TranNode>> ENGINES = List.of(
+            tran -> new Interpreter(tran).start(),
+            tran -> new StackMachine(tran).start(),
+            tran -> new RegisterMachine(tran).start(),
+            tran -> new JvmMachine(tran).start(),
+            tran -> new Interpreter(tran, new TieredExecution(2)).start());
+
+    /**
+     * @return what the program writes to the console, run by one of the ENGINES
+     */
+    private static String run(String program, Consumer<TranNode> engine) throws Exception {
+        TranNode tran = TestSupport.parse(program);
+        return TestSupport.output(() -> engine.accept(tran));
+    }
+
+    private static void assertSameOutput(String program, String expected) throws Exception {
+        for (var engine : ENGINES) Assertions.assertEquals(expected, run(program, engine).strip());
+    }
+
+    @Test
+    public void objectsConstructorsAndMultipleReturns() throws Exception {
+        String program = String.join("\n",
+                "class Student",
+                "    number gradea",
+                "    number gradeb",
+                "    string name",
+                "    number count = note(\"member\")",
+                "    construct(string n, number a, number b)",
+                "        name = n",
+                "        gradea = a",
+                "        gradeb = b",
+                "    construct(number a)",
+                "        name = \"number\"",
+                "    grades() : number a, number b, string n",
+                "        a = gradea",
+                "        b = gradeb",
+                "        n = name",
+                "    shared note(string what) : number n",
+                "        console.write(what)",
+                "        n = 1",
+                "    shared start()",
+                "        Student s = new Student(\"ann\", note(\"parameter\"), 90)",
+                "        number a",
+                "        number b",
+                "        string n",
+                "        a, b, n = s.grades()",
+                "        console.write(n, \" \", (a + b) / 2)",
+                "        s = new Student(3)",
+                "        console.write(s.grades())",
+                "");
+        assertSameOutput(program, "member\nparameter\nann 45.5\nmember\n0.0");
+    }
+
+    @Test
+    public void loopsAndConditions() throws Exception {
+        String program = String.join("\n",
+                "class Loops",
+                "    shared yes(string what) : boolean b",
+                "        console.write(what)",
+                "        b = true",
+                "    shared start()",
+                "        number n = 3",
+                "        number i",
+                "        number total",
+                "        boolean going",
+                "        loop i = n.times()",
+                "            total = total + i",
+                "        going = true",
+                "        loop going",
+                "            total = total * 2",
+                "            going = total < 100",
+                "        if total > 50 and not total == 3 or yes(\"skipped\")",
+                "            console.write(\"big \", total)",
+                "        else",
+                "            console.write(\"small\")",
+                "        if total < 0 or yes(\"evaluated\") and 'a' < 'b'",
+                "            console.write(\"string \" + 'c' + 1)",
+                "");
+        assertSameOutput(program, "big 192.0\nevaluated\nstring c1.0");
+    }
+
+    @Test
+    public void interfacesOverloadsAndRecursion() throws Exception {
+        String program = String.join("\n",
+                "interface Shape",
+                "    area() : number a",
+                "class Square implements Shape",
+                "    number side",
+                "    construct(number s)",
+                "        side = s",
+                "    area() : number a",
+                "        a = side * side",
+                "    grow(string by)",
+                "        console.write(\"grow \", by)",
+                "    grow(number by)",
+                "        side = side + by",
+                "    shared fib(number n) : number r",
+                "        if n < 2",
+                "            r = n",
+                "        else",
+                "            r = fib(n - 1) + fib(n - 2)",
+                "    shared start()",
+                "        Shape shape = new Square(2)",
+                "        Square square = new Square(1)",
+                "        square.grow(\"x\")",
+                "        square.grow(2)",
+                "        shape = square",
+                "        console.write(shape.area(), \" \", Square.fib(15))",
+                "");
+        assertSameOutput(program, "grow x\n9.0 610.0");
+    }
+
+    @Test
+    public void errorsAreTheSame() throws Exception {
+        String nullCall = String.join("\n",
+                "class Broken",
+                "    area() : number a",
+                "        a = 1",
+                "    shared start()",
+                "        Broken b",
+                "        number n",
+                "        n = b.area()",
+                "");
+        assertSameError(nullCall);
+
+        String notBoolean = String.join("\n",
+                "class Broken",
+                "    shared start()",
+                "        number n",
+                "        if n",
+                "            n = 1",
+                "");
+        assertSameError(notBoolean);
+    }
+
+    private static void assertSameError(String program) {
+        var interpreted = Assertions.assertThrows(RuntimeException.class, () -> run(program, ENGINES.getFirst()));
+        for (var engine : ENGINES) {
+            var compiled = Assertions.assertThrows(RuntimeException.class, () -> run(program, engine));
+            Assertions.assertEquals(interpreted.getMessage(), compiled.getMessage());
+        }
+    }
+
+    @Test
+    public void chunksUseSlotsAndConstants() throws Exception {
+        TranNode tran = TestSupport.parse(String.join("\n",
+                "class Math",
+                "    shared twice(number x) : number y",
+                "        number two = 2",
+                "        y = x * two + 2",
+                ""));
+        var machine = new StackMachine(tran);
+        var chunk = machine.chunk(tran.Classes.getFirst().methods.getFirst());
+        Assertions.assertEquals(3, chunk.variables);
+        Assertions.assertEquals(2, chunk.constants.length);    //both 2s share a constant, the other is the type of two
+        Assertions.assertArrayEquals(new int[] {
+                Op.CONST, 0, Op.LOCAL_INIT, 2, 1,
+                Op.LOAD, 0, Op.LOAD, 2, Op.MULTIPLY, Op.CONST, 0, Op.ADD, Op.STORE, 1,
+                Op.RETURN}, chunk.code);
+        Assertions.assertEquals(2, chunk.maxStack);
+    }
+}
@@ -0,0 +1,82 @@
+package Tests;
+
+import AST.TranNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import Tran.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+public class StreamingLexerTests {
+    private static final String program = """
+            class Tran
+                number x
+                string s
+                helloWorld() : number a
+                    x = (3.75 + 1)
+                    s = "some text"
+                    loop x >= .5
+                        if x > 1
+                            a = 'c'
+            interface Shape
+                area() : number a
+            """;
+
+    @Test
+    public void streamGivesTheSameTokensAsLex() throws Exception {
+        List<Token> expected = new Lexer(program).Lex();
+        List<Token> streamed = new ArrayList<>();
+        new Lexer(program).LexStream().forEachRemaining(streamed::add);
+        Assertions.assertEquals(expected.size(), streamed.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assertions.assertEquals(expected.get(i).toString(), streamed.get(i).toString());
+        }
+        Assertions.assertEquals(Token.TokenTypes.DEDENT, streamed.getLast().getType());
+    }
+
+    @Test
+    public void streamIsLexedAsItIsPulled() {
+        Iterator<Token> stream = new Lexer("class A\n    number x\n    ) ").LexStream();
+        Assertions.assertEquals(Token.TokenTypes.CLASS, stream.next().getType());
+        Assertions.assertEquals("A", stream.next().getValue());
+        for (int i = 0; i < 4; i++) stream.next(); //NEWLINE INDENT WORD WORD
+        Assertions.assertEquals(Token.TokenTypes.NEWLINE, stream.next().getType());
+        var e = Assertions.assertThrows(UncheckedSyntaxErrorException.class, stream::hasNext);
+        Assertions.assertEquals(SyntaxErrorException.class, e.getCause().getClass());
+        Assertions.assertFalse(stream.hasNext());
+    }
+
+    @Test
+    public void parserReadsTheStream() throws Exception {
+        String declarations = "class A\n    number x\n    string y\ninterface B\n    f() : number r\n";
+        var streamed = new TranNode();
+        new Parser(streamed, new Lexer(declarations).LexStream()).Tran();
+        var listed = new TranNode();
+        new Parser(listed, new Lexer(declarations).Lex()).Tran();
+        Assertions.assertEquals(listed.toString(), streamed.toString());
+        Assertions.assertEquals("y", streamed.Classes.getFirst().members.get(1).declaration.name);
+    }
+
+    @Test
+    public void lexerErrorsReachTheParserCaller() {
+        var tran = new TranNode();
+        var parser = new Parser(tran, new Lexer("class A\n    number x\n    number (y\n").LexStream());
+        Assertions.assertThrows(SyntaxErrorException.class, parser::Tran);
+    }
+
+    @Test
+    public void tokenManagerLooksAheadIntoTheStream() {
+        var manager = new TokenManager(new Lexer("a b c d e f g h i j k l").LexStream());
+        Assertions.assertEquals("l", manager.peekToken(11).getValue());
+        Assertions.assertNull(manager.peekType(12));
+        Assertions.assertEquals("a", manager.takeValue(Token.TokenTypes.WORD));
+        Assertions.assertEquals(1, manager.position());
+        Assertions.assertEquals(11, manager.tokensLeft());
+        Assertions.assertEquals(3, manager.getCurrentColumnNumber());
+        while (manager.match(Token.TokenTypes.WORD));
+        Assertions.assertTrue(manager.done());
+        Assertions.assertEquals(-1, manager.getCurrentLine());
+    }
+}
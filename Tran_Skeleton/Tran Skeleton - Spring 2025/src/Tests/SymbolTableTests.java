@@ -0,0 +1,66 @@
+package Tests;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import Tran.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class SymbolTableTests {
+
+    @Test
+    public void idsAreDenseAndStable() {
+        SymbolTable table = new SymbolTable();
+        Assertions.assertEquals(0, table.intern("x"));
+        Assertions.assertEquals(1, table.intern("count"));
+        Assertions.assertEquals(0, table.intern(new String("x")));
+        Assertions.assertEquals(1, table.lookup("count"));
+        Assertions.assertEquals(-1, table.lookup("missing"));
+        for (int i = 0; i < 1000; i++) Assertions.assertEquals(i + 2, table.intern("name" + i));
+        Assertions.assertEquals("name500", table.name(502));
+        Assertions.assertEquals(1002, table.size());
+    }
+
+    @Test
+    public void lexerSharesOneStringPerName() throws Exception {
+        TokenBuffer tokens = new Lexer("class counter\n    number count\n    count(number count)\n").LexToBuffer();
+        List<Token> list = tokens.asList();
+        var counts = list.stream().filter(t -> t.getValue().equals("count")).toList();
+        Assertions.assertEquals(3, counts.size());
+        Assertions.assertSame(counts.get(0).getValue(), counts.get(2).getValue());
+        int id = tokens.symbolTable().lookup("count");
+        for (int i = 0; i < tokens.size(); i++) {
+            boolean isCount = tokens.type(i) == Token.TokenTypes.WORD && tokens.value(i).equals("count");
+            Assertions.assertEquals(isCount, tokens.symbol(i) == id);
+        }
+        Assertions.assertEquals(-1, tokens.symbol(0));  //class is a keyword
+        Assertions.assertEquals(Token.TokenTypes.WORD, new Lexer("classes construct0 iff").Lex().getFirst().getType());
+    }
+
+    @Test
+    public void mappedTextIsInternedInPlace() throws Exception {
+        String text = "class café\n    number naïve\n    naïve(number café)\n";
+        var mapped = new Lexer(new MappedTextManager(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)))).LexToBuffer();
+        var plain = new Lexer(text).LexToBuffer();
+        Assertions.assertEquals(plain.symbolTable().size(), mapped.symbolTable().size());
+        for (int i = 0; i < plain.size(); i++) {
+            Assertions.assertEquals(plain.symbol(i), mapped.symbol(i));
+            Assertions.assertEquals(plain.value(i), mapped.value(i));
+        }
+    }
+
+    @Test
+    public void addAllMapsIdsBetweenTables() throws Exception {
+        String text = "a b c\nc b\n";
+        TokenBuffer first = new Lexer(new TextManager(text, 0, 6)).LexToBuffer();
+        TokenBuffer second = new Lexer(new TextManager(text, 6, text.length()), 2).LexToBuffer();
+        TokenBuffer merged = new TokenBuffer(new TextManager(text));
+        merged.addAll(first);
+        merged.addAll(second);
+        Assertions.assertEquals(3, merged.symbolTable().size());
+        Assertions.assertEquals(merged.symbol(2), merged.symbol(4));  //both c
+        Assertions.assertEquals(new Lexer(text).Lex().toString(), merged.asList().toString());
+    }
+}
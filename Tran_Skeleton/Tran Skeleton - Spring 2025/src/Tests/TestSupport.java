@@ -0,0 +1,58 @@
+package Tests;
+
+import AST.TranNode;
+import Tran.Lexer;
+import Tran.Parser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+/**
+ * Shared helpers for the tests that parse a program and run it:
+ *      parse(program) //lexes and parses a whole program
+ *      parseLazily(program) //the same, but leaves method bodies to be parsed when they are first needed
+ *      output(run) //what run writes to the console
+ */
+public class TestSupport {
+
+    /**
+     * Something run while the console is caught by output()
+     */
+    public interface Run {
+        void run() throws Exception;
+    }
+
+    /**
+     * Lexes the program into a TokenBuffer and parses all of it
+     */
+    public static TranNode parse(String program) throws Exception {
+        TranNode tran = new TranNode();
+        new Parser(tran, new Lexer(program).LexToBuffer()).Tran();
+        return tran;
+    }
+
+    /**
+     * Lexes the program into a TokenBuffer and parses it with Parser.TranLazily()
+     */
+    public static TranNode parseLazily(String program) throws Exception {
+        TranNode tran = new TranNode();
+        new Parser(tran, new Lexer(program).LexToBuffer()).TranLazily();
+        return tran;
+    }
+
+    /**
+     * Runs run with System.out caught, and puts the console back afterwards, also when run throws
+     * @return everything run wrote to the console
+     */
+    public static String output(Run run) throws Exception {
+        var out = new ByteArrayOutputStream();
+        var console = System.out;
+        System.setOut(new PrintStream(out));
+        try {
+            run.run();
+        } finally {
+            System.setOut(console);
+        }
+        return out.toString();
+    }
+}
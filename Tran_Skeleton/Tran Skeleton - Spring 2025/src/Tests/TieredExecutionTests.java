@@ -0,0 +1,110 @@
+package Tests;
+
+import Interpreter.Interpreter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import VM.*;
+
+public class TieredExecutionTests {
+    private static final String SQUARES = String.join("\n",
+            "class Squares",
+            "    shared square(number x) : number y",
+            "        y = x * x",
+            "    shared start()",
+            "        number i",
+            "        number total",
+            "        loop i < 50",
+            "            total = total + square(i)",
+            "            i = i + 1",
+            "        console.write(total)",
+            "");
+
+    private static String output(Interpreter interpreter) throws Exception {
+        return TestSupport.output(interpreter::start).strip();
+    }
+
+    @Test
+    public void hotMethodsAreCompiledAndSwappedIn() throws Exception {
+        var tiers = new TieredExecution(10);
+        var interpreter = new Interpreter(TestSupport.parse(SQUARES), tiers);
+        Assertions.assertEquals("40425.0", output(interpreter));
+        tiers.awaitCompilations();
+        var promotions = tiers.promotions();
+        //start() went round its loop 9 times before square() was called 10 times
+        Assertions.assertEquals("Squares.start", promotions.get(0).method());
+        Assertions.assertEquals(1, promotions.get(0).invocations());
+        Assertions.assertEquals(9, promotions.get(0).backEdges());
+        Assertions.assertEquals("Squares.square", promotions.get(1).method());
+        Assertions.assertEquals(10, promotions.get(1).invocations());
+        Assertions.assertTrue(promotions.get(1).compiled());
+        Assertions.assertTrue(promotions.get(1).readyNanos() >= promotions.get(1).queuedNanos());
+        //the next run is all compiled code
+        long compiled = tiers.compiledCalls;
+        Assertions.assertEquals("40425.0", output(interpreter));
+        Assertions.assertEquals(51, tiers.compiledCalls - compiled);
+    }
+
+    @Test
+    public void longLoopsCarryOnInCompiledCode() throws Exception {
+        //start() is called once, so only its loops can get to compiled code, part way through
+        String program = String.join("\n",
+                "class Batch",
+                "    shared start()",
+                "        number i",
+                "        number k",
+                "        number total",
+                "        number n = 2000000",
+                "        loop k = n.times()",
+                "            total = total + k % 7",
+                "        loop i < n",
+                "            total = total - 1",
+                "            i = i + 1",
+                "        console.write(total, k, i)",
+                "");
+        var tiers = new TieredExecution(100);
+        String interpreted = output(new Interpreter(TestSupport.parse(program)));
+        Assertions.assertEquals(interpreted, output(new Interpreter(TestSupport.parse(program), tiers)));
+        tiers.awaitCompilations();
+        Assertions.assertEquals(2, tiers.compiledLoops);
+        var loops = tiers.promotions().stream().filter(p -> p.method().startsWith("Batch.start loop")).toList();
+        Assertions.assertEquals(2, loops.size());
+        Assertions.assertEquals(100, loops.get(0).backEdges());
+        Assertions.assertTrue(loops.get(1).compiled());
+    }
+
+    @Test
+    public void methodsThatCannotBeCompiledStayInterpreted() throws Exception {
+        var sum = new StringBuilder("x");
+        for (int i = 0; i < 300; i++) sum.append(" + 1");
+        String program = String.join("\n",
+                "class Deep",
+                "    shared deep(number x) : number y",
+                "        y = " + sum,
+                "    shared start()",
+                "        number i",
+                "        number total",
+                "        loop i < 20",
+                "            total = total + deep(i)",
+                "            i = i + 1",
+                "        console.write(total)",
+                "");
+        var tiers = new TieredExecution(10);
+        var interpreter = new Interpreter(TestSupport.parse(program), tiers);
+        Assertions.assertEquals("6190.0", output(interpreter));
+        tiers.awaitCompilations();
+        var deep = tiers.promotions().stream().filter(p -> p.method().equals("Deep.deep")).findFirst().orElseThrow();
+        Assertions.assertFalse(deep.compiled());
+        Assertions.assertInstanceOf(CannotCompileException.class, deep.failure());
+        Assertions.assertTrue(deep.toString().contains("not compiled"));
+        Assertions.assertEquals("6190.0", output(interpreter));
+    }
+
+    @Test
+    public void coldMethodsStayInterpreted() throws Exception {
+        var tiers = new TieredExecution(100);
+        Assertions.assertEquals("40425.0", output(new Interpreter(TestSupport.parse(SQUARES), tiers)));
+        tiers.awaitCompilations();
+        Assertions.assertTrue(tiers.promotions().isEmpty());
+        Assertions.assertEquals(0, tiers.compiledCalls);
+    }
+}
@@ -0,0 +1,67 @@
+package Tests;
+
+import AST.TranNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import Tran.*;
+
+import java.util.List;
+
+public class TokenBufferTests {
+    private static final String program = """
+            class Tran
+                number x
+                string s
+                helloWorld() : number a
+                    x = 3.75
+                    s = "some text"
+                    loop x >= .5
+                        a = 'c'
+            """;
+
+    @Test
+    public void bufferMatchesTokenList() throws Exception {
+        List<Token> list = new Lexer(program).Lex();
+        TokenBuffer buffer = new Lexer(program).LexToBuffer();
+        Assertions.assertEquals(list.size(), buffer.size());
+        for (int i = 0; i < list.size(); i++) {
+            Assertions.assertEquals(list.get(i).getType(), buffer.type(i));
+            Assertions.assertEquals(list.get(i).getLineNumber(), buffer.line(i));
+            Assertions.assertEquals(list.get(i).getColumnNumber(), buffer.column(i));
+            Assertions.assertEquals(list.get(i).getValue(), buffer.value(i));
+            Assertions.assertEquals(list.get(i).toString(), buffer.get(i).toString());
+        }
+    }
+
+    @Test
+    public void valuesAreSlicesOfTheSource() throws Exception {
+        TokenBuffer buffer = new Lexer(program).LexToBuffer();
+        Assertions.assertEquals(Token.TokenTypes.CLASS, buffer.type(0));
+        Assertions.assertFalse(buffer.hasValue(0));
+        Assertions.assertEquals("Tran", buffer.value(1));
+        var values = buffer.asList().stream().map(Token::getValue).toList();
+        Assertions.assertTrue(values.contains("3.75"));
+        Assertions.assertTrue(values.contains(".5"));
+        Assertions.assertTrue(values.contains("some text"));
+        Assertions.assertTrue(values.contains("c"));
+    }
+
+    @Test
+    public void tokenListRoundTripKeepsTheSameTokens() {
+        var tokens = List.of(new Token(Token.TokenTypes.WORD, 1, 1, "x"), new Token(Token.TokenTypes.NEWLINE, 2, 1));
+        TokenBuffer buffer = TokenBuffer.of(tokens);
+        Assertions.assertSame(tokens.get(0), buffer.get(0));
+        Assertions.assertEquals("x", buffer.value(0));
+        Assertions.assertEquals("", buffer.value(1));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> buffer.get(2));
+    }
+
+    @Test
+    public void parserReadsTheBufferDirectly() throws Exception {
+        var tran = new TranNode();
+        new Parser(tran, new Lexer("class A\n    number x\n    string y\n").LexToBuffer()).Tran();
+        Assertions.assertEquals(1, tran.Classes.size());
+        Assertions.assertEquals(2, tran.Classes.getFirst().members.size());
+        Assertions.assertEquals("y", tran.Classes.getFirst().members.get(1).declaration.name);
+    }
+}
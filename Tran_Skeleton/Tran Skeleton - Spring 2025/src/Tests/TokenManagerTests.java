@@ -0,0 +1,60 @@
+package Tests;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import Tran.*;
+
+import java.util.LinkedList;
+import java.util.List;
+
+public class TokenManagerTests {
+
+    private static List<Token> sampleTokens() {
+        var tokens = new LinkedList<Token>();
+        tokens.add(new Token(Token.TokenTypes.WORD, 1, 1, "number"));
+        tokens.add(new Token(Token.TokenTypes.WORD, 1, 8, "x"));
+        tokens.add(new Token(Token.TokenTypes.NEWLINE, 2, 1));
+        tokens.add(new Token(Token.TokenTypes.NEWLINE, 3, 1));
+        tokens.add(new Token(Token.TokenTypes.DEDENT, 3, 1));
+        return tokens;
+    }
+
+    @Test
+    public void peekTypeLooksAheadWithoutConsuming() {
+        var tm = new TokenManager(sampleTokens());
+        Assertions.assertEquals(Token.TokenTypes.WORD, tm.peekType());
+        Assertions.assertEquals(Token.TokenTypes.DEDENT, tm.peekType(4));
+        Assertions.assertNull(tm.peekType(5));
+        Assertions.assertEquals(5, tm.tokensLeft());
+        Assertions.assertEquals(0, tm.position());
+    }
+
+    @Test
+    public void matchOnlyConsumesTheExpectedType() {
+        var tm = new TokenManager(sampleTokens());
+        Assertions.assertFalse(tm.match(Token.TokenTypes.NEWLINE));
+        Assertions.assertTrue(tm.match(Token.TokenTypes.WORD));
+        Assertions.assertEquals("x", tm.take(Token.TokenTypes.WORD).getValue());
+        Assertions.assertNull(tm.take(Token.TokenTypes.WORD));
+        while (tm.match(Token.TokenTypes.NEWLINE));
+        Assertions.assertEquals(4, tm.position());
+        Assertions.assertEquals(3, tm.getCurrentLine());
+        Assertions.assertTrue(tm.match(Token.TokenTypes.DEDENT));
+        Assertions.assertTrue(tm.done());
+        Assertions.assertFalse(tm.match(Token.TokenTypes.DEDENT));
+        Assertions.assertEquals(-1, tm.getCurrentLine());
+    }
+
+    @Test
+    public void optionalApiMatchesPrimitiveApi() {
+        var tokens = sampleTokens();
+        var tm = new TokenManager(tokens);
+        Assertions.assertSame(tokens.get(1), tm.peek(1).get());
+        Assertions.assertSame(tm.peekToken(1), tm.peek(1).get());
+        Assertions.assertTrue(tm.peek(5).isEmpty());
+        Assertions.assertTrue(tm.matchAndRemove(Token.TokenTypes.NUMBER).isEmpty());
+        Assertions.assertSame(tokens.get(0), tm.matchAndRemove(Token.TokenTypes.WORD).get());
+        Assertions.assertTrue(tm.nextTwoTokensMatch(Token.TokenTypes.WORD, Token.TokenTypes.NEWLINE));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> tm.peek(-1));
+    }
+}
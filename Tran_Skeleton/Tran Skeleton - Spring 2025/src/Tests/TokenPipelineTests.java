@@ -0,0 +1,98 @@
+package Tests;
+
+import AST.TranNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import Tran.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+public class TokenPipelineTests {
+
+    private static String manyClasses(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append("class C").append(i).append("\n    number x\n");
+            sb.append("interface I").append(i).append("\n    f(number a) : number b\n");
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void pipelineGivesTheSameTokensAsLex() throws Exception {
+        String program = manyClasses(2000); //far more batches than the ring holds
+        List<Token> expected = new Lexer(program).Lex();
+        List<Token> piped = new ArrayList<>();
+        try (TokenPipeline tokens = new TokenPipeline(new Lexer(program))) {
+            tokens.forEachRemaining(piped::add);
+        }
+        Assertions.assertEquals(expected.size(), piped.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assertions.assertEquals(expected.get(i).toString(), piped.get(i).toString());
+        }
+    }
+
+    @Test
+    public void lexerErrorArrivesAfterTheTokensBeforeIt() {
+        String program = manyClasses(300) + "class Broken\n    number $\n";
+        try (TokenPipeline tokens = new TokenPipeline(new Lexer(program), Thread.ofVirtual())) {
+            var e = Assertions.assertThrows(UncheckedSyntaxErrorException.class, () -> {
+                while (tokens.hasNext()) tokens.next();
+            });
+            Assertions.assertTrue(e.getCause().toString().contains("line " + (300 * 4 + 2)));
+        }
+    }
+
+    @Test
+    public void lexerThreadErrorIsThrownToTheReader() {
+        //the lexer thread runs out of stack part way through, and the reader gets the error instead of waiting forever
+        var lexer = new Lexer(manyClasses(300)) {
+            @Override
+            public Iterator<Token> LexStream() {
+                var tokens = super.LexStream();
+                return new Iterator<>() {
+                    int count;
+
+                    @Override
+                    public boolean hasNext() {
+                        return tokens.hasNext();
+                    }
+
+                    @Override
+                    public Token next() {
+                        if (++count > 1000) throw new StackOverflowError();
+                        return tokens.next();
+                    }
+                };
+            }
+        };
+        try (TokenPipeline tokens = new TokenPipeline(lexer)) {
+            List<Token> read = new ArrayList<>();
+            Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10), () ->
+                    Assertions.assertThrows(StackOverflowError.class, () -> tokens.forEachRemaining(read::add)));
+            Assertions.assertEquals(1000, read.size());
+        }
+    }
+
+    @Test
+    public void parserReadsThePipeline() throws Exception {
+        String program = manyClasses(50);
+        var piped = new TranNode();
+        try (TokenPipeline tokens = new TokenPipeline(new Lexer(program))) {
+            new Parser(piped, tokens).Tran();
+        }
+        var listed = new TranNode();
+        new Parser(listed, new Lexer(program).Lex()).Tran();
+        Assertions.assertEquals(listed.toString(), piped.toString());
+    }
+
+    @Test
+    public void parserCallerSeesTheLexerError() {
+        try (TokenPipeline tokens = new TokenPipeline(new Lexer(manyClasses(10) + "class A\n    number (x\n"))) {
+            Assertions.assertThrows(SyntaxErrorException.class, () -> new Parser(new TranNode(), tokens).Tran());
+        }
+    }
+}
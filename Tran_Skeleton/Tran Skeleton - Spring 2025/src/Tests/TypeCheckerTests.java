@@ -0,0 +1,114 @@
+package Tests;
+
+import AST.*;
+import Interpreter.Interpreter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import Tran.*;
+
+public class TypeCheckerTests {
+    private static final String program = String.join("\n",
+            "interface Shape",
+            "    area() : number a",
+            "class Square implements Shape",
+            "    number side",
+            "    construct(number s)",
+            "        side = s",
+            "    construct(string s)",
+            "        side = 1",
+            "    area() : number a",
+            "        a = side * side",
+            "    grow(number by)",
+            "        side = side + by",
+            "    grow(string by)",
+            "        console.write(by)",
+            "    shared describe(Shape shape) : string s",
+            "        s = \"area \" + shape.area()",
+            "    shared start()",
+            "        Square sq = new Square(\"one\")",
+            "        Shape shape",
+            "        string text",
+            "        boolean big",
+            "        shape = sq",
+            "        sq.grow(2)",
+            "        sq.grow(\" grown \")",
+            "        big = shape.area() > 4 and not sq.area() == 0",
+            "        text = describe(shape)",
+            "        console.write(text, \" \", big)",
+            "");
+
+    private static MethodDeclarationNode method(TranNode tran, String name) {
+        for (var m : tran.Classes.getFirst().methods) {
+            if (m.name.equals(name)) return m;
+        }
+        throw new AssertionError(name);
+    }
+
+    private static String run(TranNode tran, boolean checked) throws Exception {
+        return TestSupport.output(() -> new Interpreter(tran, checked).start()).strip();
+    }
+
+    @Test
+    public void typesAreRecordedOnTheNodes() throws Exception {
+        TranNode tran = TestSupport.parse(program);
+        new Interpreter(tran, true);    //adds console, then checks
+        var start = method(tran, "start");
+        Assertions.assertEquals("Square", ((NewNode) start.locals.getFirst().initializer.orElseThrow()).type);
+        var shape = (AssignmentNode) start.statements.getFirst();
+        Assertions.assertEquals("Shape", shape.target.type);
+        Assertions.assertEquals("Square", ((VariableReferenceNode) shape.expression).type);
+
+        var describe = (AssignmentNode) method(tran, "describe").statements.getFirst();
+        var join = (MathOpNode) describe.expression;
+        Assertions.assertEquals("string", join.type);
+        Assertions.assertEquals("number", ((MethodCallExpressionNode) join.right).type);
+        var grow = (AssignmentNode) method(tran, "grow").statements.getFirst();
+        Assertions.assertEquals("number", ((MathOpNode) grow.expression).type);
+    }
+
+    @Test
+    public void overloadsArePickedByType() throws Exception {
+        TranNode tran = TestSupport.parse(program);
+        new Interpreter(tran, true);
+        var square = tran.Classes.getFirst();
+        var start = method(tran, "start");
+        Assertions.assertSame(square.constructors.get(1), ((NewNode) start.locals.getFirst().initializer.orElseThrow()).constructor);
+        Assertions.assertSame(square.methods.get(1), ((MethodCallStatementNode) start.statements.get(1)).target);
+        Assertions.assertSame(square.methods.get(2), ((MethodCallStatementNode) start.statements.get(2)).target);
+        var area = (MethodCallExpressionNode) ((MathOpNode) ((AssignmentNode) method(tran, "describe").statements.getFirst()).expression).right;
+        Assertions.assertNull(area.target);     //on an interface, the object's class decides
+    }
+
+    @Test
+    public void errorsAreReported() throws Exception {
+        String bad = String.join("\n",
+                "class Bad",
+                "    number n",
+                "    shared start()",
+                "        number i",
+                "        string s",
+                "        Bad b = new Bad(1)",
+                "        i = \"text\"",
+                "        s = s * 2",
+                "        if i",
+                "            i = missing",
+                "        loop s.times()",
+                "            i = i + 1",
+                "        i = b.nothing()",
+                "        n = 1",
+                "");
+        var errors = TypeChecker.check(TestSupport.parse(bad));
+        Assertions.assertEquals(8, errors.size(), errors.toString());
+        Assertions.assertTrue(errors.getFirst().startsWith("class Bad method start: no constructor of Bad"), errors.getFirst());
+        Assertions.assertTrue(errors.get(1).contains("cannot assign a string to i, a number"), errors.get(1));
+        Assertions.assertThrows(RuntimeException.class, () -> new Interpreter(TestSupport.parse(bad), true));
+    }
+
+    @Test
+    public void checkedProgramsRunTheSame() throws Exception {
+        String expected = "grown \narea 9.0 true";
+        Assertions.assertEquals(expected, run(TestSupport.parse(program), false));
+        Assertions.assertEquals(expected, run(TestSupport.parse(program), true));
+        Assertions.assertEquals(expected, run(TestSupport.parseLazily(program), true));
+    }
+}
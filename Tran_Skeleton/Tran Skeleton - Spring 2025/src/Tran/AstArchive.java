@@ -0,0 +1,755 @@
+package Tran;
+import AST.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A parsed Tran program saved in a compact binary file (a .tranc archive), so a program that has not changed can be
+ * started again without lexing or parsing it.
+ *      TranNode tran = AstArchive.load(source, cacheDirectory);
+ * load() keeps one archive per program in the cache directory, named after the SHA-256 hash of the source text.
+ * The archive is memory mapped when it is opened and nodes are only read from it when they are asked for:
+ *      tranNode() reads the headers of every class and interface, and each method body the first time it is run
+ *                 (through MethodDeclarationNode.unparsedBody, the same way as Parser.TranLazily())
+ *      loadClass(name) finds a single class by its name in an on-disk hash table, without reading the others
+ * Layout, ints are 4 bytes big-endian and counts and lengths inside records are varints (7 bits per byte):
+ *      header      "TRNC", version, the 32 byte source hash, and where the three sections start
+ *      strings     count, the position of each string, then each string as its UTF-8 length and bytes. Names and
+ *                  literals are written everywhere else as 1 + their index in this table (0 is null)
+ *      classes     count, the position of each class record in program order, then an open addressing hash table
+ *                  of (name hash, 1 + class index) slots, followed by the class records
+ *      interfaces  count, then each interface and its method headers
+ * Expressions are written in postfix order and read back with a stack, so neither writing nor reading them uses the
+ * Java stack, however long or deeply nested they are.
+ */
+public class AstArchive {
+    private static final int MAGIC = 0x54524E43;   //"TRNC"
+    private static final int VERSION = 1;
+    private static final int HASH_LENGTH = 32;
+    private static final int HEADER_LENGTH = 8 + HASH_LENGTH + 12;
+
+    //expression tags, postfix: operands come before the operator that uses them
+    private static final int END = 0, NUMBER = 1, STRING = 2, CHARACTER = 3, TRUE = 4, FALSE = 5, VARIABLE = 6,
+            MATH = 7, COMPARE = 8, BOOLEAN = 9, NOT = 10, NEW = 11, CALL = 12;
+    //statement tags
+    private static final int ASSIGNMENT = 1, METHOD_CALL = 2, IF = 3, LOOP = 4;
+    //method flags
+    private static final int SHARED = 1, PRIVATE = 2;
+
+    private final ByteBuffer buffer;
+    private final byte[] sourceHash;
+    private final int stringsStart;
+    private final int classesStart;
+    private final int interfacesStart;
+    private final int classCount;
+    private final String[] strings;     //strings read so far, by index
+    private final ClassNode[] classes;  //classes read so far, by index
+
+    private AstArchive(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_LENGTH || buffer.getInt(0) != MAGIC) throw new IOException("Not a .tranc archive");
+        if (buffer.getInt(4) != VERSION) throw new IOException("Unsupported .tranc version " + buffer.getInt(4));
+        this.buffer = buffer;
+        sourceHash = new byte[HASH_LENGTH];
+        buffer.get(8, sourceHash);
+        stringsStart = buffer.getInt(8 + HASH_LENGTH);
+        classesStart = buffer.getInt(12 + HASH_LENGTH);
+        interfacesStart = buffer.getInt(16 + HASH_LENGTH);
+        //the sections are written in order, so a file cut short or overwritten shows up as starts out of order
+        if (stringsStart < HEADER_LENGTH || classesStart < stringsStart || interfacesStart < classesStart
+                || interfacesStart > buffer.capacity() - 4) {
+            throw new IOException("Damaged .tranc archive");
+        }
+        int stringCount = buffer.getInt(stringsStart);
+        classCount = buffer.getInt(classesStart);
+        if (stringCount < 0 || stringsStart + 4 + 4L * stringCount > classesStart
+                || classCount < 0 || classesStart + 4 + 4L * classCount > interfacesStart) {
+            throw new IOException("Damaged .tranc archive");
+        }
+        strings = new String[stringCount];
+        classes = new ClassNode[classCount];
+    }
+
+    /**
+     * Memory maps an archive. Nothing is read from it until it is asked for.
+     * @throws IOException - when the file cannot be read or is not an archive this version can read
+     */
+    public static AstArchive open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            return new AstArchive(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * The program in source, from the archive in cacheDirectory if there is one for exactly this text. Otherwise the
+     * program is lexed and parsed, and an archive is written for the next time.
+     * @throws Exception - the SyntaxErrorException of a program that does not lex or parse, or an IOException
+     */
+    public static TranNode load(String source, Path cacheDirectory) throws Exception {
+        byte[] hash = hash(source);
+        Path file = cacheDirectory.resolve(HexFormat.of().formatHex(hash) + ".tranc");
+        if (Files.exists(file)) {
+            try {
+                AstArchive archive = open(file);
+                if (archive.isFor(hash)) return archive.tranNode();
+            } catch (IOException | RuntimeException e) {
+                //a damaged or older archive is written again below. Damage past the header only shows up while
+                //decoding, as an index out of bounds or an unknown tag
+            }
+        }
+        TranNode tran = new TranNode();
+        new Parser(tran, new Lexer(source).LexToBuffer()).Tran();
+        Files.createDirectories(cacheDirectory);
+        Path written = Files.createTempFile(cacheDirectory, "partial", ".tranc");
+        try {
+            write(tran, hash, written);
+            Files.move(written, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(written);  //only still there when writing or moving it failed
+        }
+        return tran;
+    }
+
+    /**
+     * @return the SHA-256 hash of the UTF-8 bytes of source, which identifies its archive
+     */
+    public static byte[] hash(String source) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);    //every Java platform has SHA-256
+        }
+    }
+
+    /**
+     * @return whether this archive was written for the source with the hash passed in
+     */
+    public boolean isFor(byte[] sourceHash) {
+        return MessageDigest.isEqual(this.sourceHash, sourceHash);
+    }
+
+    public int classCount() {
+        return classCount;
+    }
+
+    /**
+     * Finds a class in the archive's hash table and reads it (without its method bodies) the first time it is asked for
+     * @return the class, the same object every time, or null when there is no class with that name
+     */
+    public ClassNode loadClass(String name) {
+        int slotsStart = classesStart + 4 + 4 * classCount;
+        int mask = buffer.getInt(slotsStart) - 1;
+        int hash = name.hashCode();
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            int at = slotsStart + 4 + 8 * slot;
+            int index = buffer.getInt(at + 4) - 1;
+            if (index < 0) return null;
+            if (buffer.getInt(at) == hash) {
+                ClassNode found = classAt(index);
+                if (found.name.equals(name)) return found;
+            }
+        }
+    }
+
+    /**
+     * @return a TranNode with every class and interface in the archive, in program order. Method bodies are read the
+     * first time they are run, or when MethodDeclarationNode.parseBody() is called
+     */
+    public TranNode tranNode() {
+        TranNode tran = new TranNode();
+        for (int i = 0; i < classCount; i++) tran.Classes.add(classAt(i));
+        Input in = new Input(interfacesStart);
+        int interfaces = in.readInt();
+        for (int i = 0; i < interfaces; i++) {
+            InterfaceNode interfaceNode = new InterfaceNode();
+            interfaceNode.name = in.readString();
+            int methods = in.readVarint();
+            for (int m = 0; m < methods; m++) {
+                MethodHeaderNode header = new MethodHeaderNode();
+                header.name = in.readString();
+                header.parameters = in.readDeclarations();
+                header.returns = in.readDeclarations();
+                interfaceNode.methods.add(header);
+            }
+            tran.Interfaces.add(interfaceNode);
+        }
+        return tran;
+    }
+
+    private synchronized ClassNode classAt(int index) {
+        if (classes[index] == null) {
+            classes[index] = new Input(buffer.getInt(classesStart + 4 + 4 * index)).readClass();
+        }
+        return classes[index];
+    }
+
+    private String string(int index) {
+        String s = strings[index];
+        if (s == null) {    //two threads may both read it, and get equal strings
+            Input in = new Input(buffer.getInt(stringsStart + 4 + 4 * index));
+            byte[] bytes = new byte[in.readVarint()];
+            buffer.get(in.position, bytes);
+            s = new String(bytes, StandardCharsets.UTF_8);
+            strings[index] = s;
+        }
+        return s;
+    }
+
+    //keeps names that differ only in their high bits from all landing in the same slot
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * A method body in the archive, read by MethodDeclarationNode.parseBody()
+     */
+    private class ArchivedBody implements MethodDeclarationNode.UnparsedBody {
+        private final int position;
+
+        ArchivedBody(int position) {
+            this.position = position;
+        }
+
+        @Override
+        public void parseInto(MethodDeclarationNode method) {
+            Input in = new Input(position);
+            method.locals = in.readDeclarations();
+            method.statements = in.readStatements();
+        }
+    }
+
+    /**
+     * Reads records from the archive starting at a position. Each reader has its own position, the buffer is only
+     * read with absolute gets, so any number of them can read at once.
+     */
+    private class Input {
+        private int position;
+        private final ArrayList<ExpressionNode> operands = new ArrayList<>();
+
+        Input(int position) {
+            this.position = position;
+        }
+
+        int readByte() {
+            return buffer.get(position++) & 0xFF;
+        }
+
+        int readInt() {
+            int value = buffer.getInt(position);
+            position += 4;
+            return value;
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if (b < 0x80) return value;
+            }
+        }
+
+        String readString() {
+            int id = readVarint();
+            return id == 0 ? null : string(id - 1);
+        }
+
+        ClassNode readClass() {
+            ClassNode classNode = new ClassNode();
+            classNode.name = readString();
+            for (int i = readVarint(); i > 0; i--) classNode.interfaces.add(readString());
+            for (int i = readVarint(); i > 0; i--) {
+                MemberNode memberNode = new MemberNode();
+                memberNode.declaration = readDeclaration();
+                classNode.members.add(memberNode);
+            }
+            for (int i = readVarint(); i > 0; i--) {
+                ConstructorNode constructorNode = new ConstructorNode();
+                constructorNode.parameters = readDeclarations();
+                constructorNode.locals = readDeclarations();
+                constructorNode.statements = readStatements();
+                classNode.constructors.add(constructorNode);
+            }
+            for (int i = readVarint(); i > 0; i--) {
+                MethodDeclarationNode method = new MethodDeclarationNode();
+                int flags = readByte();
+                method.isShared = (flags & SHARED) != 0;
+                method.isPrivate = (flags & PRIVATE) != 0;
+                method.name = readString();
+                method.parameters = readDeclarations();
+                method.returns = readDeclarations();
+                int bodyLength = readVarint();
+                method.unparsedBody = new ArchivedBody(position);
+                position += bodyLength;
+                classNode.methods.add(method);
+            }
+            return classNode;
+        }
+
+        List<VariableDeclarationNode> readDeclarations() {
+            int count = readVarint();
+            List<VariableDeclarationNode> declarations = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) declarations.add(readDeclaration());
+            return declarations;
+        }
+
+        VariableDeclarationNode readDeclaration() {
+            VariableDeclarationNode declaration = new VariableDeclarationNode();
+            declaration.type = readString();
+            declaration.name = readString();
+            if (readByte() != 0) declaration.initializer = Optional.of(readExpression());
+            return declaration;
+        }
+
+        List<StatementNode> readStatements() {
+            int count = readVarint();
+            List<StatementNode> statements = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) statements.add(readStatement());
+            return statements;
+        }
+
+        StatementNode readStatement() {
+            int tag = readByte();
+            switch (tag) {
+                case ASSIGNMENT -> {
+                    AssignmentNode assignmentNode = new AssignmentNode();
+                    assignmentNode.target = variable(readString());
+                    assignmentNode.expression = readExpression();
+                    return assignmentNode;
+                }
+                case METHOD_CALL -> {
+                    MethodCallStatementNode methodCall = new MethodCallStatementNode();
+                    for (int i = readVarint(); i > 0; i--) methodCall.returnValues.add(variable(readString()));
+                    methodCall.objectName = Optional.ofNullable(readString());
+                    methodCall.methodName = readString();
+                    for (int i = readVarint(); i > 0; i--) methodCall.parameters.add(readExpression());
+                    return methodCall;
+                }
+                case IF -> {
+                    IfNode ifNode = new IfNode();
+                    ifNode.condition = readExpression();
+                    ifNode.statements = readStatements();
+                    ifNode.elseStatement = Optional.empty();
+                    if (readByte() != 0) {
+                        ElseNode elseNode = new ElseNode();
+                        elseNode.statements = readStatements();
+                        ifNode.elseStatement = Optional.of(elseNode);
+                    }
+                    return ifNode;
+                }
+                case LOOP -> {
+                    LoopNode loopNode = new LoopNode();
+                    loopNode.assignment = Optional.ofNullable(readString()).map(AstArchive::variable);
+                    loopNode.expression = readExpression();
+                    loopNode.statements = readStatements();
+                    return loopNode;
+                }
+            }
+            throw new IllegalStateException("Unknown statement tag " + tag + " at " + (position - 1));
+        }
+
+        ExpressionNode readExpression() {
+            int base = operands.size();
+            while (true) {
+                int tag = readByte();
+                switch (tag) {
+                    case END -> {
+                        return operands.remove(base);
+                    }
+                    case NUMBER -> {
+                        NumericLiteralNode numericLiteralNode = new NumericLiteralNode();
+                        numericLiteralNode.value = Float.intBitsToFloat(readInt());
+                        operands.add(numericLiteralNode);
+                    }
+                    case STRING -> {
+                        StringLiteralNode stringLiteralNode = new StringLiteralNode();
+                        stringLiteralNode.value = readString();
+                        operands.add(stringLiteralNode);
+                    }
+                    case CHARACTER -> {
+                        CharLiteralNode charLiteralNode = new CharLiteralNode();
+                        charLiteralNode.value = (char) readVarint();
+                        operands.add(charLiteralNode);
+                    }
+                    case TRUE, FALSE -> operands.add(new BooleanLiteralNode(tag == TRUE));
+                    case VARIABLE -> operands.add(variable(readString()));
+                    case MATH -> {
+                        MathOpNode mathOpNode = new MathOpNode();
+                        mathOpNode.op = MathOpNode.MathOperations.values()[readByte()];
+                        mathOpNode.right = pop();
+                        mathOpNode.left = pop();
+                        operands.add(mathOpNode);
+                    }
+                    case COMPARE -> {
+                        CompareNode compareNode = new CompareNode();
+                        compareNode.op = CompareNode.CompareOperations.values()[readByte()];
+                        compareNode.right = pop();
+                        compareNode.left = pop();
+                        operands.add(compareNode);
+                    }
+                    case BOOLEAN -> {
+                        BooleanOpNode booleanOpNode = new BooleanOpNode();
+                        booleanOpNode.op = BooleanOpNode.BooleanOperations.values()[readByte()];
+                        booleanOpNode.right = pop();
+                        booleanOpNode.left = pop();
+                        operands.add(booleanOpNode);
+                    }
+                    case NOT -> {
+                        NotOpNode notOpNode = new NotOpNode();
+                        notOpNode.left = pop();
+                        operands.add(notOpNode);
+                    }
+                    case NEW -> {
+                        NewNode newNode = new NewNode();
+                        newNode.className = readString();
+                        popArguments(readVarint(), newNode.parameters);
+                        operands.add(newNode);
+                    }
+                    case CALL -> {
+                        MethodCallExpressionNode call = new MethodCallExpressionNode();
+                        call.objectName = Optional.ofNullable(readString());
+                        call.methodName = readString();
+                        popArguments(readVarint(), call.parameters);
+                        operands.add(call);
+                    }
+                    default -> throw new IllegalStateException("Unknown expression tag " + tag + " at " + (position - 1));
+                }
+            }
+        }
+
+        private ExpressionNode pop() {
+            return operands.remove(operands.size() - 1);
+        }
+
+        private void popArguments(int count, List<ExpressionNode> arguments) {
+            List<ExpressionNode> top = operands.subList(operands.size() - count, operands.size());
+            arguments.addAll(top);
+            top.clear();
+        }
+    }
+
+    private static VariableReferenceNode variable(String name) {
+        VariableReferenceNode variableReferenceNode = new VariableReferenceNode();
+        variableReferenceNode.name = name;
+        return variableReferenceNode;
+    }
+
+    //              Writing
+
+    /**
+     * Writes tran to file as an archive for the source with the hash passed in (see hash()). Methods that were parsed
+     * lazily have their bodies parsed first.
+     * @throws SyntaxErrorException - when the body of a lazily parsed method does not parse
+     * @throws IllegalArgumentException - when tran has built-in methods, such as one an Interpreter has run
+     */
+    public static void write(TranNode tran, byte[] sourceHash, Path file) throws IOException, SyntaxErrorException {
+        if (sourceHash.length != HASH_LENGTH) throw new IllegalArgumentException("Expected a SHA-256 hash");
+        Output strings = new Output();      //the string table, filled in while the rest is written
+        HashMap<String, Integer> stringIds = new HashMap<>();
+        List<String> stringList = new ArrayList<>();
+
+        Output records = new Output(stringIds, stringList);
+        int classCount = tran.Classes.size();
+        int[] classPositions = new int[classCount];
+        for (int i = 0; i < classCount; i++) {
+            classPositions[i] = records.size;
+            records.writeClass(tran.Classes.get(i));
+        }
+        Output interfaces = new Output(stringIds, stringList);
+        interfaces.writeInt(tran.Interfaces.size());
+        for (InterfaceNode interfaceNode : tran.Interfaces) {
+            interfaces.writeString(interfaceNode.name);
+            interfaces.writeVarint(interfaceNode.methods.size());
+            for (MethodHeaderNode header : interfaceNode.methods) {
+                interfaces.writeString(header.name);
+                interfaces.writeDeclarations(header.parameters);
+                interfaces.writeDeclarations(header.returns);
+            }
+        }
+
+        int stringsStart = HEADER_LENGTH;
+        Output stringRecords = new Output();
+        int[] stringPositions = new int[stringList.size()];
+        int stringRecordsStart = stringsStart + 4 + 4 * stringList.size();
+        for (int i = 0; i < stringList.size(); i++) {
+            stringPositions[i] = stringRecordsStart + stringRecords.size;
+            byte[] bytes = stringList.get(i).getBytes(StandardCharsets.UTF_8);
+            stringRecords.writeVarint(bytes.length);
+            stringRecords.writeBytes(bytes, bytes.length);
+        }
+        strings.writeInt(stringList.size());
+        for (int position : stringPositions) strings.writeInt(position);
+        strings.writeBytes(stringRecords.bytes, stringRecords.size);
+
+        int slotCount = Integer.highestOneBit(Math.max(1, classCount) * 2 - 1) * 2;  //a power of 2, at most half full
+        int classesStart = stringsStart + strings.size;
+        int classRecordsStart = classesStart + 4 + 4 * classCount + 4 + 8 * slotCount;
+        Output classes = new Output();
+        classes.writeInt(classCount);
+        for (int position : classPositions) classes.writeInt(classRecordsStart + position);
+        int[] slots = new int[2 * slotCount];
+        for (int i = 0; i < classCount; i++) {
+            int hash = tran.Classes.get(i).name.hashCode();
+            int slot = spread(hash) & (slotCount - 1);
+            while (slots[2 * slot + 1] != 0) slot = (slot + 1) & (slotCount - 1);
+            slots[2 * slot] = hash;
+            slots[2 * slot + 1] = i + 1;
+        }
+        classes.writeInt(slotCount);
+        for (int value : slots) classes.writeInt(value);
+        classes.writeBytes(records.bytes, records.size);
+
+        Output header = new Output();
+        header.writeInt(MAGIC);
+        header.writeInt(VERSION);
+        header.writeBytes(sourceHash, HASH_LENGTH);
+        header.writeInt(stringsStart);
+        header.writeInt(classesStart);
+        header.writeInt(classesStart + classes.size);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Output part : new Output[]{header, strings, classes, interfaces}) {
+                ByteBuffer bytes = ByteBuffer.wrap(part.bytes, 0, part.size);
+                while (bytes.hasRemaining()) channel.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * A growable byte array records are written into
+     */
+    private static class Output {
+        private byte[] bytes = new byte[256];
+        private int size;
+        private final HashMap<String, Integer> stringIds;
+        private final List<String> strings;
+        //the expression nodes still being written, and how many of each one's children have been written
+        private ExpressionNode[] pending = new ExpressionNode[16];
+        private int[] childrenWritten = new int[16];
+
+        Output() {
+            this(null, null);
+        }
+
+        Output(HashMap<String, Integer> stringIds, List<String> strings) {
+            this.stringIds = stringIds;
+            this.strings = strings;
+        }
+
+        private void ensure(int more) {
+            if (size + more > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + more));
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeInt(int value) {
+            ensure(4);
+            bytes[size++] = (byte) (value >>> 24);
+            bytes[size++] = (byte) (value >>> 16);
+            bytes[size++] = (byte) (value >>> 8);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte(value);
+        }
+
+        void writeBytes(byte[] from, int length) {
+            ensure(length);
+            System.arraycopy(from, 0, bytes, size, length);
+            size += length;
+        }
+
+        void writeString(String s) {
+            if (s == null) {
+                writeVarint(0);
+                return;
+            }
+            Integer id = stringIds.get(s);
+            if (id == null) {
+                id = strings.size();
+                stringIds.put(s, id);
+                strings.add(s);
+            }
+            writeVarint(id + 1);
+        }
+
+        void writeClass(ClassNode classNode) throws SyntaxErrorException {
+            writeString(classNode.name);
+            writeVarint(classNode.interfaces.size());
+            for (String name : classNode.interfaces) writeString(name);
+            writeVarint(classNode.members.size());
+            for (MemberNode member : classNode.members) writeDeclaration(member.declaration);
+            writeVarint(classNode.constructors.size());
+            for (ConstructorNode constructor : classNode.constructors) {
+                writeDeclarations(constructor.parameters);
+                writeDeclarations(constructor.locals);
+                writeStatements(constructor.statements);
+            }
+            writeVarint(classNode.methods.size());
+            for (MethodDeclarationNode method : classNode.methods) {
+                if (method instanceof BuiltInMethodDeclarationNode) {
+                    throw new IllegalArgumentException("Built-in method " + classNode.name + "." + method.name + " cannot be archived");
+                }
+                method.parseBody();
+                writeByte((method.isShared ? SHARED : 0) | (method.isPrivate ? PRIVATE : 0));
+                writeString(method.name);
+                writeDeclarations(method.parameters);
+                writeDeclarations(method.returns);
+                Output body = new Output(stringIds, strings);  //written on its own so its length can go first
+                body.writeDeclarations(method.locals);
+                body.writeStatements(method.statements);
+                writeVarint(body.size);
+                writeBytes(body.bytes, body.size);
+            }
+        }
+
+        void writeDeclarations(List<VariableDeclarationNode> declarations) {
+            writeVarint(declarations.size());
+            for (VariableDeclarationNode declaration : declarations) writeDeclaration(declaration);
+        }
+
+        void writeDeclaration(VariableDeclarationNode declaration) {
+            writeString(declaration.type);
+            writeString(declaration.name);
+            writeByte(declaration.initializer.isPresent() ? 1 : 0);
+            if (declaration.initializer.isPresent()) writeExpression(declaration.initializer.get());
+        }
+
+        void writeStatements(List<StatementNode> statements) {
+            writeVarint(statements.size());
+            for (StatementNode statement : statements) writeStatement(statement);
+        }
+
+        void writeStatement(StatementNode statement) {
+            if (statement instanceof AssignmentNode assignmentNode) {
+                writeByte(ASSIGNMENT);
+                writeString(assignmentNode.target.name);
+                writeExpression(assignmentNode.expression);
+            } else if (statement instanceof MethodCallStatementNode methodCall) {
+                writeByte(METHOD_CALL);
+                writeVarint(methodCall.returnValues.size());
+                for (VariableReferenceNode returnValue : methodCall.returnValues) writeString(returnValue.name);
+                writeString(methodCall.objectName.orElse(null));
+                writeString(methodCall.methodName);
+                writeVarint(methodCall.parameters.size());
+                for (ExpressionNode parameter : methodCall.parameters) writeExpression(parameter);
+            } else if (statement instanceof IfNode ifNode) {
+                writeByte(IF);
+                writeExpression(ifNode.condition);
+                writeStatements(ifNode.statements);
+                writeByte(ifNode.elseStatement.isPresent() ? 1 : 0);
+                if (ifNode.elseStatement.isPresent()) writeStatements(ifNode.elseStatement.get().statements);
+            } else if (statement instanceof LoopNode loopNode) {
+                writeByte(LOOP);
+                writeString(loopNode.assignment.map(v -> v.name).orElse(null));
+                writeExpression(loopNode.expression);
+                writeStatements(loopNode.statements);
+            } else {
+                throw new IllegalArgumentException("Unknown statement " + statement.getClass());
+            }
+        }
+
+        /**
+         * Writes the expression in postfix order: each node after all of its children, then END
+         */
+        void writeExpression(ExpressionNode expression) {
+            int depth = 0;
+            pending[0] = expression;
+            childrenWritten[0] = 0;
+            while (depth >= 0) {
+                ExpressionNode node = pending[depth];
+                int next = childrenWritten[depth];
+                ExpressionNode child = child(node, next);
+                if (child != null) {
+                    childrenWritten[depth]++;
+                    if (++depth == pending.length) {
+                        pending = Arrays.copyOf(pending, depth * 2);
+                        childrenWritten = Arrays.copyOf(childrenWritten, depth * 2);
+                    }
+                    pending[depth] = child;
+                    childrenWritten[depth] = 0;
+                } else {
+                    writeNode(node);
+                    pending[depth--] = null;
+                }
+            }
+            writeByte(END);
+        }
+
+        /**
+         * @return the index-th child of node, or null when it has no more
+         */
+        private static ExpressionNode child(ExpressionNode node, int index) {
+            if (node instanceof MathOpNode mathOpNode) return index == 0 ? mathOpNode.left : index == 1 ? mathOpNode.right : null;
+            if (node instanceof CompareNode compareNode) return index == 0 ? compareNode.left : index == 1 ? compareNode.right : null;
+            if (node instanceof BooleanOpNode booleanOpNode) return index == 0 ? booleanOpNode.left : index == 1 ? booleanOpNode.right : null;
+            if (node instanceof NotOpNode notOpNode) return index == 0 ? notOpNode.left : null;
+            if (node instanceof NewNode newNode) return index < newNode.parameters.size() ? newNode.parameters.get(index) : null;
+            if (node instanceof MethodCallExpressionNode call) return index < call.parameters.size() ? call.parameters.get(index) : null;
+            return null;
+        }
+
+        private void writeNode(ExpressionNode node) {
+            if (node instanceof NumericLiteralNode numericLiteralNode) {
+                writeByte(NUMBER);
+                writeInt(Float.floatToIntBits(numericLiteralNode.value));
+            } else if (node instanceof StringLiteralNode stringLiteralNode) {
+                writeByte(STRING);
+                writeString(stringLiteralNode.value);
+            } else if (node instanceof CharLiteralNode charLiteralNode) {
+                writeByte(CHARACTER);
+                writeVarint(charLiteralNode.value);
+            } else if (node instanceof BooleanLiteralNode booleanLiteralNode) {
+                writeByte(booleanLiteralNode.value ? TRUE : FALSE);
+            } else if (node instanceof VariableReferenceNode variableReferenceNode) {
+                writeByte(VARIABLE);
+                writeString(variableReferenceNode.name);
+            } else if (node instanceof MathOpNode mathOpNode) {
+                writeByte(MATH);
+                writeByte(mathOpNode.op.ordinal());
+            } else if (node instanceof CompareNode compareNode) {
+                writeByte(COMPARE);
+                writeByte(compareNode.op.ordinal());
+            } else if (node instanceof BooleanOpNode booleanOpNode) {
+                writeByte(BOOLEAN);
+                writeByte(booleanOpNode.op.ordinal());
+            } else if (node instanceof NotOpNode) {
+                writeByte(NOT);
+            } else if (node instanceof NewNode newNode) {
+                writeByte(NEW);
+                writeString(newNode.className);
+                writeVarint(newNode.parameters.size());
+            } else if (node instanceof MethodCallExpressionNode call) {
+                writeByte(CALL);
+                writeString(call.objectName.orElse(null));
+                writeString(call.methodName);
+                writeVarint(call.parameters.size());
+            } else {
+                throw new IllegalArgumentException("Unknown expression " + node.getClass());
+            }
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package Tran;
+import AST.ClassNode;
+import AST.MethodDeclarationNode;
+import AST.TranNode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the tokens and AST of a Tran program up to date while it is edited, without lexing and parsing the whole
+ * program again after every edit.
+ *      IncrementalFrontEnd frontEnd = new IncrementalFrontEnd(text);
+ *      frontEnd.edit(offset, removedLength, insertedText);
+ *      TranNode tran = frontEnd.tranNode();
+ * The program is held as units, one per top level class or interface (plus any comments or blank lines before the
+ * first one), found with the same pre-scan as ParallelFrontEnd. Every unit starts at the beginning of a line with an
+ * indentation level of 0 and outside of any comment or string, so each one is a safe place to restart the Lexer.
+ * An edit only lexes and parses the units it touches. The region is grown by a unit at a time until the edited text
+ * starts on a unit boundary and ends just before one, which takes care of edits that open a comment, join two lines or
+ * change a class line. The units after the edit keep their tokens and their ClassNode and InterfaceNode objects.
+ * Inside a class that was parsed again, each method whose tokens did not change keeps its old MethodDeclarationNode,
+ * so untouched subtrees stay the same objects.
+ * Tokens are stored with the line and column numbers they had when they were lexed. tokens() moves them to where they
+ * are now.
+ * When the program does not lex or parse, edit() and tranNode() throw the error of the first unit that failed. Edits can
+ * still be made afterwards to fix it.
+ */
+public class IncrementalFrontEnd {
+    private final List<Unit> units = new ArrayList<>();
+
+    /**
+     * One top level class or interface, or the text in front of the first one
+     */
+    private static class Unit {
+        final String text;
+        final int newLines;         //number of '\n' characters in text
+        TokenBuffer tokens;         //null when text does not lex
+        int lexedLine;              //line and column the Lexer started at when tokens were made
+        int lexedColumn;
+        TranNode parsed;            //the classes and interfaces in text, null when it does not lex or parse
+        Exception error;
+
+        Unit(String text) {
+            this.text = text;
+            int count = 0;
+            for (int i = text.indexOf('\n'); i >= 0; i = text.indexOf('\n', i + 1)) count++;
+            this.newLines = count;
+        }
+    }
+
+    /**
+     * Lexes and parses text one unit at a time. Errors are not thrown here, they are thrown by tranNode() and tokens().
+     * @param text - the program
+     */
+    public IncrementalFrontEnd(String text) {
+        replace(0, -1, text, ParallelFrontEnd.scan(text));
+    }
+
+    /**
+     * Replaces removedLength characters at offset with inserted, then lexes and parses what the edit touched.
+     * The edit is kept even when the new text does not parse.
+     * @param offset - the index in text() where the edit starts
+     * @param removedLength - the number of characters removed from offset on
+     * @param inserted - the text put in their place
+     * @throws Exception - the error of the first unit that does not lex or parse after the edit
+     */
+    public void edit(int offset, int removedLength, String inserted) throws Exception {
+        int[] starts = starts();
+        int length = starts[units.size()];
+        if (offset < 0 || removedLength < 0 || offset + removedLength > length) {
+            throw new IndexOutOfBoundsException("edit of " + removedLength + " characters at " + offset + " is outside of the text (" + length + ")");
+        }
+        int first = unitAt(starts, offset);
+        int last = removedLength == 0 ? first : unitAt(starts, offset + removedLength - 1);
+        while (true) {
+            StringBuilder region = new StringBuilder();
+            for (int k = first; k <= last; k++) region.append(units.get(k).text);
+            int start = offset - starts[first];
+            region.replace(start, start + removedLength, inserted);
+            String edited = region.toString();
+            ParallelFrontEnd.Boundaries found = ParallelFrontEnd.scan(edited);
+
+            boolean startsOnBoundary = first == 0 || (found.count > 0 && found.offsets[0] == 0);
+            boolean endsOnBoundary = last == units.size() - 1 || (found.clean && edited.endsWith("\n"));
+            if (!startsOnBoundary) {
+                first--;
+            } else if (!endsOnBoundary) {
+                last++;
+            } else {
+                replace(first, last, edited, found);
+                break;
+            }
+        }
+        throwFirstError();
+    }
+
+    /**
+     * @return a TranNode holding every class and interface in the program. The nodes are the ones kept between edits.
+     * @throws Exception - the error of the first unit that does not lex or parse
+     */
+    public TranNode tranNode() throws Exception {
+        throwFirstError();
+        TranNode tran = new TranNode();
+        for (Unit unit : units) {
+            tran.Classes.addAll(unit.parsed.Classes);
+            tran.Interfaces.addAll(unit.parsed.Interfaces);
+        }
+        return tran;
+    }
+
+    /**
+     * @return the tokens of the whole program with their current line and column numbers, the same tokens as
+     *          Lexer.LexToBuffer() would give for text()
+     * @throws Exception - the error of the first unit that does not lex or parse
+     */
+    public TokenBuffer tokens() throws Exception {
+        throwFirstError();
+        TokenBuffer merged = new TokenBuffer(null);
+        int line = 1;
+        int trailingDedents = 0;
+        for (Unit unit : units) {
+            TokenBuffer tokens = unit.tokens;
+            int lineShift = line - unit.lexedLine;
+            int columnShift = trailingDedents + 1 - unit.lexedColumn;
+            for (int i = 0; i < tokens.size(); i++) {
+                int column = tokens.column(i) + (tokens.line(i) == unit.lexedLine ? columnShift : 0);
+                if (tokens.hasValue(i)) merged.add(tokens.type(i), tokens.line(i) + lineShift, column, tokens.value(i));
+                else merged.add(tokens.type(i), tokens.line(i) + lineShift, column);
+            }
+            line += unit.newLines;
+            trailingDedents = trailingDedents(tokens);
+        }
+        return merged;
+    }
+
+    /**
+     * @return the current text of the program
+     */
+    public String text() {
+        StringBuilder sb = new StringBuilder();
+        for (Unit unit : units) sb.append(unit.text);
+        return sb.toString();
+    }
+
+    /**
+     * Replaces units first to last (none when last is -1) with the units found in text, then lexes and parses them.
+     * A unit whose text did not change is kept as it is.
+     */
+    private void replace(int first, int last, String text, ParallelFrontEnd.Boundaries found) {
+        List<Unit> replaced = new ArrayList<>(units.subList(first, last + 1));
+        Map<String, Unit> unchanged = new HashMap<>();
+        for (Unit unit : replaced) unchanged.put(unit.text, unit);
+
+        List<Unit> created = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i <= found.count; i++) {
+            int end = i < found.count ? found.offsets[i] : text.length();
+            String unitText = text.substring(start, end);
+            start = end;
+            if (unitText.isEmpty()) continue;
+            Unit kept = unchanged.remove(unitText);
+            created.add(kept != null ? kept : new Unit(unitText));
+        }
+        units.subList(first, last + 1).clear();
+        if (units.isEmpty() && created.isEmpty()) created.add(new Unit(""));  //an empty program is one empty unit
+        units.addAll(first, created);
+
+        int line = 1;
+        for (int k = 0; k < first; k++) line += units.get(k).newLines;
+        for (int k = first; k < first + created.size(); k++) {
+            Unit unit = units.get(k);
+            if (unit.parsed == null || !replaced.contains(unit)) {
+                build(unit, line, firstColumn(k), replaced);
+            }
+            line += unit.newLines;
+        }
+    }
+
+    /**
+     * Lexes and parses a unit that starts at the line and column passed in
+     * @param replaced - the units the edit replaced, whose method nodes are reused where their tokens are the same
+     */
+    private void build(Unit unit, int line, int column, List<Unit> replaced) {
+        unit.lexedLine = line;
+        unit.lexedColumn = column;
+        unit.tokens = null;
+        unit.parsed = null;
+        unit.error = null;
+        try {
+            unit.tokens = new Lexer(new TextManager(unit.text), line, column).LexToBuffer();
+            TranNode parsed = new TranNode();
+            new Parser(parsed, unit.tokens).Tran();
+            reuseMethods(parsed, unit.tokens, replaced);
+            unit.parsed = parsed;
+        } catch (Exception e) {
+            unit.error = e;
+        }
+    }
+
+    /**
+     * Puts the MethodDeclarationNode of a replaced unit back into the new ClassNode of the same name wherever the
+     * method's tokens (types and values, not positions) are unchanged
+     */
+    private static void reuseMethods(TranNode parsed, TokenBuffer tokens, List<Unit> replaced) {
+        if (parsed.Classes.size() != 1) return;
+        ClassNode created = parsed.Classes.getFirst();
+        for (Unit old : replaced) {
+            if (old.parsed == null || old.parsed.Classes.size() != 1) continue;
+            ClassNode previous = old.parsed.Classes.getFirst();
+            if (!previous.name.equals(created.name)) continue;
+            List<String> oldKeys = methodKeys(old.tokens);
+            List<String> newKeys = methodKeys(tokens);
+            if (oldKeys.size() != previous.methods.size() || newKeys.size() != created.methods.size()) return;
+            Map<String, ArrayDeque<MethodDeclarationNode>> reusable = new HashMap<>();
+            for (int i = 0; i < oldKeys.size(); i++) {
+                reusable.computeIfAbsent(oldKeys.get(i), key -> new ArrayDeque<>()).add(previous.methods.get(i));
+            }
+            for (int i = 0; i < newKeys.size(); i++) {
+                ArrayDeque<MethodDeclarationNode> same = reusable.get(newKeys.get(i));
+                if (same != null && !same.isEmpty()) created.methods.set(i, same.poll());
+            }
+            return;
+        }
+    }
+
+    /**
+     * Splits the tokens of a class into its items (members, constructors and methods start at indentation level 1) and
+     * describes each method by the types and values of its tokens
+     * @return one key per method, in the order the methods appear
+     */
+    static List<String> methodKeys(TokenBuffer tokens) {
+        List<String> keys = new ArrayList<>();
+        int depth = 0;
+        int itemStart = -1;
+        for (int i = 0; i <= tokens.size(); i++) {
+            Token.TokenTypes type = i < tokens.size() ? tokens.type(i) : null;
+            boolean ends = type == null || (depth == 1 && type == Token.TokenTypes.DEDENT);
+            boolean starts = depth == 1 && type != null && type != Token.TokenTypes.INDENT && type != Token.TokenTypes.DEDENT
+                    && type != Token.TokenTypes.NEWLINE && isLineStart(tokens, i);
+            if ((ends || starts) && itemStart >= 0) {
+                String key = methodKey(tokens, itemStart, i);
+                if (key != null) keys.add(key);
+                itemStart = -1;
+            }
+            if (starts) itemStart = i;
+            if (type == Token.TokenTypes.INDENT) depth++;
+            else if (type == Token.TokenTypes.DEDENT) depth--;
+        }
+        return keys;
+    }
+
+    private static boolean isLineStart(TokenBuffer tokens, int i) {
+        if (i == 0) return true;
+        Token.TokenTypes previous = tokens.type(i - 1);
+        return previous == Token.TokenTypes.NEWLINE || previous == Token.TokenTypes.INDENT || previous == Token.TokenTypes.DEDENT;
+    }
+
+    /**
+     * @return the key of the item from start to end, or null when it is not a method (its first line has no parenthesis,
+     *          or it is a constructor)
+     */
+    private static String methodKey(TokenBuffer tokens, int start, int end) {
+        if (tokens.type(start) == Token.TokenTypes.CONSTRUCT) return null;
+        boolean method = false;
+        for (int i = start; i < end && tokens.type(i) != Token.TokenTypes.NEWLINE; i++) {
+            if (tokens.type(i) == Token.TokenTypes.LPAREN) method = true;
+        }
+        if (!method) return null;
+        StringBuilder key = new StringBuilder();
+        for (int i = start; i < end; i++) {
+            key.append((char) tokens.type(i).ordinal());
+            if (tokens.hasValue(i)) key.append(tokens.value(i));
+            key.append('\u0000');
+        }
+        return key.toString();
+    }
+
+    /**
+     * Lexes the first unit that failed again with its current line and column, and throws its error
+     */
+    private void throwFirstError() throws Exception {
+        int line = 1;
+        for (int k = 0; k < units.size(); k++) {
+            Unit unit = units.get(k);
+            if (unit.error != null) {
+                build(unit, line, firstColumn(k), List.of());
+                if (unit.error != null) throw unit.error;
+            }
+            line += unit.newLines;
+        }
+    }
+
+    /**
+     * The Lexer starts the first line after an indented block at the indentation level it had + 1
+     * @return the column the first token of unit k starts at
+     */
+    private int firstColumn(int k) {
+        if (k == 0 || units.get(k - 1).tokens == null) return 1;
+        return trailingDedents(units.get(k - 1).tokens) + 1;
+    }
+
+    private static int trailingDedents(TokenBuffer tokens) {
+        int count = 0;
+        for (int i = tokens.size() - 1; i >= 0 && tokens.type(i) == Token.TokenTypes.DEDENT; i--) count++;
+        return count;
+    }
+
+    /**
+     * @return the offset in the text where each unit starts, followed by the length of the text
+     */
+    private int[] starts() {
+        int[] starts = new int[units.size() + 1];
+        for (int k = 0; k < units.size(); k++) starts[k + 1] = starts[k] + units.get(k).text.length();
+        return starts;
+    }
+
+    /**
+     * @return the index of the unit holding the character at offset (the last unit for the offset at the very end)
+     */
+    private int unitAt(int[] starts, int offset) {
+        int low = 0;
+        int high = units.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (starts[middle] <= offset) low = middle;
+            else high = middle - 1;
+        }
+        return low;
+    }
+}
@@ -1,19 +1,56 @@
 package Tran;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 public class Lexer {
     //Check which punctuation you will need
-    private final char[] punctuationFirstChars = {  '=', '(', ')', ':', '.',
+    private static final char[] punctuationFirstChars = {  '=', '(', ')', ':', '.',
                                                     '+', '-', '*', '/', '%', ',',
                                                     '!', '<', '>', '\"', '\''};
     private final TextManager txtManager;
+    private final int firstLine;    //line number of the first character in txtManager
+    private final int firstColumn;  //column number of the first character in txtManager
     private int currentLine;
     private int currentCol;
     private int indentLevel;
     private int openEndedParenthesis;
     private int[] lastInitialOpenParenthesis;
-    LinkedList<Token> tokenList;
+    private TokenBuffer tokens;
+    private List<SyntaxErrorException> errors;     //set when lexing with recovery, see LexToBuffer(errors)
+
+    //keywords, placed by keywordSlot()
+    private static final int KEYWORD_SLOTS = 16;
+    private static final String[] KEYWORD_NAMES = new String[KEYWORD_SLOTS];
+    private static final Token.TokenTypes[] KEYWORD_TYPES = new Token.TokenTypes[KEYWORD_SLOTS];
+    static {
+        keyword("if", Token.TokenTypes.IF);
+        keyword("new", Token.TokenTypes.NEW);
+        keyword("loop", Token.TokenTypes.LOOP);
+        keyword("else", Token.TokenTypes.ELSE);
+        keyword("class", Token.TokenTypes.CLASS);
+        keyword("shared", Token.TokenTypes.SHARED);
+        keyword("private", Token.TokenTypes.PRIVATE);
+        keyword("interface", Token.TokenTypes.INTERFACE);
+        keyword("construct", Token.TokenTypes.CONSTRUCT);
+        keyword("implements", Token.TokenTypes.IMPLEMENTS);
+    }
+
+    //what lexNext() reads next, by the class of the char it starts with (see classify)
+    private static final byte UNKNOWN = 0;
+    private static final byte LETTER = 1;
+    private static final byte DIGIT = 2;
+    private static final byte NEWLINE = 3;
+    private static final byte COMMENT = 4;
+    private static final byte PUNCTUATION = 5;
+    private static final byte WHITESPACE = 6;
+    private static final byte[] ASCII_CLASSES = new byte[128];    //the class of every ASCII char, so most chars are one lookup
+    static {
+        for(char c = 0; c < ASCII_CLASSES.length; c++) {
+            ASCII_CLASSES[c] = classify(c);
+        }
+    }
 
     /**
      * Creates a Lexer object with a freshly initialized TextManager field containing the input
@@ -23,6 +60,40 @@ public class Lexer {
      */
     public Lexer(String input) {
         txtManager = new TextManager(input);
+        firstLine = 1;
+        firstColumn = 1;
+    }
+
+    /**
+     * Creates a Lexer object that reads from an existing TextManager, such as a MappedTextManager reading a file
+     * @param source - the TextManager to lex, positioned at the start of its text
+     */
+    public Lexer(TextManager source) {
+        this(source, 1);
+    }
+
+    /**
+     * Creates a Lexer object for text that does not start on the first line of its file, such as one of the chunks
+     * lexed by ParallelFrontEnd. Line numbers are counted from firstLine.
+     * @param source - the TextManager to lex, positioned at the start of a line
+     * @param firstLine - the line number of the first line in source
+     */
+    public Lexer(TextManager source, int firstLine) {
+        this(source, firstLine, 1);
+    }
+
+    /**
+     * Same as Lexer(source, firstLine), for text whose first line has to start at a column other than 1. A line that
+     * follows an indented line starts at the previous indentation level + 1, and IncrementalFrontEnd lexes such lines
+     * on their own.
+     * @param source - the TextManager to lex, positioned at the start of a line
+     * @param firstLine - the line number of the first line in source
+     * @param firstColumn - the column number given to the first character in source
+     */
+    public Lexer(TextManager source, int firstLine, int firstColumn) {
+        txtManager = source;
+        this.firstLine = firstLine;
+        this.firstColumn = firstColumn;
     }
 
     /**
@@ -35,118 +106,251 @@ public class Lexer {
      * @throws SyntaxErrorException - in the event that an unanticipated character is parsed from txtManager
      */
     public List<Token> Lex() throws SyntaxErrorException {
-	    tokenList = new LinkedList<Token>();
-        currentLine = 1;
-        currentCol = 1;
+        return new LinkedList<Token>(LexToBuffer().asList());
+    }
+
+    /**
+     * Same as Lex(), but leaves the tokens in a TokenBuffer instead of creating a Token object for each of them.
+     * The Parser and TokenManager can read the TokenBuffer directly.
+     * @return - A TokenBuffer holding the tokens in the order they were found
+     * @throws SyntaxErrorException - in the event that an unanticipated character is parsed from txtManager
+     */
+    public TokenBuffer LexToBuffer() throws SyntaxErrorException {
+        start(new TokenBuffer(txtManager));
+        while(lexNext());
+        return tokens;
+    }
+
+    /**
+     * Same as LexToBuffer(), but keeps going after a syntax error instead of throwing it. The error is added to errors,
+     * the rest of its line is skipped, and lexing picks up again at the next newline, so one pass finds every line that
+     * does not lex. Tokens found on a bad line before its error are kept. The errors are created without a stack trace.
+     * @param errors - the list the errors are added to, in the order they are found
+     * @return - A TokenBuffer holding the tokens of every line, minus what was skipped after each error
+     */
+    public TokenBuffer LexToBuffer(List<SyntaxErrorException> errors) {
+        this.errors = errors;
+        start(new TokenBuffer(txtManager));
+        boolean more = true;
+        while(more) {
+            int line = currentLine;
+            int position = txtManager.getPosition();
+            try {
+                more = lexNext();
+            } catch (SyntaxErrorException e) {
+                errors.add(e);
+                skipRestOfLine(line, position);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Streaming version of Lex(). Nothing is lexed until the first token is asked for, and each call to hasNext()
+     * only lexes as far as it needs to find the next token. Tokens that have been handed out are not kept by the
+     * Lexer, so a TokenManager reading from this iterator only holds on to its lookahead window.
+     * The indentation level and the parenthesis balance carry over from one pull to the next, so the tokens are the
+     * same as the ones Lex() gives, DEDENT tokens at the end of the text included.
+     * Since Iterator methods cannot throw checked exceptions, a SyntaxErrorException is thrown from hasNext() or
+     * next() wrapped in an UncheckedSyntaxErrorException, at the point in the stream where Lex() would have thrown it.
+     * @return - An Iterator that lexes the text as tokens are pulled from it
+     */
+    public Iterator<Token> LexStream() {
+        start(new TokenBuffer(txtManager, 16));
+        return new TokenStream();
+    }
+
+    /**
+     * resets the lexing state before the text is lexed from the start
+     * @param buffer - the TokenBuffer the tokens will be added to
+     */
+    private void start(TokenBuffer buffer) {
+        tokens = buffer;
+        currentLine = firstLine;
+        currentCol = firstColumn;
         indentLevel = 0;
         openEndedParenthesis = 0;
         lastInitialOpenParenthesis = new int[]{0, 0};
+    }
 
-        while(!txtManager.isAtEnd()) {
-            char currentChar = peekCharacter();
-            if (Character.isLetter(currentChar)) {          //letters
-                tokenList.add(readWord());
-            }else if('\n' == currentChar) {                 //newLine
-                tokenList.add(newLine());
+    /**
+     * Lexes whatever starts at the current character (a word, a number, punctuation, a new line, a comment or
+     * whitespace), adding any tokens found to tokens. Once the text has run out, the closing DEDENT tokens are added
+     * and the parenthesis balance is checked instead.
+     * @return - false when the end of the text has been handled, true when there may be more to lex
+     * @throws SyntaxErrorException - in the event that an unanticipated character is parsed from txtManager
+     */
+    private boolean lexNext() throws SyntaxErrorException {
+        if(txtManager.isAtEnd()) {
+            //in the event that the algorithm ends with an indented statement
+            while(indentLevel > 0) {
+                tokens.add(Token.TokenTypes.DEDENT,currentLine,currentCol);
+                indentLevel--;
+            }
+
+            //algorithm ended with an open parenthesis
+            if(openEndedParenthesis != 0){
+                throw error("Not as many Left Parenthesis as Right Parenthesis",currentLine,currentCol);
+            }
+            return false;
+        }
+
+        char currentChar = peekCharacter();
+        switch (charClass(currentChar)) {
+            case LETTER -> readWord();              //letters
+            case NEWLINE -> {                       //newLine
+                newLine();
                 adjustIndent();
-            } else if('{' == currentChar) {                 //comments
-                comment();
-            } else if (Character.isDigit(currentChar)) {    //numbers
-                tokenList.add(readNumber());
-            } else if (isPunctuation(currentChar)) {        //punctuation
-                tokenList.add(readPunctuation());
-            } else if(Character.isWhitespace(currentChar)){ //whiteSpaces
-                    midlineWhitespace();
-            } else {                                        //unknown character
-                throw new SyntaxErrorException("Unrecognized character: " + currentChar,currentLine,currentCol);
             }
+            case COMMENT -> comment();              //comments
+            case DIGIT -> readNumber();             //numbers
+            case PUNCTUATION -> readPunctuation();  //punctuation
+            case WHITESPACE -> midlineWhitespace(); //whiteSpaces
+            default -> throw error("Unrecognized character: " + currentChar,currentLine,currentCol);
+        }
+        return true;
+    }
+
+    /**
+     * The Iterator returned by LexStream(). tokens only holds what the last lexNext() call added, and is emptied once
+     * all of those tokens have been handed out.
+     */
+    private class TokenStream implements Iterator<Token> {
+        private int read;           //index in tokens of the next token to hand out
+        private boolean finished;   //lexNext() has reported the end of the text, or thrown
+
+        @Override
+        public boolean hasNext() {
+            while(read == tokens.size() && !finished) {
+                tokens.clear();
+                read = 0;
+                try {
+                    finished = !lexNext();
+                } catch (SyntaxErrorException e) {
+                    finished = true;
+                    tokens.clear();
+                    throw new UncheckedSyntaxErrorException(e);
+                }
+            }
+            return read < tokens.size();
         }
 
-        //in the event that the algorithm ends with an indented statement
-        while(indentLevel > 0) {
-            tokenList.add(new Token(Token.TokenTypes.DEDENT,currentLine,currentCol));
-            indentLevel--;
+        @Override
+        public Token next() {
+            if(!hasNext()) throw new NoSuchElementException("no tokens left in the text");
+            return tokens.get(read++);
         }
+    }
 
-        //algorithm ended with an open parenthesis
-        if(openEndedParenthesis != 0){
-            throw new SyntaxErrorException("Not as many Left Parenthesis as Right Parenthesis",currentLine,currentCol);
+    /**
+     * Moves txtManager up to the next newline after an error, so the next lexNext() starts a new line.
+     * currentLine is counted again from the newlines between where the failed step started and here, since a step can
+     * fail after counting a line it never finished (a quoted string that runs into a newline).
+     * Parenthesis left open on the bad line are forgotten, so they are not reported again at the end of the text.
+     * @param line - currentLine when the failed step started
+     * @param position - the position in txtManager when the failed step started
+     */
+    private void skipRestOfLine(int line, int position) {
+        int newLine = txtManager.indexOf('\n');
+        if(newLine >= 0) {
+            txtManager.skipTo(newLine);
+        } else {
+            while(!txtManager.isAtEnd()) txtManager.getCharacter();
+        }
+        String skipped = txtManager.substring(position, txtManager.getPosition());
+        currentLine = line;
+        for(int i = 0; i < skipped.length(); i++) {
+            if(skipped.charAt(i) == '\n') currentLine++;
         }
-        return tokenList;
+        openEndedParenthesis = 0;
+    }
+
+    /**
+     * @return a SyntaxErrorException at the line and column passed in, without a stack trace when lexing with recovery
+     */
+    private SyntaxErrorException error(String message, int line, int column) {
+        return new SyntaxErrorException(message, line, column, errors == null);
     }
 
     /**
      * Checks that the initial char passed at position in txtManager is a letter.
-     * Parses through txtManager until the next char is not a letter or a digit and passes it into the
-     * parsed String.
-     * The characters parsed are organized in the order they were given.
+     * Parses through txtManager until the next char is not a letter or a digit, remembering where the word started
+     * and ended, and computing the word's hash as it goes. No String is built while scanning.
      * Increments txtManager and currentCol by however many chars were parsed.
-     * Queries the type of token to initialize based on the value of parsed
-     * @return - a token of a type dependent on the value of parsed.
+     * Queries the type of token to initialize based on the letters parsed, then adds a token of that type to tokens.
      *      The rowNumber is equivalent to the field currentRow at the time of initialization
      *      The columnNumber is equivalent to the initialColIndex
-     *      In the case that the type is WORD, the token contains a String value equal to the value parsed.
+     *      In the case that the type is WORD, the word is interned in the SymbolTable of tokens and the token's value
+     *      is the slice of txtManager that was parsed.
      */
-    public Token readWord() throws SyntaxErrorException {
+    private void readWord() throws SyntaxErrorException {
         //initial check that the character indexed at position in txtManager is a letter char
         if(!Character.isLetter(peekCharacter()))
-            throw new SyntaxErrorException("Expected a letter char. Instead received: " + peekCharacter(), currentLine, currentCol);
+            throw error("Expected a letter char. Instead received: " + peekCharacter(), currentLine, currentCol);
 
         //mini-fields
         int initialColIndex = currentCol;
-        String parsed = "";
+        int start = txtManager.getPosition();
         char currentChar = peekCharacter();
+        char firstChar = currentChar;
+        char lastChar = currentChar;
+        int length = 0;
+        int hash = 0;           //same as String.hashCode() of the word
 
 
         //parses word (includes letters and digits(after first char))
-        while(Character.isLetter(currentChar) || Character.isDigit(currentChar)) {
-            parsed = parsed.concat((""+incrementOneChar()));
+        while(isLetterOrDigit(currentChar)) {
+            hash = 31 * hash + currentChar;
+            length++;
+            lastChar = currentChar;
+            incrementOneChar();
             currentChar = peekCharacter();  //next char to check
         }
+        int end = txtManager.getPosition();
 
-        //checks if parsed is a keyword
-        Token.TokenTypes type = typeFromLetters(parsed);
-        if((""+type).equals("WORD"))//parsed is not a keyword
-            return new Token(Token.TokenTypes.WORD, currentLine, initialColIndex, parsed);
+        //checks if the parsed letters are a keyword
+        Token.TokenTypes type = keywordType(start, firstChar, lastChar, length);
+        if(type == Token.TokenTypes.WORD)//parsed is not a keyword
+            tokens.addWord(currentLine, initialColIndex, start, end,
+                    tokens.symbolTable().intern(txtManager, start, end, length, hash));
         else    //parsed is a keyword
-            return new Token(type, currentLine, initialColIndex);
+            tokens.add(type, currentLine, initialColIndex);
     }
 
     /**
      * checks that the initial char at position in txtManager is either a digit or '.'.
-     * parses through txtManager until the next char is not a digit or a '.' and passes it into the
-     * value String. Only 1 '.' is read into the value String.
-     * The characters parsed are organized in the order they were given.
+     * parses through txtManager until the next char is not a digit or a '.'. Only 1 '.' is read into the value.
+     * The value is the slice of txtManager that was parsed, no String is built while scanning.
      * Increments txtManager and currentCol by however many chars were parsed.
-     * @return - a token of type NUMBER
+     * Adds a token of type NUMBER to tokens
      *          The rowNumber is equivalent to the field currentRow at the time of initialization
      *          The columnNumber is  equivalent to the initialColIndex
-     *          The value is equal to value, a parsed String from txtManager
+     *          The value is the slice of txtManager that was parsed
      */
-    public Token readNumber() throws SyntaxErrorException {
+    private void readNumber() throws SyntaxErrorException {
         //TODO debug
 
         //mini-fields
         char currentChar = peekCharacter();
         int decimalCounter = 0;
         int initialColIndex = currentCol;
-        String value = "";
+        int start = txtManager.getPosition();
 
         //initial check that the character indexed at position in txtManager is a digit char or '.' followed by a digit
         if(!(Character.isDigit(currentChar) || ('.' == currentChar && Character.isDigit(peekCharacter(1)))))
-            throw new SyntaxErrorException("A non-digit or decimal value was passed to readNumber()", currentLine, currentCol);
+            throw error("A non-digit or decimal value was passed to readNumber()", currentLine, currentCol);
 
         /*parses txtManager until position is not a digit or '.' OR position is a '.' and there is already
          a decimal (decimalCounter > 0). */
         while(Character.isDigit(currentChar) || ('.' == currentChar && decimalCounter < 1)){
-            //increments txtManager and appends the current char onto the end of value
-            value = value.concat(("" + incrementOneChar()));
+            //increments txtManager, the char becomes part of the value slice
+            incrementOneChar();
             if(currentChar == '.')
                 decimalCounter++;
             currentChar = peekCharacter();
         }
 
-        return new Token(Token.TokenTypes.NUMBER, currentLine, initialColIndex, value);
+        tokens.add(Token.TokenTypes.NUMBER, currentLine, initialColIndex, start, txtManager.getPosition());
     }
 
     /**
@@ -154,37 +358,38 @@ public class Lexer {
      * finds the relative punctuation mark, and in some cases, checks the next character if it is
      * relevant to the punctuation as some are two chars long.
      * Adjusts currentCol accordingly.
-     * @return - A Token of a type dependent on the String parsed from txtManager
+     * Adds a Token of a type dependent on the String parsed from txtManager to tokens
      *      The rowNumber is equivalent to the field currentRow at the time of initialization
      *      The columnNumber is  equivalent to the initialColIndex
      *      The type can sometimes be a NUMBER token, which holds a value equivalent to what's parsed
      * @throws SyntaxErrorException -  in the event that the nextChar in txtManager is not a punctuation char as recognized by
      *                      the tran language
      */
-    public Token readPunctuation() throws SyntaxErrorException {
+    private void readPunctuation() throws SyntaxErrorException {
         //checks input
         if(!isPunctuation(peekCharacter()))
-            throw new SyntaxErrorException("expected punctuation", currentLine,currentCol);
+            throw error("expected punctuation", currentLine,currentCol);
 
         int initialColNumber = currentCol;
         char firstChar = peekCharacter();
 
         //in cases where presumed punctuation is actually a NUMBER token
         if(firstChar == '.' && Character.isDigit(peekCharacter(1))){
-            return readNumber();
+            readNumber();
+            return;
         }
 
         //first char is punctuation and Not a NUMBER, incrementing txtManager position and currentCol
         incrementOneChar();
 
-        Token token;
+        Token.TokenTypes type;
         switch (firstChar) {
             case '=':
                 if (peekCharacter() == '=') {         //EQUAL, next char is '='
                     incrementOneChar();
-                    token = new Token(Token.TokenTypes.EQUAL, currentLine, initialColNumber);
+                    type = Token.TokenTypes.EQUAL;
                 } else {                            //ASSIGN, next char is not '='
-                    token = new Token(Token.TokenTypes.ASSIGN, currentLine, initialColNumber);
+                    type = Token.TokenTypes.ASSIGN;
                 }
                 break;
             case '(':                               //LPAREN
@@ -195,76 +400,76 @@ public class Lexer {
                 }
 
                 openEndedParenthesis++;
-                token = new Token(Token.TokenTypes.LPAREN, currentLine, initialColNumber);
+                type = Token.TokenTypes.LPAREN;
                 break;
             case ')':                               //RPAREN
                 if (openEndedParenthesis < 1) {
-                    throw new SyntaxErrorException("an end parenthesis was used without a starting parenthesis", lastInitialOpenParenthesis[0], lastInitialOpenParenthesis[1]);
+                    throw error("an end parenthesis was used without a starting parenthesis", lastInitialOpenParenthesis[0], lastInitialOpenParenthesis[1]);
                 }
 
                 openEndedParenthesis--;
-                token = new Token(Token.TokenTypes.RPAREN, currentLine, initialColNumber);
+                type = Token.TokenTypes.RPAREN;
                 break;
             case ':':                               //COLON
-                token = new Token(Token.TokenTypes.COLON, currentLine, initialColNumber);
+                type = Token.TokenTypes.COLON;
                 break;
             case '.':                               //DOT
                 //number already checked above
-                token = new Token(Token.TokenTypes.DOT, currentLine, initialColNumber);
+                type = Token.TokenTypes.DOT;
                 break;
             case '+':                               //PLUS
-                token = new Token(Token.TokenTypes.PLUS, currentLine, initialColNumber);
+                type = Token.TokenTypes.PLUS;
                 break;
             case '-':                               //MINUS
-                token = new Token(Token.TokenTypes.MINUS, currentLine, initialColNumber);
+                type = Token.TokenTypes.MINUS;
                 break;
             case '*':                               //TIMES
-                token = new Token(Token.TokenTypes.TIMES, currentLine, initialColNumber);
+                type = Token.TokenTypes.TIMES;
                 break;
             case '/':                               //DIVIDE
-                token = new Token(Token.TokenTypes.DIVIDE, currentLine, initialColNumber);
+                type = Token.TokenTypes.DIVIDE;
                 break;
             case '%':                               //MODULO
-                token = new Token(Token.TokenTypes.MODULO, currentLine, initialColNumber);
+                type = Token.TokenTypes.MODULO;
                 break;
             case ',':                               //COMMA
-                token = new Token(Token.TokenTypes.COMMA, currentLine, initialColNumber);
+                type = Token.TokenTypes.COMMA;
                 break;
             case '!':                               //NOTEQUAL
                 if (peekCharacter() != '=') { //ensures that the next character is '='
-                    throw new SyntaxErrorException("Expected '='. '!' is only valid when next to a '=' or in a comment / string", currentLine, initialColNumber + 1);
+                    throw error("Expected '='. '!' is only valid when next to a '=' or in a comment / string", currentLine, initialColNumber + 1);
                 }
 
                 incrementOneChar();
-                token = new Token(Token.TokenTypes.NOTEQUAL, currentLine, initialColNumber);
+                type = Token.TokenTypes.NOTEQUAL;
                 break;
             case '<':
                 if(peekCharacter() == '='){         //LESSTHANEQUAL, next char is '='
                     incrementOneChar();
-                    token = new Token(Token.TokenTypes.LESSTHANEQUAL, currentLine, initialColNumber);
+                    type = Token.TokenTypes.LESSTHANEQUAL;
                 }else{                              //LESSTHAN, next char is not '='
-                    token = new Token(Token.TokenTypes.LESSTHAN, currentLine, initialColNumber);
+                    type = Token.TokenTypes.LESSTHAN;
                 }
                 break;
             case '>':
                 if(peekCharacter() == '=') {         //GREATERTHANEQUAL, next char is '='
                     incrementOneChar();
-                    token = new Token(Token.TokenTypes.GREATERTHANEQUAL, currentLine, initialColNumber);
+                    type = Token.TokenTypes.GREATERTHANEQUAL;
                 } else {                            //GREATERTHAN, next char is not '='
-                    token = new Token(Token.TokenTypes.GREATERTHAN, currentLine, initialColNumber);
+                    type = Token.TokenTypes.GREATERTHAN;
                 }
                 break;
             case '\"':                               //QUOTEDSTRING
-                token = quotedString();
-                break;
+                quotedString();
+                return;
             case '\'':                              //QUOTEDCHARACTER
-                token = quotedCharacter();
-                break;
+                quotedCharacter();
+                return;
             default:
-                throw new SyntaxErrorException("unexpected character counted as punctuation but wasn't identified:"
+                throw error("unexpected character counted as punctuation but wasn't identified:"
                         + firstChar, currentLine, initialColNumber);
         }
-        return token;
+        tokens.add(type, currentLine, initialColNumber);
     }
 
     /**
@@ -272,9 +477,11 @@ public class Lexer {
      * not follow directly after a new line and therefor do not affect indentation and dedentation.
      * Increments the current column number (currentCol) and the position in txtManager. Does NOT
      * accept newline characters '\n' as a whitespace
+     * Runs of spaces and tabs are skipped in one call to txtManager.skipSpaces(), any other whitespace one char at a time.
      * @throws SyntaxErrorException - in the event that another character is attempted to be grabbed past the end of the input
      */
     private void midlineWhitespace() throws SyntaxErrorException {
+        currentCol += txtManager.skipSpaces();
         char character = peekCharacter();
         while(Character.isWhitespace(character) && (character != '\n')) {
             incrementOneChar();
@@ -284,24 +491,21 @@ public class Lexer {
 
     /**
      * Checks that txtManager is actually at a newLine, then:
-     *      creates a NEWLINE Token
+     *      adds a NEWLINE Token to tokens
      *      adjusts currentCol to 0 and increments currentLine
-     * @return a NEWLINE Token
      * @throws SyntaxErrorException - in the event that txtManager is not at a newline char when this function initializes
      */
-    private Token newLine() throws SyntaxErrorException {
+    private void newLine() throws SyntaxErrorException {
         //checks it is a newLine
         char currentChar = peekCharacter();
         if (currentChar != '\n') {
-            throw new SyntaxErrorException("expected a newline", currentLine, currentCol);
+            throw error("expected a newline", currentLine, currentCol);
         }
 
         //adds a newline token, increment txtManager's position, increments currentLine, and sets currentCol to 1
         currentCol = 1;
-        Token currentToken = new Token(Token.TokenTypes.NEWLINE, ++currentLine,currentCol);
+        tokens.add(Token.TokenTypes.NEWLINE, ++currentLine,currentCol);
         txtManager.getCharacter();
-
-        return currentToken;
     }
 
     /**
@@ -309,47 +513,55 @@ public class Lexer {
      * Performs the following checks:
      *       the character preceding the current position in txtManager is a single quote char
      *       the character after the current position in txtManager is a single quote char
-     * Then, makes a token of Type QUOTEDCHARACTER at position currentLine, currentCol - 1, with a value found for txtManager.getCharacter()
+     * Then, adds a token of Type QUOTEDCHARACTER at position currentLine, currentCol - 1, with a value found for txtManager.getCharacter()
      * Increments twice for the char value characters parsed, including the value char and the second single quote char.
-     * @return - A QUOTEDCHARACTER Token
      * @throws SyntaxErrorException - if the character preceding the current position in txtManager is not a single quote char
  *                                  - if the character after the current position in txtManager is not a single quote char
      */
-    private Token quotedCharacter() throws SyntaxErrorException {
+    private void quotedCharacter() throws SyntaxErrorException {
         int initialCol = currentCol-1;
-        Token token;
 
         //checks that we were actually passed txtManager after a ' char was popped
-        if(peekCharacter(-1) != '\'') throw new SyntaxErrorException("quoted character expected", currentLine, initialCol);
+        if(peekCharacter(-1) != '\'') throw error("quoted character expected", currentLine, initialCol);
         //char after next must be '
-        if(peekCharacter(1) !='\'') throw new SyntaxErrorException("quoted character expected", currentLine, currentCol+1);
+        if(peekCharacter(1) !='\'') throw error("quoted character expected", currentLine, currentCol+1);
 
-        token = new Token(Token.TokenTypes.QUOTEDCHARACTER, currentLine, initialCol, ""+incrementOneChar());
+        int start = txtManager.getPosition();
+        incrementOneChar();
+        tokens.add(Token.TokenTypes.QUOTEDCHARACTER, currentLine, initialCol, start, txtManager.getPosition());
         incrementOneChar();
-        return token;
     }
 
     /**
      * checks that the character preceding position in txtManager is a double quote char
      * iterates through txtManager until it finds a double quote char. Keeps track of currentLine and currentCol.
      * Does NOT adjust indent level, only calculates it to iterate newline whitespaces and calculate currentCol.
-     * @return Token of type QUOTEDSTRING
+     * Adds a Token of type QUOTEDSTRING whose value is the slice of txtManager between the two double quote chars
+     * When the closing double quote is on the same line, txtManager jumps straight to it (see TextManager.indexOf()).
      * @throws SyntaxErrorException - thrown when the character preceding position in txtManager is not a double quote char
      */
-    private Token quotedString() throws SyntaxErrorException {
+    private void quotedString() throws SyntaxErrorException {
         int initialCol = currentCol-1;
-        String value = "";
+        int start = txtManager.getPosition();
         char currentChar = peekCharacter();
-        Token token;
 
         //checks that we were actually passed txtManager after a " char was popped
-        if(peekCharacter(-1) != '\"') throw new SyntaxErrorException("quoted character expected", currentLine, initialCol);
+        if(peekCharacter(-1) != '\"') throw error("quoted character expected", currentLine, initialCol);
+
+        //fast path for a string that closes on the line it starts on
+        int close = txtManager.indexOf('\"');
+        if(close >= 0 && txtManager.indexOf('\n', close) < 0) {
+            currentCol += txtManager.skipTo(close);
+            incrementOneChar();
+            tokens.add(Token.TokenTypes.QUOTEDSTRING, currentLine, initialCol, start, close);
+            return;
+        }
 
         //increments through txtManager until a " char is found
         while(currentChar != '\"') {
             //adjusts currentCol and currentLine accordingly.
             if(currentChar != '\n'){    //TODO check if explicit newline chars are noted
-                value = value.concat("" + incrementOneChar());
+                incrementOneChar();
             } else{
                 currentLine++;
                 calculateIndent();
@@ -357,14 +569,14 @@ public class Lexer {
 
             //special case that throws an exception when it doesn't find its pair
             if(txtManager.isAtEnd()){
-                throw new SyntaxErrorException("quoted string expected", currentLine, initialCol);
+                throw error("quoted string expected", currentLine, initialCol);
             }
             currentChar = peekCharacter();
         }
 
+        int end = txtManager.getPosition();
         incrementOneChar();
-        token = new Token(Token.TokenTypes.QUOTEDSTRING, currentLine, initialCol, value);
-        return token;
+        tokens.add(Token.TokenTypes.QUOTEDSTRING, currentLine, initialCol, start, end);
     }
 
     /**
@@ -372,6 +584,7 @@ public class Lexer {
      *      checks that it is actually a comment
      *      increments until it finds the char '}' keeping track of line and column
      *      ensures there is no code on a line following the end of a comment
+     * The '}' and the newlines before it are found with txtManager.indexOf(), and txtManager jumps from one to the next.
      * @throws SyntaxErrorException - in the event that txtManager is not at a comment char when this function initializes
      *                              - in the event that an open-ended comment is found
      */
@@ -379,25 +592,34 @@ public class Lexer {
         //checks that it is actually a comment
         char currentChar = peekCharacter();
         if(currentChar != '{')
-            throw new SyntaxErrorException("expected '{'", currentLine, currentCol);
+            throw error("expected '{'", currentLine, currentCol);
 
-        //increments until it finds the char '}' keeping track of line and column
-        while(currentChar != '}') {
-            currentChar = txtManager.getCharacter();
-            //we don't have to create tokens for newlines WITHIN comments since they do not affect the program's logic
-            if(currentChar == '\n'){
-                currentLine++;
-                currentCol = 1;
-            } else {
-                currentCol++;
-            }
-            currentChar = peekCharacter();
+        txtManager.getCharacter();
+        currentCol++;
 
-            //comment never ended
-            if(txtManager.isAtEnd()){
-                throw new SyntaxErrorException("File ended in the middle of a comment", currentLine, currentCol);
+        //comment never ended: finds the line and column of the end of the file for the exception
+        int close = txtManager.indexOf('}');
+        if(close < 0) {
+            while(!txtManager.isAtEnd()) {
+                if(txtManager.getCharacter() == '\n') {
+                    currentLine++;
+                    currentCol = 1;
+                } else {
+                    currentCol++;
+                }
             }
+            throw error("File ended in the middle of a comment", currentLine, currentCol);
+        }
+
+        //jumps from newline to newline until it reaches the char '}' keeping track of line and column
+        //we don't have to create tokens for newlines WITHIN comments since they do not affect the program's logic
+        for(int newLine = txtManager.indexOf('\n', close); newLine >= 0; newLine = txtManager.indexOf('\n', close)) {
+            txtManager.skipTo(newLine);
+            txtManager.getCharacter();
+            currentLine++;
+            currentCol = 1;
         }
+        currentCol += txtManager.skipTo(close);
 
         //toss the end char of the comment and query the next char
         txtManager.getCharacter();
@@ -412,20 +634,20 @@ public class Lexer {
             } else if (currentChar == '\u001a') {     //excludes parsing after or throwing exceptions for comments at the end of files
                 break;
             } else {
-                throw new SyntaxErrorException("Code found on a line after the end of a comment", currentLine, currentCol);
+                throw error("Code found on a line after the end of a comment", currentLine, currentCol);
             }
         }
     }
 
     /**
      * This function does several things in the following order:
-     *      Ensures that this function was called directly following the addition of a NEWLINE token to tokenList
+     *      Ensures that this function was called directly following the addition of a NEWLINE token to tokens
      *      Calculates the indentation level for the currentLine
      *      Checks if the line is empty. If it is, it returns and does nothing else (means an empty line won't exit a block of code)
-     *      Adds a INDENT Token to tokenList for every indent deeper the indentation level is compared to the last line
-     *      Adds a DEDENT Token to tokenList for every indent shallower the indentation level is compared to the last line
+     *      Adds a INDENT Token to tokens for every indent deeper the indentation level is compared to the last line
+     *      Adds a DEDENT Token to tokens for every indent shallower the indentation level is compared to the last line
      *      Adjusts the currentCol to be equal to the indentation level of the line
-     * @throws SyntaxErrorException -   in the event that the tokenList is not empty and the last element in said list
+     * @throws SyntaxErrorException -   in the event that tokens is not empty and the last element in said buffer
      *                                  is NOT a NEWLINE Token
      */
     private void adjustIndent() throws SyntaxErrorException {
@@ -438,11 +660,11 @@ public class Lexer {
         while(indentLevel != newIndentLevel){
             //adds indent tokens and increases indentLevel 1 at a time until it is equal to newIndentLevel
             if(indentLevel < newIndentLevel){
-                tokenList.add(new Token(Token.TokenTypes.INDENT, currentLine, 1));
+                tokens.add(Token.TokenTypes.INDENT, currentLine, 1);
                 indentLevel++;
             //adds dedent tokens and decreases indentLevel 1 at a time until it is equal to newIndentLevel
             } else {//indentLevel > newIndentLevel
-                tokenList.add(new Token(Token.TokenTypes.DEDENT, currentLine, 1));
+                tokens.add(Token.TokenTypes.DEDENT, currentLine, 1);
                 indentLevel--;
             }
         }
@@ -464,7 +686,7 @@ public class Lexer {
 
         //checks that the call is valid
         if(peekCharacter(-1) != '\n')
-            throw new SyntaxErrorException("Indentation cannot be adjusted except after a newline.", currentLine, currentCol);
+            throw error("Indentation cannot be adjusted except after a newline.", currentLine, currentCol);
 
         //counts the indentation level of this line
         while(Character.isWhitespace(currentChar) && currentChar != '\n'){
@@ -518,54 +740,68 @@ public class Lexer {
     }
 
     /**
-     * finds the associated token type for the String parameter passed in. If it does not
-     * match any of the tokens exactly (case-insensitive), this program returns a type of WORD
-     * @param word - the String that is evaluated to determine which type is passed back
-     * @return the type associated with the String passed in
+     * Finds the keyword a word could be with a perfect hash of its first char, last char and length (see keywordSlot),
+     * then checks the word against that one keyword.
+     * @param start - the position of the word in txtManager
+     * @return the keyword's type, or WORD when the word is not a keyword
      */
-    private Token.TokenTypes typeFromLetters(String word) {
-        switch (word) {
-            case "implements" -> {
-                return Token.TokenTypes.IMPLEMENTS;
-            }
-            case "class" -> {
-                return Token.TokenTypes.CLASS;
-            }
-            case "interface" -> {
-                return Token.TokenTypes.INTERFACE;
-            }
-            case "loop" -> {
-                return Token.TokenTypes.LOOP;
-            }
-            case "if" -> {
-                return Token.TokenTypes.IF;
-            }
-            case "else" -> {
-                return Token.TokenTypes.ELSE;
-            }
-            case "new" -> {
-                return Token.TokenTypes.NEW;
-            }
-            case "private" -> {
-                return Token.TokenTypes.PRIVATE;
-            }
-            case "shared" -> {
-                return Token.TokenTypes.SHARED;
-            }
-            case "construct" -> {
-                return Token.TokenTypes.CONSTRUCT;
-            }
-            default -> {
-                return Token.TokenTypes.WORD;
-            }
-        }
+    private Token.TokenTypes keywordType(int start, char firstChar, char lastChar, int length) {
+        int slot = keywordSlot(firstChar, lastChar, length);
+        String keyword = KEYWORD_NAMES[slot];
+        if(keyword == null || keyword.length() != length || !txtManager.regionMatches(start, keyword)) return Token.TokenTypes.WORD;
+        return KEYWORD_TYPES[slot];
+    }
+
+    /**
+     * A hash function that gives each keyword its own slot in KEYWORD_NAMES. Adding a keyword may need new multipliers,
+     * the static initializer fails if two keywords land in the same slot.
+     */
+    private static int keywordSlot(char firstChar, char lastChar, int length) {
+        return (2 * firstChar + lastChar + 9 * length) & (KEYWORD_SLOTS - 1);
+    }
+
+    private static void keyword(String name, Token.TokenTypes type) {
+        int slot = keywordSlot(name.charAt(0), name.charAt(name.length() - 1), name.length());
+        if(KEYWORD_NAMES[slot] != null) throw new IllegalStateException(name + " and " + KEYWORD_NAMES[slot] + " share a keyword slot");
+        KEYWORD_NAMES[slot] = name;
+        KEYWORD_TYPES[slot] = type;
+    }
+
+    /**
+     * @param c - the char to be evaluated
+     * @return - the class of c, from ASCII_CLASSES when c is ASCII
+     */
+    private static byte charClass(char c) {
+        return c < ASCII_CLASSES.length ? ASCII_CLASSES[c] : classify(c);
+    }
+
+    /**
+     * Works out the class of a char the slow way. The checks are in the order lexNext() used to make them.
+     */
+    private static byte classify(char c) {
+        if(Character.isLetter(c)) return LETTER;
+        if(c == '\n') return NEWLINE;
+        if(c == '{') return COMMENT;
+        if(Character.isDigit(c)) return DIGIT;
+        if(isPunctuation(c)) return PUNCTUATION;
+        if(Character.isWhitespace(c)) return WHITESPACE;
+        return UNKNOWN;
+    }
+
+    /**
+     * @param c - the char to be evaluated
+     * @return - whether the given char can be part of a word after its first letter
+     */
+    private static boolean isLetterOrDigit(char c) {
+        byte charClass = charClass(c);
+        return charClass == LETTER || charClass == DIGIT;
     }
 
     /**
      * @param c - the char to be evaluated
      * @return - whether the given char is a punctuation mark according to the tran definition
      */
-    private boolean isPunctuation(char c) {
+    private static boolean isPunctuation(char c) {
         for(char punctuator : punctuationFirstChars){
             if(c == punctuator){
                 return true;
@@ -581,7 +817,7 @@ public class Lexer {
      */
     private char incrementOneChar() throws SyntaxErrorException {
         if(txtManager.isAtEnd()){
-            throw new SyntaxErrorException("Tried to increment past the end char.", currentLine, currentCol);
+            throw error("Tried to increment past the end char.", currentLine, currentCol);
         }
         currentCol++;
         return txtManager.getCharacter();
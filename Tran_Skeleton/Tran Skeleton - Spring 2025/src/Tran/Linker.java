@@ -0,0 +1,128 @@
+package Tran;
+import AST.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Builds the tables that let the Interpreter find classes and methods without searching, so finding one takes the same
+ * time in a program with ten classes as in one with thousands:
+ *      the classes by name             - Linker.getClassByName()
+ *      the shared methods by name      - Linker.sharedMethods(), for calls with no object from a shared method
+ *      ClassNode.dispatch              - a class's methods by name
+ *      ClassNode.itables               - for each interface a class implements (indexed by InterfaceNode.id), the
+ *                                        class's method for each of the interface's headers
+ * Tran picks between methods with the same name by the types of the values passed to them, so the tables keep every
+ * method with a name, in declaration order, and the caller still picks the first that matches. An itable only holds a
+ * method when it is the only one in its class with that name and number of parameters, and has the header's types:
+ * then it is the one the values would pick.
+ *      Linker linker = Linker.link(tran); //after any built-in classes have been added
+ * Linking the same program again rebuilds the tables.
+ */
+public class Linker {
+    private static final MethodDeclarationNode[] NONE = new MethodDeclarationNode[0];
+
+    private final HashMap<String, ClassNode> classes = new HashMap<>();
+    private final HashMap<String, MethodDeclarationNode[]> sharedMethods;
+
+    private Linker(TranNode tran) {
+        var shared = new HashMap<String, List<MethodDeclarationNode>>();
+        for (var c : tran.Classes) {
+            classes.putIfAbsent(c.name, c);   //the first class with a name is the one that is used
+            for (var m : c.methods) {
+                if (m.isShared) shared.computeIfAbsent(m.name, name -> new ArrayList<>()).add(m);
+            }
+        }
+        sharedMethods = toArrays(shared);
+    }
+
+    /**
+     * Links every class in tran
+     */
+    public static Linker link(TranNode tran) {
+        var interfaces = new HashMap<String, InterfaceNode>();
+        int id = 0;
+        for (var i : tran.Interfaces) {
+            i.id = id++;
+            interfaces.putIfAbsent(i.name, i);
+        }
+        for (var c : tran.Classes) {
+            var byName = new HashMap<String, List<MethodDeclarationNode>>();
+            for (var m : c.methods) byName.computeIfAbsent(m.name, name -> new ArrayList<>()).add(m);
+            c.dispatch = toArrays(byName);
+
+            int size = 0;
+            for (var name : c.interfaces) {
+                var i = interfaces.get(name);
+                if (i != null) size = Math.max(size, i.id + 1);
+            }
+            c.itables = new MethodDeclarationNode[size][];
+            for (var name : c.interfaces) {
+                var i = interfaces.get(name);
+                if (i == null) continue;
+                var itable = new MethodDeclarationNode[i.methods.size()];
+                for (int header = 0; header < itable.length; header++) itable[header] = implementation(c, i.methods.get(header));
+                c.itables[i.id] = itable;
+            }
+        }
+        return new Linker(tran);
+    }
+
+    /**
+     * @return the first class named name, or null if there is none
+     */
+    public ClassNode getClassByName(String name) {
+        return classes.get(name);
+    }
+
+    /**
+     * @return every shared method named name, from every class, in the order they were declared
+     */
+    public MethodDeclarationNode[] sharedMethods(String name) {
+        return sharedMethods.getOrDefault(name, NONE);
+    }
+
+    /**
+     * @return c's methods named name, in the order they were declared
+     */
+    public static MethodDeclarationNode[] methods(ClassNode c, String name) {
+        if (c.dispatch == null) return c.methods.toArray(NONE);     //not linked, the caller matches the names
+        return c.dispatch.getOrDefault(name, NONE);
+    }
+
+    /**
+     * @return c's method for the header-th method of i, or null when c does not implement i or the method has to be
+     * picked by the values passed to it
+     */
+    public static MethodDeclarationNode interfaceMethod(ClassNode c, InterfaceNode i, int header) {
+        if (c.itables == null || i.id >= c.itables.length || c.itables[i.id] == null) return null;
+        return c.itables[i.id][header];
+    }
+
+    private static MethodDeclarationNode implementation(ClassNode c, MethodHeaderNode header) {
+        MethodDeclarationNode found = null;
+        for (var m : c.dispatch.getOrDefault(header.name, NONE)) {
+            if (m instanceof BuiltInMethodDeclarationNode builtIn && builtIn.isVariadic) return null;
+            if (m.parameters.size() != header.parameters.size()) continue;
+            if (found != null) return null;     //more than one, the types of the values decide
+            found = m;
+        }
+        if (found == null || !sameTypes(found.parameters, header.parameters) || !sameTypes(found.returns, header.returns)) return null;
+        return found;
+    }
+
+    private static boolean sameTypes(List<VariableDeclarationNode> a, List<VariableDeclarationNode> b) {
+        if (a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) {
+            if (!a.get(i).type.equals(b.get(i).type)) return false;
+        }
+        return true;
+    }
+
+    private static HashMap<String, MethodDeclarationNode[]> toArrays(HashMap<String, List<MethodDeclarationNode>> lists) {
+        var arrays = new HashMap<String, MethodDeclarationNode[]>(lists.size() * 2);
+        for (var entry : lists.entrySet()) arrays.put(entry.getKey(), entry.getValue().toArray(NONE));
+        return arrays;
+    }
+}
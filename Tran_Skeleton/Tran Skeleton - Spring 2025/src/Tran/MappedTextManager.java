@@ -0,0 +1,352 @@
+package Tran;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * A TextManager that reads UTF-8 text straight out of a memory mapped file (or a byte[]) instead of a String, so a
+ * source file never has to be decoded onto the heap before it is lexed. Characters are decoded one at a time as the
+ * Lexer asks for them, and ASCII bytes, which is all of Tran outside of comments and strings, are handed out as they are.
+ * Positions (getPosition(), substring(), regionMatches()) are byte offsets into the file. The Lexer only uses them to
+ * remember where a token's value starts and ends, so the TokenBuffer slices decode straight from the mapped pages, and
+ * only when a value is asked for. Identifiers are decoded once per distinct name, when the SymbolTable first sees them.
+ * Characters outside of the basic multilingual plane are handed out as two chars (a surrogate pair), just like a
+ * String would, so line and column numbers match the String based TextManager.
+ * indexOf(), skipTo() and skipSpaces() work on 8 bytes at a time (SWAR): every byte of a multi-byte UTF-8 sequence is
+ * 0x80 or more, so an ASCII byte found in a long is always a whole character, and a long with no high bits set is
+ * 8 ASCII characters.
+ */
+public class MappedTextManager extends TextManager {
+    private static final char REPLACEMENT = '\uFFFD';   //given for bytes that are not valid UTF-8, like new String() does
+    private static final long ONES = 0x0101010101010101L;  //0x01 in every byte of a long
+    private static final long HIGHS = 0x8080808080808080L; //0x80 in every byte of a long
+
+    private final ByteBuffer bytes;
+    private final ByteBuffer words;     //the same bytes read as little endian longs, so byte i of a long is at offset + i
+    private final byte[] array;         //the array behind bytes when it has one (not for a mapped file), read directly
+    private final int arrayOffset;
+    private final int limit;
+    private int position;               //byte offset of the next character
+    private boolean onLowSurrogate;     //the high surrogate of the 4 byte sequence at position was already read
+
+    /**
+     * Maps the file for reading and places the position at its first byte. The file can be closed by the caller right
+     * away, the mapping stays valid until this TextManager is garbage collected.
+     * @param file - a UTF-8 encoded source file
+     * @throws IOException - if the file cannot be opened, or it is too large to be mapped as one buffer (2GB)
+     */
+    public MappedTextManager(Path file) throws IOException {
+        this(map(file));
+    }
+
+    /**
+     * @param utf8 - the UTF-8 encoded text, for example the bytes of a file read with Files.readAllBytes()
+     */
+    public MappedTextManager(byte[] utf8) {
+        this(ByteBuffer.wrap(utf8));
+    }
+
+    /**
+     * @param utf8 - the UTF-8 encoded text, read from its position up to its limit
+     */
+    public MappedTextManager(ByteBuffer utf8) {
+        this.bytes = utf8.slice();
+        this.words = bytes.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        this.array = bytes.hasArray() ? bytes.array() : null;
+        this.arrayOffset = bytes.hasArray() ? bytes.arrayOffset() : 0;
+        this.limit = bytes.limit();
+        this.position = 0;
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file + " is larger than 2GB and cannot be mapped as one buffer");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    /**
+     * @return true when position is at or past the last byte
+     */
+    @Override
+    public boolean isAtEnd() {
+        return position >= limit;
+    }
+
+    /**
+     * @param dist - the number of characters ahead of position being checked
+     * @return true when there are not dist more characters after position
+     */
+    @Override
+    public boolean isAtEnd(int dist) {
+        if (dist <= 0 || position + dist >= limit) return position + dist >= limit;  //a char is at least 1 byte
+        if (!onLowSurrogate && isAscii(position, dist)) return false;
+        int offset = position;
+        boolean low = onLowSurrogate;
+        for (int i = 0; i < dist && offset < limit; i++) {
+            if (!low && sequenceLength(offset) == 4) {
+                low = true;
+            } else {
+                offset += sequenceLength(offset);
+                low = false;
+            }
+        }
+        return offset >= limit;
+    }
+
+    /**
+     * @return the character at position
+     */
+    @Override
+    public char peekCharacter() {
+        byte b = byteAt(position);
+        if (b >= 0) return (char) b;                //ASCII, the only bytes Tran code has outside of strings and comments
+        return charAt(position, onLowSurrogate);
+    }
+
+    /**
+     * @param dist - the number of characters ahead of (or behind, when negative) position
+     * @return the character dist characters away from position
+     */
+    @Override
+    public char peekCharacter(int dist) {
+        if (dist > 0 && !onLowSurrogate && position + dist < limit && isAscii(position, dist)) return charAt(position + dist, false);
+        int offset = position;
+        boolean low = onLowSurrogate;
+        for (int i = 0; i < dist && offset < limit; i++) {            //walks forward
+            if (!low && sequenceLength(offset) == 4) {
+                low = true;
+            } else {
+                offset += sequenceLength(offset);
+                low = false;
+            }
+        }
+        for (int i = 0; i > dist && offset >= 0; i--) {               //walks backward
+            if (low) {
+                low = false;
+            } else {
+                offset = previousStart(offset);
+                if (offset < 0) break;
+                low = sequenceLength(offset) == 4;
+            }
+        }
+        if (offset < 0 || offset >= limit) throw new IndexOutOfBoundsException("peeked outside of the text: " + dist);
+        return charAt(offset, low);
+    }
+
+    /**
+     * grabs the char at the current position then moves position past it and returns the grabbed char
+     * @return the character at position
+     */
+    @Override
+    public char getCharacter() {
+        if (position >= limit) throw new IndexOutOfBoundsException("read past the end of the text");
+        byte b = byteAt(position);
+        if (b >= 0) {                               //ASCII
+            position++;
+            return (char) b;
+        }
+        char c = charAt(position, onLowSurrogate);
+        if (!onLowSurrogate && sequenceLength(position) == 4) {
+            onLowSurrogate = true;
+        } else {
+            position += sequenceLength(position);
+            onLowSurrogate = false;
+        }
+        return c;
+    }
+
+    /**
+     * @return the byte offset of the next character to be read
+     */
+    @Override
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * @param c - the character to look for
+     * @return the byte offset of the first c at or after position, or -1 if there is none
+     */
+    @Override
+    public int indexOf(char c) {
+        return indexOf(c, limit);
+    }
+
+    /**
+     * @param c - the character to look for
+     * @param to - the byte offset to stop looking at (exclusive)
+     * @return the byte offset of the first c at or after position and before to, or -1 if there is none
+     */
+    @Override
+    public int indexOf(char c, int to) {
+        to = Math.min(to, limit);
+        if (c >= 0x80) {                        //not a single byte, so decode one character at a time
+            int saved = position;
+            boolean savedLow = onLowSurrogate;
+            int found = -1;
+            while (position < to) {
+                int offset = position;
+                if (getCharacter() == c) {
+                    found = offset;
+                    break;
+                }
+            }
+            position = saved;
+            onLowSurrogate = savedLow;
+            return found;
+        }
+        long pattern = ONES * c;
+        int i = position;
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            long word = words.getLong(i) ^ pattern;         //bytes equal to c are now 0
+            long zeros = (word - ONES) & ~word & HIGHS;     //the lowest set bit marks the first 0 byte
+            if (zeros != 0) return i + (Long.numberOfTrailingZeros(zeros) >>> 3);
+        }
+        for (; i < to; i++) {
+            if (byteAt(i) == c) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Moves position forward to target a long at a time while the bytes are ASCII
+     * @param target - a byte offset at or after position, from indexOf()
+     * @return the number of characters moved past (a 4 byte sequence counts as 2, like in a String)
+     */
+    @Override
+    public int skipTo(int target) {
+        int skipped = 0;
+        while (position < target) {
+            if (!onLowSurrogate && position + Long.BYTES <= target && (words.getLong(position) & HIGHS) == 0) {
+                position += Long.BYTES;
+                skipped += Long.BYTES;
+            } else {
+                getCharacter();
+                skipped++;
+            }
+        }
+        return skipped;
+    }
+
+    /**
+     * @return the number of ' ' and '\t' characters moved past
+     */
+    @Override
+    public int skipSpaces() {
+        if (onLowSurrogate) return 0;
+        int start = position;
+        while (position < limit) {
+            byte b = byteAt(position);
+            if (b != ' ' && b != '\t') break;
+            position++;
+        }
+        return position - start;
+    }
+
+    /**
+     * Decodes the bytes between two positions
+     * @param start - the byte offset of the first character (inclusive)
+     * @param end - the byte offset after the last character (exclusive)
+     * @return the text between start and end
+     */
+    @Override
+    public String substring(int start, int end) {
+        byte[] slice = new byte[end - start];
+        bytes.get(start, slice);
+        return new String(slice, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param start - the byte offset to start comparing at
+     * @param word - the characters expected at start
+     * @return true when the text at start holds exactly the characters of word
+     */
+    @Override
+    public boolean regionMatches(int start, String word) {
+        int length = word.length();
+        if (start + length > limit) return false;
+        for (int i = 0; i < length; i++) {
+            char c = word.charAt(i);
+            if (c >= 0x80) return substring(start, Math.min(limit, start + 4 * length)).startsWith(word);
+            if (byteAt(start + i) != (byte) c) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param offset - the byte offset of the first byte of a character
+     * @param low - whether the low surrogate of a 4 byte sequence is wanted
+     * @return the UTF-16 char at offset
+     */
+    private char charAt(int offset, boolean low) {
+        int b = byteAt(offset);
+        if (b >= 0) return (char) b;                //ASCII
+        int length = sequenceLength(offset);
+        if (length == 1) return REPLACEMENT;
+        int codePoint = b & (0xFF >> (length + 1));
+        for (int i = 1; i < length; i++) {
+            codePoint = (codePoint << 6) | (byteAt(offset + i) & 0x3F);
+        }
+        if (length == 4) return low ? Character.lowSurrogate(codePoint) : Character.highSurrogate(codePoint);
+        return (char) codePoint;
+    }
+
+    /**
+     * @param offset - the byte offset of the first byte of a character
+     * @return the number of bytes in the character at offset. Invalid or cut off sequences count as 1 byte
+     */
+    private int sequenceLength(int offset) {
+        int b = byteAt(offset) & 0xFF;
+        int length;
+        if (b < 0x80) return 1;
+        else if (b >= 0xC2 && b <= 0xDF) length = 2;
+        else if (b >= 0xE0 && b <= 0xEF) length = 3;
+        else if (b >= 0xF0 && b <= 0xF4) length = 4;
+        else return 1;
+        if (offset + length > limit) return 1;
+        for (int i = 1; i < length; i++) {
+            if ((byteAt(offset + i) & 0xC0) != 0x80) return 1;
+        }
+        return length;
+    }
+
+    /**
+     * @return the byte at offset, read straight from the array when the text came from one
+     */
+    private byte byteAt(int offset) {
+        if (array != null) return array[arrayOffset + Objects.checkIndex(offset, limit)];
+        return bytes.get(offset);
+    }
+
+    /**
+     * @return true when the count bytes from offset are all ASCII, so each one is a character
+     */
+    private boolean isAscii(int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            if (byteAt(offset + i) < 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param offset - the byte offset of the first byte of a character
+     * @return the byte offset of the first byte of the character before it
+     */
+    private int previousStart(int offset) {
+        if (offset > 0 && byteAt(offset - 1) >= 0) return offset - 1;    //an ASCII byte is always a whole character
+        for (int back = 2; back <= 4 && offset - back >= 0; back++) {
+            int candidate = offset - back;
+            if ((byteAt(candidate) & 0xC0) != 0x80 && sequenceLength(candidate) == back) return candidate;
+        }
+        return offset - 1;
+    }
+}
@@ -0,0 +1,218 @@
+package Tran;
+import AST.TranNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Lexes and parses one Tran file in parallel by splitting it where top level classes and interfaces start.
+ *      TranNode tran = new TranNode();
+ *      new ParallelFrontEnd(text).parse(tran);
+ * A quick pre-scan (findBoundaries) finds every line that starts with "class" or "interface" at column 1, skipping
+ * comments and string literals. Neighbouring boundaries are grouped into a few chunks per thread in the pool, and every
+ * chunk is lexed by its own Lexer that starts at the chunk's line number. Indentation is back to 0 at each boundary,
+ * so the DEDENT tokens a chunk adds when its text runs out are the same ones the whole file would have at that point.
+ * When the chunks are stitched back together, the columns on the first line of each chunk are moved to match the
+ * sequential Lexer, which starts that line at the indentation level of the line before it.
+ * Each chunk's tokens then hold whole classes and interfaces, so the chunks are parsed in parallel and their nodes
+ * are added to the TranNode in file order.
+ * If lexing or parsing any chunk fails, the whole file is lexed (or parsed) again on the calling thread, so the
+ * SyntaxErrorException thrown is exactly the one the sequential front end would throw.
+ */
+public class ParallelFrontEnd {
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final String text;
+    private final ForkJoinPool pool;
+    private int[] chunkTokenStarts;     //index of the first token of each chunk, set by lex()
+
+    /**
+     * @param text - the Tran program to lex and parse, using the common ForkJoinPool
+     */
+    public ParallelFrontEnd(String text) {
+        this(text, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param text - the Tran program to lex and parse
+     * @param pool - the pool the chunks are lexed and parsed on
+     */
+    public ParallelFrontEnd(String text, ForkJoinPool pool) {
+        this.text = text;
+        this.pool = pool;
+    }
+
+    /**
+     * Lexes the chunks in parallel and stitches their tokens into one TokenBuffer
+     * @return the same tokens Lexer.LexToBuffer() gives for the whole text
+     * @throws SyntaxErrorException - the error the sequential Lexer finds first, if the text does not lex
+     */
+    public TokenBuffer lex() throws SyntaxErrorException {
+        Boundaries chunks = chunks();
+        List<ForkJoinTask<TokenBuffer>> tasks = new ArrayList<>(chunks.count);
+        for (int k = 0; k < chunks.count; k++) {
+            int from = chunks.offsets[k];
+            int to = k + 1 < chunks.count ? chunks.offsets[k + 1] : text.length();
+            int line = chunks.lines[k];
+            tasks.add(pool.submit(() -> new Lexer(new TextManager(text, from, to), line).LexToBuffer()));
+        }
+
+        TokenBuffer tokens = new TokenBuffer(new TextManager(text), text.length() / 4);
+        chunkTokenStarts = new int[chunks.count];
+        int trailingDedents = 0;
+        for (int k = 0; k < chunks.count; k++) {
+            TokenBuffer chunk;
+            try {
+                chunk = tasks.get(k).join();
+            } catch (RuntimeException e) {  //ForkJoinTask.join() rethrows the SyntaxErrorException unchecked
+                for (ForkJoinTask<TokenBuffer> task : tasks) task.cancel(false);
+                TokenBuffer sequential = new Lexer(text).LexToBuffer();
+                chunkTokenStarts = new int[]{0};
+                return sequential;
+            }
+            int start = tokens.size();
+            chunkTokenStarts[k] = start;
+            tokens.addAll(chunk);
+            for (int i = start; i < tokens.size() && tokens.line(i) == chunks.lines[k]; i++) {
+                tokens.shiftColumn(i, trailingDedents);
+            }
+            trailingDedents = 0;
+            for (int i = chunk.size() - 1; i >= 0 && chunk.type(i) == Token.TokenTypes.DEDENT; i--) {
+                trailingDedents++;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Lexes the text, then parses each chunk's tokens in parallel and adds the classes and interfaces to top
+     * @param top - the TranNode that the classes and interfaces are added to
+     * @throws Exception - the error the sequential Parser finds first, if the text does not lex or parse
+     */
+    public void parse(TranNode top) throws Exception {
+        TokenBuffer tokens = lex();
+        int chunks = chunkTokenStarts.length;
+        List<ForkJoinTask<TranNode>> tasks = new ArrayList<>(chunks);
+        for (int k = 0; k < chunks; k++) {
+            int from = chunkTokenStarts[k];
+            int to = k + 1 < chunks ? chunkTokenStarts[k + 1] : tokens.size();
+            tasks.add(pool.submit(() -> {
+                TranNode part = new TranNode();
+                new Parser(part, tokens, from, to).Tran();
+                return part;
+            }));
+        }
+
+        List<TranNode> parts = new ArrayList<>(chunks);
+        for (ForkJoinTask<TranNode> task : tasks) {
+            try {
+                parts.add(task.join());
+            } catch (RuntimeException e) {
+                for (ForkJoinTask<TranNode> other : tasks) other.cancel(false);
+                new Parser(top, tokens).Tran();
+                return;
+            }
+        }
+        for (TranNode part : parts) {
+            top.Classes.addAll(part.Classes);
+            top.Interfaces.addAll(part.Interfaces);
+        }
+    }
+
+    /**
+     * Finds every line that starts with the keyword class or interface, outside of comments. Scanning stops at a string
+     * literal that is not closed on its own line, since the Lexer will reject the text there anyway.
+     * @param text - a Tran program
+     * @return the index of the first character of each of those lines, in order
+     */
+    public static int[] findBoundaries(String text) {
+        Boundaries found = scan(text);
+        return Arrays.copyOf(found.offsets, found.count);
+    }
+
+    /**
+     * Groups the boundaries into chunks of at least text.length() / (parallelism * CHUNKS_PER_THREAD) characters.
+     * The first chunk always starts at 0 so it holds any comments or blank lines before the first class.
+     * Text that ends inside a comment or a string that is not closed (see Boundaries.clean) is left as that one chunk:
+     * a string left open will not lex anyway, and a comment left open is usually an edit in progress.
+     */
+    private Boundaries chunks() {
+        Boundaries found = scan(text);
+        int target = Math.max(1, text.length() / (pool.getParallelism() * CHUNKS_PER_THREAD));
+        Boundaries chunks = new Boundaries();
+        chunks.add(0, 1);
+        if (!found.clean) return chunks;
+        for (int i = 0; i < found.count; i++) {
+            int offset = found.offsets[i];
+            if (offset - chunks.offsets[chunks.count - 1] >= target) chunks.add(offset, found.lines[i]);
+        }
+        return chunks;
+    }
+
+    /**
+     * The pre-scan behind findBoundaries(). Also records whether the text ended outside of any comment or string.
+     */
+    static Boundaries scan(String text) {
+        Boundaries found = new Boundaries();
+        int length = text.length();
+        int line = 1;
+        boolean inComment = false;
+        boolean lineStart = true;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (lineStart && !inComment && (startsWithKeyword(text, i, "class") || startsWithKeyword(text, i, "interface"))) {
+                found.add(i, line);
+            }
+            lineStart = false;
+            if (inComment) {
+                if (c == '}') inComment = false;
+            } else if (c == '{') {
+                inComment = true;
+            } else if (c == '"') {
+                int close = text.indexOf('"', i + 1);
+                int newLine = text.indexOf('\n', i + 1);
+                if (close < 0 || (newLine >= 0 && newLine < close)) {
+                    found.clean = false;
+                    return found;
+                }
+                i = close;
+            } else if (c == '\'' && i + 2 < length && text.charAt(i + 2) == '\'' && text.charAt(i + 1) != '\n') {
+                i += 2;
+            }
+            if (c == '\n') {
+                line++;
+                lineStart = true;
+            }
+        }
+        found.clean = !inComment;
+        return found;
+    }
+
+    private static boolean startsWithKeyword(String text, int i, String keyword) {
+        int end = i + keyword.length();
+        return text.startsWith(keyword, i) && (end == text.length() || !Character.isLetterOrDigit(text.charAt(end)));
+    }
+
+    /**
+     * A growable list of line start offsets and their line numbers
+     */
+    static class Boundaries {
+        int[] offsets = new int[16];
+        int[] lines = new int[16];
+        int count;
+        boolean clean = true;   //the scanned text did not end inside a comment or an unclosed string
+
+        void add(int offset, int line) {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+                lines = Arrays.copyOf(lines, count * 2);
+            }
+            offsets[count] = offset;
+            lines[count] = line;
+            count++;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package Tran;
 import AST.*;
 
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
@@ -10,10 +11,73 @@ public class Parser {
 
     private TokenManager tokenManager;
     private final TranNode tranNode;
+    private List<SyntaxErrorException> errors;     //set when parsing with recovery, see Tran(errors)
+    private boolean lazyBodies;                     //set while method bodies are skipped, see TranLazily()
+
+    //the operators of getExpressionNode(), binary operators in the order of their BooleanOpNode, CompareNode and MathOpNode ops
+    private static final int OR = 0, AND = 1, EQ = 2, NE = 3, LT = 4, LE = 5, GT = 6, GE = 7,
+            ADD = 8, SUBTRACT = 9, MULTIPLY = 10, DIVIDE = 11, MODULO = 12,
+            NOT = 13, NEGATE = 14,      //prefix
+            GROUP = 15, CALL = 16;      //an open "(" and an open argument list, only popped by their ")"
+    //indexed by operator, the higher the tighter it binds. 0 keeps GROUP and CALL from being popped by reduce()
+    private static final int[] BINDING_POWER = {1, 2, 4, 4, 4, 4, 4, 4, 5, 5, 6, 6, 6, 3, 7, 0, 0};
+    //indexed by Token.TokenTypes ordinal, the binary operator a token stands for or -1 ("and" and "or" are WORDs)
+    private static final int[] BINARY_OPERATORS = new int[Token.TokenTypes.values().length];
+    private static final CompareNode.CompareOperations[] COMPARE_OPERATIONS = {
+            CompareNode.CompareOperations.eq, CompareNode.CompareOperations.ne, CompareNode.CompareOperations.lt,
+            CompareNode.CompareOperations.le, CompareNode.CompareOperations.gt, CompareNode.CompareOperations.ge};
+    private static final MathOpNode.MathOperations[] MATH_OPERATIONS = MathOpNode.MathOperations.values();
+    static {
+        Arrays.fill(BINARY_OPERATORS, -1);
+        BINARY_OPERATORS[Token.TokenTypes.EQUAL.ordinal()] = EQ;
+        BINARY_OPERATORS[Token.TokenTypes.NOTEQUAL.ordinal()] = NE;
+        BINARY_OPERATORS[Token.TokenTypes.LESSTHAN.ordinal()] = LT;
+        BINARY_OPERATORS[Token.TokenTypes.LESSTHANEQUAL.ordinal()] = LE;
+        BINARY_OPERATORS[Token.TokenTypes.GREATERTHAN.ordinal()] = GT;
+        BINARY_OPERATORS[Token.TokenTypes.GREATERTHANEQUAL.ordinal()] = GE;
+        BINARY_OPERATORS[Token.TokenTypes.PLUS.ordinal()] = ADD;
+        BINARY_OPERATORS[Token.TokenTypes.MINUS.ordinal()] = SUBTRACT;
+        BINARY_OPERATORS[Token.TokenTypes.TIMES.ordinal()] = MULTIPLY;
+        BINARY_OPERATORS[Token.TokenTypes.DIVIDE.ordinal()] = DIVIDE;
+        BINARY_OPERATORS[Token.TokenTypes.MODULO.ordinal()] = MODULO;
+    }
+
+    //getExpressionNode()'s stacks, reused by every expression
+    private ExpressionNode[] operands = new ExpressionNode[16];
+    private int operandCount;
+    private int[] operators = new int[16];
+    private int operatorCount;
+    private ExpressionNode[] calls = new ExpressionNode[8];    //the node of each CALL on the operator stack, innermost last
+    private int callCount;
     String errorMessageFollowingColon = "No variable declarations given despite following a " + Token.TokenTypes.COLON;
 
 
     public Parser(TranNode top, List<Token> tokens) {
+        if (tokens instanceof TokenBuffer.TokenListView view) { //a view made by TokenBuffer.asList(), read the buffer itself
+            tokenManager = new TokenManager(view.buffer());
+        } else {
+            tokenManager = new TokenManager(tokens);
+        }
+        tranNode = top;
+    }
+
+    public Parser(TranNode top, TokenBuffer tokens) {
+        tokenManager = new TokenManager(tokens);
+        tranNode = top;
+    }
+
+    /**
+     * Parses only the tokens from index from up to index to in the TokenBuffer
+     */
+    public Parser(TranNode top, TokenBuffer tokens, int from, int to) {
+        tokenManager = new TokenManager(tokens, from, to);
+        tranNode = top;
+    }
+
+    /**
+     * Parses tokens as they are pulled from the Iterator, such as the one returned by Lexer.LexStream()
+     */
+    public Parser(TranNode top, Iterator<Token> tokens) {
         tokenManager = new TokenManager(tokens);
         tranNode = top;
     }
@@ -24,24 +88,75 @@ public class Parser {
      * (or any number of NEWLINE Tokens)
      */
     public void Tran() throws Exception {
-        Optional<Token> optionalToken = tokenManager.peek();
-        if (optionalToken.isEmpty()) { //tokenManager is empty
-            return;
-        }
+        try {
+            if (tokenManager.done()) { //tokenManager is empty
+                return;
+            }
 
-        //while the next Token is CLASS or INTERFACE
-        while(!tokenManager.done()) {
-            deletePotNewLines();    //removes extra NEWLINE Tokens
-            if (tokenManager.nextIsEither(Token.TokenTypes.CLASS, Token.TokenTypes.INTERFACE)) {    //CLASS or INTERFACE
-                if(tokenManager.nextIs(Token.TokenTypes.CLASS)){            //CLASS Token Found
-                    tranNode.Classes.add(classNode());//TODO-UNDO THIS
-                } else if(tokenManager.nextIs(Token.TokenTypes.INTERFACE)){ //INTERFACE Token Found
-                    tranNode.Interfaces.add(interfaceNode());
+            //while the next Token is CLASS or INTERFACE
+            while(!tokenManager.done()) {
+                deletePotNewLines();    //removes extra NEWLINE Tokens
+                if (tokenManager.done()) break; //only NEWLINE Tokens were left, such as after a comment at the end of the file
+                try {
+                    if (tokenManager.nextIsEither(Token.TokenTypes.CLASS, Token.TokenTypes.INTERFACE)) {    //CLASS or INTERFACE
+                        if(tokenManager.nextIs(Token.TokenTypes.CLASS)){            //CLASS Token Found
+                            tranNode.Classes.add(classNode());//TODO-UNDO THIS
+                        } else if(tokenManager.nextIs(Token.TokenTypes.INTERFACE)){ //INTERFACE Token Found
+                            tranNode.Interfaces.add(interfaceNode());
+                        }
+                    } else {            //NON-NEWLINE Token found outside of CLASS or INTERFACE blocks
+                        throw error("tran file did not start with a CLASS or INTERFACE token",
+                                tokenManager.getCurrentLine(), tokenManager.getCurrentColumnNumber());
+                    }
+                } catch (SyntaxErrorException e) {
+                    if(errors == null) throw e;
+                    //the class or interface is dropped, parsing picks up again at the next one
+                    errors.add(e);
+                    while(!tokenManager.done() && !tokenManager.nextIsEither(Token.TokenTypes.CLASS, Token.TokenTypes.INTERFACE)) {
+                        tokenManager.match(tokenManager.peekType());
+                    }
                 }
-            } else {            //NON-NEWLINE Token found outside of CLASS or INTERFACE blocks
-                throw new SyntaxErrorException("tran file did not start with a CLASS or INTERFACE token",
-                        tokenManager.getCurrentLine(), tokenManager.getCurrentColumnNumber());
             }
+        } catch (UncheckedSyntaxErrorException e) { //thrown by a streaming Lexer while tokens were being pulled
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Same as Tran(), but collects syntax errors instead of throwing the first one, so one pass reports all of them.
+     * After an error in a line of a class, interface or method body, the rest of that line (and any block under it) is
+     * skipped and parsing carries on at the next line of the same block. An error anywhere else drops the class or
+     * interface it is in and parsing picks up again at the next CLASS or INTERFACE token.
+     * The errors are created without a stack trace. Classes and interfaces are added to the TranNode without the
+     * parts that had errors.
+     * @param errors - the list the errors are added to, in the order they are found. Pass the same list given to
+     *               Lexer.LexToBuffer(errors) to have the lexer's and the parser's errors in one place.
+     * @throws Exception - only when the tokens come from a streaming Lexer that fails
+     */
+    public void Tran(List<SyntaxErrorException> errors) throws Exception {
+        this.errors = errors;
+        try {
+            Tran();
+        } finally {
+            this.errors = null;
+        }
+    }
+
+    /**
+     * Same as Tran(), but only parses the headers of methods. Each body is skipped by counting INDENT and DEDENT
+     * tokens and its range of tokens is kept in MethodDeclarationNode.unparsedBody, to be parsed by
+     * MethodDeclarationNode.parseBody() the first time the method is needed. The cost of starting a program then
+     * depends on the methods it runs rather than on how many there are.
+     * A syntax error inside a body is only found when that body is parsed. Tokens pulled from a stream are not kept,
+     * so reading from an Iterator parses every body as Tran() does.
+     * @throws Exception - the same as Tran(), for everything outside method bodies
+     */
+    public void TranLazily() throws Exception {
+        lazyBodies = tokenManager.buffer() != null;
+        try {
+            Tran();
+        } finally {
+            lazyBodies = false;
         }
     }
 
@@ -64,11 +179,20 @@ public class Parser {
         requireToken(Token.TokenTypes.INDENT);
         deletePotNewLines();
         //methodHeaders
-        Optional<MethodHeaderNode> methodHeaderNode = getMethodHeaderNode();
-        while(methodHeaderNode.isPresent()) {
-            interfaceNode.methods.add(methodHeaderNode.get());
+        while(true) {
+            try {
+                Optional<MethodHeaderNode> methodHeaderNode = getMethodHeaderNode();
+                if(methodHeaderNode.isPresent()) {
+                    interfaceNode.methods.add(methodHeaderNode.get());
+                } else if(errors == null || tokenManager.done() || tokenManager.nextIs(Token.TokenTypes.DEDENT)) {
+                    break;
+                } else {    //not a method header, the same error requireToken(DEDENT) would give
+                    throw errorNotExpectedType(Token.TokenTypes.DEDENT, tokenManager.peek());
+                }
+            } catch (SyntaxErrorException e) {
+                recover(e);
+            }
             deletePotNewLines();
-            methodHeaderNode = getMethodHeaderNode();
         }
         deletePotNewLines();
         //dedent
@@ -85,12 +209,12 @@ public class Parser {
         //interfaces
         if(tokenManager.nextTwoTokensMatch(Token.TokenTypes.IMPLEMENTS, Token.TokenTypes.WORD)) {
             //first interface
-            tokenManager.matchAndRemove(Token.TokenTypes.IMPLEMENTS);
-            classNode.interfaces.add(tokenManager.matchAndRemove(Token.TokenTypes.WORD).get().getValue());
+            tokenManager.match(Token.TokenTypes.IMPLEMENTS);
+            classNode.interfaces.add(tokenManager.takeValue(Token.TokenTypes.WORD));
             //any other interfaces
             while(tokenManager.nextTwoTokensMatch(Token.TokenTypes.COMMA, Token.TokenTypes.WORD)) {
-                tokenManager.matchAndRemove(Token.TokenTypes.COMMA);
-                classNode.interfaces.add(tokenManager.matchAndRemove(Token.TokenTypes.WORD).get().getValue());
+                tokenManager.match(Token.TokenTypes.COMMA);
+                classNode.interfaces.add(tokenManager.takeValue(Token.TokenTypes.WORD));
             }
         }
         //requires >= 1 NEWLINE Token
@@ -104,27 +228,32 @@ public class Parser {
             deletePotNewLines();
             //in case tokens run out without exiting the class
             requireNotDone();
-            if(tokenManager.nextIs(Token.TokenTypes.CONSTRUCT)) {          //Constructor
-                classNode.constructors.add(getConstructorNode().get());
-                moreConstsMethodsMembers = true;
-            } else if(tokenManager.nextIsEither(Token.TokenTypes.PRIVATE, Token.TokenTypes.SHARED) ||
-                    tokenManager.nextTwoTokensMatch(Token.TokenTypes.WORD, Token.TokenTypes.LPAREN)) {   //MethodDeclaration
-                Optional<MethodDeclarationNode> methodDelclarationOpt = getMethodDeclarationNode();
-                if(methodDelclarationOpt.isPresent()) {
-                    classNode.methods.add(methodDelclarationOpt.get());
-                    moreConstsMethodsMembers = true;
-                } else
-                    throw new SyntaxErrorException("expected a method.", tokenManager.getCurrentLine(), tokenManager.getCurrentColumnNumber());
-            } else if(tokenManager.nextTwoTokensMatch(Token.TokenTypes.WORD, Token.TokenTypes.WORD)) {        //Member
-                Optional<MemberNode> memberNodeOpt = getMemberNode();
-                if(memberNodeOpt.isPresent()) {
-                    classNode.members.add(memberNodeOpt.get());
+            try {
+                if(tokenManager.nextIs(Token.TokenTypes.CONSTRUCT)) {          //Constructor
+                    classNode.constructors.add(getConstructorNode().get());
                     moreConstsMethodsMembers = true;
-                } else throw new SyntaxErrorException("expected a member.", tokenManager.getCurrentLine(), tokenManager.getCurrentColumnNumber());
-            } else{
-                if(!tokenManager.nextIs(Token.TokenTypes.DEDENT))
-                    throw new SyntaxErrorException("expected a constructor, method, or member.",
-                            tokenManager.getCurrentLine(), tokenManager.getCurrentColumnNumber());
+                } else if(tokenManager.nextIsEither(Token.TokenTypes.PRIVATE, Token.TokenTypes.SHARED) ||
+                        tokenManager.nextTwoTokensMatch(Token.TokenTypes.WORD, Token.TokenTypes.LPAREN)) {   //MethodDeclaration
+                    Optional<MethodDeclarationNode> methodDelclarationOpt = getMethodDeclarationNode();
+                    if(methodDelclarationOpt.isPresent()) {
+                        classNode.methods.add(methodDelclarationOpt.get());
+                        moreConstsMethodsMembers = true;
+                    } else
+                        throw error("expected a method.", tokenManager.getCurrentLine(), tokenManager.getCurrentColumnNumber());
+                } else if(tokenManager.nextTwoTokensMatch(Token.TokenTypes.WORD, Token.TokenTypes.WORD)) {        //Member
+                    Optional<MemberNode> memberNodeOpt = getMemberNode();
+                    if(memberNodeOpt.isPresent()) {
+                        classNode.members.add(memberNodeOpt.get());
+                        moreConstsMethodsMembers = true;
+                    } else throw error("expected a member.", tokenManager.getCurrentLine(), tokenManager.getCurrentColumnNumber());
+                } else{
+                    if(!tokenManager.nextIs(Token.TokenTypes.DEDENT))
+                        throw error("expected a constructor, method, or member.",
+                                tokenManager.getCurrentLine(), tokenManager.getCurrentColumnNumber());
+                }
+            } catch (SyntaxErrorException e) {
+                recover(e);
+                moreConstsMethodsMembers = true;
             }
         }
         requireToken(Token.TokenTypes.DEDENT);
@@ -157,7 +286,7 @@ public class Parser {
         methodHeaderNode.parameters = getVariableDeclarations();
         requireToken(Token.TokenTypes.RPAREN);
 
-        if(tokenManager.matchAndRemove(Token.TokenTypes.COLON).isPresent()) {
+        if(tokenManager.match(Token.TokenTypes.COLON)) {
             //first return value (required when COLON Token found)
             methodHeaderNode.returns = getVariableDeclarationsRequireFirst(errorMessageFollowingColon);
         }
@@ -169,14 +298,14 @@ public class Parser {
     private Optional<MethodDeclarationNode> getMethodDeclarationNode() throws SyntaxErrorException {
         MethodDeclarationNode methodDeclaration = new MethodDeclarationNode();
         if(tokenManager.nextIsEither(Token.TokenTypes.PRIVATE, Token.TokenTypes.SHARED)){
-            if(tokenManager.matchAndRemove(Token.TokenTypes.SHARED).isPresent()){
+            if(tokenManager.match(Token.TokenTypes.SHARED)){
                 methodDeclaration.isShared = true;
                 methodDeclaration.isPrivate = false;
-            } else if (tokenManager.matchAndRemove(Token.TokenTypes.PRIVATE).isPresent()){    //assumes we don't get false positives from TokenManager's nextIsEither method
+            } else if (tokenManager.match(Token.TokenTypes.PRIVATE)){    //assumes we don't get false positives from TokenManager's nextIsEither method
                 methodDeclaration.isShared = false;
                 methodDeclaration.isPrivate = true;
             } else {
-                throw new SyntaxErrorException("False positive from nextIsEither method in TokenManager Class",
+                throw error("False positive from nextIsEither method in TokenManager Class",
                         tokenManager.getCurrentLine(), tokenManager.getCurrentColumnNumber());
             }
         } else if(!tokenManager.nextTwoTokensMatch(Token.TokenTypes.WORD, Token.TokenTypes.LPAREN)){
@@ -190,23 +319,68 @@ public class Parser {
         processing an interface*/
         Optional<MethodHeaderNode> optionalMethodHeaderNode = getMethodHeaderNode();
         if(optionalMethodHeaderNode.isEmpty()) {
-            throw new SyntaxErrorException("Expected a Method Header", tokenManager.getCurrentLine(), tokenManager.getCurrentColumnNumber());
+            throw error("Expected a Method Header", tokenManager.getCurrentLine(), tokenManager.getCurrentColumnNumber());
         }
         MethodHeaderNode methodHeader = optionalMethodHeaderNode.get();
         methodDeclaration.name = methodHeader.name;
         methodDeclaration.parameters = methodHeader.parameters;
         methodDeclaration.returns = methodHeader.returns;
         //TODO: TEST local variables set inside getStatements... theoretically
-        methodDeclaration.statements = getStatements(methodDeclaration);
+        if(lazyBodies) {
+            methodDeclaration.unparsedBody = skipMethodBody();
+        } else {
+            methodDeclaration.statements = getStatements(methodDeclaration);
+        }
         return Optional.of(methodDeclaration);
     }
 
+    /**
+     * Skips a MethodBody without parsing it, for TranLazily()
+     * @return the range of tokens the body is in, from its INDENT up to and including its DEDENT
+     * @throws SyntaxErrorException - when the body does not start with an INDENT
+     */
+    private LazyMethodBody skipMethodBody() throws SyntaxErrorException {
+        deletePotNewLines();
+        int from = tokenManager.position();
+        requireToken(Token.TokenTypes.INDENT);
+        int depth = 1;
+        while(depth > 0) {
+            requireNotDone();
+            Token.TokenTypes type = tokenManager.peekType();
+            tokenManager.match(type);
+            if(type == Token.TokenTypes.INDENT) depth++;
+            else if(type == Token.TokenTypes.DEDENT) depth--;
+        }
+        return new LazyMethodBody(tokenManager.buffer(), from, tokenManager.position());
+    }
+
+    /**
+     * A method body skipped by TranLazily(). Parsing it uses a Parser of its own over the body's tokens, so bodies
+     * can be parsed from any thread once the Parser that skipped them is done.
+     */
+    private static class LazyMethodBody implements MethodDeclarationNode.UnparsedBody {
+        private final TokenBuffer tokens;
+        private final int from;
+        private final int to;
+
+        LazyMethodBody(TokenBuffer tokens, int from, int to) {
+            this.tokens = tokens;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public void parseInto(MethodDeclarationNode method) throws SyntaxErrorException {
+            method.statements = new Parser(null, tokens, from, to).getStatements(method);
+        }
+    }
+
     //ParameterVariableDeclaration = IDENTIFIER IDENTIFIER
     private Optional<VariableDeclarationNode> getVariableDeclarationNode() throws SyntaxErrorException {
         VariableDeclarationNode variableDeclarationNode = new VariableDeclarationNode();
         if(tokenManager.nextTwoTokensMatch(Token.TokenTypes.WORD, Token.TokenTypes.WORD)) {
-            variableDeclarationNode.type = tokenManager.matchAndRemove(Token.TokenTypes.WORD).get().getValue();
-            variableDeclarationNode.name = tokenManager.matchAndRemove(Token.TokenTypes.WORD).get().getValue();
+            variableDeclarationNode.type = tokenManager.takeValue(Token.TokenTypes.WORD);
+            variableDeclarationNode.name = tokenManager.takeValue(Token.TokenTypes.WORD);
             return Optional.of(variableDeclarationNode);
         } else return Optional.empty();
     }
@@ -217,7 +391,7 @@ public class Parser {
     //Constructor = "construct" "(" ParameterVariableDeclarations ")" NEWLINE MethodBody
     private Optional<ConstructorNode> getConstructorNode() throws SyntaxErrorException {
         //checking for construct token
-        if(tokenManager.matchAndRemove(Token.TokenTypes.CONSTRUCT).isEmpty()) {
+        if(!tokenManager.match(Token.TokenTypes.CONSTRUCT)) {
             return Optional.empty();
         }
 
@@ -243,15 +417,21 @@ public class Parser {
         deletePotNewLines();
         requireToken(Token.TokenTypes.INDENT);
         deletePotNewLines();
-        //getStatementNode() returns either a statementNode (if present) or null
-        StatementNode nextStatement = getStatementNode();
-        Optional<VariableDeclarationNode> nextVariableDeclaration = getVariableDeclarationNode();
         do {
-            if(nextStatement != null) statements.add(nextStatement);
-            if(nextVariableDeclaration.isPresent()) variables.add(nextVariableDeclaration.get());
-            requireNewLineOrPeekDedent();
-            nextStatement = getStatementNode();
-            nextVariableDeclaration = getVariableDeclarationNode();
+            try {
+                //getStatementNode() returns either a statementNode (if present) or null
+                StatementNode statement = getStatementNode();
+                if(statement != null) {
+                    statements.add(statement);
+                } else {
+                    Optional<VariableDeclarationNode> variableDeclaration = getVariableNameValue();
+                    if(variableDeclaration.isPresent()) variables.add(variableDeclaration.get());
+                }
+                //an if or a loop has already read up to the DEDENT that ends its own block
+                if(!(statement instanceof IfNode || statement instanceof LoopNode)) requireNewLineOrPeekDedent();
+            } catch (SyntaxErrorException e) {
+                recover(e);
+            }
         } while (!tokenManager.nextIs(Token.TokenTypes.DEDENT));
         requireToken(Token.TokenTypes.DEDENT);
 
@@ -264,9 +444,9 @@ public class Parser {
             }
             else if(blockNode instanceof ConstructorNode){
                 ConstructorNode constructorNode = (ConstructorNode) blockNode;
-                constructorNode.parameters = variables;
+                constructorNode.locals = variables;
             } else {
-                throw new SyntaxErrorException("Local variables found outside of method or constructor block",
+                throw error("Local variables found outside of method or constructor block",
                         tokenManager.getCurrentLine(), tokenManager.getCurrentColumnNumber());
             }
         }
@@ -276,7 +456,7 @@ public class Parser {
 
     //Member = VariableDeclarations
     private Optional<MemberNode> getMemberNode() throws SyntaxErrorException {
-        Optional<VariableDeclarationNode> variableDeclaration = getVariableDeclarationNode();
+        Optional<VariableDeclarationNode> variableDeclaration = getVariableNameValue();
         if(variableDeclaration.isPresent()) {
             MemberNode memberNode = new MemberNode();
             memberNode.declaration = variableDeclaration.get();
@@ -299,7 +479,16 @@ public class Parser {
     private StatementNode getStatementNode() throws SyntaxErrorException {
         //AssignmentNode
         Optional<AssignmentNode> assignmentNodeOptional = getAssignmentNode();
-        if(assignmentNodeOptional.isPresent())  return assignmentNodeOptional.get();
+        if(assignmentNodeOptional.isPresent()) {
+            AssignmentNode assignmentNode = assignmentNodeOptional.get();
+            //x = a.b() is a MethodCall with one return value rather than an Assignment
+            if(assignmentNode.expression instanceof MethodCallExpressionNode methodCall) {
+                MethodCallStatementNode methodCallStatementNode = new MethodCallStatementNode(methodCall);
+                methodCallStatementNode.returnValues.add(assignmentNode.target);
+                return methodCallStatementNode;
+            }
+            return assignmentNode;
+        }
 
         //IfNode
         Optional<IfNode> ifNodeOptional = getIfNode();
@@ -317,27 +506,36 @@ public class Parser {
     }
 
     //VariableNameValue = IDENTIFIER ( "=" Expression)?
+    private Optional<VariableDeclarationNode> getVariableNameValue() throws SyntaxErrorException {
+        Optional<VariableDeclarationNode> variableDeclaration = getVariableDeclarationNode();
+        if(variableDeclaration.isPresent() && tokenManager.match(Token.TokenTypes.ASSIGN)) {
+            variableDeclaration.get().initializer = Optional.of(getExpressionNode());
+        }
+        return variableDeclaration;
+    }
 
-    //If = "if" BoolExpTerm NEWLINE Statements ("else" NEWLINE (Statement | Statements))?
+    //If = "if" Expression NEWLINE Statements ("else" NEWLINE (Statement | Statements))?
     private Optional<IfNode> getIfNode() throws SyntaxErrorException {
-        if(tokenManager.matchAndRemove(Token.TokenTypes.IF).isEmpty())  return Optional.empty();
+        if(!tokenManager.match(Token.TokenTypes.IF))  return Optional.empty();
         IfNode ifNode = new IfNode();
-        ifNode.condition = getBoolExpressionNode();
+        ifNode.condition = getExpressionNode();
         requireNewLine();
         ifNode.statements = getStatements(ifNode);
         ifNode.elseStatement = getElseNode();
         return Optional.of(ifNode);
     }
 
-    //Loop = "loop" (VariableReference "=" )?  ( BoolExpTerm ) NEWLINE Statements
+    //Loop = "loop" (VariableReference "=" )?  Expression NEWLINE Statements
     private Optional<LoopNode> getLoopNode() throws SyntaxErrorException {
-        if(tokenManager.matchAndRemove(Token.TokenTypes.LOOP).isEmpty())  return Optional.empty();
+        if(!tokenManager.match(Token.TokenTypes.LOOP))  return Optional.empty();
         LoopNode loopNode = new LoopNode();
         if(tokenManager.nextTwoTokensMatch(Token.TokenTypes.WORD, Token.TokenTypes.ASSIGN)) {
             loopNode.assignment = getVariableReferenceNode();
             requireToken(Token.TokenTypes.ASSIGN);
-        } //optional so don't need to throw an error
-        loopNode.expression = getBoolExpressionNode();
+        } else { //optional so don't need to throw an error
+            loopNode.assignment = Optional.empty();
+        }
+        loopNode.expression = getExpressionNode();
         requireNewLine();
         loopNode.statements = getStatements(loopNode);
         return Optional.of(loopNode);
@@ -345,39 +543,268 @@ public class Parser {
 
     //MethodCall = (VariableReference ( "," VariableReference )* "=")? MethodCallExpression NEWLINE
     private Optional<MethodCallStatementNode> getMethodCallStatementNode() throws SyntaxErrorException {
-        //TODO - a temporary stub out, so it will compile and execute
-        return Optional.empty();
+        LinkedList<VariableReferenceNode> returnValues = new LinkedList<VariableReferenceNode>();
+        if(tokenManager.nextTwoTokensMatch(Token.TokenTypes.WORD, Token.TokenTypes.COMMA)) {
+            do {
+                Optional<VariableReferenceNode> returnValue = getVariableReferenceNode();
+                if(returnValue.isEmpty()) throw errorNotExpectedType(Token.TokenTypes.WORD, tokenManager.peek());
+                returnValues.add(returnValue.get());
+            } while(tokenManager.match(Token.TokenTypes.COMMA));
+            requireToken(Token.TokenTypes.ASSIGN);
+        } else if(!isMethodCall()) {
+            return Optional.empty();
+        }
+        int line = tokenManager.getCurrentLine();
+        int column = tokenManager.getCurrentColumnNumber();
+        //a statement that starts like a method call can still turn out to be more, such as x.get() + 1
+        if(!(getExpressionNode() instanceof MethodCallExpressionNode methodCall)) {
+            throw error("Expected a method call", line, column);
+        }
+        MethodCallStatementNode methodCallStatementNode = new MethodCallStatementNode(methodCall);
+        methodCallStatementNode.returnValues = returnValues;
+        return Optional.of(methodCallStatementNode);
     }
 
     //Assignment = VariableReference "=" Expression NEWLINE
     private Optional<AssignmentNode> getAssignmentNode() throws SyntaxErrorException {
-        //TODO - a temporary stub out, so it will compile and execute
-        return Optional.empty();
+        if(!tokenManager.nextTwoTokensMatch(Token.TokenTypes.WORD, Token.TokenTypes.ASSIGN)) return Optional.empty();
+        AssignmentNode assignmentNode = new AssignmentNode();
+        assignmentNode.target = getVariableReferenceNode().get();
+        requireToken(Token.TokenTypes.ASSIGN);
+        assignmentNode.expression = getExpressionNode();
+        return Optional.of(assignmentNode);
     }
 
-    //Expression = Term ( ("+"|"-") Term )*
+    /**
+     * EBNF, loosest binding first:
+     *      Expression = BoolExpTerm ( ("and" | "or") BoolExpTerm )*     ("and" binds tighter than "or")
+     *      BoolExpTerm = "not"* ( Sum ( "==" | "!=" | "<=" | ">=" | ">" | "<" ) Sum | Sum )
+     *      Sum = Term ( ("+"|"-") Term )*
+     *      Term = Factor ( ("*"|"/"|"%") Factor )*
+     *      Factor = "-"* ( NUMBER | VariableReference | STRINGLITERAL | CHARACTERLITERAL | "true" | "false"
+     *              | MethodCallExpression | "(" Expression ")" | "new" IDENTIFIER "(" (Expression ("," Expression )*)? ")" )
+     *      MethodCallExpression =  (IDENTIFIER ".")? IDENTIFIER "(" (Expression ("," Expression )* )? ")"
+     * Rather than a method per rule, each called once per factor for every level above it, this is one loop over the
+     * tokens (Pratt parsing). Operands and operators wait on the parser's stacks until an operator that binds no tighter
+     * shows up (see reduce()), and "(" and argument lists are operators too, so neither long nor deeply nested
+     * expressions use any Java stack. How tightly each operator binds is looked up in BINDING_POWER.
+     * "and", "or", "not", "true" and "false" are WORD tokens, they are only keywords where an operator or operand is expected.
+     * @return the root of the expression
+     * @throws SyntaxErrorException - when there is no operand where one is expected or a parenthesis is not closed
+     */
     private ExpressionNode getExpressionNode() throws SyntaxErrorException {
-        ExpressionNode expressionNode;
-        //BooleanLiteralNode
-        //BooleanOpNode
-        //CharLiteralNode
-        //CompareNode
-        //MathOpNode
-        //MethodCallExpressionNode
-        //NewNode
-        //NotOpNode
-        //NumbericalLiteralNode
-        //StringLiteralNode
-        //VariableReferenceNode
-        //TODO - a temporary stub out, so it will compile and execute
-        return new VariableReferenceNode();
-    }
-
-    //BoolExpTerm = MethodCallExpression | (Expression ( "==" | "!=" | "<=" | ">=" | ">" | "<" ) Expression) | VariableReference
-    private BooleanOpNode getBoolExpressionNode() throws SyntaxErrorException {
-        //TODO - a temporary stub out, so it will compile and execute
-        BooleanOpNode boolOpNode = new BooleanOpNode();
-        return boolOpNode;
+        operandCount = 0;
+        operatorCount = 0;
+        callCount = 0;
+        int open = 0;   //GROUP and CALL operators on the operator stack
+        boolean expectingOperand = true;
+        while(true) {
+            Token.TokenTypes type = tokenManager.peekType();
+            if(expectingOperand) {
+                if(type == Token.TokenTypes.LPAREN) {
+                    tokenManager.match(type);
+                    pushOperator(GROUP);
+                    open++;
+                } else if(type == Token.TokenTypes.MINUS) {
+                    tokenManager.match(type);
+                    pushOperator(NEGATE);
+                } else if(type == Token.TokenTypes.WORD && "not".equals(tokenManager.peekValue())) {
+                    tokenManager.match(type);
+                    pushOperator(NOT);
+                } else if(type == Token.TokenTypes.NEW || isMethodCall()) {
+                    ExpressionNode call = getCallUpToArguments();
+                    if(tokenManager.match(Token.TokenTypes.RPAREN)) {   //no arguments
+                        pushOperand(call);
+                        expectingOperand = false;
+                    } else {
+                        pushCall(call);
+                        pushOperator(CALL);
+                        open++;
+                    }
+                } else {
+                    pushOperand(getFactorNode());
+                    expectingOperand = false;
+                }
+                continue;
+            }
+
+            int operator = type == null ? -1 : BINARY_OPERATORS[type.ordinal()];
+            if(type == Token.TokenTypes.WORD) {
+                String word = tokenManager.peekValue();
+                if(word.equals("and")) operator = AND;
+                else if(word.equals("or")) operator = OR;
+            }
+            if(operator >= 0) {
+                tokenManager.match(type);
+                reduce(BINDING_POWER[operator]);
+                pushOperator(operator);
+                expectingOperand = true;
+            } else if(open > 0 && (type == Token.TokenTypes.RPAREN || type == Token.TokenTypes.COMMA)) {
+                reduce(1);  //down to the innermost GROUP or CALL
+                boolean group = operators[operatorCount - 1] == GROUP;
+                if(group && type == Token.TokenTypes.COMMA) {
+                    throw errorNotExpectedType(Token.TokenTypes.RPAREN, tokenManager.peek());
+                }
+                tokenManager.match(type);
+                if(group) {
+                    operatorCount--;
+                    open--;
+                } else {
+                    ExpressionNode call = calls[callCount - 1];
+                    arguments(call).add(operands[--operandCount]);
+                    if(type == Token.TokenTypes.RPAREN) {
+                        callCount--;
+                        operatorCount--;
+                        open--;
+                        pushOperand(call);
+                    } else {
+                        expectingOperand = true;
+                    }
+                }
+            } else if(open > 0) {
+                throw errorNotExpectedType(Token.TokenTypes.RPAREN, tokenManager.peek());
+            } else {    //the end of the expression
+                reduce(1);
+                return operands[--operandCount];
+            }
+        }
+    }
+
+    /**
+     * Pops every operator on top of the operator stack that binds at least as tightly as the one about to be pushed,
+     * replacing its operands with the node it makes. This is what makes binary operators left associative.
+     * @param bindingPower - the BINDING_POWER of the operator about to be pushed, 1 to reduce down to the innermost
+     *                     GROUP or CALL
+     */
+    private void reduce(int bindingPower) {
+        while(operatorCount > 0 && BINDING_POWER[operators[operatorCount - 1]] >= bindingPower) {
+            int operator = operators[--operatorCount];
+            ExpressionNode right = operands[operandCount - 1];
+            if(operator == NOT) {
+                NotOpNode notOpNode = new NotOpNode();
+                notOpNode.left = right;
+                operands[operandCount - 1] = notOpNode;
+            } else if(operator == NEGATE) {
+                operands[operandCount - 1] = negate(right);
+            } else {
+                operandCount--;
+                operands[operandCount - 1] = binaryNode(operator, operands[operandCount - 1], right);
+            }
+        }
+    }
+
+    private static ExpressionNode binaryNode(int operator, ExpressionNode left, ExpressionNode right) {
+        if(operator <= AND) {
+            BooleanOpNode booleanOpNode = new BooleanOpNode();
+            booleanOpNode.left = left;
+            booleanOpNode.right = right;
+            booleanOpNode.op = operator == AND ? BooleanOpNode.BooleanOperations.and : BooleanOpNode.BooleanOperations.or;
+            return booleanOpNode;
+        } else if(operator <= GE) {
+            CompareNode compareNode = new CompareNode();
+            compareNode.left = left;
+            compareNode.right = right;
+            compareNode.op = COMPARE_OPERATIONS[operator - EQ];
+            return compareNode;
+        }
+        MathOpNode mathOpNode = new MathOpNode();
+        mathOpNode.left = left;
+        mathOpNode.right = right;
+        mathOpNode.op = MATH_OPERATIONS[operator - ADD];
+        return mathOpNode;
+    }
+
+    /**
+     * There is no node for a unary minus. A negative number becomes a negative NumericLiteralNode and anything else
+     * becomes 0 - operand.
+     */
+    private static ExpressionNode negate(ExpressionNode operand) {
+        if(operand instanceof NumericLiteralNode numericLiteralNode) {
+            numericLiteralNode.value = -numericLiteralNode.value;
+            return numericLiteralNode;
+        }
+        NumericLiteralNode zero = new NumericLiteralNode();
+        return binaryNode(SUBTRACT, zero, operand);
+    }
+
+    //Factor, without the method calls, "new" and parenthesized expressions getExpressionNode() handles itself
+    private ExpressionNode getFactorNode() throws SyntaxErrorException {
+        Token.TokenTypes type = tokenManager.peekType();
+        if(type == Token.TokenTypes.NUMBER) {
+            NumericLiteralNode numericLiteralNode = new NumericLiteralNode();
+            numericLiteralNode.value = Float.parseFloat(tokenManager.takeValue(type));
+            return numericLiteralNode;
+        } else if(type == Token.TokenTypes.QUOTEDSTRING) {
+            StringLiteralNode stringLiteralNode = new StringLiteralNode();
+            stringLiteralNode.value = tokenManager.takeValue(type);
+            return stringLiteralNode;
+        } else if(type == Token.TokenTypes.QUOTEDCHARACTER && tokenManager.peekValue().length() == 1) {
+            CharLiteralNode charLiteralNode = new CharLiteralNode();
+            charLiteralNode.value = tokenManager.takeValue(type).charAt(0);
+            return charLiteralNode;
+        } else if(type == Token.TokenTypes.WORD) {
+            String name = tokenManager.takeValue(type);
+            if(name.equals("true")) return new BooleanLiteralNode(true);
+            if(name.equals("false")) return new BooleanLiteralNode(false);
+            VariableReferenceNode variableReferenceNode = new VariableReferenceNode();
+            variableReferenceNode.name = name;
+            return variableReferenceNode;
+        }
+        throw error("Expected an expression, but found " + type,
+                tokenManager.getCurrentLine(), tokenManager.getCurrentColumnNumber());
+    }
+
+    /**
+     * Reads a MethodCallExpression or a "new" up to and including its "(". getExpressionNode() reads the arguments.
+     * @return a MethodCallExpressionNode or a NewNode without parameters
+     */
+    private ExpressionNode getCallUpToArguments() throws SyntaxErrorException {
+        if(tokenManager.match(Token.TokenTypes.NEW)) {
+            NewNode newNode = new NewNode();
+            newNode.className = requireAndReturnIDENTIFIER();
+            requireToken(Token.TokenTypes.LPAREN);
+            return newNode;
+        }
+        MethodCallExpressionNode methodCallExpressionNode = new MethodCallExpressionNode();
+        String name = requireAndReturnIDENTIFIER();
+        if(tokenManager.match(Token.TokenTypes.DOT)) {
+            methodCallExpressionNode.objectName = Optional.of(name);
+            name = requireAndReturnIDENTIFIER();
+        } else {
+            methodCallExpressionNode.objectName = Optional.empty();
+        }
+        methodCallExpressionNode.methodName = name;
+        requireToken(Token.TokenTypes.LPAREN);
+        return methodCallExpressionNode;
+    }
+
+    private static List<ExpressionNode> arguments(ExpressionNode call) {
+        if(call instanceof NewNode newNode) return newNode.parameters;
+        return ((MethodCallExpressionNode) call).parameters;
+    }
+
+    /**
+     * @return whether the next tokens start a MethodCallExpression: IDENTIFIER "(" or IDENTIFIER "."
+     */
+    private boolean isMethodCall() {
+        if(tokenManager.peekType() != Token.TokenTypes.WORD) return false;
+        Token.TokenTypes second = tokenManager.peekType(1);
+        return second == Token.TokenTypes.LPAREN || second == Token.TokenTypes.DOT;
+    }
+
+    private void pushOperand(ExpressionNode operand) {
+        if(operandCount == operands.length) operands = Arrays.copyOf(operands, operandCount * 2);
+        operands[operandCount++] = operand;
+    }
+
+    private void pushOperator(int operator) {
+        if(operatorCount == operators.length) operators = Arrays.copyOf(operators, operatorCount * 2);
+        operators[operatorCount++] = operator;
+    }
+
+    private void pushCall(ExpressionNode call) {
+        if(callCount == calls.length) calls = Arrays.copyOf(calls, callCount * 2);
+        calls[callCount++] = call;
     }
 
     //Statements = INDENT Statement*  DEDENT
@@ -385,20 +812,14 @@ public class Parser {
     //VariableReference = IDENTIFIER
     private Optional<VariableReferenceNode> getVariableReferenceNode() throws SyntaxErrorException {
         VariableReferenceNode variableReferenceNode = new VariableReferenceNode();
-        Optional<Token> nextToken = tokenManager.matchAndRemove(Token.TokenTypes.WORD);
-        if(nextToken.isPresent()){
-            variableReferenceNode.name = nextToken.get().getValue();
+        String name = tokenManager.takeValue(Token.TokenTypes.WORD);
+        if(name != null){
+            variableReferenceNode.name = name;
             return Optional.of(variableReferenceNode);
         }
         else                        return Optional.empty();
     }
 
-    //MethodCallExpression =  (IDENTIFIER ".")? IDENTIFIER "(" (Expression ("," Expression )* )? ")"
-
-    //Term = Factor ( ("*"|"/"|"%") Factor )*
-
-    //Factor = NUMBER | VariableReference |  STRINGLITERAL | CHARACTERLITERAL | MethodCallExpression | "(" Expression ")" | "new" IDENTIFIER "(" (Expression ("," Expression )*)? ")"
-
     /**
      * EBNF: ("else" NEWLINE (Statement | Statements))?
      * Determines if there is an else block and if there is, it returns an optional of the else statements in the
@@ -408,7 +829,7 @@ public class Parser {
      * @throws SyntaxErrorException - in the event that one of the Statements meant to be returned is in an incorrect Syntax
      */
     private Optional<ElseNode> getElseNode() throws SyntaxErrorException {
-        if(tokenManager.matchAndRemove(Token.TokenTypes.ELSE).isEmpty())  return Optional.empty();
+        if(!tokenManager.match(Token.TokenTypes.ELSE))  return Optional.empty();
         requireNewLine();
         ElseNode elseNode = new ElseNode();
         elseNode.statements = getStatements(new IfNode());
@@ -417,7 +838,7 @@ public class Parser {
 
     //Helper Methods
     private void deletePotNewLines(){
-        while(tokenManager.matchAndRemove(Token.TokenTypes.NEWLINE).isPresent());//removes all the sequential newlines
+        while(tokenManager.match(Token.TokenTypes.NEWLINE));//removes all the sequential newlines
     }
 
     /**
@@ -428,13 +849,13 @@ public class Parser {
     private LinkedList<VariableDeclarationNode> getVariableDeclarations() throws SyntaxErrorException {
         LinkedList<VariableDeclarationNode> paramVarDeclNodes = new LinkedList<VariableDeclarationNode>();
         Optional<VariableDeclarationNode> nextVariableDeclaration = getVariableDeclarationNode();
-        int initTokensLeft = tokenManager.tokensLeft();
+        int initPosition = tokenManager.position();
         while(nextVariableDeclaration.isPresent()) {
             paramVarDeclNodes.add(nextVariableDeclaration.get());
-            if(tokenManager.matchAndRemove(Token.TokenTypes.COMMA).isEmpty()) return paramVarDeclNodes;
+            if(!tokenManager.match(Token.TokenTypes.COMMA)) return paramVarDeclNodes;
             nextVariableDeclaration = getVariableDeclarationNode();
         }
-        if(initTokensLeft != tokenManager.tokensLeft()) { //list of parameters ended with an extra comma
+        if(initPosition != tokenManager.position()) { //list of parameters ended with an extra comma
             throw errorNotExpectedTypes(new Token.TokenTypes[]{Token.TokenTypes.WORD, Token.TokenTypes.COMMA}, tokenManager.peek());
         } else return paramVarDeclNodes;
     }
@@ -449,28 +870,70 @@ public class Parser {
         LinkedList<VariableDeclarationNode> paramVarDeclNodes = new LinkedList<VariableDeclarationNode>();
         Optional<VariableDeclarationNode> nextVariableDeclaration = getVariableDeclarationNode();
         if(nextVariableDeclaration.isEmpty()) {
-            throw new SyntaxErrorException(typeFollowsErrorMessage, tokenManager.getCurrentLine(), tokenManager.getCurrentColumnNumber());
+            throw error(typeFollowsErrorMessage, tokenManager.getCurrentLine(), tokenManager.getCurrentColumnNumber());
         }
         do{
             paramVarDeclNodes.add(nextVariableDeclaration.get());
-            if(tokenManager.matchAndRemove(Token.TokenTypes.COMMA).isEmpty()) return paramVarDeclNodes;
+            if(!tokenManager.match(Token.TokenTypes.COMMA)) return paramVarDeclNodes;
             nextVariableDeclaration = getVariableDeclarationNode();
         } while (nextVariableDeclaration.isPresent());
         //there was a comma and it was not followed by a variable declaration
         throw errorNotExpectedType(Token.TokenTypes.WORD, tokenManager.peek());
     }
 
+    /**
+     * Called with an error found in a line of a block. Without recovery the error is thrown again. With recovery it is
+     * collected, and the rest of the line is skipped (see skipLine()) so the block can carry on with its next line.
+     * @throws SyntaxErrorException - e, when not parsing with recovery or when there are no tokens left to recover with
+     */
+    private void recover(SyntaxErrorException e) throws SyntaxErrorException {
+        if(errors == null || tokenManager.done()) throw e;
+        errors.add(e);
+        skipLine();
+    }
+
+    /**
+     * Skips tokens up to and including the NEWLINE that ends the current line, along with the block indented under
+     * that line if there is one. Stops before a DEDENT that ends the block the line is in.
+     */
+    private void skipLine() {
+        int depth = 0;  //how many INDENTs deeper than the line's own block we are
+        while(!tokenManager.done()) {
+            Token.TokenTypes type = tokenManager.peekType();
+            if(depth == 0 && type == Token.TokenTypes.DEDENT) return;
+            tokenManager.match(type);
+            if(type == Token.TokenTypes.INDENT) {
+                depth++;
+            } else if(type == Token.TokenTypes.DEDENT) {
+                depth--;
+                if(depth == 0) return;  //the end of the block under the line
+            } else if(type == Token.TokenTypes.NEWLINE && depth == 0 && !tokenManager.nextIs(Token.TokenTypes.INDENT)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return a SyntaxErrorException at the line and column passed in, without a stack trace when parsing with recovery
+     */
+    private SyntaxErrorException error(String message, int line, int column) {
+        return new SyntaxErrorException(message, line, column, errors == null);
+    }
+
     private void requireNotDone() throws SyntaxErrorException {
         if(tokenManager.done()){
-            throw new SyntaxErrorException("Received an empty Token prematurely. tokenList emptied improperly",
+            throw error("Received an empty Token prematurely. tokenList emptied improperly",
                     tokenManager.getCurrentLine(), tokenManager.getCurrentColumnNumber());
         }
     }
 
-    private Optional<Token> requireToken(Token.TokenTypes tokenType) throws SyntaxErrorException {
-        Optional<Token> optionalOfToken = tokenManager.matchAndRemove(tokenType);
-        presentOrThrowExpected(tokenType, optionalOfToken);
-        return optionalOfToken;
+    /**
+     * Removes the next token, which must be of the type passed in. Nothing is made for it, the Token is only looked at
+     * to report the error
+     * @throws SyntaxErrorException - thrown when the next token is not of that type
+     */
+    private void requireToken(Token.TokenTypes tokenType) throws SyntaxErrorException {
+        if (!tokenManager.match(tokenType)) throw errorNotExpectedType(tokenType, tokenManager.peek());
     }
 
     /**
@@ -485,7 +948,7 @@ public class Parser {
 
     private void requireNewLineOrPeekDedent() throws SyntaxErrorException {
         if(tokenManager.nextIsEither(Token.TokenTypes.NEWLINE, Token.TokenTypes.DEDENT)){
-            tokenManager.matchAndRemove(Token.TokenTypes.NEWLINE);
+            tokenManager.match(Token.TokenTypes.NEWLINE);
             //accepts a dedent but does not remove it. Another function will do that
         } else{
             throw errorNotExpectedTypes(new Token.TokenTypes[]{Token.TokenTypes.NEWLINE, Token.TokenTypes.DEDENT},
@@ -494,16 +957,9 @@ public class Parser {
     }
 
     private String requireAndReturnIDENTIFIER() throws SyntaxErrorException {
-        Optional<Token> optionalOfToken = requireToken(Token.TokenTypes.WORD);
-        return optionalOfToken.get().getValue();
-    }
-
-    /**
-     * @param optionalOfToken the Optional object to be checked. If it is empty, this method throws an exception
-     * @throws SyntaxErrorException - if the Optional passed in is empty. Describes the expected vs actual Tokens it recieved
-     */
-    void presentOrThrowExpected(Token.TokenTypes expectedType, Optional<Token> optionalOfToken) throws SyntaxErrorException {
-        if (optionalOfToken.isEmpty()) throw errorNotExpectedType(expectedType, tokenManager.peek());
+        String value = tokenManager.takeValue(Token.TokenTypes.WORD);
+        if (value == null) throw errorNotExpectedType(Token.TokenTypes.WORD, tokenManager.peek());
+        return value;
     }
 
     /**
@@ -514,21 +970,21 @@ public class Parser {
      */
     private SyntaxErrorException errorNotExpectedType(Token.TokenTypes expectedType, Optional<Token> foundOptionalOfToken) {
         if(foundOptionalOfToken.isPresent()){
-            return new SyntaxErrorException("Expected a " + expectedType + " Token, but found " +foundOptionalOfToken.get().getType(),
+            return error("Expected a " + expectedType + " Token, but found " +foundOptionalOfToken.get().getType(),
                     tokenManager.getCurrentLine(), tokenManager.getCurrentColumnNumber());
         } else {
-            return new SyntaxErrorException("Expected a " + expectedType + " Token, but found " + null,
+            return error("Expected a " + expectedType + " Token, but found " + null,
                     tokenManager.getCurrentLine(), tokenManager.getCurrentColumnNumber());
         }
     }
 
     private SyntaxErrorException errorNotExpectedTypes(Token.TokenTypes[] expectedTypes, Optional<Token> foundOptionalOfToken) {
         if(foundOptionalOfToken.isPresent()){
-            return new SyntaxErrorException("Expected Any of the Following " + Arrays.toString(expectedTypes) + " Tokens\n" +
+            return error("Expected Any of the Following " + Arrays.toString(expectedTypes) + " Tokens\n" +
                     "Instead found " +foundOptionalOfToken.get().getType(),
                     tokenManager.getCurrentLine(), tokenManager.getCurrentColumnNumber());
         } else {
-            return new SyntaxErrorException("Expected Any of the Following " + Arrays.toString(expectedTypes) + " Tokens\n" +
+            return error("Expected Any of the Following " + Arrays.toString(expectedTypes) + " Tokens\n" +
                     "Instead found " + null, tokenManager.getCurrentLine(), tokenManager.getCurrentColumnNumber());
         }
     }
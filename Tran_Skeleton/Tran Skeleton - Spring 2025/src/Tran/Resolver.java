@@ -0,0 +1,275 @@
+package Tran;
+import AST.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Binds the names in a parsed program to what they refer to, once, so the Interpreter does not have to look them up by
+ * name every time they are used:
+ *      VariableReferenceNode - its scope and slot: a PARAMETER, RETURN or LOCAL in the method's frame (numbered
+ *                              parameters, then returns, then locals) or a MEMBER of the object (in ClassNode.members order)
+ *      method calls          - the variable the call is made on (object), and the method it runs (target) when only one
+ *                              method has that name and takes that many parameters. objectClass is the class target was
+ *                              picked from, the Interpreter only uses target when the object really is one
+ *                              When the variable is declared as an interface, the interface and the index of its only
+ *                              header the call can match (objectInterface, interfaceMethod), see Linker.interfaceMethod()
+ *      NewNode               - its ClassNode, and its ConstructorNode when only one takes that many parameters
+ * The names are bound the same way the Interpreter looks them up: locals (and parameters and returns) first, then the
+ * object's members, then class names. Whatever cannot be bound is left null and the Interpreter looks it up by name.
+ * Method bodies that have not been parsed yet (Parser.TranLazily(), AstArchive) are resolved right after they are parsed,
+ * so resolving never parses a body early.
+ *      Resolver.resolve(tran); //after parsing, and after any built-in classes have been added
+ * Expressions are walked with a work list, not recursion, so any depth can be resolved.
+ */
+public class Resolver {
+    private final HashMap<String, ClassNode> classes = new HashMap<>();
+    private final HashMap<String, InterfaceNode> interfaces = new HashMap<>();
+    private final List<MethodDeclarationNode> sharedMethods = new ArrayList<>();
+    private final HashMap<ClassNode, HashMap<String, Integer>> memberSlots = new HashMap<>();
+    private final ArrayList<Object> work = new ArrayList<>();    //the statements and expressions still to resolve
+
+    private Resolver(TranNode tran) {
+        for (var c : tran.Classes) {
+            classes.putIfAbsent(c.name, c);   //the Interpreter finds the first class with a name
+            for (var m : c.methods) {
+                if (m.isShared) sharedMethods.add(m);
+            }
+        }
+        for (var i : tran.Interfaces) interfaces.putIfAbsent(i.name, i);
+    }
+
+    /**
+     * Resolves every class in tran. Resolving the same program again is harmless.
+     */
+    public static void resolve(TranNode tran) {
+        Resolver resolver = new Resolver(tran);
+        for (var c : tran.Classes) resolver.resolveClass(c);
+    }
+
+    /**
+     * The variables visible in a method or constructor body, or in a member initializer
+     */
+    private static class Frame {
+        final ClassNode classNode;
+        final boolean hasObject;        //members can only be used when the body runs on an object
+        final HashMap<String, Integer> slots = new HashMap<>();
+        final List<VariableDeclarationNode> declarations = new ArrayList<>();    //indexed by slot
+        final HashMap<String, Integer> members;
+        int parameters;
+        int returns;
+
+        Frame(ClassNode classNode, boolean hasObject, HashMap<String, Integer> members) {
+            this.classNode = classNode;
+            this.hasObject = hasObject;
+            this.members = members;
+        }
+
+        void add(VariableDeclarationNode declaration) {
+            slots.put(declaration.name, declarations.size());    //a later declaration hides an earlier one
+            declarations.add(declaration);
+        }
+    }
+
+    private void resolveClass(ClassNode c) {
+        //a member initializer runs while the object is being built, when only the members before it exist
+        var members = new HashMap<String, Integer>();
+        for (int i = 0; i < c.members.size(); i++) {
+            var declaration = c.members.get(i).declaration;
+            if (declaration.initializer.isPresent()) {
+                resolveAll(declaration.initializer.get(), new Frame(c, true, new HashMap<>(members)));
+            }
+            members.put(declaration.name, i);
+        }
+        memberSlots.put(c, members);
+
+        for (var constructor : c.constructors) {
+            Frame frame = new Frame(c, true, members);
+            for (var parameter : constructor.parameters) frame.add(parameter);
+            frame.parameters = constructor.parameters.size();
+            addLocals(constructor.locals, frame);
+            resolveAll(constructor.statements, frame);
+        }
+        for (var m : c.methods) {
+            if (m instanceof BuiltInMethodDeclarationNode) continue;
+            m.afterParse(method -> resolveMethod(c, method));
+        }
+    }
+
+    //synchronized: lazily parsed bodies are resolved by whichever thread parses them
+    private synchronized void resolveMethod(ClassNode c, MethodDeclarationNode m) {
+        //a shared method called from an instance method runs on that object, so its members are looked up by name
+        Frame frame = new Frame(c, !m.isShared, m.isShared ? new HashMap<>() : memberSlots.get(c));
+        for (var parameter : m.parameters) frame.add(parameter);
+        for (var r : m.returns) frame.add(r);
+        frame.parameters = m.parameters.size();
+        frame.returns = m.returns.size();
+        addLocals(m.locals, frame);
+        resolveAll(m.statements, frame);
+    }
+
+    //each local's initializer runs before the local exists, like Interpreter.addLocals()
+    private void addLocals(List<VariableDeclarationNode> locals, Frame frame) {
+        for (var local : locals) {
+            if (local.initializer.isPresent()) resolveAll(local.initializer.get(), frame);
+            frame.add(local);
+        }
+    }
+
+    /**
+     * Resolves a statement, an expression, or a list of either, and everything inside them
+     */
+    private void resolveAll(Object start, Frame frame) {
+        work.add(start);
+        while (!work.isEmpty()) {
+            Object node = work.removeLast();
+            if (node instanceof List<?> list) {
+                work.addAll(list);
+            } else if (node instanceof VariableReferenceNode variable) {
+                bind(variable, frame);
+            } else if (node instanceof AssignmentNode assignment) {
+                bind(assignment.target, frame);
+                work.add(assignment.expression);
+            } else if (node instanceof MethodCallStatementNode mc) {
+                for (var returnValue : mc.returnValues) bind(returnValue, frame);
+                mc.object = receiver(mc.objectName, frame);
+                mc.objectClass = objectClass(mc.objectName, mc.object, frame);
+                mc.target = target(mc.objectClass, mc.objectName, mc.object, mc.methodName, mc.parameters.size(), mc.returnValues.size(), frame);
+                mc.objectInterface = objectInterface(mc.object, frame);
+                mc.interfaceMethod = header(mc.objectInterface, mc.methodName, mc.parameters.size(), mc.returnValues.size());
+                if (mc.interfaceMethod < 0) mc.objectInterface = null;
+                work.addAll(mc.parameters);
+            } else if (node instanceof MethodCallExpressionNode mce) {
+                mce.object = receiver(mce.objectName, frame);
+                mce.objectClass = objectClass(mce.objectName, mce.object, frame);
+                mce.target = target(mce.objectClass, mce.objectName, mce.object, mce.methodName, mce.parameters.size(), 0, frame);
+                mce.objectInterface = objectInterface(mce.object, frame);
+                mce.interfaceMethod = header(mce.objectInterface, mce.methodName, mce.parameters.size(), 0);
+                if (mce.interfaceMethod < 0) mce.objectInterface = null;
+                work.addAll(mce.parameters);
+            } else if (node instanceof NewNode newNode) {
+                newNode.classNode = classes.get(newNode.className);
+                newNode.constructor = null;
+                if (newNode.classNode != null) {
+                    for (var constructor : newNode.classNode.constructors) {
+                        if (constructor.parameters.size() != newNode.parameters.size()) continue;
+                        if (newNode.constructor != null) {     //more than one, the types of the values decide
+                            newNode.constructor = null;
+                            break;
+                        }
+                        newNode.constructor = constructor;
+                    }
+                }
+                work.addAll(newNode.parameters);
+            } else if (node instanceof IfNode ifNode) {
+                work.add(ifNode.condition);
+                work.add(ifNode.statements);
+                ifNode.elseStatement.ifPresent(e -> work.add(e.statements));
+            } else if (node instanceof LoopNode loop) {
+                loop.assignment.ifPresent(v -> bind(v, frame));
+                work.add(loop.expression);
+                work.add(loop.statements);
+            } else if (node instanceof MathOpNode math) {
+                work.add(math.left);
+                work.add(math.right);
+            } else if (node instanceof CompareNode compare) {
+                work.add(compare.left);
+                work.add(compare.right);
+            } else if (node instanceof BooleanOpNode op) {
+                work.add(op.left);
+                work.add(op.right);
+            } else if (node instanceof NotOpNode not) {
+                work.add(not.left);
+            }
+        }
+    }
+
+    private void bind(VariableReferenceNode variable, Frame frame) {
+        Integer slot = frame.slots.get(variable.name);
+        if (slot != null) {
+            variable.slot = slot;
+            if (slot < frame.parameters) variable.scope = VariableReferenceNode.Scope.PARAMETER;
+            else if (slot < frame.parameters + frame.returns) variable.scope = VariableReferenceNode.Scope.RETURN;
+            else variable.scope = VariableReferenceNode.Scope.LOCAL;
+            return;
+        }
+        slot = frame.hasObject ? frame.members.get(variable.name) : null;
+        variable.scope = slot == null ? null : VariableReferenceNode.Scope.MEMBER;
+        variable.slot = slot == null ? 0 : slot;
+    }
+
+    /**
+     * @return the variable a call is made on, or null when it has no object or the object is a class
+     */
+    private VariableReferenceNode receiver(Optional<String> objectName, Frame frame) {
+        if (objectName.isEmpty()) return null;
+        var variable = new VariableReferenceNode();
+        variable.name = objectName.get();
+        bind(variable, frame);
+        return variable.scope == null ? null : variable;
+    }
+
+    /**
+     * @return the class whose methods the call can be made to: the declared class of its object's variable, the class it
+     * names, or the class it is made in. Null when that is not known before running
+     */
+    private ClassNode objectClass(Optional<String> objectName, VariableReferenceNode object, Frame frame) {
+        if (objectName.isEmpty()) return frame.hasObject ? frame.classNode : null;
+        if (object != null) return classes.get(declaredType(object, frame));   //null for an interface: the object's class decides
+        //a shared method can run on an object, and then the name could be one of its members
+        if (!frame.hasObject && memberSlots.get(frame.classNode).containsKey(objectName.get())) return null;
+        return classes.get(objectName.get());
+    }
+
+    private static String declaredType(VariableReferenceNode object, Frame frame) {
+        var declaration = object.scope == VariableReferenceNode.Scope.MEMBER
+                ? frame.classNode.members.get(object.slot).declaration : frame.declarations.get(object.slot);
+        return declaration.type;
+    }
+
+    /**
+     * @return the interface the variable a call is made on is declared as, or null
+     */
+    private InterfaceNode objectInterface(VariableReferenceNode object, Frame frame) {
+        return object == null ? null : interfaces.get(declaredType(object, frame));
+    }
+
+    /**
+     * @return the index of the only header in i the call could match, or -1 when there are none or more than one
+     */
+    private static int header(InterfaceNode i, String methodName, int parameters, int returnValues) {
+        if (i == null) return -1;
+        int found = -1;
+        for (int header = 0; header < i.methods.size(); header++) {
+            var m = i.methods.get(header);
+            if (!m.name.equals(methodName) || m.parameters.size() != parameters || m.returns.size() < returnValues) continue;
+            if (found >= 0) return -1;
+            found = header;
+        }
+        return found;
+    }
+
+    /**
+     * @return the only method in objectClass (or, when a shared method makes a call with no object, the only shared
+     * method anywhere) that the call could run, or null when there are none or more than one
+     */
+    private MethodDeclarationNode target(ClassNode objectClass, Optional<String> objectName, VariableReferenceNode object,
+                                         String methodName, int parameters, int returnValues, Frame frame) {
+        List<MethodDeclarationNode> candidates;
+        if (objectClass != null) candidates = objectClass.methods;
+        else if (objectName.isEmpty() && !frame.hasObject) candidates = sharedMethods;
+        else return null;
+        boolean onClass = objectName.isPresent() && object == null;    //only its shared methods
+        MethodDeclarationNode found = null;
+        for (var m : candidates) {
+            if (!m.name.equals(methodName) || (onClass && !m.isShared)) continue;
+            if (!(m instanceof BuiltInMethodDeclarationNode builtIn && builtIn.isVariadic)
+                    && (m.parameters.size() != parameters || m.returns.size() < returnValues)) continue;
+            if (found != null) return null;     //more than one, the types of the values decide
+            found = m;
+        }
+        return found;
+    }
+}
@@ -0,0 +1,112 @@
+package Tran;
+import java.util.Arrays;
+
+/**
+ * Gives every distinct identifier a dense integer id (0, 1, 2, ...) and keeps a single String for it.
+ * The Lexer interns each WORD while it scans: it computes the word's hash as it reads the characters (the same value
+ * String.hashCode() would give) and intern(source, start, end, length, hash) compares the characters in place, so a String
+ * is only created the first time a name is seen. Every WORD token with the same name then shares that String and id,
+ * and later phases can compare ids instead of Strings.
+ *      public int intern(String name) //the id of name, adding it when it is new
+ *      public int intern(TextManager source, int start, int end, int length, int hash) //same, for a slice of the source text
+ *      public int lookup(String name) //the id of name, or -1 when it was never interned
+ *      public String name(int id) //the name with the given id
+ *      public int size() //the number of distinct names
+ * A SymbolTable is not thread safe. Each Lexer has its own, and TokenBuffer.addAll() maps ids between tables.
+ */
+public class SymbolTable {
+    private static final int INITIAL_CAPACITY = 64;    //a power of 2
+
+    private String[] names = new String[INITIAL_CAPACITY];  //indexed by id
+    private int[] hashes = new int[INITIAL_CAPACITY];       //indexed by id
+    private int[] slots = new int[INITIAL_CAPACITY * 2];    //open addressing table of id + 1, 0 for an empty slot
+    private int size;
+
+    /**
+     * @param name - the identifier
+     * @return the id of name, a new one if name has not been interned before
+     */
+    public int intern(String name) {
+        int hash = name.hashCode();
+        int mask = slots.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) return add(name, hash, slot);
+            if (hashes[id] == hash && names[id].equals(name)) return id;
+        }
+    }
+
+    /**
+     * Interns the characters from start in source without creating a String unless the name is new
+     * @param source - the text the name is in
+     * @param start - the position of the name's first character in source
+     * @param end - the position after the name's last character
+     * @param length - the number of chars in the name (not the same as end - start for a MappedTextManager)
+     * @param hash - the hash of the name's chars, computed like String.hashCode()
+     * @return the id of the name
+     */
+    public int intern(TextManager source, int start, int end, int length, int hash) {
+        int mask = slots.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) return add(source.substring(start, end), hash, slot);
+            if (hashes[id] == hash && names[id].length() == length && source.regionMatches(start, names[id])) return id;
+        }
+    }
+
+    /**
+     * @param name - the identifier
+     * @return the id of name, or -1 if it was never interned
+     */
+    public int lookup(String name) {
+        int hash = name.hashCode();
+        int mask = slots.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) return -1;
+            if (hashes[id] == hash && names[id].equals(name)) return id;
+        }
+    }
+
+    /**
+     * @return the name with the given id
+     */
+    public String name(int id) {
+        if (id < 0 || id >= size) throw new IndexOutOfBoundsException("no symbol with id " + id);
+        return names[id];
+    }
+
+    /**
+     * @return the number of distinct names, which is also the next id to be given out
+     */
+    public int size() {
+        return size;
+    }
+
+    private int add(String name, int hash, int slot) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        int id = size++;
+        names[id] = name;
+        hashes[id] = hash;
+        slots[slot] = id + 1;
+        if (size * 2 > slots.length) rehash();   //keeps the table at most half full
+        return id;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = spread(hashes[id]) & mask;
+            while (slots[slot] != 0) slot = (slot + 1) & mask;
+            slots[slot] = id + 1;
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -10,11 +10,27 @@ public class SyntaxErrorException extends Exception {
     private final int characterPosition;
 
     public SyntaxErrorException (String message, int lineNumber, int characterPosition) {
-        super(message);
+        this(message, lineNumber, characterPosition, true);
+    }
+
+    /**
+     * @param stackTrace - false for the errors a recovering Lexer or Parser collects, which are only reported by their
+     *                   line and character. Filling in a stack trace is most of the cost of creating an exception.
+     */
+    public SyntaxErrorException (String message, int lineNumber, int characterPosition, boolean stackTrace) {
+        super(message, null, stackTrace, stackTrace);
         this.lineNumber = lineNumber;
         this.characterPosition = characterPosition;
     }
 
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    public int getCharacterPosition() {
+        return characterPosition;
+    }
+
     @Override
     public String toString() {
         return "Error at line " + lineNumber + " at character " + characterPosition + " at " + super.toString();
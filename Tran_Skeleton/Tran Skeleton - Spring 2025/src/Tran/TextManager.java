@@ -1,6 +1,7 @@
 package Tran;
 public class TextManager {
     private final String text;
+    private final int end;          //index after the last character this TextManager reads
     private int position;
 
     /**
@@ -8,7 +9,29 @@ public class TextManager {
      * @param input - assigned to the field text
      */
     public TextManager(String input) {
+        this(input, 0, input.length());
+    }
+
+    /**
+     * creates a TextManager object that only reads part of input, from start up to end. Positions are still indexes
+     * into the whole of input, and peeking behind start sees the characters before it.
+     * @param input - assigned to the field text
+     * @param start - the index of the first character to read, assigned to position
+     * @param end - the index after the last character to read
+     */
+    public TextManager(String input, int start, int end) {
         text = input;
+        this.end = end;
+        position = start;
+    }
+
+    /**
+     * For subclasses that keep their text somewhere other than a String (see MappedTextManager).
+     * Those subclasses must override every public method of this class.
+     */
+    protected TextManager() {
+        text = null;
+        end = 0;
         position = 0;
     }
 
@@ -16,7 +39,7 @@ public class TextManager {
      * @return true when position is an index or more past the last index
      */
     public boolean isAtEnd() {
-	    return position >= text.length();
+	    return position >= end;
     }
 
     /**
@@ -25,7 +48,7 @@ public class TextManager {
      * @return true when position + dist is an index or more past the last index
      */
     public boolean isAtEnd(int dist) {
-        return position + dist >= text.length();
+        return position + dist >= end;
     }
 
     /**
@@ -52,4 +75,75 @@ public class TextManager {
         position++;
         return theCharacter;
     }
+
+    /**
+     * @return the index of the next character to be read
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * @param c - the character to look for
+     * @return the index of the first c at or after position, or -1 if there is none before the end of the text
+     */
+    public int indexOf(char c) {
+        return indexOf(c, end);
+    }
+
+    /**
+     * Finds a character without moving position. String.indexOf() is a HotSpot intrinsic that compares many chars at
+     * once, so this is much faster than peeking at each char for long comments and strings.
+     * @param c - the character to look for
+     * @param to - the index to stop looking at (exclusive)
+     * @return the index of the first c at or after position and before to, or -1 if there is none
+     */
+    public int indexOf(char c, int to) {
+        to = Math.min(to, end);
+        if (position >= to) return -1;
+        return text.indexOf(c, position, to);
+    }
+
+    /**
+     * Moves position forward to target, as if getCharacter() had been called until it got there
+     * @param target - an index at or after position, from indexOf()
+     * @return the number of characters moved past
+     */
+    public int skipTo(int target) {
+        int skipped = target - position;
+        position = target;
+        return skipped;
+    }
+
+    /**
+     * Moves position past a run of ' ' and '\t' characters
+     * @return the number of characters moved past
+     */
+    public int skipSpaces() {
+        int start = position;
+        while (position < end) {
+            char c = text.charAt(position);
+            if (c != ' ' && c != '\t') break;
+            position++;
+        }
+        return position - start;
+    }
+
+    /**
+     * @param start - the index of the first character (inclusive)
+     * @param end - the index after the last character (exclusive)
+     * @return the text between start and end
+     */
+    public String substring(int start, int end) {
+        return text.substring(start, end);
+    }
+
+    /**
+     * @param start - the index to start comparing at
+     * @param word - the characters expected at start
+     * @return true when the text at start holds exactly the characters of word
+     */
+    public boolean regionMatches(int start, String word) {
+        return text.regionMatches(start, word, 0, word.length());
+    }
 }
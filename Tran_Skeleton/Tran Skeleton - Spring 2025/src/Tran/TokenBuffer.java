@@ -0,0 +1,301 @@
+package Tran;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A compact, append-only store of tokens laid out as parallel arrays instead of one Token object per token.
+ *      types        - the ordinal of each token's TokenTypes
+ *      lines        - the line number of each token
+ *      columns      - the column number of each token
+ *      valueStarts  - where the token's value starts in the source TextManager (or -(index + 1) into ownedValues)
+ *      valueLengths - the length of the token's value, NO_VALUE for tokens without one
+ *      symbols      - the SymbolTable id of each WORD token's name, NO_SYMBOL for every other token
+ * WORD, NUMBER, QUOTEDSTRING and QUOTEDCHARACTER values are kept as slices of the source text and only turned into a
+ * String when someone asks for them. Values that are not a slice of the source (tokens built from a list, for example)
+ * are held in ownedValues. WORD values come from the SymbolTable, so every token with the same name shares one String.
+ * Existing callers that want Token objects can use get(i) or the asList() view, which build a Token on request
+ * instead of keeping one per token.
+ */
+public class TokenBuffer {
+    private static final Token.TokenTypes[] TYPES = Token.TokenTypes.values();
+    private static final int NO_VALUE = -1;
+    private static final int NO_SYMBOL = -1;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final TextManager source;   //the text that value slices point into, null when built from a list
+    private final SymbolTable symbolTable;
+    private byte[] types;
+    private int[] lines;
+    private int[] columns;
+    private int[] valueStarts;
+    private int[] valueLengths;
+    private int[] symbols;
+    private final List<String> ownedValues = new ArrayList<>();
+    private Token[] originals;          //only present when built from existing Token objects, so get(i) returns them
+    private int size;
+
+    /**
+     * Creates an empty TokenBuffer whose value slices refer to the text in source
+     * @param source - the TextManager the lexer is reading from
+     */
+    public TokenBuffer(TextManager source) {
+        this(source, INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param source - the TextManager the lexer is reading from
+     * @param initialCapacity - the number of tokens to make room for before the arrays need to grow
+     */
+    public TokenBuffer(TextManager source, int initialCapacity) {
+        this(source, initialCapacity, new SymbolTable());
+    }
+
+    /**
+     * @param source - the TextManager the lexer is reading from
+     * @param initialCapacity - the number of tokens to make room for before the arrays need to grow
+     * @param symbolTable - the table WORD tokens are interned in
+     */
+    public TokenBuffer(TextManager source, int initialCapacity, SymbolTable symbolTable) {
+        this.source = source;
+        this.symbolTable = symbolTable;
+        int capacity = Math.max(initialCapacity, 1);
+        types = new byte[capacity];
+        lines = new int[capacity];
+        columns = new int[capacity];
+        valueStarts = new int[capacity];
+        valueLengths = new int[capacity];
+        symbols = new int[capacity];
+    }
+
+    /**
+     * Builds a TokenBuffer from already created tokens. get(i) hands back the very same Token objects.
+     * @param tokens - the tokens to copy the type, line and column of
+     * @return a TokenBuffer holding the same tokens in the same order
+     */
+    public static TokenBuffer of(List<Token> tokens) {
+        TokenBuffer buffer = new TokenBuffer(null, tokens.size());
+        buffer.originals = tokens.toArray(new Token[0]);
+        for (Token token : buffer.originals) {
+            String value = token.getValue();
+            if (value.isEmpty()) buffer.add(token.getType(), token.getLineNumber(), token.getColumnNumber());
+            else buffer.add(token.getType(), token.getLineNumber(), token.getColumnNumber(), value);
+        }
+        return buffer;
+    }
+
+    /**
+     * Adds a token that does not hold a value
+     */
+    public void add(Token.TokenTypes type, int line, int column) {
+        int i = append(type, line, column);
+        valueStarts[i] = 0;
+        valueLengths[i] = NO_VALUE;
+        symbols[i] = NO_SYMBOL;
+    }
+
+    /**
+     * Adds a token whose value is the text between start (inclusive) and end (exclusive) in the source TextManager
+     */
+    public void add(Token.TokenTypes type, int line, int column, int start, int end) {
+        int i = append(type, line, column);
+        valueStarts[i] = start;
+        valueLengths[i] = end - start;
+        symbols[i] = type == Token.TokenTypes.WORD ? symbolTable.intern(source.substring(start, end)) : NO_SYMBOL;
+    }
+
+    /**
+     * Adds a WORD token whose name the Lexer has already interned in this buffer's SymbolTable
+     */
+    public void addWord(int line, int column, int start, int end, int symbol) {
+        int i = append(Token.TokenTypes.WORD, line, column);
+        valueStarts[i] = start;
+        valueLengths[i] = end - start;
+        symbols[i] = symbol;
+    }
+
+    /**
+     * Adds a token whose value is not a slice of the source text
+     */
+    public void add(Token.TokenTypes type, int line, int column, String value) {
+        int i = append(type, line, column);
+        ownedValues.add(value);
+        valueStarts[i] = -ownedValues.size();
+        valueLengths[i] = value.length();
+        symbols[i] = type == Token.TokenTypes.WORD ? symbolTable.intern(value) : NO_SYMBOL;
+    }
+
+    private int append(Token.TokenTypes type, int line, int column) {
+        if (size == types.length) grow();
+        types[size] = (byte) type.ordinal();
+        lines[size] = line;
+        columns[size] = column;
+        return size++;
+    }
+
+    /**
+     * Adds every token in other to the end of this buffer. Value slices are copied as they are, so other must slice
+     * the same source text as this buffer. Like the rest of the added tokens, get(i) creates new Token objects for them.
+     * @param other - the tokens to add
+     */
+    public void addAll(TokenBuffer other) {
+        if (originals != null) throw new IllegalStateException("cannot add to a buffer built from a list of tokens");
+        int count = other.size;
+        while (size + count > types.length) grow();
+        System.arraycopy(other.types, 0, types, size, count);
+        System.arraycopy(other.lines, 0, lines, size, count);
+        System.arraycopy(other.columns, 0, columns, size, count);
+        System.arraycopy(other.valueStarts, 0, valueStarts, size, count);
+        System.arraycopy(other.valueLengths, 0, valueLengths, size, count);
+        System.arraycopy(other.symbols, 0, symbols, size, count);
+        int[] ids = other.symbolTable == symbolTable ? null : new int[other.symbolTable.size()];
+        if (ids != null) {  //gives other's names their ids in this buffer's table
+            for (int id = 0; id < ids.length; id++) ids[id] = symbolTable.intern(other.symbolTable.name(id));
+        }
+        for (int i = size; i < size + count; i++) {
+            if (valueStarts[i] < 0 && valueLengths[i] != NO_VALUE) {    //an owned value, give it an index in this buffer
+                ownedValues.add(other.ownedValues.get(-valueStarts[i] - 1));
+                valueStarts[i] = -ownedValues.size();
+            }
+            if (ids != null && symbols[i] != NO_SYMBOL) symbols[i] = ids[symbols[i]];
+        }
+        size += count;
+    }
+
+    /**
+     * Moves the token at index i delta columns to the right
+     */
+    public void shiftColumn(int i, int delta) {
+        columns[i] += delta;
+    }
+
+    private void grow() {
+        int capacity = types.length * 2;
+        types = Arrays.copyOf(types, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+        columns = Arrays.copyOf(columns, capacity);
+        valueStarts = Arrays.copyOf(valueStarts, capacity);
+        valueLengths = Arrays.copyOf(valueLengths, capacity);
+        symbols = Arrays.copyOf(symbols, capacity);
+    }
+
+    /**
+     * Empties the buffer so it can be filled again without growing its arrays
+     */
+    public void clear() {
+        size = 0;
+        ownedValues.clear();
+        originals = null;
+    }
+
+    /**
+     * @return the number of tokens in the buffer
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the type of the token at index i
+     */
+    public Token.TokenTypes type(int i) {
+        return TYPES[types[i]];
+    }
+
+    /**
+     * @return the line number of the token at index i
+     */
+    public int line(int i) {
+        return lines[i];
+    }
+
+    /**
+     * @return the column number of the token at index i
+     */
+    public int column(int i) {
+        return columns[i];
+    }
+
+    /**
+     * @return whether the token at index i was given a value
+     */
+    public boolean hasValue(int i) {
+        return valueLengths[i] != NO_VALUE;
+    }
+
+    /**
+     * Creates the value String for the token at index i. Like Token.getValue(), a token without a value gives ""
+     * @return the value of the token at index i
+     */
+    public String value(int i) {
+        if (valueLengths[i] == NO_VALUE) return "";
+        if (symbols[i] != NO_SYMBOL) return symbolTable.name(symbols[i]);
+        int start = valueStarts[i];
+        if (start < 0) return ownedValues.get(-start - 1);
+        return source.substring(start, start + valueLengths[i]);
+    }
+
+    /**
+     * @return the SymbolTable id of the WORD token at index i, or -1 for any other token
+     */
+    public int symbol(int i) {
+        return symbols[i];
+    }
+
+    /**
+     * @return the table the names of the WORD tokens in this buffer are interned in
+     */
+    public SymbolTable symbolTable() {
+        return symbolTable;
+    }
+
+    /**
+     * @return a Token for index i. This is the original Token when the buffer was built from a list, otherwise a new
+     *          Token that is not kept by the buffer
+     */
+    public Token get(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("Token index " + i + " out of bounds for " + size);
+        if (originals != null) return originals[i];
+        if (valueLengths[i] == NO_VALUE) return new Token(type(i), lines[i], columns[i]);
+        return new Token(type(i), lines[i], columns[i], value(i));
+    }
+
+    /**
+     * @return a read-only List view of this buffer. Tokens are created by get(i) as they are requested
+     */
+    public List<Token> asList() {
+        return new TokenListView();
+    }
+
+    /**
+     * @return an estimate of the bytes held by this buffer's arrays (not counting the source text)
+     */
+    public long footprintBytes() {
+        long arrays = 16L * 6 + types.length
+                + 4L * (lines.length + columns.length + valueStarts.length + valueLengths.length + symbols.length);
+        long owned = 0;
+        for (String value : ownedValues) owned += 40 + value.length();
+        return arrays + owned;
+    }
+
+    /**
+     * The List returned by asList(). The Parser recognizes it and reads the buffer directly.
+     */
+    class TokenListView extends AbstractList<Token> implements RandomAccess {
+        @Override
+        public Token get(int index) {
+            return TokenBuffer.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        TokenBuffer buffer() {
+            return TokenBuffer.this;
+        }
+    }
+}
@@ -1,14 +1,23 @@
 package Tran;
-import java.io.Serial;
-import java.util.LinkedList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
 /**
  * A class built for use with the tran parser class.
- * It contains a tokenList passed in within the constructor that manages the list.
- *      private final List<Token> tokenList
+ * It reads from a TokenBuffer (built by the Lexer, or from the list passed in within the constructor) and keeps a
+ * cursor that marks the current (first unconsumed) token. Removing a token only advances the cursor, and every
+ * lookahead is a single array index.
+ * It can also read from an Iterator, such as the one returned by Lexer.LexStream(). Tokens are then pulled only as
+ * far as the parser looks ahead and kept in a small ring (the window) until they are removed, at which point the
+ * TokenManager lets go of them.
+ *      private final TokenBuffer tokens
+ *      private final Iterator<Token> stream
+ *      private int cursor
  *      public TokenManager(List<Token> tokens){}
+ *      public TokenManager(TokenBuffer tokens){}
+ *      public TokenManager(TokenBuffer tokens, int from, int to){}
+ *      public TokenManager(Iterator<Token> tokens){}
  * This class contains several classic list functions as described below:
  *      public boolean done() //to indicate whether the current list is empty
  *      public boolean done(int i) //to indicate whether the current list has a token in the index given
@@ -23,24 +32,133 @@ import java.util.Optional;
  *          //returns true if the first token's type matches either of the token types passed in
  *      public int getCurrentLine() //returns the line number of the first element
  *      public int getCurrentColumn()   //returns the column number of the first element
+ * The allocation-free variants below are what the parser uses on its hot paths. The Optional functions above are
+ * kept as thin wrappers around them:
+ *      public boolean match(Token.TokenTypes type) //removes the first token if it is of the type passed in
+ *      public Token take(Token.TokenTypes type) //removes and returns the first token if it matches, otherwise null
+ *      public String takeValue(Token.TokenTypes type) //like take, but only creates the token's value
+ *      public String peekValue() //the value of the first token without removing it
+ *      public Token peekToken(int index) //returns the token at the given index or null past the end
+ *      public Token.TokenTypes peekType(int index) //returns the type at the given index or null past the end
+ *      public int position() //the number of tokens consumed so far
+ *      public int peekSymbol() //the SymbolTable id of the first token when it is a WORD, otherwise -1
+ *      public TokenBuffer buffer() //the TokenBuffer being read, null when streaming
  *  Authors: Aria Nova Chaudoir and Professor Michael Phipps (Outlined Algorithm)
  */
 public class TokenManager {
-    private final List<Token> tokenList;    //holds a list of tokens that represent keywords and sometimes hold values.
+    private static final int INITIAL_WINDOW = 8;
+
+    private final TokenBuffer tokens;   //holds the tokens that represent keywords and sometimes hold values. null when streaming
+    private final int size;
+    private int cursor;                 //index of the first token that has not been removed yet
+    private final Iterator<Token> stream;   //where tokens are pulled from when streaming, otherwise null
+    private Token[] window;             //ring of pulled tokens that have not been removed yet, its length is a power of 2
+    private int windowStart;            //index in window of the token at the cursor
+    private int windowCount;            //number of tokens in window
 
     /**
-     * Constructs a TokenManager object that contains a field of a list of tokens accordingly called tokenList
-     * @param tokens - the list of tokens that will be assigned to tokenList
+     * Constructs a TokenManager object that copies the list of tokens into a TokenBuffer and places the cursor on the
+     * first token. The tokens handed back by this TokenManager are the same objects as the ones in the list.
+     * @param tokens - the list of tokens that will be read by this TokenManager
      */
     public TokenManager(List<Token> tokens) {
-        this.tokenList = (List<Token>) tokens;
+        this(TokenBuffer.of(tokens));
+    }
+
+    /**
+     * Constructs a TokenManager object that reads straight from a TokenBuffer and places the cursor on the first token
+     * @param tokens - the tokens that will be read by this TokenManager
+     */
+    public TokenManager(TokenBuffer tokens) {
+        this(tokens, 0, tokens.size());
+    }
+
+    /**
+     * Constructs a TokenManager object that only reads part of a TokenBuffer. The list ends at index to, and
+     * position() counts from the start of the buffer, not from index from.
+     * @param tokens - the tokens that will be read by this TokenManager
+     * @param from - the index of the first token to read, where the cursor is placed
+     * @param to - the index after the last token to read
+     */
+    public TokenManager(TokenBuffer tokens, int from, int to) {
+        this.tokens = tokens;
+        this.size = to;
+        this.cursor = from;
+        this.stream = null;
+    }
+
+    /**
+     * Constructs a TokenManager object that pulls tokens from an Iterator as they are needed. Only the tokens between
+     * the cursor and the furthest lookahead are held on to.
+     * @param tokens - the tokens that will be read by this TokenManager, such as Lexer.LexStream()
+     */
+    public TokenManager(Iterator<Token> tokens) {
+        this.tokens = null;
+        this.size = 0;
+        this.cursor = 0;
+        this.stream = tokens;
+        this.window = new Token[INITIAL_WINDOW];
+    }
+
+    /**
+     * When streaming, pulls tokens into the window until it holds the token at index, growing the window if the
+     * lookahead is deeper than it has room for.
+     * @param index - the index of the Token ahead of the cursor
+     * @return whether there is a token at index
+     */
+    private boolean has(int index) {
+        if(stream == null) return cursor + index < size;
+        while(windowCount <= index) {
+            if(!stream.hasNext()) return false;
+            if(windowCount == window.length) growWindow();
+            window[(windowStart + windowCount) & (window.length - 1)] = stream.next();
+            windowCount++;
+        }
+        return true;
+    }
+
+    private void growWindow() {
+        Token[] grown = new Token[window.length * 2];
+        for(int i = 0; i < windowCount; i++) {
+            grown[i] = window[(windowStart + i) & (window.length - 1)];
+        }
+        window = grown;
+        windowStart = 0;
+    }
+
+    /**
+     * @param index - the index of the Token ahead of the cursor, has(index) must be true
+     * @return the pulled token at index
+     */
+    private Token windowToken(int index) {
+        return window[(windowStart + index) & (window.length - 1)];
+    }
+
+    /**
+     * @return the type of the token at index, or null when there is none
+     */
+    private Token.TokenTypes typeAt(int index) {
+        if(!has(index)) return null;
+        return stream == null ? tokens.type(cursor + index) : windowToken(index).getType();
+    }
+
+    /**
+     * Moves the cursor past the current token. When streaming, the window drops its reference to it.
+     */
+    private void advance() {
+        if(stream != null) {
+            window[windowStart] = null;
+            windowStart = (windowStart + 1) & (window.length - 1);
+            windowCount--;
+        }
+        cursor++;
     }
 
     /**
      * @return whether the list is empty
      */
     public boolean done() {
-	    return tokenList.isEmpty();
+	    return !has(0);
     }
 
     /**
@@ -51,15 +169,11 @@ public class TokenManager {
         if(i < 0){ //very foolish but possible
             throw new IndexOutOfBoundsException("requested to check if the file finishes at a negative index");
         }
-        return i >= tokenList.size();
+        return !has(i);
     }
 
     /**
-     * This method first peeks at the first element in the list getting an optional as a return.
-     * It then checks if that optional is empty(null) indicating the end of the list has been reached.
-     * After that, it checks if the current first element (node) of the list is of the type passed in.
-     *      If it is, it removes that element from the list and returns an optional of it.
-     *      Otherwise, it returns an empty optional
+     * Optional wrapper around take(type).
      * @param type - the type of the optional we are looking for / expecting
      * @return an optional containing either:
      *      An empty optional indicating that the list is either
@@ -68,14 +182,57 @@ public class TokenManager {
      *      An optional of the type passed in
      */
     public Optional<Token> matchAndRemove(Token.TokenTypes type) {
-        var optionalOfToken = peek();
-        if(optionalOfToken.isEmpty()) return Optional.empty();
+        return Optional.ofNullable(take(type));
+    }
 
-        if(type.equals(optionalOfToken.get().getType())){
-            tokenList.removeFirst();
-            return optionalOfToken;
-        }
-        else return Optional.empty();
+    /**
+     * Checks if the current first token of the list is of the type passed in. If it is, the cursor is moved past it.
+     * @param type - the type we are expecting
+     * @return  the removed token
+     *          OR null when the list is empty or the first token is not of the type passed in
+     */
+    public Token take(Token.TokenTypes type) {
+        Token.TokenTypes current = typeAt(0);
+        if(current == null || current != type) return null;
+        Token token = stream == null ? tokens.get(cursor) : windowToken(0);
+        advance();
+        return token;
+    }
+
+    /**
+     * Same as take(type), but hands back the value of the removed token instead of the token
+     * @param type - the type we are expecting
+     * @return  the value of the removed token ("" for tokens without a value)
+     *          OR null when the list is empty or the first token is not of the type passed in
+     */
+    public String takeValue(Token.TokenTypes type) {
+        Token.TokenTypes current = typeAt(0);
+        if(current == null || current != type) return null;
+        String value = stream == null ? tokens.value(cursor) : windowToken(0).getValue();
+        advance();
+        return value;
+    }
+
+    /**
+     * Lets the parser tell apart WORDs that only have a meaning in some places, such as "and", "not" or "true" in an
+     * expression.
+     * @return the value of the first token ("" for tokens without a value), or null when the list is empty
+     */
+    public String peekValue() {
+        if(!has(0)) return null;
+        return stream == null ? tokens.value(cursor) : windowToken(0).getValue();
+    }
+
+    /**
+     * Same as take(type), but only reports whether the token was removed.
+     * @param type - the type we are expecting
+     * @return true if the first token was of the type passed in and has been removed
+     */
+    public boolean match(Token.TokenTypes type) {
+        Token.TokenTypes current = typeAt(0);
+        if(current == null || current != type) return false;
+        advance();
+        return true;
     }
 
     /**
@@ -88,19 +245,69 @@ public class TokenManager {
     }
 
     /**
-     * This function starts by ensuring that the index passed in is a non-negative value.
+     * Optional wrapper around peekToken(index).
      * @param index     - the index of the Token in the list being returned
      * @return either   - An optional containing The token requested
      *                  - An optional that is empty (request out of bounds of the list)
      */
     public Optional<Token> peek(int index) {
-	    if(index < 0){
+        return Optional.ofNullable(peekToken(index));
+    }
+
+    /**
+     * This function starts by ensuring that the index passed in is a non-negative value.
+     * @param index     - the index of the Token ahead of the cursor being returned
+     * @return either   - The token requested
+     *                  - null (request out of bounds of the list)
+     */
+    public Token peekToken(int index) {
+        if(index < 0){
             throw new IndexOutOfBoundsException("Requested to peek at a token with a negative index");
         }
-        if(done(index)){ //at the end of the array for the currentIndex + i
-            return Optional.empty();
+        if(!has(index)) return null;
+        return stream == null ? tokens.get(cursor + index) : windowToken(index);
+    }
+
+    /**
+     * @return the type of the first token, or null when the list is empty
+     */
+    public Token.TokenTypes peekType() {
+        return typeAt(0);
+    }
+
+    /**
+     * @param index - the index of the Token ahead of the cursor being checked
+     * @return the type of the token at that index, or null when the request is out of bounds of the list
+     */
+    public Token.TokenTypes peekType(int index) {
+        if(index < 0){
+            throw new IndexOutOfBoundsException("Requested to peek at a token with a negative index");
         }
-        return Optional.ofNullable(tokenList.get(index));
+        return typeAt(index);
+    }
+
+    /**
+     * Lets the parser carry a WORD's symbol id along with (or instead of) its name. Tokens pulled from a stream do not
+     * have ids.
+     * @return the SymbolTable id of the first token when it is a WORD read from a TokenBuffer, otherwise -1
+     */
+    public int peekSymbol() {
+        if(stream != null || !has(0)) return -1;
+        return tokens.symbol(cursor);
+    }
+
+    /**
+     * @return the TokenBuffer being read, or null when reading from a stream
+     */
+    public TokenBuffer buffer() {
+        return tokens;
+    }
+
+    /**
+     * @return the table peekSymbol() ids belong to, or null when reading from a stream
+     */
+    public SymbolTable symbolTable() {
+        return tokens == null ? null : tokens.symbolTable();
     }
 
     /**
@@ -111,17 +318,17 @@ public class TokenManager {
      * @return - a boolean representing whether the next two tokens are of the types passed in
      */
     public boolean nextTwoTokensMatch(Token.TokenTypes first, Token.TokenTypes second) {
-        Optional<Token> firstOptionalToken = peek();
-        Optional<Token> secondOptionalToken = peek(1);
+        Token.TokenTypes firstType = peekType(0);
+        Token.TokenTypes secondType = peekType(1);
 
         //handles null input (expected and otherwise) and end of list
-        if(firstOptionalToken.isEmpty() && secondOptionalToken.isEmpty()) return (first == null && second == null);
-        if(firstOptionalToken.isEmpty()) throw new IllegalArgumentException("tried" +
+        if(firstType == null && secondType == null) return (first == null && second == null);
+        if(firstType == null) throw new IllegalArgumentException("tried" +
                 "to compare a non null token with preceding token type parameter being null");
-        if(secondOptionalToken.isEmpty()) return (first.equals(firstOptionalToken.get().getType()) && second == null);
+        if(secondType == null) return (firstType == first && second == null);
 
-        //non-null input and now safe to use get()
-        return (firstOptionalToken.get().getType().equals(first) && secondOptionalToken.get().getType().equals(second));
+        //non-null types on both tokens
+        return firstType == first && secondType == second;
     }
 
     /**
@@ -130,22 +337,33 @@ public class TokenManager {
      * @return true if the first or second type passed in is equivalent to the type of the current token
      */
     public boolean nextIsEither(Token.TokenTypes first, Token.TokenTypes second) {
-	    Optional<Token> optionalToken = peek();
+        Token.TokenTypes type = peekType();
 
         //for null input or end of file
-        if(optionalToken.isEmpty()) return (first == null || second == null);
+        if(type == null) return (first == null || second == null);
 
         //current token is not null, IOW token list is not empty
-        var type = optionalToken.get().getType();
-        return type.equals(first) || type.equals(second);
+        return type == first || type == second;
     }
 
     /**
-     * Useful when users want to know if the size of the tokenList has changed since their algorithm started
-     * @return
+     * Useful when users want to know if the size of the tokenList has changed since their algorithm started.
+     * When streaming this has to pull every remaining token into the window, position() is the cheaper way to tell
+     * whether tokens were removed.
+     * @return the number of tokens that have not been removed yet
      */
     public int tokensLeft(){
-        return tokenList.size();
+        if(stream == null) return size - cursor;
+        while(has(windowCount));
+        return windowCount;
+    }
+
+    /**
+     * Useful when users want to know if any tokens were removed since their algorithm started
+     * @return the number of tokens removed so far
+     */
+    public int position() {
+        return cursor;
     }
 
     /**
@@ -155,24 +373,22 @@ public class TokenManager {
      *           False if their types are different
      */
     public boolean nextIs(Token.TokenTypes type) {
-        Optional<Token> optionalToken = peek();
-        if(optionalToken.isEmpty()) return type == null;
-        else return type == optionalToken.get().getType();
+        return peekType() == type;
     }
 
     /**
      * @return - the current line number of the current token
      */
     public int getCurrentLine() {
-            if(done(0)) return -1;
-            return tokenList.getFirst().getLineNumber();
+            if(done()) return -1;
+            return stream == null ? tokens.line(cursor) : windowToken(0).getLineNumber();
     }
 
     /**
      * @return = the current column number of the currentToken
      */
     public int getCurrentColumnNumber() {
-            if(done(0)) return -1;
-            return tokenList.getFirst().getColumnNumber();
+            if(done()) return -1;
+            return stream == null ? tokens.column(cursor) : windowToken(0).getColumnNumber();
     }
 }
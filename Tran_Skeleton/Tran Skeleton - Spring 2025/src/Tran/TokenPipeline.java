@@ -0,0 +1,152 @@
+package Tran;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a Lexer on its own thread so lexing and parsing overlap. The lexer thread pulls from Lexer.LexStream(), groups
+ * the tokens into batches and publishes them into a bounded ring that has exactly one producer (the lexer thread) and
+ * one consumer (whoever iterates this object, normally a TokenManager inside the Parser):
+ *      try (TokenPipeline tokens = new TokenPipeline(new Lexer(text))) {
+ *          new Parser(tranNode, tokens).Tran();
+ *      }
+ * The ring does not lock. The producer writes a batch into its slot and then publishes it by moving tail forward, the
+ * consumer reads the slot once it sees tail has moved and frees it by moving head forward. Each side waits on the other
+ * (spinning, then parking for short periods) only when the ring is full or empty.
+ * A SyntaxErrorException found by the lexer is handed over after every token lexed before it, and is thrown from
+ * hasNext() or next() as an UncheckedSyntaxErrorException, which Parser.Tran() unwraps. Anything else the lexer thread
+ * throws, an Error included, is thrown from hasNext() or next() in the same way.
+ * close() stops the lexer thread early, for example when the parser fails before reaching the end of the tokens.
+ */
+public class TokenPipeline implements Iterator<Token>, AutoCloseable {
+    private static final int BATCH_SIZE = 256;
+    private static final int RING_SIZE = 64;                //batches, must be a power of 2
+    private static final Token[] END = new Token[0];        //published after the last batch
+    private static final int SPINS = 100;
+
+    private final Token[][] ring = new Token[RING_SIZE][];
+    private final AtomicLong head = new AtomicLong();       //next batch the consumer reads
+    private final AtomicLong tail = new AtomicLong();       //next batch the producer writes
+    private volatile boolean closed;
+    private Throwable failure;          //written by the producer before END is published, read after END is seen
+
+    //consumer side only
+    private Token[] batch = new Token[0];
+    private int read;
+    private boolean ended;
+
+    /**
+     * Starts lexing on a new platform thread
+     * @param lexer - a Lexer that has not lexed its text yet
+     */
+    public TokenPipeline(Lexer lexer) {
+        this(lexer, Thread.ofPlatform().name("tran-lexer").daemon(true));
+    }
+
+    /**
+     * Starts lexing on a thread created by the builder passed in, such as Thread.ofVirtual()
+     * @param lexer - a Lexer that has not lexed its text yet
+     * @param threads - the builder used to create the lexer thread
+     */
+    public TokenPipeline(Lexer lexer, Thread.Builder threads) {
+        Iterator<Token> tokens = lexer.LexStream();
+        threads.start(() -> produce(tokens));
+    }
+
+    /**
+     * The body of the lexer thread: lexes every token into batches and publishes them, then publishes END. Whatever the
+     * lexer throws is kept in failure, to be thrown on the consumer's thread
+     */
+    private void produce(Iterator<Token> tokens) {
+        Token[] next = new Token[BATCH_SIZE];
+        int count = 0;
+        try {
+            while (!closed && tokens.hasNext()) {
+                Token token = tokens.next();
+                next[count++] = token;
+                if (count == BATCH_SIZE) {
+                    if (!publish(next)) return;
+                    next = new Token[BATCH_SIZE];
+                    count = 0;
+                }
+            }
+        } catch (Throwable e) {
+            failure = e;
+        } finally {
+            //the tokens lexed before a failure, then END even after an Error, so the consumer is not left waiting
+            if (count > 0 && count < BATCH_SIZE) publish(Arrays.copyOf(next, count));
+            publish(END);
+        }
+    }
+
+    /**
+     * Waits for a free slot, fills it and moves tail past it
+     * @return false if the pipeline was closed while waiting
+     */
+    private boolean publish(Token[] tokens) {
+        long slot = tail.get();
+        int waits = 0;
+        while (slot - head.getAcquire() == RING_SIZE) {
+            if (closed) return false;
+            waits = backOff(waits);
+        }
+        ring[(int) slot & (RING_SIZE - 1)] = tokens;
+        tail.setRelease(slot + 1);
+        return true;
+    }
+
+    /**
+     * Waits for the producer to publish a batch, takes it out of the ring and moves head past it
+     */
+    private Token[] receive() {
+        long slot = head.get();
+        int waits = 0;
+        while (tail.getAcquire() == slot) {
+            waits = backOff(waits);
+        }
+        int index = (int) slot & (RING_SIZE - 1);
+        Token[] tokens = ring[index];
+        ring[index] = null;
+        head.setRelease(slot + 1);
+        return tokens;
+    }
+
+    private static int backOff(int waits) {
+        if (waits < SPINS) Thread.onSpinWait();
+        else LockSupport.parkNanos(20_000);
+        return waits + 1;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (read == batch.length && !ended) {
+            batch = receive();
+            read = 0;
+            if (batch == END) {
+                ended = true;
+                if (failure instanceof RuntimeException e) throw e;
+                if (failure instanceof Error e) throw e;
+                if (failure != null) throw new IllegalStateException(failure);
+            }
+        }
+        return read < batch.length;
+    }
+
+    @Override
+    public Token next() {
+        if (!hasNext()) throw new NoSuchElementException("no tokens left in the pipeline");
+        Token token = batch[read];
+        batch[read++] = null;   //the batch is dropped by the consumer once read, so consumed tokens can be collected
+        return token;
+    }
+
+    /**
+     * Stops the lexer thread if it is still waiting to publish. Tokens that were not read are dropped.
+     */
+    @Override
+    public void close() {
+        closed = true;
+    }
+}
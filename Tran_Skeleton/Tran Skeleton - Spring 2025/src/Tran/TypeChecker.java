@@ -0,0 +1,417 @@
+package Tran;
+import AST.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Checks the types in a whole program before it runs, so a program that passes can run without the Interpreter
+ * checking the type of every value passed to a method (see Interpreter(TranNode, boolean)).
+ *      List<String> errors = TypeChecker.check(tran); //empty when the program is well typed
+ * A type is the name used in declarations: number, string, boolean, character, or a class or interface name. The types
+ * of expressions are worked out from VariableDeclarationNode.type, method returns and InterfaceNode method headers, and
+ * recorded on the nodes whose type is not fixed by their kind: VariableReferenceNode, MathOpNode, NewNode and
+ * MethodCallExpressionNode. Every call to a class's method gets its target and every NewNode its constructor, picked by
+ * the types of the values passed in, the way the Interpreter picks them by the values it has when it runs (the first
+ * method in the class whose parameters accept them).
+ * The rules follow what the Interpreter allows:
+ *      a value can be assigned or passed to its own type, or to an interface its class implements
+ *      math is on numbers, except + which joins anything to a string
+ *      comparisons are between two numbers, strings or characters, and == and != also between two booleans
+ *      and, or, not, if and loop take booleans, except a loop over a number variable's times()
+ * Checking runs Resolver.resolve() first and parses any method bodies that were left unparsed.
+ */
+public class TypeChecker {
+    private static final String NUMBER = "number", STRING = "string", BOOLEAN = "boolean", CHARACTER = "character";
+
+    private final HashMap<String, ClassNode> classes = new HashMap<>();
+    private final HashMap<String, InterfaceNode> interfaces = new HashMap<>();
+    private final List<MethodDeclarationNode> sharedMethods = new ArrayList<>();
+    private final List<String> errors = new ArrayList<>();
+    private String where;   //the class and method being checked, for error messages
+
+    private TypeChecker(TranNode tran) {
+        for (var c : tran.Classes) {
+            classes.putIfAbsent(c.name, c);
+            for (var m : c.methods) {
+                if (m.isShared) sharedMethods.add(m);
+            }
+        }
+        for (var i : tran.Interfaces) interfaces.putIfAbsent(i.name, i);
+    }
+
+    /**
+     * @return a message for each type error in tran, none when every method, constructor and member is well typed
+     */
+    public static List<String> check(TranNode tran) {
+        Resolver.resolve(tran);
+        TypeChecker checker = new TypeChecker(tran);
+        for (var i : tran.Interfaces) {
+            for (var header : i.methods) {
+                checker.where = "interface " + i.name + "." + header.name;
+                checker.checkDeclarations(header.parameters);
+                checker.checkDeclarations(header.returns);
+            }
+        }
+        for (var c : tran.Classes) checker.checkClass(c);
+        return checker.errors;
+    }
+
+    /**
+     * The declared types of the variables a body can use, in the Resolver's slot order
+     */
+    private static class Frame {
+        final ClassNode classNode;
+        final boolean hasObject;
+        final List<VariableDeclarationNode> declarations = new ArrayList<>();
+
+        Frame(ClassNode classNode, boolean hasObject) {
+            this.classNode = classNode;
+            this.hasObject = hasObject;
+        }
+    }
+
+    private void checkClass(ClassNode c) {
+        for (var name : c.interfaces) {
+            where = "class " + c.name;
+            var implemented = interfaces.get(name);
+            if (implemented == null) {
+                error("implements " + name + ", which is not an interface");
+                continue;
+            }
+            for (var header : implemented.methods) {
+                boolean found = false;
+                for (var m : c.methods) found |= m.name.equals(header.name) && sameTypes(m.parameters, header.parameters) && sameTypes(m.returns, header.returns);
+                if (!found) error("does not have " + header.name + "() as declared in " + name);
+            }
+        }
+        for (var member : c.members) {
+            where = "class " + c.name + " member " + member.declaration.name;
+            checkDeclaration(member.declaration, new Frame(c, true));
+        }
+        for (var constructor : c.constructors) {
+            where = "class " + c.name + " constructor";
+            Frame frame = new Frame(c, true);
+            addAll(constructor.parameters, frame);
+            addLocals(constructor.locals, frame);
+            checkStatements(constructor.statements, frame);
+        }
+        for (var m : c.methods) {
+            if (m instanceof BuiltInMethodDeclarationNode) continue;
+            where = "class " + c.name + " method " + m.name;
+            try {
+                m.parseBody();
+            } catch (SyntaxErrorException e) {
+                error(e.getMessage());
+                continue;
+            }
+            Frame frame = new Frame(c, !m.isShared);
+            addAll(m.parameters, frame);
+            addAll(m.returns, frame);
+            addLocals(m.locals, frame);
+            checkStatements(m.statements, frame);
+        }
+    }
+
+    private void addAll(List<VariableDeclarationNode> declarations, Frame frame) {
+        checkDeclarations(declarations);
+        frame.declarations.addAll(declarations);
+    }
+
+    private void addLocals(List<VariableDeclarationNode> locals, Frame frame) {
+        for (var local : locals) {
+            checkDeclaration(local, frame);
+            frame.declarations.add(local);
+        }
+    }
+
+    private void checkDeclarations(List<VariableDeclarationNode> declarations) {
+        for (var declaration : declarations) {
+            if (!isType(declaration.type)) error("unknown type " + declaration.type + " for " + declaration.name);
+        }
+    }
+
+    private void checkDeclaration(VariableDeclarationNode declaration, Frame frame) {
+        if (!isType(declaration.type)) error("unknown type " + declaration.type + " for " + declaration.name);
+        if (declaration.initializer.isPresent()) {
+            expectAssignable(declaration.type, typeOf(declaration.initializer.get(), frame), declaration.name);
+        }
+    }
+
+    private void checkStatements(List<StatementNode> statements, Frame frame) {
+        for (var statement : statements) {
+            if (statement instanceof AssignmentNode assignment) {
+                String value = typeOf(assignment.expression, frame);
+                expectAssignable(typeOf(assignment.target, frame), value, assignment.target.name);
+            } else if (statement instanceof MethodCallStatementNode mc) {
+                List<String> arguments = new ArrayList<>(mc.parameters.size());
+                for (var parameter : mc.parameters) arguments.add(typeOf(parameter, frame));
+                List<VariableDeclarationNode> returns = checkCall(mc, arguments, mc.returnValues.size(), frame);
+                if (returns == null) continue;
+                for (int i = 0; i < mc.returnValues.size(); i++) {
+                    expectAssignable(typeOf(mc.returnValues.get(i), frame), returns.get(i).type, mc.returnValues.get(i).name);
+                }
+            } else if (statement instanceof IfNode ifNode) {
+                expect(BOOLEAN, typeOf(ifNode.condition, frame), "if condition");
+                checkStatements(ifNode.statements, frame);
+                if (ifNode.elseStatement.isPresent()) checkStatements(ifNode.elseStatement.get().statements, frame);
+            } else if (statement instanceof LoopNode loop) {
+                String counted = isTimes(loop.expression, frame) ? NUMBER : null;
+                if (counted == null) expect(BOOLEAN, typeOf(loop.expression, frame), "loop condition");
+                if (loop.assignment.isPresent()) {
+                    expectAssignable(typeOf(loop.assignment.get(), frame), counted != null ? counted : BOOLEAN, loop.assignment.get().name);
+                }
+                checkStatements(loop.statements, frame);
+            }
+        }
+    }
+
+    //loop n.times() counts up to the number n
+    private boolean isTimes(ExpressionNode expression, Frame frame) {
+        return expression instanceof MethodCallExpressionNode mce && mce.methodName.equals("times") && mce.parameters.isEmpty()
+                && mce.object != null && NUMBER.equals(typeOf(mce.object, frame));
+    }
+
+    /**
+     * Works out the type of an expression and everything in it, in postfix order with its own stacks
+     * @return the type, or null when it has an error (which has been reported)
+     */
+    private String typeOf(ExpressionNode expression, Frame frame) {
+        var pending = new ArrayList<ExpressionNode>();
+        var childrenDone = new ArrayList<Integer>();
+        var types = new ArrayList<String>();
+        pending.add(expression);
+        childrenDone.add(0);
+        while (!pending.isEmpty()) {
+            int top = pending.size() - 1;
+            ExpressionNode node = pending.get(top);
+            ExpressionNode child = child(node, childrenDone.get(top));
+            if (child != null) {
+                childrenDone.set(top, childrenDone.get(top) + 1);
+                pending.add(child);
+                childrenDone.add(0);
+                continue;
+            }
+            int count = childrenDone.removeLast();
+            pending.removeLast();
+            List<String> operands = types.subList(types.size() - count, types.size());
+            String type = typeOf(node, new ArrayList<>(operands), frame);
+            operands.clear();
+            types.add(type);
+        }
+        return types.getFirst();
+    }
+
+    private static ExpressionNode child(ExpressionNode node, int index) {
+        if (node instanceof MathOpNode math) return index == 0 ? math.left : index == 1 ? math.right : null;
+        if (node instanceof CompareNode compare) return index == 0 ? compare.left : index == 1 ? compare.right : null;
+        if (node instanceof BooleanOpNode op) return index == 0 ? op.left : index == 1 ? op.right : null;
+        if (node instanceof NotOpNode not) return index == 0 ? not.left : null;
+        if (node instanceof NewNode newNode) return index < newNode.parameters.size() ? newNode.parameters.get(index) : null;
+        if (node instanceof MethodCallExpressionNode call) return index < call.parameters.size() ? call.parameters.get(index) : null;
+        return null;
+    }
+
+    /**
+     * @param operands - the types of node's children, null for any that had an error
+     */
+    private String typeOf(ExpressionNode node, List<String> operands, Frame frame) {
+        if (node instanceof NumericLiteralNode) return NUMBER;
+        if (node instanceof StringLiteralNode) return STRING;
+        if (node instanceof CharLiteralNode) return CHARACTER;
+        if (node instanceof BooleanLiteralNode) return BOOLEAN;
+        if (node instanceof VariableReferenceNode variable) return typeOf(variable, frame);
+        if (operands.contains(null)) return null;   //already reported
+        if (node instanceof NotOpNode) {
+            expect(BOOLEAN, operands.getFirst(), "not");
+            return BOOLEAN;
+        }
+        if (node instanceof BooleanOpNode op) {
+            expect(BOOLEAN, operands.get(0), op.op.toString());
+            expect(BOOLEAN, operands.get(1), op.op.toString());
+            return BOOLEAN;
+        }
+        if (node instanceof CompareNode compare) {
+            String left = operands.get(0), right = operands.get(1);
+            boolean equality = compare.op == CompareNode.CompareOperations.eq || compare.op == CompareNode.CompareOperations.ne;
+            if (!left.equals(right) || !(left.equals(NUMBER) || left.equals(STRING) || left.equals(CHARACTER) || (equality && left.equals(BOOLEAN)))) {
+                error("cannot compare a " + left + " with a " + right + " in " + compare);
+            }
+            return BOOLEAN;
+        }
+        if (node instanceof MathOpNode math) {
+            String left = operands.get(0), right = operands.get(1);
+            if (left.equals(NUMBER) && right.equals(NUMBER)) math.type = NUMBER;
+            else if (math.op == MathOpNode.MathOperations.add && (left.equals(STRING) || right.equals(STRING))) math.type = STRING;
+            else {
+                error("cannot " + math.op + " a " + left + " and a " + right + " in " + math);
+                math.type = null;
+            }
+            return math.type;
+        }
+        if (node instanceof MethodCallExpressionNode mce) {
+            var mc = new MethodCallStatementNode(mce);     //shares the parameters, object and objectName
+            var returns = checkCall(mc, operands, 0, frame);
+            mce.target = mc.target;
+            mce.objectClass = mc.objectClass;
+            if (returns != null && returns.isEmpty()) error(mce + " does not return a value");
+            mce.type = returns == null || returns.isEmpty() ? null : returns.getFirst().type;
+            return mce.type;
+        }
+        if (node instanceof NewNode newNode) {
+            newNode.type = null;
+            var c = classes.get(newNode.className);
+            if (c == null) {
+                error("unknown class " + newNode.className);
+                return null;
+            }
+            newNode.classNode = c;
+            newNode.constructor = null;
+            boolean found = c.constructors.isEmpty() && operands.isEmpty();
+            boolean earlier = false;    //an earlier constructor might take the values when they run
+            for (var constructor : c.constructors) {
+                if (accepts(constructor.parameters, operands)) {
+                    if (!earlier) newNode.constructor = constructor;
+                    found = true;
+                    break;
+                }
+                earlier |= mightAccept(constructor.parameters, operands);
+            }
+            if (!found) {
+                error("no constructor of " + c.name + " takes " + operands);
+                return null;
+            }
+            newNode.type = c.name;
+            return newNode.type;
+        }
+        error("unknown expression " + node);
+        return null;
+    }
+
+    private String typeOf(VariableReferenceNode variable, Frame frame) {
+        variable.type = null;
+        if (variable.scope == VariableReferenceNode.Scope.MEMBER) variable.type = frame.classNode.members.get(variable.slot).declaration.type;
+        else if (variable.scope != null) variable.type = frame.declarations.get(variable.slot).type;
+        else error("unknown variable " + variable.name);
+        return variable.type;
+    }
+
+    /**
+     * Finds the method a call runs, and sets its target (and objectClass) when it is a class's method
+     * @param arguments - the types of the values passed in, null for any that had an error
+     * @return the method's returns, or null when there is no such method or an argument had an error
+     */
+    private List<VariableDeclarationNode> checkCall(MethodCallStatementNode mc, List<String> arguments, int returnValues, Frame frame) {
+        if (arguments.contains(null)) return null;
+        List<MethodDeclarationNode> candidates;
+        boolean sharedOnly = false;
+        mc.target = null;
+        if (mc.objectName.isEmpty()) {
+            mc.objectClass = frame.hasObject ? frame.classNode : null;
+            candidates = frame.hasObject ? frame.classNode.methods : sharedMethods;
+        } else if (mc.object != null) {
+            String type = typeOf(mc.object, frame);
+            if (type == null) return null;
+            var implemented = interfaces.get(type);
+            if (implemented != null) {
+                mc.objectClass = null;
+                for (var header : implemented.methods) {
+                    if (header.name.equals(mc.methodName) && accepts(header.parameters, arguments) && header.returns.size() >= returnValues) {
+                        return header.returns;
+                    }
+                }
+                error("interface " + type + " has no method for " + mc);
+                return null;
+            }
+            mc.objectClass = classes.get(type);
+            if (mc.objectClass == null) {
+                error("cannot call " + mc + " on a " + type);
+                return null;
+            }
+            candidates = mc.objectClass.methods;
+        } else {
+            mc.objectClass = classes.get(mc.objectName.get());
+            if (mc.objectClass == null) {
+                error("unknown variable or class " + mc.objectName.get());
+                return null;
+            }
+            candidates = mc.objectClass.methods;
+            sharedOnly = true;
+        }
+        boolean earlier = false;    //an earlier method might take the values when they run
+        for (var m : candidates) {
+            if (!m.name.equals(mc.methodName) || (sharedOnly && !m.isShared)) continue;
+            boolean variadic = m instanceof BuiltInMethodDeclarationNode builtIn && builtIn.isVariadic;
+            if ((variadic || accepts(m.parameters, arguments)) && m.returns.size() >= returnValues) {
+                if (!earlier) mc.target = m;
+                return m.returns;
+            }
+            earlier |= m.returns.size() >= returnValues && mightAccept(m.parameters, arguments);
+        }
+        error("no method for " + mc + " that takes " + arguments + " and returns " + returnValues + " values");
+        return null;
+    }
+
+    private boolean accepts(List<VariableDeclarationNode> parameters, List<String> arguments) {
+        if (parameters.size() != arguments.size()) return false;
+        for (int i = 0; i < arguments.size(); i++) {
+            if (!isAssignable(parameters.get(i).type, arguments.get(i))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * The Interpreter picks a method by the values it has when it runs: an object of a class that implements an
+     * interface, or a null reference, can match a parameter its variable's type does not. A call whose earlier
+     * candidates might match that way is left without a target, and picked when it runs.
+     */
+    private boolean mightAccept(List<VariableDeclarationNode> parameters, List<String> arguments) {
+        if (parameters.size() != arguments.size()) return false;
+        for (int i = 0; i < arguments.size(); i++) {
+            String parameter = parameters.get(i).type, argument = arguments.get(i);
+            if (!isAssignable(parameter, argument) && !(isObject(parameter) && isObject(argument))) return false;
+        }
+        return true;
+    }
+
+    private boolean isObject(String type) {
+        return classes.containsKey(type) || interfaces.containsKey(type);
+    }
+
+    private static boolean sameTypes(List<VariableDeclarationNode> a, List<VariableDeclarationNode> b) {
+        if (a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) {
+            if (!a.get(i).type.equals(b.get(i).type)) return false;
+        }
+        return true;
+    }
+
+    private boolean isType(String type) {
+        return type.equals(NUMBER) || type.equals(STRING) || type.equals(BOOLEAN) || type.equals(CHARACTER)
+                || classes.containsKey(type) || interfaces.containsKey(type);
+    }
+
+    /**
+     * @return whether a value of type value can be stored in a variable of type target
+     */
+    private boolean isAssignable(String target, String value) {
+        if (target.equals(value)) return true;
+        var c = classes.get(value);
+        return c != null && interfaces.containsKey(target) && c.interfaces.contains(target);
+    }
+
+    private void expectAssignable(String target, String value, String what) {
+        if (target != null && value != null && !isAssignable(target, value)) {
+            error("cannot assign a " + value + " to " + what + ", a " + target);
+        }
+    }
+
+    private void expect(String expected, String actual, String what) {
+        if (actual != null && !actual.equals(expected)) error(what + " needs a " + expected + ", not a " + actual);
+    }
+
+    private void error(String message) {
+        errors.add(where + ": " + message);
+    }
+}
@@ -0,0 +1,18 @@
+package Tran;
+
+/**
+ * Carries a SyntaxErrorException through code that cannot throw checked exceptions, like the Iterator returned by
+ * Lexer.LexStream() and the TokenManager functions that pull from it. The Parser unwraps it again, so callers of
+ * Parser.Tran() still see the original SyntaxErrorException.
+ */
+public class UncheckedSyntaxErrorException extends RuntimeException {
+
+    public UncheckedSyntaxErrorException(SyntaxErrorException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public SyntaxErrorException getCause() {
+        return (SyntaxErrorException) super.getCause();
+    }
+}
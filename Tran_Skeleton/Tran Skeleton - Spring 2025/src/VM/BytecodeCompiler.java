@@ -0,0 +1,304 @@
+package VM;
+
+import AST.*;
+import Interpreter.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Compiles one method, constructor or member initializer into a Chunk for the StackMachine. The body must have been
+ * parsed and resolved (Tran.Resolver), the variables are compiled to the slots the Resolver gave them.
+ * Everything is compiled in the order the Interpreter runs it, so the two run a program the same way: parameters left
+ * to right before the object a call is made on is looked up, member initializers before a constructor's parameters,
+ * and the right side of and/or only when the left side does not decide.
+ * Expressions are compiled with a work list, not recursion, so any depth can be compiled.
+ */
+public final class BytecodeCompiler {
+    private int[] code = new int[32];
+    private int size;
+    private final List<Object> constants = new ArrayList<>();
+    private final HashMap<Object, Integer> constantIndex = new HashMap<>();
+    private int depth;      //the height of the operand stack after the instructions so far
+    private int maxStack;
+
+    private BytecodeCompiler() { }
+
+    public static Chunk compile(MethodDeclarationNode m) {
+        var compiler = new BytecodeCompiler();
+        int first = m.parameters.size() + m.returns.size();
+        compiler.locals(m.locals, first);
+        compiler.statements(m.statements);
+        compiler.emit(Op.RETURN);
+        return compiler.chunk(m.name, first + m.locals.size());
+    }
+
+    public static Chunk compile(ConstructorNode c, ClassNode owner) {
+        var compiler = new BytecodeCompiler();
+        compiler.locals(c.locals, c.parameters.size());
+        compiler.statements(c.statements);
+        compiler.emit(Op.RETURN);
+        return compiler.chunk(owner.name + " constructor", c.parameters.size() + c.locals.size());
+    }
+
+    /**
+     * @return a chunk that leaves the value of a member's initializer on top of the stack
+     */
+    public static Chunk compileInitializer(VariableDeclarationNode member) {
+        var compiler = new BytecodeCompiler();
+        compiler.expression(member.initializer.orElseThrow());
+        compiler.emit(Op.RETURN);
+        return compiler.chunk(member.name + " initializer", 0);
+    }
+
+    private Chunk chunk(String name, int variables) {
+        return new Chunk(name, Arrays.copyOf(code, size), constants.toArray(), variables, maxStack);
+    }
+
+    //              Statements
+
+    private void locals(List<VariableDeclarationNode> locals, int first) {
+        for (int i = 0; i < locals.size(); i++) {
+            var local = locals.get(i);
+            if (local.initializer.isPresent()) {
+                expression(local.initializer.get());
+                emit(Op.LOCAL_INIT, first + i, constant(local.type));
+                pop(1);
+            } else {
+                emit(Op.LOCAL, first + i, constant(local.type));
+            }
+        }
+    }
+
+    private void statements(List<StatementNode> statements) {
+        for (var statement : statements) {
+            if (statement instanceof AssignmentNode assignment) {
+                expression(assignment.expression);
+                store(assignment.target);
+            } else if (statement instanceof MethodCallStatementNode mc) {
+                for (var parameter : mc.parameters) expression(parameter);
+                emit(Op.CALL_STATEMENT, constant(new Chunk.CallSite(mc, mc.toString().strip())));
+                pop(mc.parameters.size());
+                push(mc.returnValues.size());
+                for (var returnValue : mc.returnValues) store(returnValue);
+            } else if (statement instanceof IfNode ifNode) {
+                expression(ifNode.condition);
+                int toElse = jump(Op.JUMP_IF_FALSE, ifNode.condition);
+                statements(ifNode.statements);
+                if (ifNode.elseStatement.isPresent()) {
+                    int toEnd = jump(Op.JUMP, null);
+                    patch(toElse);
+                    statements(ifNode.elseStatement.get().statements);
+                    patch(toEnd);
+                } else {
+                    patch(toElse);
+                }
+            } else if (statement instanceof LoopNode loop) {
+                loop(loop);
+            } else {
+                throw new RuntimeException("Unknown statement " + statement);
+            }
+        }
+    }
+
+    /**
+     * A loop over a variable's times() counts when the variable holds a number, and is an ordinary loop (which calls
+     * times()) when it does not, so both are compiled and TIMES picks one when the loop starts
+     */
+    private void loop(LoopNode loop) {
+        int toEnd = -1;
+        int k;
+        if (loop.expression instanceof MethodCallExpressionNode mce && mce.methodName.equals("times")
+                && mce.parameters.isEmpty() && mce.objectName.isPresent()) {
+            k = constant(new Chunk.LoopSite(loop, mce.object, mce.objectName.get()));
+            emit(Op.TIMES, k, 0);
+            int toCondition = size - 1;
+            push(2);
+            int top = size;
+            emit(Op.TIMES_NEXT, k, 0);
+            toEnd = size - 1;
+            statements(loop.statements);
+            emit(Op.JUMP, top);
+            pop(2);
+            patch(toCondition);
+        } else {
+            k = constant(new Chunk.LoopSite(loop, null, null));
+        }
+        int condition = size;
+        expression(loop.expression);
+        emit(Op.LOOP_TEST, k, 0);
+        pop(1);
+        int toDone = size - 1;
+        statements(loop.statements);
+        emit(Op.JUMP, condition);
+        patch(toDone);
+        if (toEnd >= 0) patch(toEnd);
+    }
+
+    private void store(VariableReferenceNode variable) {
+        if (variable.scope == null) emit(Op.STORE_NAME, constant(variable.name));
+        else if (variable.scope == VariableReferenceNode.Scope.MEMBER) emit(Op.STORE_MEMBER, variable.slot);
+        else emit(Op.STORE, variable.slot);
+        pop(1);
+    }
+
+    //              Expressions
+
+    /**
+     * Compiles an expression that leaves its value on the stack. The work list holds expressions still to compile and
+     * the instructions that go between and after their parts
+     */
+    private void expression(ExpressionNode start) {
+        var work = new ArrayList<Object>();
+        work.add(start);
+        while (!work.isEmpty()) {
+            Object item = work.removeLast();
+            if (item instanceof Runnable step) {
+                step.run();
+            } else if (item instanceof NumericLiteralNode n) {
+                emitConstant(new NumberIDT(n.value), n.value);
+            } else if (item instanceof StringLiteralNode s) {
+                emitConstant(new StringIDT(s.value), s.value);
+            } else if (item instanceof CharLiteralNode c) {
+                emitConstant(new CharIDT(c.value), c.value);
+            } else if (item instanceof BooleanLiteralNode b) {
+                emitConstant(new BooleanIDT(b.value), b.value);
+            } else if (item instanceof VariableReferenceNode variable) {
+                if (variable.scope == null) emit(Op.LOAD_NAME, constant(variable.name));
+                else if (variable.scope == VariableReferenceNode.Scope.MEMBER) emit(Op.LOAD_MEMBER, variable.slot);
+                else emit(Op.LOAD, variable.slot);
+                push(1);
+            } else if (item instanceof MathOpNode math) {
+                int op = switch (math.op) {
+                    case add -> Op.ADD;
+                    case subtract -> Op.SUBTRACT;
+                    case multiply -> Op.MULTIPLY;
+                    case divide -> Op.DIVIDE;
+                    case modulo -> Op.MODULO;
+                };
+                work.add((Runnable) () -> { emit(op); pop(1); });
+                work.add(math.right);
+                work.add(math.left);
+            } else if (item instanceof CompareNode compare) {
+                int op = switch (compare.op) {
+                    case lt -> Op.LESS;
+                    case le -> Op.LESS_EQUAL;
+                    case gt -> Op.GREATER;
+                    case ge -> Op.GREATER_EQUAL;
+                    case eq -> Op.EQUAL;
+                    case ne -> Op.NOT_EQUAL;
+                };
+                work.add((Runnable) () -> { emit(op); pop(1); });
+                work.add(compare.right);
+                work.add(compare.left);
+            } else if (item instanceof NotOpNode not) {
+                work.add((Runnable) () -> emit(Op.NOT, constant(not.left.toString())));
+                work.add(not.left);
+            } else if (item instanceof BooleanOpNode op) {
+                //a and b: if a is false the answer is false without b, a or b: if a is true it is true
+                int test = op.op == BooleanOpNode.BooleanOperations.and ? Op.JUMP_IF_FALSE : Op.JUMP_IF_TRUE;
+                boolean decided = op.op != BooleanOpNode.BooleanOperations.and;
+                int[] jumps = new int[2];
+                work.add((Runnable) () -> {
+                    jumps[1] = jump(test, op.right);
+                    emitConstant(new BooleanIDT(!decided), !decided);
+                    int toEnd = jump(Op.JUMP, null);
+                    patch(jumps[0]);
+                    patch(jumps[1]);
+                    pop(1);
+                    emitConstant(new BooleanIDT(decided), decided);
+                    patch(toEnd);
+                });
+                work.add(op.right);
+                work.add((Runnable) () -> jumps[0] = jump(test, op.left));
+                work.add(op.left);
+            } else if (item instanceof MethodCallExpressionNode mce) {
+                var mc = new MethodCallStatementNode(mce);
+                work.add((Runnable) () -> {
+                    emit(Op.CALL, constant(new Chunk.CallSite(mc, mce.toString())));
+                    pop(mce.parameters.size());
+                    push(1);
+                });
+                work.addAll(mce.parameters.reversed());
+            } else if (item instanceof NewNode newNode) {
+                int k = constant(new Chunk.NewSite(newNode));
+                emit(Op.NEW, k);
+                push(1);
+                work.add((Runnable) () -> {
+                    emit(Op.CONSTRUCT, k);
+                    pop(newNode.parameters.size());
+                });
+                work.addAll(newNode.parameters.reversed());
+            } else {
+                throw new IllegalArgumentException("Unable to compile " + item);
+            }
+        }
+    }
+
+    //              Emitting
+
+    private void emit(int... instruction) {
+        if (size + instruction.length > code.length) code = Arrays.copyOf(code, Math.max(code.length * 2, size + instruction.length));
+        System.arraycopy(instruction, 0, code, size, instruction.length);
+        size += instruction.length;
+    }
+
+    /**
+     * Emits a literal, each value is in the constant pool once
+     * @param key - the literal's value in Java: a Float, String, Character or Boolean
+     */
+    private void emitConstant(InterpreterDataType value, Object key) {
+        key = List.of(key.getClass(), key);     //a string literal and a name are different constants
+        Integer k = constantIndex.get(key);
+        if (k == null) {
+            k = constants.size();
+            constants.add(value);
+            constantIndex.put(key, k);
+        }
+        emit(Op.CONST, k);
+        push(1);
+    }
+
+    /**
+     * Adds a constant that is only used by one instruction (names and types are shared)
+     */
+    private int constant(Object value) {
+        if (value instanceof String) {
+            Integer k = constantIndex.get(value);
+            if (k != null) return k;
+            constantIndex.put(value, constants.size());
+        }
+        constants.add(value);
+        return constants.size() - 1;
+    }
+
+    /**
+     * Emits a jump whose target is patched later
+     * @param condition - for a conditional jump, the condition it pops (for its error message)
+     * @return where its target goes, for patch()
+     */
+    private int jump(int op, ExpressionNode condition) {
+        if (op == Op.JUMP) {
+            emit(op, 0);
+            return size - 1;
+        }
+        emit(op, 0, constant(condition.toString()));
+        pop(1);
+        return size - 2;
+    }
+
+    private void patch(int at) {
+        code[at] = size;
+    }
+
+    private void push(int count) {
+        depth += count;
+        maxStack = Math.max(maxStack, depth);
+    }
+
+    private void pop(int count) {
+        depth -= count;
+    }
+}
@@ -0,0 +1,13 @@
+package VM;
+
+/**
+ * Thrown by JvmCompiler (and its ClassWriter) for a body it cannot compile, like a method too large for the JVM or an
+ * expression nested too deeply. The JvmMachine runs such a body as register code instead, and TieredExecution leaves
+ * it interpreted. Anything else the compiler throws is a bug in it.
+ */
+public class CannotCompileException extends RuntimeException {
+
+    CannotCompileException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,129 @@
+package VM;
+
+import AST.*;
+
+import java.util.Optional;
+
+/**
+ * The compiled code of one method, constructor or member initializer: its instructions (see Op), the constants they
+ * use, and the size of its frame. A frame holds the body's variables in the slots Tran.Resolver gave them, then room
+ * for the operand stack, so a call makes one array.
+ */
+public final class Chunk {
+    public final String name;
+    public final int[] code;
+    public final Object[] constants;
+    public final int variables;     //parameters + returns + locals
+    public final int maxStack;
+
+    Chunk(String name, int[] code, Object[] constants, int variables, int maxStack) {
+        this.name = name;
+        this.code = code;
+        this.constants = constants;
+        this.variables = variables;
+        this.maxStack = maxStack;
+    }
+
+    /**
+     * A method call in the constant pool. The machine keeps the last method it ran and that method's compiled code (a
+     * Chunk, or a RegisterChunk), so a call that keeps running the same method does not look up its code
+     */
+    static final class CallSite {
+        final MethodCallStatementNode call;
+        final String description;
+        MethodDeclarationNode lastMethod;
+        Object lastCode;
+
+        CallSite(MethodCallStatementNode call, String description) {
+            this.call = call;
+            this.description = description;
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    /**
+     * A NewNode in the constant pool, and the method call the Interpreter would match its constructors against
+     */
+    static final class NewSite {
+        final NewNode node;
+        final MethodCallStatementNode call = new MethodCallStatementNode();
+
+        NewSite(NewNode node) {
+            this.node = node;
+            call.objectName = Optional.empty();
+            call.methodName = node.className;
+            call.parameters = node.parameters;
+        }
+
+        @Override
+        public String toString() {
+            return node.toString();
+        }
+    }
+
+    /**
+     * A loop in the constant pool: its variable, and for a loop over n.times(), the variable n
+     */
+    static final class LoopSite {
+        final VariableReferenceNode variable;
+        final VariableReferenceNode times;
+        final String timesName;
+        final String condition;
+
+        LoopSite(LoopNode loop, VariableReferenceNode times, String timesName) {
+            this.variable = loop.assignment.orElse(null);
+            this.times = times;
+            this.timesName = timesName;
+            this.condition = loop.expression.toString();
+        }
+
+        @Override
+        public String toString() {
+            return "loop " + condition;
+        }
+    }
+
+    /**
+     * @return the number of instructions
+     */
+    public int instructions() {
+        int count = 0;
+        for (int pc = 0; pc < code.length; pc += 1 + Op.OPERANDS[code[pc]]) count++;
+        return count;
+    }
+
+    /**
+     * @return the instructions, one per line
+     */
+    public String disassemble() {
+        var sb = new StringBuilder(name).append('\n');
+        for (int pc = 0; pc < code.length; ) {
+            int op = code[pc];
+            sb.append(String.format("%4d %-14s", pc, Op.NAMES[op]));
+            for (int i = 1; i <= Op.OPERANDS[op]; i++) sb.append(' ').append(code[pc + i]);
+            if (usesConstant(op)) sb.append("    ; ").append(constants[code[pc + constantOperand(op)]]);
+            sb.append('\n');
+            pc += 1 + Op.OPERANDS[op];
+        }
+        return sb.toString();
+    }
+
+    private static boolean usesConstant(int op) {
+        return switch (op) {
+            case Op.CONST, Op.LOAD_NAME, Op.STORE_NAME, Op.NOT, Op.JUMP_IF_FALSE, Op.JUMP_IF_TRUE, Op.CALL,
+                 Op.CALL_STATEMENT, Op.NEW, Op.CONSTRUCT, Op.LOCAL, Op.LOCAL_INIT, Op.TIMES, Op.TIMES_NEXT, Op.LOOP_TEST -> true;
+            default -> false;
+        };
+    }
+
+    private static int constantOperand(int op) {
+        return switch (op) {
+            case Op.JUMP_IF_FALSE, Op.JUMP_IF_TRUE, Op.LOCAL, Op.LOCAL_INIT -> 2;
+            default -> 1;
+        };
+    }
+}
@@ -0,0 +1,644 @@
+package VM;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Writes a class file, with only what JvmCompiler needs: a constant pool, fields, methods whose Code has a
+ * StackMapTable, and bootstrap methods for invokedynamic. The JDK has no class file API before 22 and the project has
+ * no dependencies, so this is written by hand from the JVM specification (chapter 4).
+ * A type on the operand stack or in a local is written the way the verifier sees it: "I" for an int (and a boolean),
+ * "F" for a float, "null", or the internal name of a class ("Interpreter/NumberIDT", "[LInterpreter/NumberIDT;").
+ */
+final class ClassWriter {
+    static final int PUBLIC = 0x0001, STATIC = 0x0008, FINAL = 0x0010, SUPER = 0x0020;
+
+    private final String name;
+    private final String[] interfaces;
+    private final Bytes pool = new Bytes();
+    private int poolCount = 1;
+    private final HashMap<String, Integer> entries = new HashMap<>();
+    private final Bytes fields = new Bytes();
+    private int fieldCount;
+    private final Bytes methods = new Bytes();
+    private int methodCount;
+    private final Bytes bootstraps = new Bytes();
+    private int bootstrapCount;
+
+    ClassWriter(String name, String... interfaces) {
+        this.name = name;
+        this.interfaces = interfaces;
+    }
+
+    String name() {
+        return name;
+    }
+
+    byte[] toBytes() {
+        int[] interfaceIndexes = Arrays.stream(interfaces).mapToInt(this::classEntry).toArray();
+        int thisClass = classEntry(name), superClass = classEntry("java/lang/Object");
+        int bootstrapName = bootstrapCount > 0 ? utf8("BootstrapMethods") : 0;
+        var out = new Bytes();
+        out.u4(0xCAFEBABE);
+        out.u2(0);
+        out.u2(61);     //Java 17
+        out.u2(poolCount);
+        out.bytes(pool.toByteArray());
+        out.u2(PUBLIC | FINAL | SUPER);
+        out.u2(thisClass);
+        out.u2(superClass);
+        out.u2(interfaceIndexes.length);
+        for (int i : interfaceIndexes) out.u2(i);
+        out.u2(fieldCount);
+        out.bytes(fields.toByteArray());
+        out.u2(methodCount);
+        out.bytes(methods.toByteArray());
+        if (bootstrapCount > 0) {
+            byte[] table = bootstraps.toByteArray();
+            out.u2(1);
+            out.u2(bootstrapName);
+            out.u4(2 + table.length);
+            out.u2(bootstrapCount);
+            out.bytes(table);
+        } else {
+            out.u2(0);
+        }
+        return out.toByteArray();
+    }
+
+    //              The Constant Pool
+
+    private int entry(String key, int size, Runnable write) {
+        Integer index = entries.get(key);
+        if (index != null) return index;
+        write.run();
+        entries.put(key, poolCount);
+        poolCount += size;
+        return poolCount - size;
+    }
+
+    int utf8(String value) {
+        return entry("Utf8 " + value, 1, () -> {
+            pool.u1(1);
+            pool.utf(value);
+        });
+    }
+
+    int classEntry(String internalName) {
+        int utf = utf8(internalName);
+        return entry("Class " + internalName, 1, () -> {
+            pool.u1(7);
+            pool.u2(utf);
+        });
+    }
+
+    int string(String value) {
+        int utf = utf8(value);
+        return entry("String " + value, 1, () -> {
+            pool.u1(8);
+            pool.u2(utf);
+        });
+    }
+
+    int integer(int value) {
+        return entry("Integer " + value, 1, () -> {
+            pool.u1(3);
+            pool.u4(value);
+        });
+    }
+
+    int floatEntry(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        return entry("Float " + bits, 1, () -> {
+            pool.u1(4);
+            pool.u4(bits);
+        });
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        int n = utf8(name), d = utf8(descriptor);
+        return entry("NameAndType " + name + " " + descriptor, 1, () -> {
+            pool.u1(12);
+            pool.u2(n);
+            pool.u2(d);
+        });
+    }
+
+    /**
+     * @param tag - 9 for a field, 10 for a method, 11 for an interface method
+     */
+    int member(int tag, String owner, String name, String descriptor) {
+        int c = classEntry(owner), nt = nameAndType(name, descriptor);
+        return entry("Member " + tag + " " + owner + " " + name + " " + descriptor, 1, () -> {
+            pool.u1(tag);
+            pool.u2(c);
+            pool.u2(nt);
+        });
+    }
+
+    /**
+     * @return the index of a bootstrap method that is a static method, with int arguments after the three every
+     * bootstrap method has
+     */
+    int bootstrap(String owner, String name, String descriptor, int... arguments) {
+        int method = member(10, owner, name, descriptor);
+        int handle = entry("MethodHandle 6 " + method, 1, () -> {
+            pool.u1(15);
+            pool.u1(6);     //REF_invokeStatic
+            pool.u2(method);
+        });
+        int[] argumentEntries = Arrays.stream(arguments).map(this::integer).toArray();
+        bootstraps.u2(handle);
+        bootstraps.u2(argumentEntries.length);
+        for (int a : argumentEntries) bootstraps.u2(a);
+        return bootstrapCount++;
+    }
+
+    int invokeDynamic(int bootstrap, String name, String descriptor) {
+        int nt = nameAndType(name, descriptor);
+        return entry("InvokeDynamic " + bootstrap + " " + name + " " + descriptor, 1, () -> {
+            pool.u1(18);
+            pool.u2(bootstrap);
+            pool.u2(nt);
+        });
+    }
+
+    //              Fields and Methods
+
+    void field(int access, String name, String descriptor) {
+        fields.u2(access);
+        fields.u2(utf8(name));
+        fields.u2(utf8(descriptor));
+        fields.u2(0);
+        fieldCount++;
+    }
+
+    private void method(int access, String name, String descriptor, int maxStack, int maxLocals, byte[] code, byte[] stackMap) {
+        int codeName = utf8("Code"), stackMapName = stackMap == null ? 0 : utf8("StackMapTable");
+        methods.u2(access);
+        methods.u2(utf8(name));
+        methods.u2(utf8(descriptor));
+        methods.u2(1);
+        methods.u2(codeName);
+        methods.u4(12 + code.length + (stackMap == null ? 0 : 6 + stackMap.length));
+        methods.u2(maxStack);
+        methods.u2(maxLocals);
+        methods.u4(code.length);
+        methods.bytes(code);
+        methods.u2(0);      //no exception table
+        if (stackMap == null) {
+            methods.u2(0);
+        } else {
+            methods.u2(1);
+            methods.u2(stackMapName);
+            methods.u4(stackMap.length);
+            methods.bytes(stackMap);
+        }
+        methodCount++;
+    }
+
+    //              Code
+
+    /**
+     * A place in the code that is jumped to. The operand stack there is the one at the first jump to it, or at the
+     * place it is put when nothing has jumped to it yet
+     */
+    static final class Label {
+        private int offset = -1;
+        private List<String> stack;
+        private final List<int[]> jumps = new ArrayList<>();      //{offset of the jump instruction, offset of its operand}
+    }
+
+    /**
+     * The code of one method. Each instruction keeps track of the types on the operand stack, so that finish() can
+     * write the StackMapTable. The locals have one type each for the whole method: they are all set to 0 or null
+     * before the code, so any place in it can be jumped to
+     */
+    final class Code {
+        private byte[] code = new byte[256];
+        private int size;
+        private final List<String> locals = new ArrayList<>();
+        private final int parameterLocals;
+        private List<String> stack = new ArrayList<>();      //null after a goto or a return, until a label
+        private int maxStack;
+        private final TreeMap<Integer, List<String>> frames = new TreeMap<>();
+
+        /**
+         * @param parameterLocals - the types of the locals that hold this and the parameters
+         */
+        Code(String... parameterLocals) {
+            locals.addAll(List.of(parameterLocals));
+            this.parameterLocals = parameterLocals.length;
+        }
+
+        /**
+         * @return a new local of a type, which starts as 0 or null
+         */
+        int local(String type) {
+            locals.add(type);
+            return locals.size() - 1;
+        }
+
+        String localType(int local) {
+            return locals.get(local);
+        }
+
+        private void u1(int value) {
+            if (size == code.length) code = Arrays.copyOf(code, size * 2);
+            code[size++] = (byte) value;
+        }
+
+        private void u2(int value) {
+            u1(value >> 8);
+            u1(value);
+        }
+
+        private void push(String type) {
+            stack.add(type);
+            maxStack = Math.max(maxStack, stack.size());
+        }
+
+        private String pop() {
+            return stack.removeLast();
+        }
+
+        private void pop(int count) {
+            for (int i = 0; i < count; i++) pop();
+        }
+
+        //              Instructions
+
+        void iconst(int value) {
+            if (value >= -1 && value <= 5) u1(0x03 + value);
+            else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) { u1(0x10); u1(value); }
+            else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) { u1(0x11); u2(value); }
+            else ldc(integer(value));
+            push("I");
+        }
+
+        void fconst(float value) {
+            if (value == 0 && Float.floatToRawIntBits(value) == 0) u1(0x0b);
+            else if (value == 1) u1(0x0c);
+            else if (value == 2) u1(0x0d);
+            else ldc(floatEntry(value));
+            push("F");
+        }
+
+        void aconstNull() {
+            u1(0x01);
+            push("null");
+        }
+
+        void ldcString(String value) {
+            ldc(string(value));
+            push("java/lang/String");
+        }
+
+        void ldcClass(String internalName) {
+            ldc(classEntry(internalName));
+            push("java/lang/Class");
+        }
+
+        private void ldc(int index) {
+            if (index < 256) { u1(0x12); u1(index); }
+            else { u1(0x13); u2(index); }
+        }
+
+        void load(int local) {
+            String type = locals.get(local);
+            localInstruction(switch (type) { case "I" -> 0x15; case "F" -> 0x17; default -> 0x19; }, local);
+            push(type);
+        }
+
+        void store(int local) {
+            pop();
+            String type = locals.get(local);
+            localInstruction(switch (type) { case "I" -> 0x36; case "F" -> 0x38; default -> 0x3a; }, local);
+        }
+
+        private void localInstruction(int opcode, int local) {
+            if (local > 255) { u1(0xc4); u1(opcode); u2(local); }
+            else { u1(opcode); u1(local); }
+        }
+
+        void iinc(int local, int by) {
+            if (local > 255) { u1(0xc4); u1(0x84); u2(local); u2(by); }
+            else { u1(0x84); u1(local); u1(by); }
+        }
+
+        void aaload() {
+            pop();
+            String array = pop();
+            u1(0x32);
+            push(array.startsWith("[L") ? array.substring(2, array.length() - 1) : "java/lang/Object");
+        }
+
+        void aastore() {
+            pop(3);
+            u1(0x53);
+        }
+
+        void anewarray(String elementClass) {
+            pop();
+            u1(0xbd);
+            u2(classEntry(elementClass));
+            push("[L" + elementClass + ";");
+        }
+
+        void checkcast(String internalName) {
+            pop();
+            u1(0xc0);
+            u2(classEntry(internalName));
+            push(internalName);
+        }
+
+        void instanceOf(String internalName) {
+            pop();
+            u1(0xc1);
+            u2(classEntry(internalName));
+            push("I");
+        }
+
+        void dup() {
+            u1(0x59);
+            push(stack.getLast());
+        }
+
+        void swap() {
+            String top = pop(), under = pop();
+            u1(0x5f);
+            push(top);
+            push(under);
+        }
+
+        /**
+         * @param opcode - fadd, fsub, fmul, fdiv or frem
+         */
+        void floatMath(int opcode) {
+            pop(2);
+            u1(opcode);
+            push("F");
+        }
+
+        void ixor() {
+            pop(2);
+            u1(0x82);
+            push("I");
+        }
+
+        void i2f() {
+            pop();
+            u1(0x86);
+            push("F");
+        }
+
+        void f2i() {
+            pop();
+            u1(0x8b);
+            push("I");
+        }
+
+        /**
+         * fcmpg, which pushes 1 when either float is NaN (Float.compare() has NaN equal to NaN)
+         */
+        void fcmpg() {
+            pop(2);
+            u1(0x96);
+            push("I");
+        }
+
+        void getfield(String owner, String name, String descriptor) {
+            pop();
+            u1(0xb4);
+            u2(member(9, owner, name, descriptor));
+            push(type(descriptor));
+        }
+
+        void putfield(String owner, String name, String descriptor) {
+            pop(2);
+            u1(0xb5);
+            u2(member(9, owner, name, descriptor));
+        }
+
+        void getstatic(String owner, String name, String descriptor) {
+            u1(0xb2);
+            u2(member(9, owner, name, descriptor));
+            push(type(descriptor));
+        }
+
+        void putstatic(String owner, String name, String descriptor) {
+            pop();
+            u1(0xb3);
+            u2(member(9, owner, name, descriptor));
+        }
+
+        void invokestatic(String owner, String name, String descriptor) {
+            invoke(0xb8, 10, owner, name, descriptor, false);
+        }
+
+        void invokespecial(String owner, String name, String descriptor) {
+            invoke(0xb7, 10, owner, name, descriptor, true);
+        }
+
+        void invokevirtual(String owner, String name, String descriptor) {
+            invoke(0xb6, 10, owner, name, descriptor, true);
+        }
+
+        void invokeinterface(String owner, String name, String descriptor) {
+            invoke(0xb9, 11, owner, name, descriptor, true);
+        }
+
+        private void invoke(int opcode, int tag, String owner, String name, String descriptor, boolean receiver) {
+            var arguments = arguments(descriptor);
+            pop(arguments.size() + (receiver ? 1 : 0));
+            u1(opcode);
+            u2(member(tag, owner, name, descriptor));
+            if (opcode == 0xb9) {
+                u1(arguments.size() + 1);
+                u1(0);
+            }
+            String result = descriptor.substring(descriptor.indexOf(')') + 1);
+            if (!result.equals("V")) push(type(result));
+        }
+
+        void invokedynamic(int bootstrap, String name, String descriptor) {
+            pop(arguments(descriptor).size());
+            u1(0xba);
+            u2(ClassWriter.this.invokeDynamic(bootstrap, name, descriptor));
+            u2(0);
+            push(type(descriptor.substring(descriptor.indexOf(')') + 1)));
+        }
+
+        void areturn() {
+            pop();
+            u1(0xb0);
+            stack = null;
+        }
+
+        void vreturn() {
+            u1(0xb1);
+            stack = null;
+        }
+
+        //              Jumps
+
+        /**
+         * @param opcode - goto, or a conditional jump (ifeq, ifne, iflt, ifge, ifgt, ifle, if_icmp...)
+         */
+        void jump(int opcode, Label label) {
+            pop(opcode >= 0x99 && opcode <= 0x9e || opcode == 0xc6 || opcode == 0xc7 ? 1 : opcode >= 0x9f && opcode <= 0xa4 ? 2 : 0);
+            if (label.stack == null) label.stack = new ArrayList<>(stack);
+            int at = size;
+            u1(opcode);
+            if (label.offset >= 0) {
+                u2(offset(label.offset - at));
+            } else {
+                label.jumps.add(new int[] {at, size});
+                u2(0);
+            }
+            if (opcode == 0xa7) stack = null;
+        }
+
+        /**
+         * Puts a label at the end of the code so far
+         */
+        void place(Label label) {
+            if (label.stack == null) label.stack = stack == null ? new ArrayList<>() : new ArrayList<>(stack);
+            stack = new ArrayList<>(label.stack);
+            label.offset = size;
+            frames.put(size, label.stack);
+            for (int[] jump : label.jumps) {
+                int offset = offset(size - jump[0]);
+                code[jump[1]] = (byte) (offset >> 8);
+                code[jump[1] + 1] = (byte) offset;
+            }
+        }
+
+        private static int offset(int offset) {
+            if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) throw new CannotCompileException("The method is too large to compile");
+            return offset;
+        }
+
+        /**
+         * Adds the method: the code that sets the locals, then the code written
+         */
+        void finish(int access, String name, String descriptor) {
+            var start = new Code(locals.subList(0, parameterLocals).toArray(new String[0]));
+            for (int i = parameterLocals; i < locals.size(); i++) {
+                switch (locals.get(i)) {
+                    case "I" -> start.iconst(0);
+                    case "F" -> start.fconst(0);
+                    default -> start.aconstNull();
+                }
+                start.locals.add(locals.get(i));
+                start.store(i);
+            }
+            byte[] all = new byte[start.size + size];
+            System.arraycopy(start.code, 0, all, 0, start.size);
+            System.arraycopy(code, 0, all, start.size, size);
+            if (all.length > 65535) throw new CannotCompileException("The method is too large to compile");
+            byte[] stackMap = null;
+            if (!frames.isEmpty()) {
+                var table = new Bytes();
+                table.u2(frames.size());
+                int previous = -1;
+                for (var frame : frames.entrySet()) {
+                    int offset = frame.getKey() + start.size;
+                    table.u1(255);      //full_frame
+                    table.u2(offset - previous - 1);
+                    table.u2(locals.size());
+                    for (String type : locals) verificationType(table, type);
+                    table.u2(frame.getValue().size());
+                    for (String type : frame.getValue()) verificationType(table, type);
+                    previous = offset;
+                }
+                stackMap = table.toByteArray();
+            }
+            method(access, name, descriptor, Math.max(maxStack, start.maxStack), Math.max(locals.size(), 1), all, stackMap);
+        }
+
+        private void verificationType(Bytes table, String type) {
+            switch (type) {
+                case "I" -> table.u1(1);
+                case "F" -> table.u1(2);
+                case "null" -> table.u1(5);
+                default -> {
+                    table.u1(7);
+                    table.u2(classEntry(type));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the verifier's type for a field or return descriptor
+     */
+    private static String type(String descriptor) {
+        return switch (descriptor.charAt(0)) {
+            case 'Z', 'B', 'C', 'S', 'I' -> "I";
+            case 'F' -> "F";
+            case 'L' -> descriptor.substring(1, descriptor.length() - 1);
+            case '[' -> descriptor;
+            default -> throw new IllegalArgumentException("Unsupported type " + descriptor);
+        };
+    }
+
+    /**
+     * @return the argument descriptors of a method descriptor
+     */
+    private static List<String> arguments(String descriptor) {
+        var arguments = new ArrayList<String>();
+        for (int i = 1; descriptor.charAt(i) != ')'; ) {
+            int start = i;
+            while (descriptor.charAt(i) == '[') i++;
+            if (descriptor.charAt(i) == 'L') i = descriptor.indexOf(';', i);
+            i++;
+            arguments.add(descriptor.substring(start, i));
+        }
+        return arguments;
+    }
+
+    /**
+     * A DataOutputStream over a byte array, without the checked exceptions
+     */
+    private static final class Bytes {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        void u1(int value) {
+            bytes.write(value);
+        }
+
+        void u2(int value) {
+            bytes.write(value >> 8);
+            bytes.write(value);
+        }
+
+        void u4(int value) {
+            u2(value >>> 16);
+            u2(value & 0xFFFF);
+        }
+
+        void utf(String value) {
+            try {
+                out.writeUTF(value);
+            } catch (IOException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+
+        void bytes(byte[] value) {
+            bytes.writeBytes(value);
+        }
+
+        byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package VM;
+
+import AST.ClassNode;
+import AST.MethodDeclarationNode;
+import Interpreter.Interpreter;
+import Interpreter.InterpreterDataType;
+import Interpreter.ObjectIDT;
+import Interpreter.ReferenceIDT;
+import Tran.Linker;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import java.util.Arrays;
+
+/**
+ * The call site of a method call in code from JvmCompiler, an inline cache for one method. At first its target is
+ * fallback(), which finds the method with Machine.call(). When the object the call was made on (or the program, for a
+ * shared method) has only one method with the call's name, the target becomes cached(), which runs that method for as
+ * long as the object is of the same class and the values passed match the method's parameters. That is the method
+ * Machine.call() would have found, without looking it up. A call whose target changes too often stays on fallback().
+ */
+final class JvmCallSite extends MutableCallSite {
+    private static final int MAX_LINKS = 8;
+    private static final MethodHandle FALLBACK, CACHED;
+
+    static {
+        var lookup = MethodHandles.lookup();
+        var values = InterpreterDataType[].class;
+        try {
+            FALLBACK = lookup.findVirtual(JvmCallSite.class, "fallback",
+                    MethodType.methodType(values, Machine.class, ObjectIDT.class, values, values));
+            CACHED = lookup.findVirtual(JvmCallSite.class, "cached",
+                    MethodType.methodType(values, Form.class, ClassNode.class, MethodDeclarationNode.class, Machine.class, ObjectIDT.class, values, values));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Where the method a call runs is found: on the object the method runs on (a call with no object), with the
+     * shared methods (a call with no object from a shared method), on a class (class.method()), or on a variable
+     */
+    private enum Form { SELF, SHARED, CLASS, VARIABLE }
+
+    private final Chunk.CallSite site;
+    private int links;
+
+    private JvmCallSite(Chunk.CallSite site, MethodType type) {
+        super(type);
+        this.site = site;
+        setTarget(FALLBACK.bindTo(this));
+    }
+
+    /**
+     * The bootstrap method of JvmCompiler's invokedynamic instructions
+     * @param index - where the Chunk.CallSite is in the class's constants (its class data)
+     */
+    static CallSite bootstrap(MethodHandles.Lookup lookup, String name, MethodType type, int index) throws IllegalAccessException {
+        var constants = MethodHandles.classData(lookup, "_", Object[].class);
+        return new JvmCallSite((Chunk.CallSite) constants[index], type);
+    }
+
+    private InterpreterDataType[] fallback(Machine machine, ObjectIDT object, InterpreterDataType[] frame, InterpreterDataType[] values) {
+        var parameters = Arrays.asList(values);
+        if (links < MAX_LINKS) link(machine, object, frame);
+        return machine.call(object, frame, site, parameters);
+    }
+
+    private InterpreterDataType[] cached(Form form, ClassNode c, MethodDeclarationNode m, Machine machine, ObjectIDT object,
+                                         InterpreterDataType[] frame, InterpreterDataType[] values) {
+        var parameters = Arrays.asList(values);
+        var receiver = switch (form) {
+            case SELF -> object;
+            case SHARED, CLASS -> null;
+            case VARIABLE -> receiver(object, frame);
+        };
+        boolean hit = switch (form) {
+            case SELF, VARIABLE -> receiver != null && receiver.astNode == c;
+            case SHARED -> object == null;
+            case CLASS -> true;
+        };
+        if (hit && Interpreter.doesMatch(m, site.call, parameters)) return machine.invoke(receiver, m, parameters, site);
+        return fallback(machine, object, frame, values);
+    }
+
+    /**
+     * @return the object a call on a variable is made on, or null when it is not an object
+     */
+    private ObjectIDT receiver(ObjectIDT object, InterpreterDataType[] frame) {
+        var target = Machine.variable(site.call.object, frame, object);
+        if (target instanceof ReferenceIDT reference) target = reference.refersTo.orElse(null);
+        return target instanceof ObjectIDT targetObject ? targetObject : null;
+    }
+
+    /**
+     * Makes cached() the target when there is only one method the call can run, for the object it is made on now
+     */
+    private void link(Machine machine, ObjectIDT object, InterpreterDataType[] frame) {
+        var mc = site.call;
+        Form form;
+        ClassNode c = null;
+        MethodDeclarationNode[] candidates;
+        if (mc.objectName.isEmpty()) {
+            form = object != null ? Form.SELF : Form.SHARED;
+            if (object != null) c = object.astNode;
+            candidates = object != null ? Linker.methods(c, mc.methodName) : machine.linker.sharedMethods(mc.methodName);
+        } else if (mc.object == null && mc.objectClass != null) {
+            form = Form.CLASS;
+            candidates = Arrays.stream(Linker.methods(mc.objectClass, mc.methodName)).filter(m -> m.isShared).toArray(MethodDeclarationNode[]::new);
+        } else if (mc.object != null) {
+            form = Form.VARIABLE;
+            var receiver = receiver(object, frame);
+            if (receiver == null) return;
+            c = receiver.astNode;
+            candidates = Linker.methods(c, mc.methodName);
+        } else {
+            return;     //a member or a class found by name when the call is made
+        }
+        if (candidates.length != 1 || !candidates[0].name.equals(mc.methodName)) return;
+        var m = candidates[0];
+        if (form == Form.CLASS && mc.target != null && mc.target != m) return;
+        links++;
+        setTarget(MethodHandles.insertArguments(CACHED.bindTo(this), 0, form, c, m));
+    }
+}
@@ -0,0 +1,17 @@
+package VM;
+
+import Interpreter.InterpreterDataType;
+import Interpreter.ObjectIDT;
+
+/**
+ * A method, constructor or member initializer that JvmCompiler compiled into a JVM class. Each one is a hidden class
+ * with one instance, which the JvmMachine runs.
+ */
+interface JvmCode {
+    /**
+     * @param object - the object it runs on, or null
+     * @param frame - the parameters and returns (set, as for the other machines), then a slot for each local
+     * @return the value of a member initializer, or null
+     */
+    InterpreterDataType run(Machine machine, ObjectIDT object, InterpreterDataType[] frame);
+}
@@ -0,0 +1,839 @@
+package VM;
+
+import AST.*;
+import Interpreter.*;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Compiles one method, constructor or member initializer into a JVM class (see ClassWriter), defined as a hidden class
+ * with its constants as the class data, for the JvmMachine. The body must have been parsed and resolved
+ * (Tran.Resolver). Things are run in the same order as the other machines run them (see BytecodeCompiler).
+ * A parameter, return or local declared number or boolean is kept in a JVM float or int local: nothing else can see it
+ * (a value passed to a method is copied into the method's parameter, and a result is copied into the variable it is
+ * assigned to), so it does not need a NumberIDT. Its value is read from the frame when the code starts, and a return's
+ * is written back to the frame at the end. A variable a method is called on stays in the frame, where Machine.call()
+ * finds it, and so does every other variable, member and value, as an InterpreterDataType.
+ * Math and comparisons of numbers are done with JVM instructions, everything else with the Machine's math(),
+ * compare() and condition(). A method call is an invokedynamic whose call site (JvmCallSite) remembers the method it
+ * ran last.
+ * An expression is compiled recursively, to a depth of MAX_DEPTH, and a body the compiler cannot compile throws a
+ * CannotCompileException, so that the machine can run it as register code instead.
+ */
+final class JvmCompiler {
+    private static final String IDT = "Interpreter/InterpreterDataType", IDT_TYPE = "L" + IDT + ";", VALUES = "[" + IDT_TYPE;
+    private static final String NUMBER = "Interpreter/NumberIDT", BOOLEAN = "Interpreter/BooleanIDT";
+    private static final String OBJECT = "Interpreter/ObjectIDT", OBJECT_TYPE = "L" + OBJECT + ";";
+    private static final String MACHINE = "VM/Machine", MACHINE_TYPE = "L" + MACHINE + ";";
+    private static final String COMPILER = "VM/JvmCompiler", NEW_SITE = "VM/Chunk$NewSite";
+    private static final String CALL = "(" + MACHINE_TYPE + OBJECT_TYPE + VALUES + VALUES + ")" + VALUES;
+    private static final int MACHINE_LOCAL = 1, OBJECT_LOCAL = 2, FRAME_LOCAL = 3;
+    private static final int MAX_DEPTH = 200;
+
+    /**
+     * What a compiled expression leaves on the JVM stack: a float, an int that is 0 or 1, the NumberIDT of a member
+     * declared number (which is read when the value is used, as the other machines read it), or any other value
+     */
+    private enum Kind { NUMBER, BOOLEAN, NUMBER_MEMBER, VALUE }
+
+    private final ClassWriter writer;
+    private final ClassWriter.Code code;
+    private final ClassNode owner;
+    private final String[] types;       //by frame slot, the variable's type
+    private final int[] locals;         //by frame slot, the JVM local of a number or boolean, or -1
+    private final List<Object> constants = new ArrayList<>();
+    private int results = -1;           //the JVM local for a call statement's results
+    private int depth;
+
+    private JvmCompiler(String name, ClassNode owner, List<VariableDeclarationNode> variables, List<StatementNode> statements) {
+        this.owner = owner;
+        writer = new ClassWriter("VM/" + name.replaceAll("[^A-Za-z0-9_]", "_"), "VM/JvmCode");
+        code = writer.new Code(writer.name(), MACHINE, OBJECT, VALUES);
+        types = new String[variables.size()];
+        locals = new int[variables.size()];
+        for (int i = 0; i < types.length; i++) types[i] = variables.get(i).type;
+        var receivers = new HashSet<Integer>();
+        for (var variable : variables) variable.initializer.ifPresent(e -> receivers(e, receivers));
+        receivers(statements, receivers);
+        for (int i = 0; i < types.length; i++) {
+            boolean primitive = (types[i].equals("number") || types[i].equals("boolean")) && !receivers.contains(i);
+            locals[i] = primitive ? code.local(types[i].equals("number") ? "F" : "I") : -1;
+        }
+    }
+
+    static JvmCode compile(MethodDeclarationNode m, ClassNode owner) {
+        var variables = new ArrayList<>(m.parameters);
+        variables.addAll(m.returns);
+        variables.addAll(m.locals);
+        var compiler = new JvmCompiler(owner.name + "$" + m.name, owner, variables, m.statements);
+        int first = m.parameters.size() + m.returns.size();
+        for (int i = 0; i < first; i++) compiler.read(i);
+        compiler.locals(m.locals, first);
+        compiler.statements(m.statements);
+        for (int i = m.parameters.size(); i < first; i++) compiler.write(i);
+        return compiler.finish(false);
+    }
+
+    static JvmCode compile(ConstructorNode c, ClassNode owner) {
+        var variables = new ArrayList<>(c.parameters);
+        variables.addAll(c.locals);
+        var compiler = new JvmCompiler(owner.name + "$construct", owner, variables, c.statements);
+        for (int i = 0; i < c.parameters.size(); i++) compiler.read(i);
+        compiler.locals(c.locals, c.parameters.size());
+        compiler.statements(c.statements);
+        return compiler.finish(false);
+    }
+
+    /**
+     * @return code that returns the value of a member's initializer
+     */
+    static JvmCode compileInitializer(VariableDeclarationNode member, ClassNode owner) {
+        var compiler = new JvmCompiler(owner.name + "$" + member.name, owner, List.of(), List.of());
+        compiler.toValue(compiler.expression(member.initializer.orElseThrow()));
+        return compiler.finish(true);
+    }
+
+    /**
+     * Compiles a loop in m to be entered part way through, at the end of a time round it, from the Interpreter's frame
+     * (on-stack replacement). Its slots are m's variables, in the order they are here, and a loop over times() has the
+     * number of times it has gone round in the slot after them. The code reads every number and boolean from its
+     * NumberIDT or BooleanIDT, runs the rest of the loop, and writes them all back, so the Interpreter can carry on
+     * after the loop.
+     * @param counted - whether the Interpreter is running the loop over times() as counting, or on its condition
+     */
+    static JvmCode compileLoop(MethodDeclarationNode m, ClassNode owner, LoopNode loop, boolean counted) {
+        var variables = new ArrayList<>(m.parameters);
+        variables.addAll(m.returns);
+        variables.addAll(m.locals);
+        var compiler = new JvmCompiler(owner.name + "$" + m.name + "$loop", owner, variables, List.of(loop));
+        for (int i = 0; i < variables.size(); i++) compiler.read(i);
+        compiler.resume(loop, counted ? variables.size() : -1);
+        for (int i = 0; i < variables.size(); i++) compiler.write(i);
+        return compiler.finish(false);
+    }
+
+    private JvmCode finish(boolean returnsValue) {
+        if (!returnsValue) code.aconstNull();
+        code.areturn();
+        code.finish(ClassWriter.PUBLIC, "run", "(" + MACHINE_TYPE + OBJECT_TYPE + VALUES + ")" + IDT_TYPE);
+        var init = writer.new Code(writer.name());
+        init.load(0);
+        init.invokespecial("java/lang/Object", "<init>", "()V");
+        init.vreturn();
+        init.finish(ClassWriter.PUBLIC, "<init>", "()V");
+        writer.field(ClassWriter.STATIC | ClassWriter.FINAL, "K", "[Ljava/lang/Object;");
+        var clinit = writer.new Code();
+        clinit.invokestatic("java/lang/invoke/MethodHandles", "lookup", "()Ljava/lang/invoke/MethodHandles$Lookup;");
+        clinit.ldcString("_");
+        clinit.ldcClass("[Ljava/lang/Object;");
+        clinit.invokestatic("java/lang/invoke/MethodHandles", "classData",
+                "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/Class;)Ljava/lang/Object;");
+        clinit.checkcast("[Ljava/lang/Object;");
+        clinit.putstatic(writer.name(), "K", "[Ljava/lang/Object;");
+        clinit.vreturn();
+        clinit.finish(ClassWriter.STATIC, "<clinit>", "()V");
+        try {
+            var lookup = MethodHandles.lookup().defineHiddenClassWithClassData(writer.toBytes(), constants.toArray(), true);
+            return (JvmCode) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //              Variables
+
+    /**
+     * Finds the frame variables that methods are called on (or loops over times() that are not known to be over a
+     * number), which have to stay in the frame
+     */
+    private void receivers(List<StatementNode> statements, HashSet<Integer> receivers) {
+        for (var statement : statements) {
+            if (statement instanceof AssignmentNode assignment) {
+                receivers(assignment.expression, receivers);
+            } else if (statement instanceof MethodCallStatementNode mc) {
+                if (inFrame(mc.object)) receivers.add(mc.object.slot);
+                for (var parameter : mc.parameters) receivers(parameter, receivers);
+            } else if (statement instanceof IfNode ifNode) {
+                receivers(ifNode.condition, receivers);
+                receivers(ifNode.statements, receivers);
+                ifNode.elseStatement.ifPresent(e -> receivers(e.statements, receivers));
+            } else if (statement instanceof LoopNode loop) {
+                var times = times(loop);
+                boolean number = times != null && inFrame(times.object) && types[times.object.slot].equals("number");
+                if (!number) receivers(loop.expression, receivers);
+                receivers(loop.statements, receivers);
+            }
+        }
+    }
+
+    private void receivers(ExpressionNode expression, HashSet<Integer> receivers) {
+        if (expression instanceof MathOpNode math) {
+            receivers(math.left, receivers);
+            receivers(math.right, receivers);
+        } else if (expression instanceof CompareNode compare) {
+            receivers(compare.left, receivers);
+            receivers(compare.right, receivers);
+        } else if (expression instanceof BooleanOpNode op) {
+            receivers(op.left, receivers);
+            receivers(op.right, receivers);
+        } else if (expression instanceof NotOpNode not) {
+            receivers(not.left, receivers);
+        } else if (expression instanceof MethodCallExpressionNode mce) {
+            if (inFrame(mce.object)) receivers.add(mce.object.slot);
+            for (var parameter : mce.parameters) receivers(parameter, receivers);
+        } else if (expression instanceof NewNode newNode) {
+            for (var parameter : newNode.parameters) receivers(parameter, receivers);
+        }
+    }
+
+    private static boolean inFrame(VariableReferenceNode variable) {
+        return variable != null && variable.scope != null && variable.scope != VariableReferenceNode.Scope.MEMBER;
+    }
+
+    /**
+     * @return the call to times() a loop is over, or null
+     */
+    private static MethodCallExpressionNode times(LoopNode loop) {
+        if (loop.expression instanceof MethodCallExpressionNode mce && mce.methodName.equals("times")
+                && mce.parameters.isEmpty() && mce.objectName.isPresent()) return mce;
+        return null;
+    }
+
+    /**
+     * Reads a number or boolean parameter or return from its NumberIDT or BooleanIDT in the frame
+     */
+    private void read(int slot) {
+        if (locals[slot] < 0) return;
+        boolean number = types[slot].equals("number");
+        code.load(FRAME_LOCAL);
+        code.iconst(slot);
+        code.aaload();
+        code.checkcast(number ? NUMBER : BOOLEAN);
+        code.getfield(number ? NUMBER : BOOLEAN, "Value", number ? "F" : "Z");
+        code.store(locals[slot]);
+    }
+
+    /**
+     * Writes a number or boolean return (or, after a loop entered part way through, any one) back to the frame, where
+     * the machine finds it
+     */
+    private void write(int slot) {
+        if (locals[slot] < 0) return;
+        boolean number = types[slot].equals("number");
+        code.load(FRAME_LOCAL);
+        code.iconst(slot);
+        code.aaload();
+        code.checkcast(number ? NUMBER : BOOLEAN);
+        code.load(locals[slot]);
+        code.putfield(number ? NUMBER : BOOLEAN, "Value", number ? "F" : "Z");
+    }
+
+    /**
+     * Makes the locals in order, like LOCAL and LOCAL_INIT. A number or boolean's JVM local is already 0
+     */
+    private void locals(List<VariableDeclarationNode> declarations, int first) {
+        for (int i = 0; i < declarations.size(); i++) {
+            var local = declarations.get(i);
+            int slot = first + i;
+            if (locals[slot] >= 0) {
+                if (local.initializer.isPresent()) storeLocal(slot, expression(local.initializer.get()));
+            } else {
+                code.load(FRAME_LOCAL);
+                code.iconst(slot);
+                if (local.initializer.isPresent()) {
+                    toValue(expression(local.initializer.get()));
+                    code.ldcString(local.type);
+                    code.invokestatic(COMPILER, "local", "(" + IDT_TYPE + "Ljava/lang/String;)" + IDT_TYPE);
+                } else {
+                    code.ldcString(local.type);
+                    code.invokestatic("Interpreter/Interpreter", "instantiate", "(Ljava/lang/String;)" + IDT_TYPE);
+                }
+                code.aastore();
+            }
+        }
+    }
+
+    /**
+     * @return the type a member was declared with
+     */
+    private String memberType(int slot) {
+        return owner.members.get(slot).declaration.type;
+    }
+
+    private Kind load(VariableReferenceNode variable) {
+        if (variable.scope == null) {
+            code.ldcString(variable.name);
+            code.load(OBJECT_LOCAL);
+            code.invokestatic(MACHINE, "member", "(Ljava/lang/String;" + OBJECT_TYPE + ")" + IDT_TYPE);
+            return Kind.VALUE;
+        }
+        if (variable.scope == VariableReferenceNode.Scope.MEMBER) {
+            code.load(OBJECT_LOCAL);
+            code.getfield(OBJECT, "fields", VALUES);
+            code.iconst(variable.slot);
+            code.aaload();
+            if (!memberType(variable.slot).equals("number")) return Kind.VALUE;
+            code.checkcast(NUMBER);
+            return Kind.NUMBER_MEMBER;
+        }
+        int local = locals[variable.slot];
+        if (local >= 0) {
+            code.load(local);
+            return code.localType(local).equals("F") ? Kind.NUMBER : Kind.BOOLEAN;
+        }
+        code.load(FRAME_LOCAL);
+        code.iconst(variable.slot);
+        code.aaload();
+        return Kind.VALUE;
+    }
+
+    /**
+     * Assigns the value on the stack to a variable, as InterpreterDataType.Assign() does
+     */
+    private void store(VariableReferenceNode variable, Kind kind) {
+        if (variable.scope == null) {
+            toValue(kind);
+            code.ldcString(variable.name);
+            code.load(OBJECT_LOCAL);
+            code.invokestatic(MACHINE, "member", "(Ljava/lang/String;" + OBJECT_TYPE + ")" + IDT_TYPE);
+            assign();
+        } else if (variable.scope == VariableReferenceNode.Scope.MEMBER) {
+            String type = memberType(variable.slot);
+            boolean number = type.equals("number") && (kind == Kind.NUMBER || kind == Kind.NUMBER_MEMBER);
+            boolean bool = type.equals("boolean") && kind == Kind.BOOLEAN;
+            if (number) toNumber(kind);
+            else toValue(kind);
+            code.load(OBJECT_LOCAL);
+            code.getfield(OBJECT, "fields", VALUES);
+            code.iconst(variable.slot);
+            code.aaload();
+            if (number || bool) {
+                code.checkcast(number ? NUMBER : BOOLEAN);
+                code.swap();
+                code.putfield(number ? NUMBER : BOOLEAN, "Value", number ? "F" : "Z");
+            } else {
+                assign();
+            }
+        } else if (locals[variable.slot] >= 0) {
+            storeLocal(variable.slot, kind);
+        } else {
+            toValue(kind);
+            code.load(FRAME_LOCAL);
+            code.iconst(variable.slot);
+            code.aaload();
+            assign();
+        }
+    }
+
+    private void storeLocal(int slot, Kind kind) {
+        if (types[slot].equals("number")) {
+            if (kind == Kind.NUMBER || kind == Kind.NUMBER_MEMBER) {
+                toNumber(kind);
+            } else {
+                toValue(kind);
+                code.invokestatic(COMPILER, "toNumber", "(" + IDT_TYPE + ")F");
+            }
+        } else if (kind != Kind.BOOLEAN) {
+            toValue(kind);
+            code.invokestatic(COMPILER, "toBoolean", "(" + IDT_TYPE + ")Z");
+        }
+        code.store(locals[slot]);
+    }
+
+    /**
+     * Calls Assign() on the variable on top of the stack with the value under it
+     */
+    private void assign() {
+        code.swap();
+        code.invokeinterface(IDT, "Assign", "(" + IDT_TYPE + ")V");
+    }
+
+    //              Statements
+
+    private void statements(List<StatementNode> statements) {
+        for (var statement : statements) {
+            if (statement instanceof AssignmentNode assignment) {
+                store(assignment.target, expression(assignment.expression));
+            } else if (statement instanceof MethodCallStatementNode mc) {
+                var site = new Chunk.CallSite(mc, mc.toString().strip());
+                call(site, mc.parameters);
+                code.iconst(mc.returnValues.size());
+                constant(site);
+                code.invokestatic(COMPILER, "results", "(" + VALUES + "ILjava/lang/Object;)" + VALUES);
+                if (results < 0) results = code.local(VALUES);
+                code.store(results);
+                //the variables in the frame get their values first, then the members, as in the RegisterMachine
+                for (boolean members : new boolean[] {false, true}) {
+                    for (int i = 0; i < mc.returnValues.size(); i++) {
+                        var target = mc.returnValues.get(i);
+                        if (inFrame(target) == members) continue;
+                        code.load(results);
+                        code.iconst(i);
+                        code.aaload();
+                        store(target, Kind.VALUE);
+                    }
+                }
+            } else if (statement instanceof IfNode ifNode) {
+                var toElse = new ClassWriter.Label();
+                jumpIf(ifNode.condition, false, toElse, ifNode.condition.toString());
+                statements(ifNode.statements);
+                if (ifNode.elseStatement.isPresent()) {
+                    var toEnd = new ClassWriter.Label();
+                    code.jump(GOTO, toEnd);
+                    code.place(toElse);
+                    statements(ifNode.elseStatement.get().statements);
+                    code.place(toEnd);
+                } else {
+                    code.place(toElse);
+                }
+            } else if (statement instanceof LoopNode loop) {
+                loop(loop);
+            } else {
+                throw new CannotCompileException("Unable to compile " + statement);
+            }
+        }
+    }
+
+    /**
+     * A loop over n.times() counts in an int while n is a number, like TIMES and TIMES_NEXT, and is an ordinary loop
+     * otherwise. When n was declared, only one of the two is compiled
+     */
+    private void loop(LoopNode loop) {
+        var mce = times(loop);
+        if (mce == null) {
+            whileLoop(loop);
+            return;
+        }
+        var end = new ClassWriter.Label();
+        var notNumber = new ClassWriter.Label();
+        String type = timesType(mce);
+        int limit = limit(mce);
+        if (type == null) {
+            code.load(limit);
+            code.instanceOf(NUMBER);
+            code.jump(IFEQ, notNumber);
+        }
+        if (type == null || type.equals("number")) {
+            int counter = code.local("I");
+            code.iconst(0);
+            code.store(counter);
+            count(loop, limit, counter, end);
+        }
+        if (type == null) code.place(notNumber);
+        if (type == null || !type.equals("number")) whileLoop(loop);
+        code.place(end);
+    }
+
+    /**
+     * Carries on with a loop from the end of a time round it: a loop on its condition tests it again, and a loop over
+     * times() counts on from the number of times in the frame's slot count
+     */
+    private void resume(LoopNode loop, int count) {
+        var mce = times(loop);
+        if (count < 0 || mce == null) {
+            whileLoop(loop);
+            return;
+        }
+        String type = timesType(mce);
+        if (type != null && !type.equals("number")) throw new CannotCompileException("Unable to count " + mce);
+        var end = new ClassWriter.Label();
+        int limit = limit(mce);
+        int counter = code.local("I");
+        code.load(FRAME_LOCAL);
+        code.iconst(count);
+        code.aaload();
+        code.checkcast(NUMBER);
+        code.getfield(NUMBER, "Value", "F");
+        code.f2i();
+        code.store(counter);
+        count(loop, limit, counter, end);
+        code.place(end);
+    }
+
+    /**
+     * @return the type n was declared with, for a loop over n.times(), or null when it is found by name
+     */
+    private String timesType(MethodCallExpressionNode mce) {
+        var times = mce.object;
+        if (times == null || times.scope == null) return null;
+        return times.scope == VariableReferenceNode.Scope.MEMBER ? memberType(times.slot) : types[times.slot];
+    }
+
+    /**
+     * @return the JVM local that holds n, for a loop over n.times(): its own float or int, or a new one that n's value
+     * is stored in
+     */
+    private int limit(MethodCallExpressionNode mce) {
+        var times = mce.object;
+        if (inFrame(times) && locals[times.slot] >= 0) return locals[times.slot];
+        toValue(times != null ? load(times) : load(byName(mce.objectName.get())));
+        int limit = code.local(IDT);
+        code.store(limit);
+        return limit;
+    }
+
+    /**
+     * Like TIMES and TIMES_NEXT: goes round until the counter reaches the number in limit, then jumps to end
+     */
+    private void count(LoopNode loop, int limit, int counter, ClassWriter.Label end) {
+        var top = new ClassWriter.Label();
+        code.place(top);
+        code.load(counter);
+        code.i2f();
+        code.load(limit);
+        if (code.localType(limit).equals(IDT)) {
+            code.checkcast(NUMBER);
+            code.getfield(NUMBER, "Value", "F");
+        }
+        code.fcmpg();
+        code.jump(IFGE, end);
+        if (loop.assignment.isPresent()) {
+            code.load(counter);
+            code.i2f();
+            store(loop.assignment.get(), Kind.NUMBER);
+        }
+        code.iinc(counter, 1);
+        statements(loop.statements);
+        code.jump(GOTO, top);
+    }
+
+    private static VariableReferenceNode byName(String name) {
+        var variable = new VariableReferenceNode();
+        variable.name = name;
+        return variable;
+    }
+
+    /**
+     * Like LOOP_TEST: the loop's variable is assigned the condition each time it is tested
+     */
+    private void whileLoop(LoopNode loop) {
+        var top = new ClassWriter.Label();
+        var end = new ClassWriter.Label();
+        String description = loop.expression.toString();
+        code.place(top);
+        if (loop.assignment.isPresent()) {
+            condition(loop.expression, description);
+            code.dup();
+            store(loop.assignment.get(), Kind.BOOLEAN);
+            code.jump(IFEQ, end);
+        } else {
+            jumpIf(loop.expression, false, end, description);
+        }
+        statements(loop.statements);
+        code.jump(GOTO, top);
+        code.place(end);
+    }
+
+    //              Expressions
+
+    private Kind expression(ExpressionNode node) {
+        if (++depth > MAX_DEPTH) throw new CannotCompileException("The expression is too deep to compile");
+        try {
+            return compile(node);
+        } finally {
+            depth--;
+        }
+    }
+
+    private Kind compile(ExpressionNode node) {
+        if (node instanceof NumericLiteralNode n) {
+            code.fconst(n.value);
+            return Kind.NUMBER;
+        }
+        if (node instanceof BooleanLiteralNode b) {
+            code.iconst(b.value ? 1 : 0);
+            return Kind.BOOLEAN;
+        }
+        if (node instanceof StringLiteralNode s) return literal(new StringIDT(s.value));
+        if (node instanceof CharLiteralNode c) return literal(new CharIDT(c.value));
+        if (node instanceof VariableReferenceNode variable) return load(variable);
+        if (node instanceof MathOpNode math) {
+            Kind left = expression(math.left), right = expression(math.right);
+            int op = switch (math.op) {
+                case add -> Op.ADD;
+                case subtract -> Op.SUBTRACT;
+                case multiply -> Op.MULTIPLY;
+                case divide -> Op.DIVIDE;
+                case modulo -> Op.MODULO;
+            };
+            if (numbers(left, right)) {
+                code.floatMath(FADD + (op - Op.ADD) * 4);     //fadd, fsub, fmul, fdiv and frem are 4 apart
+                return Kind.NUMBER;
+            }
+            values(left, right);
+            code.iconst(op);
+            code.invokestatic(COMPILER, "math", "(" + IDT_TYPE + IDT_TYPE + "I)" + IDT_TYPE);
+            return Kind.VALUE;
+        }
+        if (node instanceof CompareNode || node instanceof BooleanOpNode) {
+            var isFalse = new ClassWriter.Label();
+            var end = new ClassWriter.Label();
+            jumpIf(node, false, isFalse, node.toString());
+            code.iconst(1);
+            code.jump(GOTO, end);
+            code.place(isFalse);
+            code.iconst(0);
+            code.place(end);
+            return Kind.BOOLEAN;
+        }
+        if (node instanceof NotOpNode not) {
+            condition(not.left, not.left.toString());
+            code.iconst(1);
+            code.ixor();
+            return Kind.BOOLEAN;
+        }
+        if (node instanceof MethodCallExpressionNode mce) {
+            var site = new Chunk.CallSite(new MethodCallStatementNode(mce), mce.toString());
+            call(site, mce.parameters);
+            constant(site);
+            code.invokestatic(COMPILER, "value", "(" + VALUES + "Ljava/lang/Object;)" + IDT_TYPE);
+            return Kind.VALUE;
+        }
+        if (node instanceof NewNode newNode) {
+            //the object is made (and its members initialized) before the parameters, like NEW then CONSTRUCT
+            var site = new Chunk.NewSite(newNode);
+            int object = code.local(OBJECT);
+            code.load(MACHINE_LOCAL);
+            constant(site);
+            code.checkcast(NEW_SITE);
+            code.invokevirtual(MACHINE, "newObject", "(L" + NEW_SITE + ";)" + OBJECT_TYPE);
+            code.store(object);
+            code.load(MACHINE_LOCAL);
+            constant(site);
+            code.checkcast(NEW_SITE);
+            code.load(object);
+            arguments(newNode.parameters);
+            code.invokestatic("java/util/Arrays", "asList", "([Ljava/lang/Object;)Ljava/util/List;");
+            code.invokevirtual(MACHINE, "construct", "(L" + NEW_SITE + ";" + OBJECT_TYPE + "Ljava/util/List;)V");
+            code.load(object);
+            return Kind.VALUE;
+        }
+        throw new CannotCompileException("Unable to compile " + node);
+    }
+
+    /**
+     * A string or character literal is one value in the constants, as it is one register in a RegisterChunk
+     */
+    private Kind literal(InterpreterDataType value) {
+        constant(value);
+        code.checkcast(IDT);
+        return Kind.VALUE;
+    }
+
+    /**
+     * Pushes a value from the class's constants
+     */
+    private void constant(Object value) {
+        code.getstatic(writer.name(), "K", "[Ljava/lang/Object;");
+        code.iconst(constants.size());
+        code.aaload();
+        constants.add(value);
+    }
+
+    /**
+     * Pushes the parameters in an array, then calls through an invokedynamic whose call site is a JvmCallSite
+     */
+    private void call(Chunk.CallSite site, List<ExpressionNode> parameters) {
+        code.load(MACHINE_LOCAL);
+        code.load(OBJECT_LOCAL);
+        code.load(FRAME_LOCAL);
+        arguments(parameters);
+        int bootstrap = writer.bootstrap("VM/JvmCallSite", "bootstrap",
+                "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;I)Ljava/lang/invoke/CallSite;",
+                constants.size());
+        constants.add(site);
+        code.invokedynamic(bootstrap, "call", CALL);
+    }
+
+    private void arguments(List<ExpressionNode> parameters) {
+        code.iconst(parameters.size());
+        code.anewarray(IDT);
+        for (int i = 0; i < parameters.size(); i++) {
+            code.dup();
+            code.iconst(i);
+            toValue(expression(parameters.get(i)));
+            code.aastore();
+        }
+    }
+
+    //              Conditions
+
+    /**
+     * Jumps to a label when a condition is (or is not) true, without making a BooleanIDT
+     * @param description - the condition, for the error when it is not a boolean
+     */
+    private void jumpIf(ExpressionNode node, boolean when, ClassWriter.Label target, String description) {
+        if (node instanceof NotOpNode not) {
+            jumpIf(not.left, !when, target, not.left.toString());
+        } else if (node instanceof BooleanOpNode op) {
+            //a and b: if a is false the answer is false without b, a or b: if a is true it is true
+            boolean decided = op.op != BooleanOpNode.BooleanOperations.and;
+            if (when == decided) {
+                jumpIf(op.left, when, target, op.left.toString());
+                jumpIf(op.right, when, target, op.right.toString());
+            } else {
+                var skip = new ClassWriter.Label();
+                jumpIf(op.left, decided, skip, op.left.toString());
+                jumpIf(op.right, when, target, op.right.toString());
+                code.place(skip);
+            }
+        } else if (node instanceof CompareNode compare) {
+            Kind left = expression(compare.left), right = expression(compare.right);
+            int op = switch (compare.op) {
+                case lt -> Op.LESS;
+                case le -> Op.LESS_EQUAL;
+                case gt -> Op.GREATER;
+                case ge -> Op.GREATER_EQUAL;
+                case eq -> Op.EQUAL;
+                case ne -> Op.NOT_EQUAL;
+            };
+            if (numbers(left, right)) {
+                //like Machine.compare(), so -0 < 0 and NaN == NaN
+                code.invokestatic("java/lang/Float", "compare", "(FF)I");
+                int jump = switch (op) {
+                    case Op.LESS -> IFLT;
+                    case Op.LESS_EQUAL -> IFLE;
+                    case Op.GREATER -> IFGT;
+                    case Op.GREATER_EQUAL -> IFGE;
+                    case Op.EQUAL -> IFEQ;
+                    default -> IFNE;
+                };
+                code.jump(when ? jump : negate(jump), target);
+            } else {
+                values(left, right);
+                code.iconst(op);
+                code.invokestatic(COMPILER, "compare", "(" + IDT_TYPE + IDT_TYPE + "I)Z");
+                code.jump(when ? IFNE : IFEQ, target);
+            }
+        } else {
+            condition(node, description);
+            code.jump(when ? IFNE : IFEQ, target);
+        }
+    }
+
+    /**
+     * Pushes a condition as 0 or 1, like Machine.condition()
+     */
+    private void condition(ExpressionNode node, String description) {
+        Kind kind = expression(node);
+        if (kind == Kind.BOOLEAN) return;
+        toValue(kind);
+        code.ldcString(description);
+        code.invokestatic(MACHINE, "condition", "(" + IDT_TYPE + "Ljava/lang/Object;)Z");
+    }
+
+    private static int negate(int jump) {
+        //ifeq/ifne, iflt/ifge and ifgt/ifle are pairs
+        return switch (jump) {
+            case IFEQ -> IFNE;
+            case IFNE -> IFEQ;
+            case IFLT -> IFGE;
+            case IFGE -> IFLT;
+            case IFGT -> IFLE;
+            default -> IFGT;
+        };
+    }
+
+    //              Kinds
+
+    /**
+     * @return true, with the two values as floats, when both are numbers
+     */
+    private boolean numbers(Kind left, Kind right) {
+        boolean number = (left == Kind.NUMBER || left == Kind.NUMBER_MEMBER) && (right == Kind.NUMBER || right == Kind.NUMBER_MEMBER);
+        if (!number) return false;
+        toNumber(right);
+        if (left == Kind.NUMBER_MEMBER) {
+            //the member's value is read now, after the right side, as the other machines read it
+            code.swap();
+            toNumber(left);
+            code.swap();
+        }
+        return true;
+    }
+
+    /**
+     * Makes the two values InterpreterDataTypes
+     */
+    private void values(Kind left, Kind right) {
+        toValue(right);
+        if (left == Kind.NUMBER || left == Kind.BOOLEAN) {
+            code.swap();
+            toValue(left);
+            code.swap();
+        }
+    }
+
+    private void toNumber(Kind kind) {
+        if (kind == Kind.NUMBER_MEMBER) code.getfield(NUMBER, "Value", "F");
+    }
+
+    private void toValue(Kind kind) {
+        if (kind == Kind.NUMBER) code.invokestatic(COMPILER, "box", "(F)L" + NUMBER + ";");
+        else if (kind == Kind.BOOLEAN) code.invokestatic(COMPILER, "box", "(Z)L" + BOOLEAN + ";");
+    }
+
+    //              JVM Opcodes
+
+    private static final int FADD = 0x62, IFEQ = 0x99, IFNE = 0x9a, IFLT = 0x9b, IFGE = 0x9c, IFGT = 0x9d, IFLE = 0x9e, GOTO = 0xa7;
+
+    //              Run by the compiled code
+
+    static NumberIDT box(float value) {
+        return new NumberIDT(value);
+    }
+
+    static BooleanIDT box(boolean value) {
+        return new BooleanIDT(value);
+    }
+
+    /**
+     * @return the value of a number, with NumberIDT.Assign()'s error for anything else
+     */
+    static float toNumber(InterpreterDataType value) {
+        if (value instanceof NumberIDT n) return n.Value;
+        throw new RuntimeException("Trying to assign to a number IDT from a " + value.getClass());
+    }
+
+    static boolean toBoolean(InterpreterDataType value) {
+        if (value instanceof BooleanIDT b) return b.Value;
+        throw new RuntimeException("Trying to assign to a boolean IDT from a " + value.getClass());
+    }
+
+    static InterpreterDataType math(InterpreterDataType left, InterpreterDataType right, int op) {
+        return Machine.math(op, left, right);
+    }
+
+    static boolean compare(InterpreterDataType left, InterpreterDataType right, int op) {
+        return Machine.compare(op, left, right);
+    }
+
+    /**
+     * @return a new local of a type, assigned a value, like LOCAL_INIT
+     */
+    static InterpreterDataType local(InterpreterDataType value, String type) {
+        var local = Interpreter.instantiate(type);
+        local.Assign(value);
+        return local;
+    }
+
+    /**
+     * @return the first value a method call in an expression returned
+     */
+    static InterpreterDataType value(InterpreterDataType[] results, Object site) {
+        if (results.length == 0) throw new RuntimeException(site + " does not return a value");
+        return results[0];
+    }
+
+    static InterpreterDataType[] results(InterpreterDataType[] results, int count, Object site) {
+        if (results.length < count) throw new RuntimeException(site + " returns " + results.length + " values");
+        return results;
+    }
+}
@@ -0,0 +1,119 @@
+package VM;
+
+import AST.*;
+import Interpreter.*;
+import Tran.Linker;
+import Tran.SyntaxErrorException;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Runs a Tran program as JVM code: each method, constructor and member initializer is compiled by JvmCompiler the
+ * first time it runs, into a hidden class the JVM then compiles to machine code like any other.
+ *      new JvmMachine(tran).start();
+ * Something JvmCompiler cannot compile runs as register code, as it would in the RegisterMachine. The values, the way
+ * methods and constructors are picked, and the order things run in are the other machines'.
+ */
+public class JvmMachine extends RegisterMachine {
+    private final IdentityHashMap<Object, JvmCode> code = new IdentityHashMap<>();     //by method, constructor or member, null when it is run as register code
+    private final IdentityHashMap<MethodDeclarationNode, ClassNode> owners = new IdentityHashMap<>();
+    /**
+     * The number of methods, constructors and member initializers compiled to JVM code, and run as register code
+     */
+    public int compiled, notCompiled;
+
+    public JvmMachine(TranNode top) {
+        super(top);
+        for (var c : top.Classes) for (var m : c.methods) owners.put(m, c);
+    }
+
+    JvmMachine(TranNode top, Linker linker) {
+        super(top, linker);
+        for (var c : top.Classes) for (var m : c.methods) owners.put(m, c);
+    }
+
+    /**
+     * @return the class a method is declared in
+     */
+    ClassNode owner(MethodDeclarationNode m) {
+        return owners.get(m);
+    }
+
+    /**
+     * @return the JVM code for a method, compiling it the first time, or null when it cannot be compiled
+     */
+    private JvmCode code(MethodDeclarationNode m) {
+        if (code.containsKey(m)) return code.get(m);
+        try {
+            m.parseBody();
+        } catch (SyntaxErrorException e) {
+            throw new RuntimeException(e);
+        }
+        return compiled(m, () -> JvmCompiler.compile(m, owner(m)));
+    }
+
+    private JvmCode compiled(Object key, Supplier<JvmCode> compiler) {
+        JvmCode compiledCode;
+        try {
+            compiledCode = compiler.get();
+            compiled++;
+        } catch (CannotCompileException e) {
+            compiledCode = null;
+            notCompiled++;
+        }
+        code.put(key, compiledCode);
+        return compiledCode;
+    }
+
+    @Override
+    InterpreterDataType[] invoke(ObjectIDT object, MethodDeclarationNode m, List<InterpreterDataType> values, Chunk.CallSite site) {
+        var builtIn = builtIn(m, values);
+        if (builtIn != null) return builtIn;
+        JvmCode jvmCode;
+        if (site != null && site.lastMethod == m && site.lastCode instanceof JvmCode last) {
+            jvmCode = last;
+        } else {
+            jvmCode = code(m);
+            if (jvmCode == null) return super.invoke(object, m, values, site);
+            if (site != null) {
+                site.lastMethod = m;
+                site.lastCode = jvmCode;
+            }
+        }
+        return run(jvmCode, object, m, values);
+    }
+
+    /**
+     * Runs a method's JVM code
+     * @return the values of its returns
+     */
+    InterpreterDataType[] run(JvmCode jvmCode, ObjectIDT object, MethodDeclarationNode m, List<InterpreterDataType> values) {
+        var frame = new InterpreterDataType[m.parameters.size() + m.returns.size() + m.locals.size()];
+        setParameters(frame, m, values);
+        jvmCode.run(this, object, frame);
+        return Arrays.copyOfRange(frame, m.parameters.size(), m.parameters.size() + m.returns.size());
+    }
+
+    @Override
+    InterpreterDataType initialize(VariableDeclarationNode member, ObjectIDT object) {
+        var jvmCode = code.containsKey(member) ? code.get(member)
+                : compiled(member, () -> JvmCompiler.compileInitializer(member, object.astNode));
+        return jvmCode == null ? super.initialize(member, object) : jvmCode.run(this, object, new InterpreterDataType[0]);
+    }
+
+    @Override
+    void runConstructor(ObjectIDT object, ConstructorNode constructor, List<InterpreterDataType> values) {
+        var jvmCode = code.containsKey(constructor) ? code.get(constructor)
+                : compiled(constructor, () -> JvmCompiler.compile(constructor, object.astNode));
+        if (jvmCode == null) {
+            super.runConstructor(object, constructor, values);
+            return;
+        }
+        var frame = new InterpreterDataType[constructor.parameters.size() + constructor.locals.size()];
+        setParameters(frame, constructor.parameters, values);
+        jvmCode.run(this, object, frame);
+    }
+}
@@ -0,0 +1,250 @@
+package VM;
+
+import AST.*;
+import Interpreter.*;
+import Tran.Linker;
+import Tran.Resolver;
+
+import java.util.List;
+
+/**
+ * What the machines in this package share: finding the method a call runs, making objects and picking their
+ * constructors, and the values of math, comparisons and conditions. All of it is done the way the Interpreter does it,
+ * so a machine only has to run its own kind of code:
+ *      invoke()          //run a method on the values passed to it
+ *      initialize()      //work out the value of a member's initializer
+ *      runConstructor()  //run a constructor on a new object
+ */
+public abstract class Machine {
+    private static final InterpreterDataType[] NONE = new InterpreterDataType[0];
+
+    protected final TranNode top;
+    protected final Linker linker;
+    /**
+     * The number of instructions run so far, counted when each chunk returns
+     */
+    public long dispatches;
+
+    /**
+     * Adds the built-in classes to the program and links and resolves it, like the Interpreter's constructor
+     */
+    protected Machine(TranNode top) {
+        this.top = top;
+        Interpreter.addBuiltIns(top);
+        linker = Linker.link(top);
+        Resolver.resolve(top);
+    }
+
+    /**
+     * For a program that was already prepared, by the Interpreter that hands its hot methods to the machine
+     */
+    Machine(TranNode top, Linker linker) {
+        this.top = top;
+        this.linker = linker;
+    }
+
+    /**
+     * Runs the shared start() method with no parameters, like Interpreter.start()
+     */
+    public void start() {
+        for (var c : top.Classes) {
+            for (var m : c.methods) {
+                if (m.isShared && !m.isPrivate && m.name.equals("start") && m.parameters.isEmpty()) {
+                    invoke(null, m, List.of(), null);
+                    return;
+                }
+            }
+        }
+        throw new RuntimeException("No 'start' method found");
+    }
+
+    /**
+     * Runs a method, like the Interpreter's interpretMethodCall()
+     * @param site - the call, which remembers the code of the last method it ran, or null
+     * @return the values of its returns
+     */
+    abstract InterpreterDataType[] invoke(ObjectIDT object, MethodDeclarationNode m, List<InterpreterDataType> values, Chunk.CallSite site);
+
+    /**
+     * @return the value of a member's initializer for a new object
+     */
+    abstract InterpreterDataType initialize(VariableDeclarationNode member, ObjectIDT object);
+
+    abstract void runConstructor(ObjectIDT object, ConstructorNode constructor, List<InterpreterDataType> values);
+
+    /**
+     * @return the values a built-in method returns, or null if m is not built in
+     */
+    static InterpreterDataType[] builtIn(MethodDeclarationNode m, List<InterpreterDataType> values) {
+        return m instanceof BuiltInMethodDeclarationNode builtIn ? builtIn.Execute(values).toArray(NONE) : null;
+    }
+
+    /**
+     * Puts a method's parameters, holding the values passed to it, and its returns in the first slots of a frame
+     */
+    static void setParameters(InterpreterDataType[] frame, MethodDeclarationNode m, List<InterpreterDataType> values) {
+        int parameters = m.parameters.size();
+        if (values.size() != parameters) {
+            throw new RuntimeException("Method " + m.name + " takes " + parameters + " parameters, not " + values.size());
+        }
+        setParameters(frame, m.parameters, values);
+        for (int i = 0; i < m.returns.size(); i++) frame[parameters + i] = Interpreter.instantiate(m.returns.get(i).type);
+    }
+
+    static void setParameters(InterpreterDataType[] frame, List<VariableDeclarationNode> parameters, List<InterpreterDataType> values) {
+        for (int i = 0; i < values.size(); i++) {
+            frame[i] = Interpreter.instantiate(parameters.get(i).type);
+            frame[i].Assign(values.get(i));
+        }
+    }
+
+    //              Values
+
+    /**
+     * @param op - Op.ADD to Op.MODULO
+     */
+    static InterpreterDataType math(int op, InterpreterDataType left, InterpreterDataType right) {
+        if (left instanceof NumberIDT l && right instanceof NumberIDT r) {
+            switch (op) {
+                case Op.ADD -> {return new NumberIDT(l.Value + r.Value);}
+                case Op.SUBTRACT -> {return new NumberIDT(l.Value - r.Value);}
+                case Op.MULTIPLY -> {return new NumberIDT(l.Value * r.Value);}
+                case Op.DIVIDE -> {return new NumberIDT(l.Value / r.Value);}
+                default -> {return new NumberIDT(l.Value % r.Value);}
+            }
+        }
+        return Interpreter.math(MathOpNode.MathOperations.values()[op - Op.ADD], left, right);
+    }
+
+    /**
+     * @param op - Op.LESS to Op.NOT_EQUAL
+     */
+    static boolean compare(int op, InterpreterDataType left, InterpreterDataType right) {
+        if (left instanceof NumberIDT l && right instanceof NumberIDT r) {
+            int order = Float.compare(l.Value, r.Value);    //like the Interpreter, so -0 < 0 and NaN == NaN
+            switch (op) {
+                case Op.LESS -> {return order < 0;}
+                case Op.LESS_EQUAL -> {return order <= 0;}
+                case Op.GREATER -> {return order > 0;}
+                case Op.GREATER_EQUAL -> {return order >= 0;}
+                case Op.EQUAL -> {return order == 0;}
+                default -> {return order != 0;}
+            }
+        }
+        return Interpreter.compare(CompareNode.CompareOperations.values()[op - Op.LESS], left, right);
+    }
+
+    static boolean condition(InterpreterDataType value, Object description) {
+        if (value instanceof BooleanIDT b) return b.Value;
+        throw new RuntimeException("Condition " + description + " is not a boolean");
+    }
+
+    static InterpreterDataType variable(VariableReferenceNode variable, InterpreterDataType[] frame, ObjectIDT object) {
+        if (variable.scope == null) return member(variable.name, object);
+        if (variable.scope == VariableReferenceNode.Scope.MEMBER) return object.fields[variable.slot];
+        return frame[variable.slot];
+    }
+
+    static InterpreterDataType member(String name, ObjectIDT object) {
+        var member = object == null ? null : object.members.get(name);
+        if (member == null) throw new RuntimeException("Unable to find variable " + name);
+        return member;
+    }
+
+    //              Calls
+
+    /**
+     * Finds the method a call runs the same way the Interpreter's findMethodForMethodCallAndRunIt() does, and runs it
+     * @param frame - the caller's frame, where the variable the call is made on is
+     */
+    InterpreterDataType[] call(ObjectIDT object, InterpreterDataType[] frame, Chunk.CallSite site, List<InterpreterDataType> parameters) {
+        var mc = site.call;
+        boolean resolved = mc.target != null && Interpreter.doesMatch(mc.target, mc, parameters);
+        if (mc.objectName.isEmpty()) {
+            if (object != null) {
+                if (resolved && object.astNode == mc.objectClass) return invoke(object, mc.target, parameters, site);
+                return invoke(object, getMethodFromObject(object, mc, parameters), parameters, site);
+            }
+            if (resolved && mc.objectClass == null) return invoke(null, mc.target, parameters, site);
+            for (var m : linker.sharedMethods(mc.methodName)) {
+                if (Interpreter.doesMatch(m, mc, parameters)) return invoke(null, m, parameters, site);
+            }
+            throw new RuntimeException("Unable to resolve method call " + mc);
+        }
+        String name = mc.objectName.get();
+        if (mc.object == null && mc.objectClass != null) {
+            return invoke(null, resolved ? mc.target : getSharedMethod(mc.objectClass, mc, parameters), parameters, site);
+        }
+        if (mc.object != null || (object != null && object.members.containsKey(name))) {
+            var target = mc.object != null ? variable(mc.object, frame, object) : member(name, object);
+            if (target instanceof ReferenceIDT reference) {
+                if (reference.refersTo.isEmpty()) throw new RuntimeException("Calling " + mc + " on a null reference");
+                target = reference.refersTo.get();
+            }
+            if (!(target instanceof ObjectIDT targetObject)) throw new RuntimeException("Calling " + mc + " on a " + target.getClass());
+            if (resolved && targetObject.astNode == mc.objectClass) return invoke(targetObject, mc.target, parameters, site);
+            if (mc.objectInterface != null) {
+                var m = Linker.interfaceMethod(targetObject.astNode, mc.objectInterface, mc.interfaceMethod);
+                if (m != null && Interpreter.doesMatch(m, mc, parameters)) return invoke(targetObject, m, parameters, site);
+            }
+            return invoke(targetObject, getMethodFromObject(targetObject, mc, parameters), parameters, site);
+        }
+        var c = linker.getClassByName(name);
+        if (c == null) throw new RuntimeException("Unable to find variable or class " + name);
+        return invoke(null, getSharedMethod(c, mc, parameters), parameters, site);
+    }
+
+    private static MethodDeclarationNode getMethodFromObject(ObjectIDT object, MethodCallStatementNode mc, List<InterpreterDataType> parameters) {
+        for (var m : Linker.methods(object.astNode, mc.methodName)) {
+            if (Interpreter.doesMatch(m, mc, parameters)) return m;
+        }
+        throw new RuntimeException("Unable to resolve method call " + mc);
+    }
+
+    private static MethodDeclarationNode getSharedMethod(ClassNode c, MethodCallStatementNode mc, List<InterpreterDataType> parameters) {
+        for (var m : Linker.methods(c, mc.methodName)) {
+            if (m.isShared && Interpreter.doesMatch(m, mc, parameters)) return m;
+        }
+        throw new RuntimeException("Unable to resolve method call " + mc);
+    }
+
+    //              Objects
+
+    /**
+     * Makes a new object and initializes its members in order, like the Interpreter does for a NewNode
+     */
+    ObjectIDT newObject(Chunk.NewSite site) {
+        var c = site.node.classNode != null ? site.node.classNode : linker.getClassByName(site.node.className);
+        if (c == null) throw new RuntimeException("Unable to find class " + site.node.className);
+        var newOne = new ObjectIDT(c);
+        for (int i = 0; i < c.members.size(); i++) {
+            var declaration = c.members.get(i).declaration;
+            var value = Interpreter.instantiate(declaration.type);
+            if (declaration.initializer.isPresent()) value.Assign(initialize(declaration, newOne));
+            newOne.members.put(declaration.name, value);
+            newOne.fields[i] = value;
+        }
+        return newOne;
+    }
+
+    /**
+     * Picks and runs a constructor, like the Interpreter's findConstructorAndRunIt()
+     */
+    void construct(Chunk.NewSite site, ObjectIDT newOne, List<InterpreterDataType> parameters) {
+        var resolved = site.node.constructor;
+        if (resolved != null && Interpreter.doesConstructorMatch(resolved, site.call, parameters)) {
+            runConstructor(newOne, resolved, parameters);
+            return;
+        }
+        var c = newOne.astNode;
+        for (var constructor : c.constructors) {
+            if (Interpreter.doesConstructorMatch(constructor, site.call, parameters)) {
+                runConstructor(newOne, constructor, parameters);
+                return;
+            }
+        }
+        if (!c.constructors.isEmpty() || !parameters.isEmpty()) {
+            throw new RuntimeException("Unable to resolve constructor call " + site.call);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package VM;
+
+/**
+ * The instructions of the stack machine. A chunk's code is an int[] of opcodes, each followed by its operands:
+ *      s - a slot in the frame (parameters, then returns, then locals, as numbered by Tran.Resolver) or in the object
+ *      k - an index in the chunk's constant pool
+ *      t - the index in the code to jump to
+ * Values are InterpreterDataType objects, the same ones the Interpreter uses, so objects and variables behave the same:
+ * a load pushes the variable itself and a store Assign()s to it.
+ */
+public final class Op {
+    private Op() { }
+
+    public static final int CONST = 0;           //k        push constants[k]
+    public static final int LOAD = 1;            //s        push frame[s]
+    public static final int LOAD_MEMBER = 2;     //s        push the object's member s
+    public static final int LOAD_NAME = 3;       //k        push the object's member named constants[k]
+    public static final int STORE = 4;           //s        pop a value and assign it to frame[s]
+    public static final int STORE_MEMBER = 5;    //s        pop a value and assign it to the object's member s
+    public static final int STORE_NAME = 6;      //k        pop a value and assign it to the object's member named constants[k]
+    public static final int ADD = 7;             //         pop right and left, push left + right
+    public static final int SUBTRACT = 8;
+    public static final int MULTIPLY = 9;
+    public static final int DIVIDE = 10;
+    public static final int MODULO = 11;
+    public static final int LESS = 12;           //         pop right and left, push left < right
+    public static final int LESS_EQUAL = 13;
+    public static final int GREATER = 14;
+    public static final int GREATER_EQUAL = 15;
+    public static final int EQUAL = 16;
+    public static final int NOT_EQUAL = 17;
+    public static final int NOT = 18;            //k        pop a boolean (constants[k] describes it), push its opposite
+    public static final int JUMP = 19;           //t
+    public static final int JUMP_IF_FALSE = 20;  //t k      pop a boolean (constants[k] describes it), jump if it is false
+    public static final int JUMP_IF_TRUE = 21;   //t k      pop a boolean (constants[k] describes it), jump if it is true
+    public static final int CALL = 22;           //k        pop the parameters of the call constants[k], push its first return
+    public static final int CALL_STATEMENT = 23; //k        pop the parameters of the call constants[k], push the values it
+                                                 //         returns for its return values, the first on top
+    public static final int NEW = 24;            //k        push a new object of the class of the NewNode constants[k], with
+                                                 //         its members initialized
+    public static final int CONSTRUCT = 25;      //k        pop the parameters of the NewNode constants[k] and run its
+                                                 //         constructor on the new object under them, which stays
+    public static final int LOCAL = 26;          //s k      frame[s] = a new variable of type constants[k]
+    public static final int LOCAL_INIT = 27;     //s k      frame[s] = a new variable of type constants[k], assigned a popped value
+    public static final int TIMES = 28;          //k t      when the loop constants[k] counts up to a number, push the number
+                                                 //         and a counter, otherwise jump to its condition at t
+    public static final int TIMES_NEXT = 29;     //k t      count the next turn of the loop constants[k], or pop the number
+                                                 //         and the counter and jump to t when it is done
+    public static final int LOOP_TEST = 30;      //k t      pop the condition of the loop constants[k], assign it to the loop's
+                                                 //         variable, jump to t if it is false
+    public static final int RETURN = 31;         //         return from the method, its returns are in their slots
+
+    static final String[] NAMES = {
+            "CONST", "LOAD", "LOAD_MEMBER", "LOAD_NAME", "STORE", "STORE_MEMBER", "STORE_NAME",
+            "ADD", "SUBTRACT", "MULTIPLY", "DIVIDE", "MODULO",
+            "LESS", "LESS_EQUAL", "GREATER", "GREATER_EQUAL", "EQUAL", "NOT_EQUAL", "NOT",
+            "JUMP", "JUMP_IF_FALSE", "JUMP_IF_TRUE", "CALL", "CALL_STATEMENT", "NEW", "CONSTRUCT", "LOCAL", "LOCAL_INIT",
+            "TIMES", "TIMES_NEXT", "LOOP_TEST", "RETURN"
+    };
+
+    //the number of operands after each opcode
+    static final int[] OPERANDS = {
+            1, 1, 1, 1, 1, 1, 1,
+            0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 1,
+            1, 2, 2, 1, 1, 1, 1, 2, 2,
+            2, 2, 2, 0
+    };
+}
@@ -0,0 +1,105 @@
+package VM;
+
+import Interpreter.InterpreterDataType;
+
+import java.util.Arrays;
+
+/**
+ * The register code of one method, constructor or member initializer: its instructions (see RegisterOp), the
+ * constants they use, and its registers. A frame is one array of registers: the body's variables in the slots
+ * Tran.Resolver gave them, the temporaries RegisterCompiler allocated, then the literals, which are copied in when the
+ * frame is made so an instruction can use a literal like any other register.
+ */
+public final class RegisterChunk {
+    public final String name;
+    public final int[] code;
+    public final Object[] constants;
+    public final InterpreterDataType[] literals;
+    public final int variables;     //parameters + returns + locals
+    public final int registers;     //variables + temporaries, the literals come after
+
+    RegisterChunk(String name, int[] code, Object[] constants, InterpreterDataType[] literals, int variables, int registers) {
+        this.name = name;
+        this.code = code;
+        this.constants = constants;
+        this.literals = literals;
+        this.variables = variables;
+        this.registers = registers;
+    }
+
+    /**
+     * A method call in the constant pool, and the registers its parameters are in and its returns go in (for a call
+     * statement, otherwise null)
+     */
+    static final class Call {
+        final Chunk.CallSite site;
+        final int[] arguments;
+        final int[] results;
+
+        Call(Chunk.CallSite site, int[] arguments, int[] results) {
+            this.site = site;
+            this.arguments = arguments;
+            this.results = results;
+        }
+
+        @Override
+        public String toString() {
+            return site + " " + Arrays.toString(arguments) + (results == null ? "" : " -> " + Arrays.toString(results));
+        }
+    }
+
+    /**
+     * A constructor call in the constant pool, and the registers its parameters are in
+     */
+    static final class Construct {
+        final Chunk.NewSite site;
+        final int[] arguments;
+
+        Construct(Chunk.NewSite site, int[] arguments) {
+            this.site = site;
+            this.arguments = arguments;
+        }
+
+        @Override
+        public String toString() {
+            return site + " " + Arrays.toString(arguments);
+        }
+    }
+
+    /**
+     * @return the number of instructions
+     */
+    public int instructions() {
+        int count = 0;
+        for (int pc = 0; pc < code.length; pc += 1 + RegisterOp.OPERANDS[code[pc]].length()) count++;
+        return count;
+    }
+
+    /**
+     * @return the instructions, one per line, with registers written r0, r1...
+     */
+    public String disassemble() {
+        var sb = new StringBuilder(name).append('\n');
+        for (int i = 0; i < literals.length; i++) sb.append("     r").append(registers + i).append(" = ").append(literals[i]).append('\n');
+        for (int pc = 0; pc < code.length; ) {
+            int op = code[pc];
+            String operands = RegisterOp.OPERANDS[op];
+            sb.append(String.format("%4d %-14s", pc, RegisterOp.NAMES[op]));
+            String comment = "";
+            for (int i = 0; i < operands.length(); i++) {
+                int operand = code[pc + 1 + i];
+                switch (operands.charAt(i)) {
+                    case 'd', 'r' -> sb.append(operand < 0 ? " -" : " r" + operand);
+                    case 'k' -> {
+                        sb.append(' ').append(operand);
+                        comment = "    ; " + constants[operand];
+                    }
+                    default -> sb.append(' ').append(operand);
+                }
+            }
+            sb.append(comment).append('\n');
+            pc += 1 + operands.length();
+        }
+        return sb.toString();
+    }
+}
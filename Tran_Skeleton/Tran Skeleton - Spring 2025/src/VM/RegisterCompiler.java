@@ -0,0 +1,477 @@
+package VM;
+
+import AST.*;
+import Interpreter.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Compiles one method, constructor or member initializer into a RegisterChunk for the RegisterMachine. The body must
+ * have been parsed and resolved (Tran.Resolver). Things are run in the same order as the Interpreter and the
+ * StackMachine run them (see BytecodeCompiler).
+ * A local variable, parameter or return is used from its own register and a literal from the register it is copied
+ * into, so neither needs an instruction. An expression's value is put straight into the local variable it is assigned
+ * to. Every other value goes in a temporary. The compiler numbers the temporaries as it goes, then gives them registers
+ * with a linear scan: each temporary is live from the first instruction that uses it to the last (to the end of a loop
+ * for one that is live where the loop jumps back to), and when it is no longer live its register is given to the next
+ * one that needs one.
+ */
+public final class RegisterCompiler {
+    private static final int TEMPORARY = 1 << 20;     //registers from here are temporaries, before they are allocated
+    private static final int LITERAL = 1 << 24;       //and from here literals
+
+    private int[] code = new int[32];
+    private int size;
+    private final List<Object> constants = new ArrayList<>();
+    private final HashMap<Object, Integer> constantIndex = new HashMap<>();
+    private final List<InterpreterDataType> literals = new ArrayList<>();
+    private final HashMap<Object, Integer> literalIndex = new HashMap<>();
+    private int temporaries;
+
+    /**
+     * An expression still to compile, and the register its value goes in, or -1 for any
+     */
+    private record Part(ExpressionNode node, int destination) { }
+
+    private RegisterCompiler() { }
+
+    public static RegisterChunk compile(MethodDeclarationNode m) {
+        var compiler = new RegisterCompiler();
+        int first = m.parameters.size() + m.returns.size();
+        compiler.locals(m.locals, first);
+        compiler.statements(m.statements);
+        compiler.emit(RegisterOp.RETURN, -1);
+        return compiler.chunk(m.name, first + m.locals.size());
+    }
+
+    public static RegisterChunk compile(ConstructorNode c, ClassNode owner) {
+        var compiler = new RegisterCompiler();
+        compiler.locals(c.locals, c.parameters.size());
+        compiler.statements(c.statements);
+        compiler.emit(RegisterOp.RETURN, -1);
+        return compiler.chunk(owner.name + " constructor", c.parameters.size() + c.locals.size());
+    }
+
+    /**
+     * @return a chunk that returns the value of a member's initializer
+     */
+    public static RegisterChunk compileInitializer(VariableDeclarationNode member) {
+        var compiler = new RegisterCompiler();
+        compiler.emit(RegisterOp.RETURN, compiler.expression(member.initializer.orElseThrow(), -1));
+        return compiler.chunk(member.name + " initializer", 0);
+    }
+
+    private RegisterChunk chunk(String name, int variables) {
+        int allocated = allocate(variables);
+        return new RegisterChunk(name, Arrays.copyOf(code, size), constants.toArray(),
+                literals.toArray(new InterpreterDataType[0]), variables, variables + allocated);
+    }
+
+    //              Statements
+
+    private void locals(List<VariableDeclarationNode> locals, int first) {
+        for (int i = 0; i < locals.size(); i++) {
+            var local = locals.get(i);
+            if (local.initializer.isPresent()) {
+                emit(RegisterOp.LOCAL_INIT, first + i, expression(local.initializer.get(), -1), constant(local.type));
+            } else {
+                emit(RegisterOp.LOCAL, first + i, constant(local.type));
+            }
+        }
+    }
+
+    private void statements(List<StatementNode> statements) {
+        for (var statement : statements) {
+            if (statement instanceof AssignmentNode assignment) {
+                var target = assignment.target;
+                if (isRegister(target)) {
+                    expression(assignment.expression, target.slot);
+                } else {
+                    store(target, expression(assignment.expression, -1));
+                }
+            } else if (statement instanceof MethodCallStatementNode mc) {
+                int[] arguments = arguments(mc.parameters);
+                int[] results = new int[mc.returnValues.size()];
+                for (int i = 0; i < results.length; i++) {
+                    var returnValue = mc.returnValues.get(i);
+                    results[i] = isRegister(returnValue) ? returnValue.slot : temporary();
+                }
+                var site = new Chunk.CallSite(mc, mc.toString().strip());
+                emit(RegisterOp.CALL_STATEMENT, constant(new RegisterChunk.Call(site, arguments, results)));
+                for (int i = 0; i < results.length; i++) {
+                    if (!isRegister(mc.returnValues.get(i))) store(mc.returnValues.get(i), results[i]);
+                }
+            } else if (statement instanceof IfNode ifNode) {
+                int toElse = jump(RegisterOp.JUMP_IF_FALSE, expression(ifNode.condition, -1), ifNode.condition);
+                statements(ifNode.statements);
+                if (ifNode.elseStatement.isPresent()) {
+                    int toEnd = jump(RegisterOp.JUMP, -1, null);
+                    patch(toElse);
+                    statements(ifNode.elseStatement.get().statements);
+                    patch(toEnd);
+                } else {
+                    patch(toElse);
+                }
+            } else if (statement instanceof LoopNode loop) {
+                loop(loop);
+            } else {
+                throw new RuntimeException("Unknown statement " + statement);
+            }
+        }
+    }
+
+    /**
+     * Like BytecodeCompiler.loop(): the counting form and the ordinary form, TIMES picks one when the loop starts
+     */
+    private void loop(LoopNode loop) {
+        int toEnd = -1;
+        int k;
+        if (loop.expression instanceof MethodCallExpressionNode mce && mce.methodName.equals("times")
+                && mce.parameters.isEmpty() && mce.objectName.isPresent()) {
+            k = constant(new Chunk.LoopSite(loop, mce.object, mce.objectName.get()));
+            int counter = temporary(), limit = temporary();
+            emit(RegisterOp.TIMES, counter, limit, k, 0);
+            int toCondition = size - 1;
+            int top = size;
+            emit(RegisterOp.TIMES_NEXT, counter, limit, k, 0);
+            toEnd = size - 1;
+            statements(loop.statements);
+            emit(RegisterOp.JUMP, top);
+            patch(toCondition);
+        } else {
+            k = constant(new Chunk.LoopSite(loop, null, null));
+        }
+        int condition = size;
+        emit(RegisterOp.LOOP_TEST, expression(loop.expression, -1), k, 0);
+        int toDone = size - 1;
+        statements(loop.statements);
+        emit(RegisterOp.JUMP, condition);
+        patch(toDone);
+        if (toEnd >= 0) patch(toEnd);
+    }
+
+    /**
+     * @return true for a variable in the frame (a parameter, return or local), which has its own register
+     */
+    private static boolean isRegister(VariableReferenceNode variable) {
+        return variable.scope != null && variable.scope != VariableReferenceNode.Scope.MEMBER;
+    }
+
+    /**
+     * Assigns a register to a member
+     */
+    private void store(VariableReferenceNode member, int from) {
+        if (member.scope == null) emit(RegisterOp.SET_NAME, constant(member.name), from);
+        else emit(RegisterOp.SET_MEMBER, member.slot, from);
+    }
+
+    private int[] arguments(List<ExpressionNode> parameters) {
+        int[] registers = new int[parameters.size()];
+        for (int i = 0; i < registers.length; i++) registers[i] = expression(parameters.get(i), -1);
+        return registers;
+    }
+
+    //              Expressions
+
+    /**
+     * Compiles an expression with a work list (see BytecodeCompiler.expression()). Each part's value is in a register,
+     * the registers of the parts done so far are kept in values until the instruction that uses them
+     * @param destination - the register the value goes in, or -1 for any
+     * @return the register the value is in
+     */
+    private int expression(ExpressionNode start, int destination) {
+        var work = new ArrayList<Object>();
+        var values = new ArrayList<Integer>();
+        work.add(new Part(start, destination));
+        while (!work.isEmpty()) {
+            Object item = work.removeLast();
+            if (item instanceof Runnable step) {
+                step.run();
+                continue;
+            }
+            var part = (Part) item;
+            int d = part.destination;
+            if (part.node instanceof NumericLiteralNode n) {
+                values.add(move(d, literal(new NumberIDT(n.value), n.value)));
+            } else if (part.node instanceof StringLiteralNode s) {
+                values.add(move(d, literal(new StringIDT(s.value), s.value)));
+            } else if (part.node instanceof CharLiteralNode c) {
+                values.add(move(d, literal(new CharIDT(c.value), c.value)));
+            } else if (part.node instanceof BooleanLiteralNode b) {
+                values.add(move(d, literal(new BooleanIDT(b.value), b.value)));
+            } else if (part.node instanceof VariableReferenceNode variable) {
+                if (isRegister(variable)) {
+                    values.add(move(d, variable.slot));
+                } else {
+                    int to = target(d);
+                    if (variable.scope == null) emit(RegisterOp.GET_NAME, to, constant(variable.name));
+                    else emit(RegisterOp.GET_MEMBER, to, variable.slot);
+                    values.add(to);
+                }
+            } else if (part.node instanceof MathOpNode math) {
+                int op = switch (math.op) {
+                    case add -> RegisterOp.ADD;
+                    case subtract -> RegisterOp.SUBTRACT;
+                    case multiply -> RegisterOp.MULTIPLY;
+                    case divide -> RegisterOp.DIVIDE;
+                    case modulo -> RegisterOp.MODULO;
+                };
+                binary(work, values, op, target(d), math.left, math.right);
+            } else if (part.node instanceof CompareNode compare) {
+                int op = switch (compare.op) {
+                    case lt -> RegisterOp.LESS;
+                    case le -> RegisterOp.LESS_EQUAL;
+                    case gt -> RegisterOp.GREATER;
+                    case ge -> RegisterOp.GREATER_EQUAL;
+                    case eq -> RegisterOp.EQUAL;
+                    case ne -> RegisterOp.NOT_EQUAL;
+                };
+                binary(work, values, op, target(d), compare.left, compare.right);
+            } else if (part.node instanceof NotOpNode not) {
+                int to = target(d);
+                work.add((Runnable) () -> {
+                    emit(RegisterOp.NOT, to, values.removeLast(), constant(not.left.toString()));
+                    values.add(to);
+                });
+                work.add(new Part(not.left, -1));
+            } else if (part.node instanceof BooleanOpNode op) {
+                //a and b: if a is false the answer is false without b, a or b: if a is true it is true
+                int test = op.op == BooleanOpNode.BooleanOperations.and ? RegisterOp.JUMP_IF_FALSE : RegisterOp.JUMP_IF_TRUE;
+                boolean decided = op.op != BooleanOpNode.BooleanOperations.and;
+                int to = target(d);
+                int[] jumps = new int[1];
+                work.add((Runnable) () -> {
+                    int toDecided = jump(test, values.removeLast(), op.right);
+                    emit(RegisterOp.MOVE, to, literal(new BooleanIDT(!decided), !decided));
+                    int toEnd = jump(RegisterOp.JUMP, -1, null);
+                    patch(jumps[0]);
+                    patch(toDecided);
+                    emit(RegisterOp.MOVE, to, literal(new BooleanIDT(decided), decided));
+                    patch(toEnd);
+                    values.add(to);
+                });
+                work.add(new Part(op.right, -1));
+                work.add((Runnable) () -> jumps[0] = jump(test, values.removeLast(), op.left));
+                work.add(new Part(op.left, -1));
+            } else if (part.node instanceof MethodCallExpressionNode mce) {
+                var site = new Chunk.CallSite(new MethodCallStatementNode(mce), mce.toString());
+                int to = target(d);
+                work.add((Runnable) () -> {
+                    emit(RegisterOp.CALL, to, constant(new RegisterChunk.Call(site, take(values, mce.parameters.size()), null)));
+                    values.add(to);
+                });
+                for (var parameter : mce.parameters.reversed()) work.add(new Part(parameter, -1));
+            } else if (part.node instanceof NewNode newNode) {
+                //the object is made (and its members initialized) before the parameters, and is not assigned until it
+                //is constructed, so it starts in a temporary
+                var site = new Chunk.NewSite(newNode);
+                int object = temporary();
+                emit(RegisterOp.NEW, object, constant(site));
+                work.add((Runnable) () -> {
+                    emit(RegisterOp.CONSTRUCT, object, constant(new RegisterChunk.Construct(site, take(values, newNode.parameters.size()))));
+                    values.add(move(d, object));
+                });
+                for (var parameter : newNode.parameters.reversed()) work.add(new Part(parameter, -1));
+            } else {
+                throw new IllegalArgumentException("Unable to compile " + part.node);
+            }
+        }
+        return values.getLast();
+    }
+
+    private void binary(List<Object> work, List<Integer> values, int op, int to, ExpressionNode left, ExpressionNode right) {
+        work.add((Runnable) () -> {
+            int r = values.removeLast();
+            emit(op, to, values.removeLast(), r);
+            values.add(to);
+        });
+        work.add(new Part(right, -1));
+        work.add(new Part(left, -1));
+    }
+
+    /**
+     * @return the registers of the last count values, in the order they were computed
+     */
+    private static int[] take(List<Integer> values, int count) {
+        int[] registers = new int[count];
+        for (int i = count - 1; i >= 0; i--) registers[i] = values.removeLast();
+        return registers;
+    }
+
+    /**
+     * @return the destination, or a new temporary when there is none
+     */
+    private int target(int destination) {
+        return destination >= 0 ? destination : temporary();
+    }
+
+    /**
+     * @return the destination, after moving a value there, or the register the value is in when there is none
+     */
+    private int move(int destination, int register) {
+        if (destination < 0 || destination == register) return register;
+        emit(RegisterOp.MOVE, destination, register);
+        return destination;
+    }
+
+    private int temporary() {
+        return TEMPORARY + temporaries++;
+    }
+
+    //              Emitting
+
+    private void emit(int... instruction) {
+        if (size + instruction.length > code.length) code = Arrays.copyOf(code, Math.max(code.length * 2, size + instruction.length));
+        System.arraycopy(instruction, 0, code, size, instruction.length);
+        size += instruction.length;
+    }
+
+    /**
+     * @param key - the literal's value in Java: a Float, String, Character or Boolean
+     * @return the register of a literal, each value has one
+     */
+    private int literal(InterpreterDataType value, Object key) {
+        key = List.of(key.getClass(), key);
+        Integer k = literalIndex.get(key);
+        if (k == null) {
+            k = literals.size();
+            literals.add(value);
+            literalIndex.put(key, k);
+        }
+        return LITERAL + k;
+    }
+
+    /**
+     * Adds a constant that is only used by one instruction (names and types are shared)
+     */
+    private int constant(Object value) {
+        if (value instanceof String) {
+            Integer k = constantIndex.get(value);
+            if (k != null) return k;
+            constantIndex.put(value, constants.size());
+        }
+        constants.add(value);
+        return constants.size() - 1;
+    }
+
+    /**
+     * Emits a jump whose target is patched later
+     * @param condition - for a conditional jump, the register of the condition and the condition (for its error message)
+     * @return where its target goes, for patch()
+     */
+    private int jump(int op, int register, ExpressionNode condition) {
+        if (op == RegisterOp.JUMP) {
+            emit(op, 0);
+            return size - 1;
+        }
+        emit(op, 0, register, constant(condition.toString()));
+        return size - 3;
+    }
+
+    private void patch(int at) {
+        code[at] = size;
+    }
+
+    //              Allocating registers
+
+    /**
+     * Gives the temporaries registers after the variables with a linear scan, and the literals the registers after
+     * those, and rewrites the code to use them
+     * @return the number of registers the temporaries use
+     */
+    private int allocate(int variables) {
+        int[] first = new int[temporaries];
+        int[] last = new int[temporaries];
+        Arrays.fill(first, -1);
+        for (int pc = 0; pc < size; pc = next(pc)) {
+            for (int register : registers(pc)) {
+                if (register >= TEMPORARY && register < LITERAL) {
+                    int t = register - TEMPORARY;
+                    if (first[t] < 0) first[t] = pc;
+                    last[t] = pc;
+                }
+            }
+        }
+        //a temporary that is live where a loop jumps back to is live for the whole loop
+        for (boolean changed = true; changed; ) {
+            changed = false;
+            for (int pc = 0; pc < size; pc = next(pc)) {
+                if (code[pc] != RegisterOp.JUMP || code[pc + 1] > pc) continue;
+                int top = code[pc + 1];
+                for (int t = 0; t < temporaries; t++) {
+                    if (first[t] >= 0 && first[t] < top && last[t] >= top && last[t] < pc) {
+                        last[t] = pc;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        var byStart = new ArrayList<Integer>();
+        for (int t = 0; t < temporaries; t++) if (first[t] >= 0) byStart.add(t);
+        byStart.sort(Comparator.comparingInt(t -> first[t]));
+        var active = new PriorityQueue<Integer>(Comparator.comparingInt(t -> last[t]));
+        var free = new PriorityQueue<Integer>();
+        int[] allocation = new int[temporaries];
+        int used = 0;
+        for (int t : byStart) {
+            //an instruction reads its registers before it writes one, so a temporary it reads for the last time can
+            //give its register to the one it writes
+            while (!active.isEmpty() && last[active.peek()] <= first[t]) free.add(allocation[active.poll()]);
+            allocation[t] = free.isEmpty() ? used++ : free.poll();
+            active.add(t);
+        }
+        int literalBase = variables + used;
+        for (int pc = 0; pc < size; pc = next(pc)) {
+            String operands = RegisterOp.OPERANDS[code[pc]];
+            for (int i = 0; i < operands.length(); i++) {
+                if (operands.charAt(i) == 'd' || operands.charAt(i) == 'r') {
+                    code[pc + 1 + i] = register(code[pc + 1 + i], variables, allocation, literalBase);
+                }
+            }
+            for (int[] registers : argumentRegisters(pc)) {
+                for (int i = 0; i < registers.length; i++) registers[i] = register(registers[i], variables, allocation, literalBase);
+            }
+        }
+        return used;
+    }
+
+    private static int register(int register, int variables, int[] allocation, int literalBase) {
+        if (register >= LITERAL) return literalBase + register - LITERAL;
+        if (register >= TEMPORARY) return variables + allocation[register - TEMPORARY];
+        return register;
+    }
+
+    private int next(int pc) {
+        return pc + 1 + RegisterOp.OPERANDS[code[pc]].length();
+    }
+
+    /**
+     * @return the registers the instruction at pc uses, with the ones in its call's constant
+     */
+    private List<Integer> registers(int pc) {
+        var registers = new ArrayList<Integer>();
+        String operands = RegisterOp.OPERANDS[code[pc]];
+        for (int i = 0; i < operands.length(); i++) {
+            if (operands.charAt(i) == 'd' || operands.charAt(i) == 'r') registers.add(code[pc + 1 + i]);
+        }
+        for (int[] more : argumentRegisters(pc)) for (int register : more) registers.add(register);
+        return registers;
+    }
+
+    private List<int[]> argumentRegisters(int pc) {
+        return switch (code[pc]) {
+            case RegisterOp.CALL -> List.of(((RegisterChunk.Call) constants.get(code[pc + 2])).arguments);
+            case RegisterOp.CALL_STATEMENT -> {
+                var call = (RegisterChunk.Call) constants.get(code[pc + 1]);
+                yield List.of(call.arguments, call.results);
+            }
+            case RegisterOp.CONSTRUCT -> List.of(((RegisterChunk.Construct) constants.get(code[pc + 2])).arguments);
+            default -> List.of();
+        };
+    }
+}
@@ -0,0 +1,248 @@
+package VM;
+
+import AST.*;
+import Interpreter.*;
+import Tran.Linker;
+import Tran.SyntaxErrorException;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Runs a Tran program like the StackMachine does, but with register code (RegisterChunk, compiled by
+ * RegisterCompiler): an instruction names its operands instead of loading them onto a stack, so an expression takes
+ * fewer instructions. For avg = (gradea + gradeb + gradec) / 3 the stack machine runs 8 instructions (3 member loads,
+ * a constant, 3 math, a store) and this one runs 6 (3 member loads and 3 math, the last straight into avg).
+ *      new RegisterMachine(tran).start();
+ * The values, the way methods and constructors are picked, and the order things run in are the StackMachine's.
+ */
+public class RegisterMachine extends Machine {
+    private final IdentityHashMap<Object, RegisterChunk> chunks = new IdentityHashMap<>();     //by method, constructor or member
+
+    public RegisterMachine(TranNode top) {
+        super(top);
+    }
+
+    RegisterMachine(TranNode top, Linker linker) {
+        super(top, linker);
+    }
+
+    /**
+     * @return the chunk for a method, compiling it the first time
+     */
+    public RegisterChunk chunk(MethodDeclarationNode m) {
+        var chunk = chunks.get(m);
+        if (chunk == null) {
+            try {
+                m.parseBody();
+            } catch (SyntaxErrorException e) {
+                throw new RuntimeException(e);
+            }
+            chunk = RegisterCompiler.compile(m);
+            chunks.put(m, chunk);
+        }
+        return chunk;
+    }
+
+    private RegisterChunk chunk(ConstructorNode constructor, ClassNode c) {
+        var chunk = chunks.get(constructor);
+        if (chunk == null) {
+            chunk = RegisterCompiler.compile(constructor, c);
+            chunks.put(constructor, chunk);
+        }
+        return chunk;
+    }
+
+    private RegisterChunk chunk(VariableDeclarationNode member) {
+        var chunk = chunks.get(member);
+        if (chunk == null) {
+            chunk = RegisterCompiler.compileInitializer(member);
+            chunks.put(member, chunk);
+        }
+        return chunk;
+    }
+
+    /**
+     * @return a frame for a chunk, with its literals in their registers
+     */
+    private static InterpreterDataType[] frame(RegisterChunk chunk) {
+        var frame = new InterpreterDataType[chunk.registers + chunk.literals.length];
+        System.arraycopy(chunk.literals, 0, frame, chunk.registers, chunk.literals.length);
+        return frame;
+    }
+
+    //              Running Chunks
+
+    /**
+     * Runs a chunk in a frame whose parameters (and returns) are already set
+     * @param object - the object the method runs on, or null
+     * @return the register RETURN names (a member initializer's value), or null
+     */
+    private InterpreterDataType execute(RegisterChunk chunk, InterpreterDataType[] frame, ObjectIDT object) {
+        final int[] code = chunk.code;
+        final Object[] constants = chunk.constants;
+        final int variables = chunk.variables;
+        int pc = 0;
+        long executed = 0;
+        int[] counts = null;    //the count of a loop over times(), by its counter register
+        while (true) {
+            executed++;
+            switch (code[pc]) {
+                case RegisterOp.MOVE -> {
+                    put(frame, variables, code[pc + 1], frame[code[pc + 2]]);
+                    pc += 3;
+                }
+                case RegisterOp.GET_MEMBER -> {
+                    put(frame, variables, code[pc + 1], object.fields[code[pc + 2]]);
+                    pc += 3;
+                }
+                case RegisterOp.GET_NAME -> {
+                    put(frame, variables, code[pc + 1], member((String) constants[code[pc + 2]], object));
+                    pc += 3;
+                }
+                case RegisterOp.SET_MEMBER -> {
+                    object.fields[code[pc + 1]].Assign(frame[code[pc + 2]]);
+                    pc += 3;
+                }
+                case RegisterOp.SET_NAME -> {
+                    member((String) constants[code[pc + 1]], object).Assign(frame[code[pc + 2]]);
+                    pc += 3;
+                }
+                case RegisterOp.ADD, RegisterOp.SUBTRACT, RegisterOp.MULTIPLY, RegisterOp.DIVIDE, RegisterOp.MODULO -> {
+                    var value = math(code[pc] - RegisterOp.ADD + Op.ADD, frame[code[pc + 2]], frame[code[pc + 3]]);
+                    put(frame, variables, code[pc + 1], value);
+                    pc += 4;
+                }
+                case RegisterOp.LESS, RegisterOp.LESS_EQUAL, RegisterOp.GREATER, RegisterOp.GREATER_EQUAL,
+                     RegisterOp.EQUAL, RegisterOp.NOT_EQUAL -> {
+                    boolean value = compare(code[pc] - RegisterOp.LESS + Op.LESS, frame[code[pc + 2]], frame[code[pc + 3]]);
+                    put(frame, variables, code[pc + 1], new BooleanIDT(value));
+                    pc += 4;
+                }
+                case RegisterOp.NOT -> {
+                    put(frame, variables, code[pc + 1], new BooleanIDT(!condition(frame[code[pc + 2]], constants[code[pc + 3]])));
+                    pc += 4;
+                }
+                case RegisterOp.JUMP -> pc = code[pc + 1];
+                case RegisterOp.JUMP_IF_FALSE -> pc = condition(frame[code[pc + 2]], constants[code[pc + 3]]) ? pc + 4 : code[pc + 1];
+                case RegisterOp.JUMP_IF_TRUE -> pc = condition(frame[code[pc + 2]], constants[code[pc + 3]]) ? code[pc + 1] : pc + 4;
+                case RegisterOp.CALL -> {
+                    var call = (RegisterChunk.Call) constants[code[pc + 2]];
+                    var results = call(object, frame, call.site, arguments(frame, call.arguments));
+                    if (results.length == 0) throw new RuntimeException(call.site + " does not return a value");
+                    put(frame, variables, code[pc + 1], results[0]);
+                    pc += 3;
+                }
+                case RegisterOp.CALL_STATEMENT -> {
+                    var call = (RegisterChunk.Call) constants[code[pc + 1]];
+                    var results = call(object, frame, call.site, arguments(frame, call.arguments));
+                    if (results.length < call.results.length) throw new RuntimeException(call.site + " returns " + results.length + " values");
+                    for (int i = 0; i < call.results.length; i++) put(frame, variables, call.results[i], results[i]);
+                    pc += 2;
+                }
+                case RegisterOp.NEW -> {
+                    frame[code[pc + 1]] = newObject((Chunk.NewSite) constants[code[pc + 2]]);
+                    pc += 3;
+                }
+                case RegisterOp.CONSTRUCT -> {
+                    var construct = (RegisterChunk.Construct) constants[code[pc + 2]];
+                    construct(construct.site, (ObjectIDT) frame[code[pc + 1]], arguments(frame, construct.arguments));
+                    pc += 3;
+                }
+                case RegisterOp.LOCAL -> {
+                    frame[code[pc + 1]] = Interpreter.instantiate((String) constants[code[pc + 2]]);
+                    pc += 3;
+                }
+                case RegisterOp.LOCAL_INIT -> {
+                    var local = Interpreter.instantiate((String) constants[code[pc + 3]]);
+                    local.Assign(frame[code[pc + 2]]);
+                    frame[code[pc + 1]] = local;
+                    pc += 4;
+                }
+                case RegisterOp.TIMES -> {
+                    var site = (Chunk.LoopSite) constants[code[pc + 3]];
+                    var times = site.times != null ? variable(site.times, frame, object) : member(site.timesName, object);
+                    if (times instanceof NumberIDT) {
+                        if (counts == null) counts = new int[frame.length];
+                        counts[code[pc + 1]] = 0;
+                        frame[code[pc + 2]] = times;
+                        pc += 5;
+                    } else {
+                        pc = code[pc + 4];
+                    }
+                }
+                case RegisterOp.TIMES_NEXT -> {
+                    var site = (Chunk.LoopSite) constants[code[pc + 3]];
+                    int count = counts[code[pc + 1]];
+                    if (count < ((NumberIDT) frame[code[pc + 2]]).Value) {
+                        if (site.variable != null) variable(site.variable, frame, object).Assign(new NumberIDT(count));
+                        counts[code[pc + 1]] = count + 1;
+                        pc += 5;
+                    } else {
+                        pc = code[pc + 4];
+                    }
+                }
+                case RegisterOp.LOOP_TEST -> {
+                    var site = (Chunk.LoopSite) constants[code[pc + 2]];
+                    boolean keepGoing = condition(frame[code[pc + 1]], site.condition);
+                    if (site.variable != null) variable(site.variable, frame, object).Assign(new BooleanIDT(keepGoing));
+                    pc = keepGoing ? pc + 4 : code[pc + 3];
+                }
+                case RegisterOp.RETURN -> {
+                    dispatches += executed;
+                    return code[pc + 1] < 0 ? null : frame[code[pc + 1]];
+                }
+                default -> throw new IllegalStateException("Bad opcode " + code[pc] + " at " + pc + " in " + chunk.name);
+            }
+        }
+    }
+
+    /**
+     * Puts a value in a register: a variable is assigned it, a temporary is replaced by it
+     */
+    private static void put(InterpreterDataType[] frame, int variables, int register, InterpreterDataType value) {
+        if (register < variables) frame[register].Assign(value);
+        else frame[register] = value;
+    }
+
+    private static List<InterpreterDataType> arguments(InterpreterDataType[] frame, int[] registers) {
+        var values = new InterpreterDataType[registers.length];
+        for (int i = 0; i < registers.length; i++) values[i] = frame[registers[i]];
+        return Arrays.asList(values);
+    }
+
+    @Override
+    InterpreterDataType[] invoke(ObjectIDT object, MethodDeclarationNode m, List<InterpreterDataType> values, Chunk.CallSite site) {
+        var builtIn = builtIn(m, values);
+        if (builtIn != null) return builtIn;
+        RegisterChunk chunk;
+        if (site != null && site.lastMethod == m) {
+            chunk = (RegisterChunk) site.lastCode;
+        } else {
+            chunk = chunk(m);
+            if (site != null) {
+                site.lastMethod = m;
+                site.lastCode = chunk;
+            }
+        }
+        var frame = frame(chunk);
+        setParameters(frame, m, values);
+        execute(chunk, frame, object);
+        return Arrays.copyOfRange(frame, m.parameters.size(), m.parameters.size() + m.returns.size());
+    }
+
+    @Override
+    InterpreterDataType initialize(VariableDeclarationNode member, ObjectIDT object) {
+        var chunk = chunk(member);
+        return execute(chunk, frame(chunk), object);
+    }
+
+    @Override
+    void runConstructor(ObjectIDT object, ConstructorNode constructor, List<InterpreterDataType> values) {
+        var chunk = chunk(constructor, object.astNode);
+        var frame = frame(chunk);
+        setParameters(frame, constructor.parameters, values);
+        execute(chunk, frame, object);
+    }
+}
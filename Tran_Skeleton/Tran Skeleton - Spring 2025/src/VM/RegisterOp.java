@@ -0,0 +1,69 @@
+package VM;
+
+/**
+ * The instructions of the register machine. Like Op, a RegisterChunk's code is an int[] of opcodes each followed by
+ * its operands, but an instruction names the registers it reads and the register it writes instead of using a stack:
+ *      d - the register the result goes in
+ *      r - a register that is read
+ *      s - a member's slot in the object
+ *      k - an index in the chunk's constant pool
+ *      t - the index in the code to jump to
+ * The registers are the frame: the variables in the slots Tran.Resolver gave them, then the temporaries, then the
+ * chunk's literals. A result that goes in a variable is Assign()ed to it, like the stack machine's stores, and one that
+ * goes in a temporary replaces it.
+ */
+public final class RegisterOp {
+    private RegisterOp() { }
+
+    public static final int MOVE = 0;            //d r      d = r
+    public static final int GET_MEMBER = 1;      //d s      d = the object's member s
+    public static final int GET_NAME = 2;        //d k      d = the object's member named constants[k]
+    public static final int SET_MEMBER = 3;      //s r      assign r to the object's member s
+    public static final int SET_NAME = 4;        //k r      assign r to the object's member named constants[k]
+    public static final int ADD = 5;             //d r r    d = left + right
+    public static final int SUBTRACT = 6;
+    public static final int MULTIPLY = 7;
+    public static final int DIVIDE = 8;
+    public static final int MODULO = 9;
+    public static final int LESS = 10;           //d r r    d = left < right
+    public static final int LESS_EQUAL = 11;
+    public static final int GREATER = 12;
+    public static final int GREATER_EQUAL = 13;
+    public static final int EQUAL = 14;
+    public static final int NOT_EQUAL = 15;
+    public static final int NOT = 16;            //d r k    d = the opposite of the boolean r (constants[k] describes it)
+    public static final int JUMP = 17;           //t
+    public static final int JUMP_IF_FALSE = 18;  //t r k    jump if the boolean r (constants[k] describes it) is false
+    public static final int JUMP_IF_TRUE = 19;   //t r k    jump if it is true
+    public static final int CALL = 20;           //d k      d = the first return of the call constants[k]
+    public static final int CALL_STATEMENT = 21; //k        make the call constants[k], its returns go in its result registers
+    public static final int NEW = 22;            //d k      d = a new object of the class of constants[k], members initialized
+    public static final int CONSTRUCT = 23;      //r k      run the constructor constants[k] picks on the new object r
+    public static final int LOCAL = 24;          //d k      d = a new variable of type constants[k]
+    public static final int LOCAL_INIT = 25;     //d r k    d = a new variable of type constants[k], assigned r
+    public static final int TIMES = 26;          //d d k t  when the loop constants[k] counts up to a number, put a
+                                                 //         counter and the number in the registers, otherwise jump to t
+    public static final int TIMES_NEXT = 27;     //r r k t  count the next turn of the loop constants[k], or jump to t
+                                                 //         when it is done
+    public static final int LOOP_TEST = 28;      //r k t    assign the condition r to the loop constants[k]'s variable,
+                                                 //         jump to t if it is false
+    public static final int RETURN = 29;         //r        return from the chunk with r (a member initializer's value), or
+                                                 //         -1 when there is none
+
+    static final String[] NAMES = {
+            "MOVE", "GET_MEMBER", "GET_NAME", "SET_MEMBER", "SET_NAME",
+            "ADD", "SUBTRACT", "MULTIPLY", "DIVIDE", "MODULO",
+            "LESS", "LESS_EQUAL", "GREATER", "GREATER_EQUAL", "EQUAL", "NOT_EQUAL", "NOT",
+            "JUMP", "JUMP_IF_FALSE", "JUMP_IF_TRUE", "CALL", "CALL_STATEMENT", "NEW", "CONSTRUCT", "LOCAL", "LOCAL_INIT",
+            "TIMES", "TIMES_NEXT", "LOOP_TEST", "RETURN"
+    };
+
+    //the operands after each opcode, one letter each as above
+    static final String[] OPERANDS = {
+            "dr", "ds", "dk", "sr", "kr",
+            "drr", "drr", "drr", "drr", "drr",
+            "drr", "drr", "drr", "drr", "drr", "drr", "drk",
+            "t", "trk", "trk", "dk", "k", "dk", "rk", "dk", "drk",
+            "ddkt", "rrkt", "rkt", "r"
+    };
+}
@@ -0,0 +1,238 @@
+package VM;
+
+import AST.*;
+import Interpreter.*;
+import Tran.SyntaxErrorException;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Runs a Tran program by compiling each method (and constructor, and member initializer) to a Chunk of bytecode the
+ * first time it runs, and running the chunks with one switch per instruction instead of walking the tree.
+ *      new StackMachine(tran).start(); //instead of new Interpreter(tran).start()
+ * It runs programs the same way the Interpreter does, with the same values (InterpreterDataType), the same built-in
+ * console.write(), and the same rules for picking methods and constructors by the values passed to them (it uses the
+ * Interpreter's doesMatch() and doesConstructorMatch()). Like the Interpreter, a loop is either over a number's times()
+ * or runs while its condition is true.
+ * A frame is one array: the variables in the Resolver's slots, then the operand stack.
+ */
+public class StackMachine extends Machine {
+    private final IdentityHashMap<Object, Chunk> chunks = new IdentityHashMap<>();     //by method, constructor or member
+
+    public StackMachine(TranNode top) {
+        super(top);
+    }
+
+    /**
+     * @return the chunk for a method, compiling it the first time
+     */
+    public Chunk chunk(MethodDeclarationNode m) {
+        var chunk = chunks.get(m);
+        if (chunk == null) {
+            try {
+                m.parseBody();
+            } catch (SyntaxErrorException e) {
+                throw new RuntimeException(e);
+            }
+            chunk = BytecodeCompiler.compile(m);
+            chunks.put(m, chunk);
+        }
+        return chunk;
+    }
+
+    private Chunk chunk(ConstructorNode constructor, ClassNode c) {
+        var chunk = chunks.get(constructor);
+        if (chunk == null) {
+            chunk = BytecodeCompiler.compile(constructor, c);
+            chunks.put(constructor, chunk);
+        }
+        return chunk;
+    }
+
+    private Chunk chunk(VariableDeclarationNode member) {
+        var chunk = chunks.get(member);
+        if (chunk == null) {
+            chunk = BytecodeCompiler.compileInitializer(member);
+            chunks.put(member, chunk);
+        }
+        return chunk;
+    }
+
+    //              Running Chunks
+
+    /**
+     * Runs a chunk in a frame whose parameters (and returns) are already set
+     * @param object - the object the method runs on, or null
+     * @return the value on top of the stack when it returns (a member initializer's value), or null
+     */
+    private InterpreterDataType execute(Chunk chunk, InterpreterDataType[] frame, ObjectIDT object) {
+        final int[] code = chunk.code;
+        final Object[] constants = chunk.constants;
+        int sp = chunk.variables;
+        int pc = 0;
+        long executed = 0;
+        int[] counts = null;    //the count of a loop over times(), by the stack slot its counter has in the frame
+        while (true) {
+            executed++;
+            switch (code[pc]) {
+                case Op.CONST -> {
+                    frame[sp++] = (InterpreterDataType) constants[code[pc + 1]];
+                    pc += 2;
+                }
+                case Op.LOAD -> {
+                    frame[sp++] = frame[code[pc + 1]];
+                    pc += 2;
+                }
+                case Op.LOAD_MEMBER -> {
+                    frame[sp++] = object.fields[code[pc + 1]];
+                    pc += 2;
+                }
+                case Op.LOAD_NAME -> {
+                    frame[sp++] = member((String) constants[code[pc + 1]], object);
+                    pc += 2;
+                }
+                case Op.STORE -> {
+                    frame[code[pc + 1]].Assign(frame[--sp]);
+                    pc += 2;
+                }
+                case Op.STORE_MEMBER -> {
+                    object.fields[code[pc + 1]].Assign(frame[--sp]);
+                    pc += 2;
+                }
+                case Op.STORE_NAME -> {
+                    member((String) constants[code[pc + 1]], object).Assign(frame[--sp]);
+                    pc += 2;
+                }
+                case Op.ADD, Op.SUBTRACT, Op.MULTIPLY, Op.DIVIDE, Op.MODULO -> {
+                    var right = frame[--sp];
+                    frame[sp - 1] = math(code[pc], frame[sp - 1], right);
+                    pc++;
+                }
+                case Op.LESS, Op.LESS_EQUAL, Op.GREATER, Op.GREATER_EQUAL, Op.EQUAL, Op.NOT_EQUAL -> {
+                    var right = frame[--sp];
+                    frame[sp - 1] = new BooleanIDT(compare(code[pc], frame[sp - 1], right));
+                    pc++;
+                }
+                case Op.NOT -> {
+                    frame[sp - 1] = new BooleanIDT(!condition(frame[sp - 1], constants[code[pc + 1]]));
+                    pc += 2;
+                }
+                case Op.JUMP -> pc = code[pc + 1];
+                case Op.JUMP_IF_FALSE -> pc = condition(frame[--sp], constants[code[pc + 2]]) ? pc + 3 : code[pc + 1];
+                case Op.JUMP_IF_TRUE -> pc = condition(frame[--sp], constants[code[pc + 2]]) ? code[pc + 1] : pc + 3;
+                case Op.CALL -> {
+                    var site = (Chunk.CallSite) constants[code[pc + 1]];
+                    int count = site.call.parameters.size();
+                    var results = call(object, frame, site, Arrays.asList(Arrays.copyOfRange(frame, sp - count, sp)));
+                    if (results.length == 0) throw new RuntimeException(site + " does not return a value");
+                    sp -= count;
+                    frame[sp++] = results[0];
+                    pc += 2;
+                }
+                case Op.CALL_STATEMENT -> {
+                    var site = (Chunk.CallSite) constants[code[pc + 1]];
+                    int count = site.call.parameters.size();
+                    var results = call(object, frame, site, Arrays.asList(Arrays.copyOfRange(frame, sp - count, sp)));
+                    int returnValues = site.call.returnValues.size();
+                    if (results.length < returnValues) throw new RuntimeException(site + " returns " + results.length + " values");
+                    sp -= count;
+                    for (int i = returnValues - 1; i >= 0; i--) frame[sp++] = results[i];
+                    pc += 2;
+                }
+                case Op.NEW -> {
+                    frame[sp++] = newObject((Chunk.NewSite) constants[code[pc + 1]]);
+                    pc += 2;
+                }
+                case Op.CONSTRUCT -> {
+                    var site = (Chunk.NewSite) constants[code[pc + 1]];
+                    int count = site.node.parameters.size();
+                    var parameters = Arrays.asList(Arrays.copyOfRange(frame, sp - count, sp));
+                    sp -= count;
+                    construct(site, (ObjectIDT) frame[sp - 1], parameters);
+                    pc += 2;
+                }
+                case Op.LOCAL -> {
+                    frame[code[pc + 1]] = Interpreter.instantiate((String) constants[code[pc + 2]]);
+                    pc += 3;
+                }
+                case Op.LOCAL_INIT -> {
+                    var local = Interpreter.instantiate((String) constants[code[pc + 2]]);
+                    local.Assign(frame[--sp]);
+                    frame[code[pc + 1]] = local;
+                    pc += 3;
+                }
+                case Op.TIMES -> {
+                    var site = (Chunk.LoopSite) constants[code[pc + 1]];
+                    var times = site.times != null ? variable(site.times, frame, object) : member(site.timesName, object);
+                    if (times instanceof NumberIDT) {
+                        if (counts == null) counts = new int[frame.length];
+                        frame[sp++] = times;
+                        counts[sp++] = 0;
+                        pc += 3;
+                    } else {
+                        pc = code[pc + 2];
+                    }
+                }
+                case Op.TIMES_NEXT -> {
+                    var site = (Chunk.LoopSite) constants[code[pc + 1]];
+                    int count = counts[sp - 1];
+                    if (count < ((NumberIDT) frame[sp - 2]).Value) {
+                        if (site.variable != null) variable(site.variable, frame, object).Assign(new NumberIDT(count));
+                        counts[sp - 1] = count + 1;
+                        pc += 3;
+                    } else {
+                        sp -= 2;
+                        pc = code[pc + 2];
+                    }
+                }
+                case Op.LOOP_TEST -> {
+                    var site = (Chunk.LoopSite) constants[code[pc + 1]];
+                    boolean keepGoing = condition(frame[--sp], site.condition);
+                    if (site.variable != null) variable(site.variable, frame, object).Assign(new BooleanIDT(keepGoing));
+                    pc = keepGoing ? pc + 3 : code[pc + 2];
+                }
+                case Op.RETURN -> {
+                    dispatches += executed;
+                    return sp > chunk.variables ? frame[sp - 1] : null;
+                }
+                default -> throw new IllegalStateException("Bad opcode " + code[pc] + " at " + pc + " in " + chunk.name);
+            }
+        }
+    }
+
+    @Override
+    InterpreterDataType[] invoke(ObjectIDT object, MethodDeclarationNode m, List<InterpreterDataType> values, Chunk.CallSite site) {
+        var builtIn = builtIn(m, values);
+        if (builtIn != null) return builtIn;
+        Chunk chunk;
+        if (site != null && site.lastMethod == m) {
+            chunk = (Chunk) site.lastCode;
+        } else {
+            chunk = chunk(m);
+            if (site != null) {
+                site.lastMethod = m;
+                site.lastCode = chunk;
+            }
+        }
+        var frame = new InterpreterDataType[chunk.variables + chunk.maxStack];
+        setParameters(frame, m, values);
+        execute(chunk, frame, object);
+        return Arrays.copyOfRange(frame, m.parameters.size(), m.parameters.size() + m.returns.size());
+    }
+
+    @Override
+    InterpreterDataType initialize(VariableDeclarationNode member, ObjectIDT object) {
+        var chunk = chunk(member);
+        return execute(chunk, new InterpreterDataType[chunk.maxStack], object);
+    }
+
+    @Override
+    void runConstructor(ObjectIDT object, ConstructorNode constructor, List<InterpreterDataType> values) {
+        var chunk = chunk(constructor, object.astNode);
+        var frame = new InterpreterDataType[chunk.variables + chunk.maxStack];
+        setParameters(frame, constructor.parameters, values);
+        execute(chunk, frame, object);
+    }
+}
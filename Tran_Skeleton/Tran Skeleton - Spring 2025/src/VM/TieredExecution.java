@@ -0,0 +1,277 @@
+package VM;
+
+import AST.*;
+import Interpreter.*;
+import Tran.Linker;
+import Tran.SyntaxErrorException;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs a program in tiers. The Interpreter runs every method at first, and counts the times each method is called and
+ * the times its loops go round. When the two add up to the threshold, the method is compiled to JVM code (see
+ * JvmCompiler) on a background thread, while the Interpreter keeps running it. The compiled code is then swapped in
+ * as the method's entry point, and the next call runs it.
+ *      var tiers = new TieredExecution(1000);
+ *      new Interpreter(tran, tiers).start();
+ *      tiers.promotions()      //which methods were compiled, and when
+ * Compiled code calls methods through this too, so a method it calls that is not compiled yet is interpreted (and
+ * counted). A constructor or member initializer run by compiled code is compiled the first time it runs, as in the
+ * JvmMachine.
+ * A method that is called once and spends its time in a loop would not get to run its compiled code, so each loop is
+ * counted on its own too, and compiled when it has gone round threshold times, to be entered part way through (see
+ * JvmCompiler.compileLoop()). At the end of the next time round, the Interpreter hands its frame over and the compiled
+ * code runs the rest of the loop (on-stack replacement).
+ */
+public class TieredExecution implements Tier {
+    private final int threshold;
+    private final IdentityHashMap<MethodDeclarationNode, Profile> profiles = new IdentityHashMap<>();
+    private final IdentityHashMap<LoopNode, LoopProfile> loops = new IdentityHashMap<>();
+    private final List<Promotion> promotions = new CopyOnWriteArrayList<>();
+    private final ThreadPoolExecutor compiler = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), run -> {
+                var thread = new Thread(run, "Tran compiler");
+                thread.setDaemon(true);
+                return thread;
+            });
+    private Interpreter interpreter;
+    private Compiled machine;
+    private long started;
+    /**
+     * The number of calls that ran compiled code
+     */
+    public long compiledCalls;
+    /**
+     * The number of loops whose rest ran compiled code
+     */
+    public long compiledLoops;
+
+    /**
+     * What is known about one method while it runs. Only the Interpreter's thread counts, the compiler's thread sets
+     * the code
+     */
+    private static final class Profile {
+        final MethodDeclarationNode m;
+        int invocations;
+        int backEdges;
+        boolean queued;
+        volatile JvmCode code;      //the entry point, once it is compiled
+
+        Profile(MethodDeclarationNode m) {
+            this.m = m;
+        }
+    }
+
+    /**
+     * What is known about one loop in a method, as for a Profile. The code carries on the loop counting when counted
+     * is true, and on its condition otherwise
+     */
+    private static final class LoopProfile {
+        final Profile method;
+        final LoopNode loop;
+        int backEdges;
+        boolean queued;
+        boolean counted;
+        volatile JvmCode code;
+
+        LoopProfile(Profile method, LoopNode loop) {
+            this.method = method;
+            this.loop = loop;
+        }
+    }
+
+    /**
+     * A method (or loop) that was handed to the compiler: the counts when it was, the times (since the program started)
+     * it was handed over and its code was ready, and what the compiler threw if it could not compile it
+     */
+    public record Promotion(String method, int invocations, int backEdges, long queuedNanos, long readyNanos, Throwable failure) {
+        public boolean compiled() {
+            return failure == null;
+        }
+
+        @Override
+        public String toString() {
+            String result = compiled() ? "compiled" : "not compiled (" + failure + ")";
+            return String.format("%s after %d calls and %d loops: queued at %.3f ms, %s at %.3f ms", method, invocations,
+                    backEdges, queuedNanos / 1e6, result, readyNanos / 1e6);
+        }
+    }
+
+    /**
+     * @param threshold - the number of calls and times round its loops that makes a method hot
+     */
+    public TieredExecution(int threshold) {
+        this.threshold = threshold;
+        compiler.allowCoreThreadTimeOut(true);     //the compiler's thread ends when it has had nothing to do for a second
+    }
+
+    @Override
+    public void attach(Interpreter interpreter, TranNode top, Linker linker) {
+        this.interpreter = interpreter;
+        machine = new Compiled(top, linker);
+        started = System.nanoTime();
+    }
+
+    /**
+     * @return the methods compiled so far, in the order they were
+     */
+    public List<Promotion> promotions() {
+        return List.copyOf(promotions);
+    }
+
+    /**
+     * Waits for the methods handed to the compiler so far to be compiled
+     */
+    public void awaitCompilations() {
+        try {
+            compiler.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public List<InterpreterDataType> invoke(Optional<ObjectIDT> object, MethodDeclarationNode m, List<InterpreterDataType> values) {
+        var results = enter(object.orElse(null), m, values);
+        return results == null ? null : Arrays.asList(results);
+    }
+
+    /**
+     * Counts a call, and runs it if the method is compiled
+     * @return the values of its returns, or null when it is not compiled
+     */
+    private InterpreterDataType[] enter(ObjectIDT object, MethodDeclarationNode m, List<InterpreterDataType> values) {
+        var profile = profile(m);
+        profile.invocations++;
+        var code = profile.code;
+        if (code != null) {
+            compiledCalls++;
+            return machine.run(code, object, m, values);
+        }
+        if (!profile.queued && profile.invocations + profile.backEdges >= threshold) queue(profile);
+        return null;
+    }
+
+    /**
+     * Counts a time round a loop, for the loop and its method, and runs the rest of the loop if it is compiled. A count
+     * a float cannot hold exactly is left to the Interpreter
+     */
+    @Override
+    public boolean backEdge(LoopNode loop, Optional<ObjectIDT> object, InterpreterDataType[] locals, int count) {
+        var profile = loops.get(loop);
+        if (profile == null) return false;      //a loop in a constructor
+        var method = profile.method;
+        method.backEdges++;
+        if (!method.queued && method.invocations + method.backEdges >= threshold) queue(method);
+        profile.backEdges++;
+        var code = profile.code;
+        if (code != null && profile.counted == (count >= 0) && count < 1 << 24) {
+            compiledLoops++;
+            var frame = locals;
+            if (count >= 0) {
+                frame = Arrays.copyOf(locals, locals.length + 1);
+                frame[locals.length] = new NumberIDT(count);
+            }
+            code.run(machine, object.orElse(null), frame);
+            return true;
+        }
+        if (!profile.queued && profile.backEdges >= threshold) queue(profile, count >= 0);
+        return false;
+    }
+
+    private Profile profile(MethodDeclarationNode m) {
+        var profile = profiles.get(m);
+        if (profile == null) {
+            try {
+                m.parseBody();
+            } catch (SyntaxErrorException e) {
+                throw new RuntimeException(e);
+            }
+            profile = new Profile(m);
+            profiles.put(m, profile);
+            addLoops(m.statements, profile);
+        }
+        return profile;
+    }
+
+    private void addLoops(List<StatementNode> statements, Profile profile) {
+        for (var statement : statements) {
+            if (statement instanceof LoopNode loop) {
+                loops.put(loop, new LoopProfile(profile, loop));
+                addLoops(loop.statements, profile);
+            } else if (statement instanceof IfNode ifNode) {
+                addLoops(ifNode.statements, profile);
+                ifNode.elseStatement.ifPresent(e -> addLoops(e.statements, profile));
+            }
+        }
+    }
+
+    /**
+     * Hands a method to the compiler's thread. Its code is written to the profile when it is ready, and a method that
+     * cannot be compiled, whatever the compiler or the JVM threw, is interpreted from then on
+     */
+    private void queue(Profile profile) {
+        profile.queued = true;
+        var owner = machine.owner(profile.m);
+        queue(owner.name + "." + profile.m.name, profile.invocations, profile.backEdges,
+                () -> JvmCompiler.compile(profile.m, owner), code -> profile.code = code);
+    }
+
+    /**
+     * Hands a loop to the compiler's thread, as for a method
+     * @param counted - whether the Interpreter is running it as counting
+     */
+    private void queue(LoopProfile profile, boolean counted) {
+        profile.queued = true;
+        profile.counted = counted;
+        var m = profile.method.m;
+        var owner = machine.owner(m);
+        String name = owner.name + "." + m.name + " loop " + profile.loop.expression.toString().strip();
+        queue(name, profile.method.invocations, profile.backEdges,
+                () -> JvmCompiler.compileLoop(m, owner, profile.loop, counted), code -> profile.code = code);
+    }
+
+    private void queue(String name, int invocations, int backEdges, Supplier<JvmCode> compile, Consumer<JvmCode> ready) {
+        long queued = System.nanoTime() - started;
+        compiler.execute(() -> {
+            JvmCode code = null;
+            Throwable failure = null;
+            try {
+                code = compile.get();
+            } catch (CannotCompileException | LinkageError e) {
+                failure = e;        //stays interpreted, also when the class was not valid (a VerifyError)
+            }
+            ready.accept(code);
+            promotions.add(new Promotion(name, invocations, backEdges, queued, System.nanoTime() - started, failure));
+        });
+    }
+
+    /**
+     * The machine compiled code runs in: the methods it calls are run by the TieredExecution
+     */
+    private final class Compiled extends JvmMachine {
+        Compiled(TranNode top, Linker linker) {
+            super(top, linker);
+        }
+
+        @Override
+        InterpreterDataType[] invoke(ObjectIDT object, MethodDeclarationNode m, List<InterpreterDataType> values, Chunk.CallSite site) {
+            var builtIn = builtIn(m, values);
+            if (builtIn != null) return builtIn;
+            var results = enter(object, m, values);
+            return results != null ? results : interpreter.interpret(object, m, values).toArray(new InterpreterDataType[0]);
+        }
+    }
+}